@@ -239,5 +239,8 @@ public class Scene implements Disposable {
             skybox.dispose();
         }
         modelCacheManager.dispose();
+        if (sceneRenderer instanceof Disposable) {
+            ((Disposable) sceneRenderer).dispose();
+        }
     }
 }
@@ -18,4 +18,5 @@ public class SceneSettings {
 
     // Performance
     public boolean useFrustumCulling = true;
+    public boolean useInstancing = true;
 }
@@ -16,21 +16,30 @@
 package com.mbrlabs.mundus.commons.assets;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.assets.loaders.resolvers.AbsoluteFileHandleResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
 import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.UBJsonReader;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.mbrlabs.mundus.commons.assets.bundle.AssetBundle;
 import com.mbrlabs.mundus.commons.assets.meta.Meta;
 import com.mbrlabs.mundus.commons.assets.meta.MetaFileParseException;
 import com.mbrlabs.mundus.commons.assets.meta.MetaLoader;
+import com.mbrlabs.mundus.commons.assets.meta.MetaTerrain;
 import com.mbrlabs.mundus.commons.g3d.MG3dModelLoader;
+import com.mbrlabs.mundus.commons.terrain.TerraFile;
 import com.mbrlabs.mundus.commons.terrain.Terrain;
 import com.mbrlabs.mundus.commons.terrain.TerrainLoader;
 import com.mbrlabs.mundus.commons.utils.FileFormatUtils;
@@ -45,6 +54,10 @@ import java.util.Map;
 
 /**
  * Read-only asset manager.
+ * <p>
+ * Meta files are parsed once, in parallel. Textures, pixmaps and terrains are decoded on a pool of
+ * loading threads and only their GL resources are created on the render thread, in
+ * {@link #continueLoading()} or {@link #finishLoading()}. Models are loaded by the libGDX asset manager.
  *
  * @author Marcus Brummer
  * @version 06-10-2016
@@ -53,18 +66,37 @@ import java.util.Map;
 public class AssetManager implements Disposable {
 
     private static final String TAG = AssetManager.class.getSimpleName();
+    // Time per continueLoading call spent on the render thread
+    private static final int FRAME_BUDGET_MILLIS = 17;
 
     protected FileHandle rootFolder;
     protected FileHandle[] metaFiles;
-    protected final MetaLoader metaLoader = new MetaLoader();
+    // Parsed meta files, in the order of metaFiles
+    protected Array<Meta> metas;
 
     protected Array<Asset> assets;
     protected Map<String, Asset> assetIndex;
+    // Indexes next to assetIndex, kept up to date by addAsset and removeAsset
+    private final Map<String, Asset> fileNameIndex = new HashMap<>();
+    private final Map<AssetType, Array<Asset>> typeIndex = new HashMap<>();
     protected com.badlogic.gdx.assets.AssetManager gdxAssetManager;
 
     // Tracks the highest bone count out of all loaded model assets
     public int maxNumBones = 0;
 
+    // Load terrains with the compact vertex layout, see Terrain#setCompactVertices
+    public boolean compactTerrainVertices = false;
+
+    // Threads parsing meta files and decoding assets, must be set before queueAssetsForLoading
+    public int loadingThreads = 4;
+
+    private AssetBundle bundle;
+    private AsyncExecutor executor;
+    // Decoding or decoded assets waiting for the render thread
+    private final Array<DecodeTask<?>> decodeTasks = new Array<>();
+    private int decodedCount;
+    private int gdxQueuedCount;
+
     /**
      * Asset manager constructor.
      *
@@ -75,6 +107,23 @@ public class AssetManager implements Disposable {
         this.rootFolder = assetsFolder;
         this.assets = new Array<>();
         this.assetIndex = new HashMap<>();
+        for (AssetType type : AssetType.values()) {
+            typeIndex.put(type, new Array<Asset>());
+        }
+    }
+
+    /**
+     * Loads the assets from a bundle instead of the files in the assets folder. Must be set before
+     * {@link #queueAssetsForLoading(boolean)}.
+     *
+     * @param bundle the bundle, or null to load the files in the assets folder
+     */
+    public void setBundle(AssetBundle bundle) {
+        this.bundle = bundle;
+    }
+
+    public AssetBundle getBundle() {
+        return bundle;
     }
 
     /**
@@ -97,17 +146,28 @@ public class AssetManager implements Disposable {
         return assetIndex.get(id);
     }
 
+    /**
+     * Returns an asset by id, if it is of the given type.
+     *
+     * @param id id of asset
+     * @param type class of the asset
+     * @return matching asset or null if there is none or it is of another type
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Asset> T findAssetByID(String id, Class<T> type) {
+        Asset asset = findAssetByID(id);
+        if (asset == null || !ClassReflection.isInstance(type, asset)) return null;
+        return (T) asset;
+    }
+
     /**
      * Returns an asset by filename, else null if not found.
      * @param fileName the filename to search
-     * @return matching asset or null
+     * @return matching asset or null, the first added one if several have the name
      */
     public Asset findAssetByFileName(String fileName) {
-        for (Asset asset : assets) {
-            if (asset.file.name().equals(fileName))
-                return asset;
-        }
-        return null;
+        if (fileName == null) return null;
+        return fileNameIndex.get(fileName);
     }
 
     public Map<String, Asset> getAssetMap() {
@@ -119,6 +179,34 @@ public class AssetManager implements Disposable {
         if (assetIndex.get(asset.getID()) == null) {
             assets.add(asset);
             assetIndex.put(asset.getID(), asset);
+            typeIndex.get(asset.getMeta().getType()).add(asset);
+            if (!fileNameIndex.containsKey(asset.file.name())) {
+                fileNameIndex.put(asset.file.name(), asset);
+            }
+        }
+    }
+
+    /**
+     * Removes an asset from the manager, without disposing it.
+     *
+     * @param asset the asset to remove
+     */
+    public void removeAsset(Asset asset) {
+        if (asset == null) return;
+        assets.removeValue(asset, true);
+        assetIndex.remove(asset.getID());
+        typeIndex.get(asset.getMeta().getType()).removeValue(asset, true);
+
+        String fileName = asset.file.name();
+        if (fileNameIndex.get(fileName) == asset) {
+            fileNameIndex.remove(fileName);
+            // Next asset of the same name, if any
+            for (Asset other : assets) {
+                if (other.file.name().equals(fileName)) {
+                    fileNameIndex.put(fileName, other);
+                    break;
+                }
+            }
         }
     }
 
@@ -132,51 +220,46 @@ public class AssetManager implements Disposable {
     }
 
     /**
-     * Returns all assets of type MODEL.
+     * Returns all assets of the given type. The array is owned by the manager and must not be modified.
+     *
+     * @param type the asset type
+     * @return assets of the type
+     */
+    public Array<Asset> getAssetsByType(AssetType type) {
+        return typeIndex.get(type);
+    }
+
+    /**
+     * Returns all assets of type MODEL. The array is owned by the manager and must not be modified.
      *
      * @return all model assets
      */
     public Array<ModelAsset> getModelAssets() {
-        Array<ModelAsset> models = new Array<>();
-        for (Asset asset : assets) {
-            if (asset instanceof ModelAsset) {
-                models.add((ModelAsset) asset);
-            }
-        }
-
-        return models;
+        return getTypedAssets(AssetType.MODEL);
     }
 
     /**
-     * Returns all assets of type TERRAIN.
+     * Returns all assets of type TERRAIN. The array is owned by the manager and must not be modified.
      *
-     * @return all model assets
+     * @return all terrain assets
      */
     public Array<TerrainAsset> getTerrainAssets() {
-        Array<TerrainAsset> terrains = new Array<>();
-        for (Asset asset : assets) {
-            if (asset instanceof TerrainAsset) {
-                terrains.add((TerrainAsset) asset);
-            }
-        }
-
-        return terrains;
+        return getTypedAssets(AssetType.TERRAIN);
     }
 
     /**
-     * Returns all assets of type MATERIAL.
+     * Returns all assets of type MATERIAL. The array is owned by the manager and must not be modified.
      *
-     * @return all model assets
+     * @return all material assets
      */
     public Array<MaterialAsset> getMaterialAssets() {
-        Array<MaterialAsset> materials = new Array<>();
-        for (Asset asset : assets) {
-            if (asset instanceof MaterialAsset) {
-                materials.add((MaterialAsset) asset);
-            }
-        }
+        return getTypedAssets(AssetType.MATERIAL);
+    }
 
-        return materials;
+    // Assets of a type are all of the same class, see loadAsset
+    @SuppressWarnings("unchecked")
+    private <T extends Asset> Array<T> getTypedAssets(AssetType type) {
+        return (Array<T>) typeIndex.get(type);
     }
 
     /**
@@ -194,7 +277,10 @@ public class AssetManager implements Disposable {
         String[] files;
         FileHandle fileList;
 
-        if (isRuntime) {
+        if (bundle != null) {
+            // Files are read from the bundle
+            gdxAssetManager = new com.badlogic.gdx.assets.AssetManager(bundle);
+        } else if (isRuntime) {
             // assets.txt has relative/internal paths
             gdxAssetManager = new com.badlogic.gdx.assets.AssetManager(new InternalFileHandleResolver());
         } else {
@@ -203,7 +289,14 @@ public class AssetManager implements Disposable {
             gdxAssetManager = new com.badlogic.gdx.assets.AssetManager(new AbsoluteFileHandleResolver());
         }
 
-        if (isRuntime) {
+        if (bundle != null) {
+            // The metas are in the table of contents of the bundle, assets.txt is not needed
+            metas = bundle.loadMetas();
+            metaFiles = new FileHandle[metas.size];
+            for (int i = 0; i < metas.size; i++) {
+                metaFiles[i] = metas.get(i).getFile();
+            }
+        } else if (isRuntime) {
             // Desktop applications cannot use .list() for internal jar files.
             // Application will need to provide an assets.txt file listing all Mundus assets
             // in the Mundus root directory.
@@ -230,29 +323,59 @@ public class AssetManager implements Disposable {
         gdxAssetManager.setLoader(SceneAsset.class, ".glb", new GLBAssetLoader());
         gdxAssetManager.setLoader(Model.class, ".g3db", new MG3dModelLoader(new UBJsonReader(), gdxAssetManager.getFileHandleResolver()));
 
-        // Queue files for async loading into LibGDX's assetManager
-        for (FileHandle meta : metaFiles) {
-            Meta m = metaLoader.load(meta);
+        // Parse once, finalizeLoad works on the parsed metas
+        if (bundle == null) {
+            metas = parseMetaFiles(metaFiles);
+        }
+
+        // Queue files for decoding on the loading threads or for async loading into LibGDX's assetManager
+        for (Meta m : metas) {
             queueAssetForLoading(m);
         }
     }
 
+    /**
+     * Parses the meta files on the loading threads.
+     *
+     * @return the parsed metas, in the order of the files
+     */
+    private Array<Meta> parseMetaFiles(FileHandle[] files) throws MetaFileParseException {
+        Array<AsyncResult<Meta>> results = new Array<>(files.length);
+        for (final FileHandle file : files) {
+            results.add(getExecutor().submit(new AsyncTask<Meta>() {
+                @Override
+                public Meta call() throws Exception {
+                    // MetaLoader is not thread safe
+                    return new MetaLoader().load(file);
+                }
+            }));
+        }
+
+        Array<Meta> parsed = new Array<>(files.length);
+        for (AsyncResult<Meta> result : results) {
+            try {
+                parsed.add(result.get());
+            } catch (GdxRuntimeException e) {
+                if (e.getCause() instanceof MetaFileParseException) {
+                    throw (MetaFileParseException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return parsed;
+    }
+
     protected void queueAssetForLoading(Meta m) {
         String filePath = m.getFile().pathWithoutExtension();
         switch (m.getType()) {
             case TEXTURE:
-                // These are hard coded for now
-                TextureLoader.TextureParameter param = new TextureLoader.TextureParameter();
-                param.genMipMaps = true;
-                param.minFilter = Texture.TextureFilter.MipMapLinearLinear;
-                param.magFilter = Texture.TextureFilter.Linear;
-
-                gdxAssetManager.load(filePath, Texture.class, param);
+                decode(new TextureDecodeTask(filePath, resolve(filePath)));
                 break;
             case PIXMAP_TEXTURE:
-                gdxAssetManager.load(filePath, Pixmap.class);
+                decode(new PixmapDecodeTask(filePath, resolve(filePath)));
                 break;
             case MODEL:
+                gdxQueuedCount++;
                 if (FileFormatUtils.isG3DB(filePath)) {
                     gdxAssetManager.load(filePath, Model.class);
                 } else if (FileFormatUtils.isGLTF(filePath)) {
@@ -264,8 +387,8 @@ public class AssetManager implements Disposable {
                 }
                 break;
             case TERRAIN:
-                TerrainLoader.TerrainParameter terrainParameter = new TerrainLoader.TerrainParameter(m.getTerrain());
-                gdxAssetManager.load(filePath, Terrain.class, terrainParameter);
+                decode(new TerrainDecodeTask(filePath, resolve(filePath), m.getTerrain(), compactTerrainVertices));
+                break;
             case MATERIAL:
                 // loads synchronously
                 break;
@@ -285,7 +408,10 @@ public class AssetManager implements Disposable {
      * @return boolean indicating if asynchronous loading is complete
      */
     public boolean continueLoading() throws MetaFileParseException, AssetNotFoundException {
-        boolean complete = gdxAssetManager.update(17);
+        long start = TimeUtils.millis();
+        boolean decoded = finishDecodedAssets(start + FRAME_BUDGET_MILLIS);
+        int remaining = (int) Math.max(1, FRAME_BUDGET_MILLIS - TimeUtils.timeSinceMillis(start));
+        boolean complete = gdxAssetManager.update(remaining) && decoded;
         if (complete) {
             finalizeLoad();
         }
@@ -297,7 +423,17 @@ public class AssetManager implements Disposable {
      * @return progress percentage
      */
     public float getProgress() {
-        return gdxAssetManager.getProgress();
+        int total = gdxQueuedCount + decodedCount + decodeTasks.size;
+        if (total == 0) return 1f;
+        return (gdxAssetManager.getProgress() * gdxQueuedCount + decodedCount) / total;
+    }
+
+    /**
+     * Blocks until all queued assets are loaded, without finalizing them.
+     */
+    public void finishLoading() {
+        gdxAssetManager.finishLoading();
+        finishDecodedAssets(Long.MAX_VALUE);
     }
 
     /**
@@ -305,11 +441,11 @@ public class AssetManager implements Disposable {
      */
     public void finalizeLoad() throws AssetNotFoundException, MetaFileParseException {
         // Ensure loading is complete before continuing
-        gdxAssetManager.finishLoading();
+        finishLoading();
 
         // finalize loading of Mundus assets
-        for (FileHandle meta : metaFiles) {
-            loadAsset(metaLoader.load(meta));
+        for (Meta meta : metas) {
+            loadAsset(meta);
         }
 
         // resolve material assets
@@ -332,6 +468,48 @@ public class AssetManager implements Disposable {
         }
     }
 
+    private FileHandle resolve(String fileName) {
+        return gdxAssetManager.getFileHandleResolver().resolve(fileName);
+    }
+
+    private AsyncExecutor getExecutor() {
+        if (executor == null) {
+            executor = new AsyncExecutor(Math.max(1, loadingThreads), TAG);
+        }
+        return executor;
+    }
+
+    private void decode(DecodeTask<?> task) {
+        task.result = getExecutor().submit(task);
+        decodeTasks.add(task);
+    }
+
+    /**
+     * Creates the GL resources of decoded assets on the render thread and adds them to the libGDX asset
+     * manager, which owns them as if it had loaded them. At least one asset is finished per call if one
+     * is decoded, then it stops at the deadline. Waits for all decode tasks if the deadline is
+     * {@link Long#MAX_VALUE}.
+     *
+     * @param deadline time in milliseconds, see {@link TimeUtils#millis()}
+     * @return true if no decode tasks are left
+     */
+    private boolean finishDecodedAssets(long deadline) {
+        boolean wait = deadline == Long.MAX_VALUE;
+        for (int i = 0; i < decodeTasks.size; i++) {
+            DecodeTask<?> task = decodeTasks.get(i);
+            if (!wait && !task.result.isDone()) continue;
+
+            decodeTasks.removeIndex(i--);
+            // Rethrows decoding errors
+            task.result.get();
+            task.addTo(gdxAssetManager);
+            decodedCount++;
+
+            if (TimeUtils.millis() > deadline) break;
+        }
+        return decodeTasks.size == 0;
+    }
+
     /**
      * Get an array of Meta FileHandles for the given String array of file names.
      *
@@ -451,6 +629,11 @@ public class AssetManager implements Disposable {
 
     @Override
     public void dispose() {
+        if (executor != null) {
+            // Waits for running tasks
+            executor.dispose();
+            executor = null;
+        }
         Gdx.app.log(TAG, "Disposing assets...");
         for (Asset asset : assets) {
             asset.dispose();
@@ -458,6 +641,10 @@ public class AssetManager implements Disposable {
         Gdx.app.log(TAG, "Assets disposed");
         assets.clear();
         assetIndex.clear();
+        fileNameIndex.clear();
+        for (Array<Asset> typeAssets : typeIndex.values()) {
+            typeAssets.clear();
+        }
     }
 
     /**
@@ -469,6 +656,104 @@ public class AssetManager implements Disposable {
         return string.split(separator);
     }-*/;
 
+    /**
+     * Decodes the data of an asset on a loading thread in {@link #call()}. {@link #finish()} then creates
+     * its GL resources on the render thread.
+     */
+    private abstract static class DecodeTask<T> implements AsyncTask<Void> {
+        final String fileName;
+        final Class<T> type;
+        final FileHandle file;
+        AsyncResult<Void> result;
+
+        DecodeTask(String fileName, Class<T> type, FileHandle file) {
+            this.fileName = fileName;
+            this.type = type;
+            this.file = file;
+        }
+
+        abstract T finish();
+
+        void addTo(com.badlogic.gdx.assets.AssetManager gdxAssetManager) {
+            gdxAssetManager.addAsset(fileName, type, finish());
+        }
+    }
+
+    private static class TextureDecodeTask extends DecodeTask<Texture> {
+        private TextureData data;
+
+        TextureDecodeTask(String fileName, FileHandle file) {
+            super(fileName, Texture.class, file);
+        }
+
+        @Override
+        public Void call() throws Exception {
+            // Mipmaps and filters are hard coded for now
+            data = TextureData.Factory.loadFromFile(file, true);
+            if (!data.isPrepared()) data.prepare();
+            return null;
+        }
+
+        @Override
+        Texture finish() {
+            Texture texture = new Texture(data);
+            texture.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+            data = null;
+            return texture;
+        }
+    }
+
+    private static class PixmapDecodeTask extends DecodeTask<Pixmap> {
+        private Pixmap pixmap;
+
+        PixmapDecodeTask(String fileName, FileHandle file) {
+            super(fileName, Pixmap.class, file);
+        }
+
+        @Override
+        public Void call() throws Exception {
+            pixmap = new Pixmap(file);
+            return null;
+        }
+
+        @Override
+        Pixmap finish() {
+            Pixmap pixmap = this.pixmap;
+            this.pixmap = null;
+            return pixmap;
+        }
+    }
+
+    private static class TerrainDecodeTask extends DecodeTask<Terrain> {
+        private final MetaTerrain metaTerrain;
+        private final boolean compactVertices;
+        private Terrain terrain;
+
+        TerrainDecodeTask(String fileName, FileHandle file, MetaTerrain metaTerrain, boolean compactVertices) {
+            super(fileName, Terrain.class, file);
+            this.metaTerrain = metaTerrain;
+            this.compactVertices = compactVertices;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            // Heights, vertices, normals and tangents, only the meshes are left for the render thread
+            terrain = new Terrain(metaTerrain.getSize(), TerraFile.read(file));
+            terrain.setCompactVertices(compactVertices);
+            terrain.updateUvScale(new Vector2(metaTerrain.getUv(), metaTerrain.getUv()));
+            terrain.prepare();
+            return null;
+        }
+
+        @Override
+        Terrain finish() {
+            Terrain terrain = this.terrain;
+            this.terrain = null;
+            terrain.init();
+            return terrain;
+        }
+    }
+
     /**
      * Used to inform users about the current loading status.
      */
@@ -15,16 +15,28 @@
  */
 package com.mbrlabs.mundus.commons.assets;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.Attribute;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.glutils.IndexBufferObject;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.UBJsonReader;
 import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import com.mbrlabs.mundus.commons.assets.meta.MetaLod;
 import com.mbrlabs.mundus.commons.assets.meta.MetaModel;
 import com.mbrlabs.mundus.commons.g3d.MG3dModelLoader;
 import com.mbrlabs.mundus.commons.utils.FileFormatUtils;
@@ -34,6 +46,8 @@ import net.mgsx.gltf.loaders.gltf.GLTFLoader;
 import net.mgsx.gltf.scene3d.scene.SceneAsset;
 import org.w3c.dom.Attr;
 
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -52,6 +66,13 @@ public class ModelAsset extends Asset {
     private final Map<String, MaterialAsset> defaultMaterials;
     private final Array<Material> initialModelMaterials; // The initial materials for the model, before mundus modifies them
 
+    // LODs, see buildLods()
+    private ModelLodData lodData;
+    private final Array<Mesh> lodMeshes = new Array<>();
+    private final Array<ModelAsset> lodModels = new Array<>();
+    private MeshPart[][] lodMeshParts; // [mesh part][level], level 0 is the mesh part of the model
+    private float[] lodScreenSizes;
+
     public ModelAsset(Meta meta, FileHandle assetFile) {
         super(meta, assetFile);
         defaultMaterials = new HashMap<>();
@@ -84,6 +105,7 @@ public class ModelAsset extends Asset {
 
         copyMaterials();
         updateBoneCount();
+        loadLodData();
      }
 
     @Override
@@ -99,6 +121,7 @@ public class ModelAsset extends Asset {
 
         copyMaterials();
         updateBoneCount();
+        loadLodData();
     }
 
     @Override
@@ -109,6 +132,8 @@ public class ModelAsset extends Asset {
             String uuid = metaModel.getDefaultMaterials().get(g3dbMatID);
             defaultMaterials.put(g3dbMatID, (MaterialAsset) assets.get(uuid));
         }
+
+        buildLods(assets);
     }
 
     @Override
@@ -123,15 +148,200 @@ public class ModelAsset extends Asset {
         }
     }
 
+    /**
+     * Sets the indices of the generated LOD levels, call {@link #buildLods(Map)} after.
+     *
+     * @param lodData the LOD data, or null to remove generated LODs
+     */
+    public void setLodData(ModelLodData lodData) {
+        this.lodData = lodData;
+    }
+
+    public ModelLodData getLodData() {
+        return lodData;
+    }
+
+    /**
+     * Builds the mesh parts of the LOD levels in the meta file. Generated levels of a mesh share one new
+     * index buffer with the simplified indices of all its mesh parts, drawn with the vertices of the mesh.
+     * Levels supplied by hand use the mesh parts of their model asset, matched by index. Mesh parts without
+     * a LOD for a level use the previous level.
+     *
+     * @param assets all assets by uuid, used to resolve hand supplied levels. May be null.
+     */
+    public void buildLods(Map<String, Asset> assets) {
+        disposeLods();
+
+        MetaModel metaModel = meta.getModel();
+        if (model == null || metaModel == null || metaModel.getLods().size == 0) return;
+
+        Array<MetaLod> lods = metaModel.getLods();
+        Array<MeshPart> parts = model.meshParts;
+        int levels = lods.size + 1;
+
+        lodMeshParts = new MeshPart[parts.size][levels];
+        lodScreenSizes = new float[levels];
+        lodScreenSizes[0] = Float.MAX_VALUE;
+        for (int p = 0; p < parts.size; p++) {
+            lodMeshParts[p][0] = parts.get(p);
+        }
+
+        for (int level = 1; level < levels; level++) {
+            MetaLod lod = lods.get(level - 1);
+            lodScreenSizes[level] = lod.getScreenSize();
+            if (!lod.isGenerated()) {
+                applyModelLod(level, assets != null ? assets.get(lod.getModelId()) : null);
+            }
+        }
+
+        if (lodData != null) {
+            if (lodData.getLevelCount() != lods.size || lodData.getMeshPartCount() != parts.size) {
+                Gdx.app.error(getClass().getSimpleName(), "LOD file does not match model " + getName() + ", generated LODs are ignored.");
+            } else {
+                for (Mesh mesh : model.meshes) {
+                    buildLodMesh(mesh);
+                }
+            }
+        }
+
+        // Fall back to the previous level where no LOD exists
+        for (int p = 0; p < parts.size; p++) {
+            for (int level = 1; level < levels; level++) {
+                if (lodMeshParts[p][level] == null) {
+                    lodMeshParts[p][level] = lodMeshParts[p][level - 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of LOD levels including the model itself, 1 if the model has no LODs
+     */
+    public int getLodCount() {
+        return lodMeshParts == null ? 1 : lodScreenSizes.length;
+    }
+
+    /**
+     * @param level the LOD level
+     * @return projected size as fraction of the screen height below which the level is used
+     */
+    public float getLodScreenSize(int level) {
+        return lodScreenSizes == null ? Float.MAX_VALUE : lodScreenSizes[level];
+    }
+
+    /**
+     * @param meshPartIndex index of the mesh part in the model, see {@link #getMeshPartIndex(MeshPart)}
+     * @param level the LOD level
+     * @return the mesh part to render for the level
+     */
+    public MeshPart getLodMeshPart(int meshPartIndex, int level) {
+        if (lodMeshParts == null) return model.meshParts.get(meshPartIndex);
+        return lodMeshParts[meshPartIndex][level];
+    }
+
+    /**
+     * @param meshPart a mesh part of the model, or an equal copy of it
+     * @return index of the mesh part in the model, -1 if not found
+     */
+    public int getMeshPartIndex(MeshPart meshPart) {
+        return model.meshParts.indexOf(meshPart, false);
+    }
+
+    private void applyModelLod(int level, Asset asset) {
+        if (!(asset instanceof ModelAsset) || ((ModelAsset) asset).getModel() == null) {
+            Gdx.app.error(getClass().getSimpleName(), "LOD model for level " + level + " of " + getName() + " not found.");
+            return;
+        }
+
+        Array<MeshPart> lodParts = ((ModelAsset) asset).getModel().meshParts;
+        if (lodParts.size != model.meshParts.size) {
+            Gdx.app.error(getClass().getSimpleName(), "LOD model for level " + level + " of " + getName() + " must have the same number of mesh parts.");
+            return;
+        }
+
+        for (int p = 0; p < lodParts.size; p++) {
+            lodMeshParts[p][level] = lodParts.get(p);
+        }
+        lodModels.add((ModelAsset) asset);
+    }
+
+    private void buildLodMesh(Mesh mesh) {
+        Array<MetaLod> lods = meta.getModel().getLods();
+        Array<MeshPart> parts = model.meshParts;
+
+        int total = 0;
+        for (int p = 0; p < parts.size; p++) {
+            if (parts.get(p).mesh != mesh) continue;
+            for (int level = 1; level <= lods.size; level++) {
+                short[] indices = lodData.getIndices(level - 1, p);
+                if (lods.get(level - 1).isGenerated() && indices != null) total += indices.length;
+            }
+        }
+        if (total == 0) return;
+
+        LodMesh lodMesh = new LodMesh(mesh, total);
+
+        short[] allIndices = new short[total];
+        int offset = 0;
+        for (int p = 0; p < parts.size; p++) {
+            MeshPart part = parts.get(p);
+            if (part.mesh != mesh) continue;
+            for (int level = 1; level <= lods.size; level++) {
+                short[] indices = lodData.getIndices(level - 1, p);
+                if (!lods.get(level - 1).isGenerated() || indices == null) continue;
+
+                System.arraycopy(indices, 0, allIndices, offset, indices.length);
+                MeshPart lodPart = new MeshPart(part.id, lodMesh, offset, indices.length, GL20.GL_TRIANGLES);
+                // The simplified part lies within the full one, its bounds are kept
+                lodPart.center.set(part.center);
+                lodPart.halfExtents.set(part.halfExtents);
+                lodPart.radius = part.radius;
+                lodMeshParts[p][level] = lodPart;
+                offset += indices.length;
+            }
+        }
+        lodMesh.indexBuffer.setIndices(allIndices, 0, total);
+
+        lodMeshes.add(lodMesh);
+    }
+
+    private void loadLodData() {
+        MetaModel metaModel = meta.getModel();
+        if (metaModel == null || metaModel.getLodFile() == null) return;
+
+        FileHandle lodFile = meta.getFile().sibling(metaModel.getLodFile());
+        if (!lodFile.exists()) {
+            Gdx.app.error(getClass().getSimpleName(), "LOD file " + lodFile.name() + " not found for " + getName());
+            return;
+        }
+        lodData = ModelLodData.read(lodFile);
+    }
+
+    private void disposeLods() {
+        for (Mesh mesh : lodMeshes) {
+            mesh.dispose();
+        }
+        lodMeshes.clear();
+        lodModels.clear();
+        lodMeshParts = null;
+        lodScreenSizes = null;
+    }
+
     @Override
     public void dispose() {
         if (model != null) {
             model.dispose();
         }
+        disposeLods();
     }
 
     @Override
     public boolean usesAsset(Asset assetToCheck) {
+        // hand supplied LOD models
+        if (assetToCheck instanceof ModelAsset && lodModels.contains((ModelAsset) assetToCheck, true)) {
+            return true;
+        }
+
         // if it's a MaterialAsset compare to the models materials
         if (assetToCheck instanceof MaterialAsset) {
             return defaultMaterials.containsValue(assetToCheck);
@@ -183,4 +393,100 @@ public class ModelAsset extends Asset {
             meta.getModel().setNumBones(ModelUtils.getBoneCount(model));
         }
     }
+
+    /**
+     * Mesh of the generated LOD levels of a model mesh. Draws the vertices of the model mesh with its own
+     * index buffer, the vertices are shared and not copied. The buffers of the mesh itself are empty.
+     */
+    private static class LodMesh extends Mesh {
+        private static final Vector3 tmpV = new Vector3();
+        private final Mesh source;
+        final IndexBufferObject indexBuffer;
+
+        LodMesh(Mesh source, int numIndices) {
+            super(true, 0, 0, source.getVertexAttributes());
+            this.source = source;
+            indexBuffer = new IndexBufferObject(true, numIndices);
+        }
+
+        @Override
+        public void bind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            source.bind(shader, locations, instanceLocations);
+            indexBuffer.bind();
+        }
+
+        @Override
+        public void unbind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            // Before the source, its vertex array object must still be bound
+            indexBuffer.unbind();
+            source.unbind(shader, locations, instanceLocations);
+        }
+
+        @Override
+        public void render(ShaderProgram shader, int primitiveType, int offset, int count, boolean autoBind) {
+            if (count == 0) return;
+
+            if (autoBind) bind(shader);
+            Gdx.gl20.glDrawElements(primitiveType, count, GL20.GL_UNSIGNED_SHORT, offset * 2);
+            if (autoBind) unbind(shader);
+        }
+
+        @Override
+        public int getNumVertices() {
+            return source.getNumVertices();
+        }
+
+        @Override
+        public int getNumIndices() {
+            return indexBuffer.getNumIndices();
+        }
+
+        // Read by model caches and bounding box calculations
+
+        @Override
+        public FloatBuffer getVerticesBuffer(boolean forWriting) {
+            return source.getVerticesBuffer(forWriting);
+        }
+
+        @Override
+        public ShortBuffer getIndicesBuffer(boolean forWriting) {
+            return indexBuffer.getBuffer(forWriting);
+        }
+
+        @Override
+        public float[] getVertices(int srcOffset, int count, float[] vertices, int destOffset) {
+            return source.getVertices(srcOffset, count, vertices, destOffset);
+        }
+
+        @Override
+        public void getIndices(int srcOffset, int count, short[] indices, int destOffset) {
+            ShortBuffer buffer = getIndicesBuffer(false);
+            int pos = buffer.position();
+            buffer.position(srcOffset);
+            buffer.get(indices, destOffset, count < 0 ? getNumIndices() - srcOffset : count);
+            buffer.position(pos);
+        }
+
+        @Override
+        public BoundingBox extendBoundingBox(BoundingBox out, int offset, int count, Matrix4 transform) {
+            VertexAttribute position = getVertexAttribute(VertexAttributes.Usage.Position);
+            int positionOffset = position.offset / 4;
+            int vertexSize = getVertexSize() / 4;
+            FloatBuffer vertices = getVerticesBuffer(false);
+            ShortBuffer indices = getIndicesBuffer(false);
+            for (int i = offset; i < offset + count; i++) {
+                int index = (indices.get(i) & 0xFFFF) * vertexSize + positionOffset;
+                tmpV.set(vertices.get(index), vertices.get(index + 1), position.numComponents > 2 ? vertices.get(index + 2) : 0);
+                if (transform != null) tmpV.mul(transform);
+                out.ext(tmpV);
+            }
+            return out;
+        }
+
+        @Override
+        public void dispose() {
+            super.dispose();
+            indexBuffer.dispose();
+        }
+    }
 }
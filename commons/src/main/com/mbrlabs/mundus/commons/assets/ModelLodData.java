@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Simplified index lists of the generated LOD levels of a model, per level and mesh part of the model.
+ * The indices reference the vertices of the mesh of the mesh part. Stored in a .lod file next to the model.
+ */
+public class ModelLodData {
+    public static final String EXTENSION = "lod";
+    private static final int VERSION = 1;
+
+    // [level][mesh part], null if the mesh part has no indices for the level
+    private final short[][][] indices;
+
+    public ModelLodData(int levelCount, int meshPartCount) {
+        indices = new short[levelCount][meshPartCount][];
+    }
+
+    public int getLevelCount() {
+        return indices.length;
+    }
+
+    public int getMeshPartCount() {
+        return indices.length == 0 ? 0 : indices[0].length;
+    }
+
+    /**
+     * @param level the LOD level, starting at 0 for the first level after the model itself
+     * @param meshPart index of the mesh part in the model
+     * @return the indices, or null if the mesh part is not simplified for the level
+     */
+    public short[] getIndices(int level, int meshPart) {
+        return indices[level][meshPart];
+    }
+
+    public void setIndices(int level, int meshPart, short[] meshPartIndices) {
+        indices[level][meshPart] = meshPartIndices;
+    }
+
+    public static ModelLodData read(FileHandle file) {
+        DataInputStream is = new DataInputStream(new BufferedInputStream(file.read()));
+        try {
+            int version = is.readInt();
+            if (version != VERSION) {
+                throw new GdxRuntimeException("Unsupported LOD file version " + version + ": " + file.name());
+            }
+
+            ModelLodData data = new ModelLodData(is.readInt(), is.readInt());
+            for (int level = 0; level < data.getLevelCount(); level++) {
+                for (int part = 0; part < data.getMeshPartCount(); part++) {
+                    int count = is.readInt();
+                    if (count < 0) continue;
+
+                    short[] partIndices = new short[count];
+                    for (int i = 0; i < count; i++) {
+                        partIndices[i] = is.readShort();
+                    }
+                    data.setIndices(level, part, partIndices);
+                }
+            }
+            return data;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading LOD file: " + file.name(), e);
+        } finally {
+            try {
+                is.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public void write(FileHandle file) {
+        DataOutputStream os = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+        try {
+            os.writeInt(VERSION);
+            os.writeInt(getLevelCount());
+            os.writeInt(getMeshPartCount());
+            for (int level = 0; level < getLevelCount(); level++) {
+                for (int part = 0; part < getMeshPartCount(); part++) {
+                    short[] partIndices = indices[level][part];
+                    if (partIndices == null) {
+                        os.writeInt(-1);
+                        continue;
+                    }
+
+                    os.writeInt(partIndices.length);
+                    for (short index : partIndices) {
+                        os.writeShort(index);
+                    }
+                }
+            }
+            os.flush();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing LOD file: " + file.name(), e);
+        } finally {
+            try {
+                os.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
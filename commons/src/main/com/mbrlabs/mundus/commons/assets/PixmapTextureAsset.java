@@ -59,6 +59,16 @@ public class PixmapTextureAsset extends Asset {
         texture = new Texture(pixmap);
     }
 
+    /**
+     * Loads the asset from a pixmap that was already decoded, e.g. on a background thread.
+     *
+     * @param pixmap the pixmap, owned by this asset from now on
+     */
+    public void load(Pixmap pixmap) {
+        this.pixmap = pixmap;
+        texture = new Texture(pixmap);
+    }
+
     @Override
     public void resolveDependencies(Map<String, Asset> assets) {
         // no dependencies here
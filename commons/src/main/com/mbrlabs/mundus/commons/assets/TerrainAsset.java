@@ -20,13 +20,17 @@ import com.badlogic.gdx.Files;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.mbrlabs.mundus.commons.assets.meta.Meta;
 import com.mbrlabs.mundus.commons.terrain.SplatMap;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
 import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.TerrainLayers;
 import com.mbrlabs.mundus.commons.terrain.TerrainLoader;
 import com.mbrlabs.mundus.commons.terrain.TerrainMaterial;
+import com.mbrlabs.mundus.commons.utils.GLUtils;
 import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute;
 
 import java.util.Map;
@@ -52,8 +56,13 @@ public class TerrainAsset extends Asset {
     private TextureAsset splatGNormal;
     private TextureAsset splatANormal;
     private MaterialAsset materialAsset;
+    // texture array layers, used instead of the splat channels if set
+    private TextureAsset[] layers;
+    private TextureAsset[] layerNormals;
+    private PixmapTextureAsset[] layerSplatmaps;
 
     private Terrain terrain;
+    private TerrainLayers terrainLayers;
 
     public TerrainAsset(Meta meta, FileHandle assetFile) {
         super(meta, assetFile);
@@ -214,6 +223,45 @@ public class TerrainAsset extends Asset {
         }
     }
 
+    public TextureAsset[] getLayers() {
+        return layers;
+    }
+
+    public TextureAsset[] getLayerNormals() {
+        return layerNormals;
+    }
+
+    public PixmapTextureAsset[] getLayerSplatmaps() {
+        return layerSplatmaps;
+    }
+
+    /**
+     * Sets the texture array layers, used instead of the splat channels on GL3. Applied with
+     * {@link #applyDependencies()}.
+     *
+     * @param layers diffuse texture of each layer, layer 0 is the base. Null to use the splat channels.
+     * @param normals normal map of each layer or null, may contain null entries
+     * @param splatmaps splatmaps weighting the layers, see {@link TerrainLayers}
+     */
+    public void setLayers(TextureAsset[] layers, TextureAsset[] normals, PixmapTextureAsset[] splatmaps) {
+        if (layers == null) {
+            this.layers = null;
+            this.layerNormals = null;
+            this.layerSplatmaps = null;
+        } else {
+            if (splatmaps == null || splatmaps.length != TerrainLayers.getSplatmapCount(layers.length)) {
+                throw new GdxRuntimeException(layers.length + " terrain layers need "
+                        + TerrainLayers.getSplatmapCount(layers.length) + " splatmaps");
+            }
+            this.layers = layers;
+            this.layerNormals = normals;
+            this.layerSplatmaps = splatmaps;
+        }
+        meta.getTerrain().setLayers(getIds(this.layers));
+        meta.getTerrain().setLayerNormals(getIds(this.layerNormals));
+        meta.getTerrain().setLayerSplatmaps(getIds(this.layerSplatmaps));
+    }
+
     public Terrain getTerrain() {
         return terrain;
     }
@@ -241,6 +289,17 @@ public class TerrainAsset extends Asset {
         data = terrain.heightData;
     }
 
+    /**
+     * Loads the asset from a terrain that was already created, e.g. by streaming.
+     *
+     * @param terrain the terrain of this asset
+     */
+    public void load(Terrain terrain) {
+        this.terrain = terrain;
+        setTriplanar(meta.getTerrain().isTriplanar());
+        data = terrain.heightData;
+    }
+
     @Override
     public void resolveDependencies(Map<String, Asset> assets) {
 
@@ -330,6 +389,104 @@ public class TerrainAsset extends Asset {
         if (id != null && assets.containsKey(id)) {
             setSplatANormal((TextureAsset) assets.get(id));
         }
+
+        // texture array layers
+        resolveLayers(assets);
+    }
+
+    private void resolveLayers(Map<String, Asset> assets) {
+        String[] layerIds = meta.getTerrain().getLayers();
+        String[] normalIds = meta.getTerrain().getLayerNormals();
+        String[] splatmapIds = meta.getTerrain().getLayerSplatmaps();
+        layers = null;
+        layerNormals = null;
+        layerSplatmaps = null;
+        if (layerIds == null) return;
+
+        TextureAsset[] resolvedLayers = new TextureAsset[layerIds.length];
+        for (int i = 0; i < layerIds.length; i++) {
+            resolvedLayers[i] = (TextureAsset) assets.get(layerIds[i]);
+            if (resolvedLayers[i] == null) {
+                Gdx.app.error("TerrainAsset", "Cannot find texture asset " + layerIds[i] + " of terrain layer "
+                        + i + ", using the splat channels");
+                return;
+            }
+        }
+
+        TextureAsset[] resolvedNormals = null;
+        if (normalIds != null) {
+            resolvedNormals = new TextureAsset[normalIds.length];
+            for (int i = 0; i < normalIds.length; i++) {
+                if (normalIds[i] != null) {
+                    resolvedNormals[i] = (TextureAsset) assets.get(normalIds[i]);
+                }
+            }
+        }
+
+        if (splatmapIds == null || splatmapIds.length != TerrainLayers.getSplatmapCount(layerIds.length)) {
+            Gdx.app.error("TerrainAsset", layerIds.length + " terrain layers need "
+                    + TerrainLayers.getSplatmapCount(layerIds.length) + " splatmaps, using the splat channels");
+            return;
+        }
+        PixmapTextureAsset[] resolvedSplatmaps = new PixmapTextureAsset[splatmapIds.length];
+        for (int i = 0; i < splatmapIds.length; i++) {
+            resolvedSplatmaps[i] = (PixmapTextureAsset) assets.get(splatmapIds[i]);
+            if (resolvedSplatmaps[i] == null) {
+                Gdx.app.error("TerrainAsset", "Cannot find splatmap asset " + splatmapIds[i]
+                        + " of the terrain layers, using the splat channels");
+                return;
+            }
+        }
+
+        layers = resolvedLayers;
+        layerNormals = resolvedNormals;
+        layerSplatmaps = resolvedSplatmaps;
+    }
+
+    /**
+     * Builds the texture arrays of the layers, or goes back to the splat channels if there are no layers
+     * or no GL3.
+     */
+    private void applyLayers(TerrainMaterial terrainMaterial) {
+        if (terrainLayers != null) {
+            terrainMaterial.setLayers(null);
+            terrainLayers.dispose();
+            terrainLayers = null;
+        }
+        if (layers == null) return;
+        if (!GLUtils.isGL3()) {
+            Gdx.app.error("TerrainAsset", "Terrain layers need GL3, using the splat channels");
+            return;
+        }
+
+        FileHandle[] diffuseFiles = new FileHandle[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            diffuseFiles[i] = layers[i].getFile();
+        }
+        FileHandle[] normalFiles = null;
+        if (layerNormals != null) {
+            normalFiles = new FileHandle[layerNormals.length];
+            for (int i = 0; i < layerNormals.length; i++) {
+                normalFiles[i] = layerNormals[i] == null ? null : layerNormals[i].getFile();
+            }
+        }
+        Texture[] splatmaps = new Texture[layerSplatmaps.length];
+        for (int i = 0; i < layerSplatmaps.length; i++) {
+            splatmaps[i] = layerSplatmaps[i].getTexture();
+        }
+
+        terrainLayers = TerrainLayers.fromFiles(diffuseFiles, normalFiles, splatmaps);
+        terrainMaterial.setLayers(terrainLayers);
+    }
+
+    private static String[] getIds(Asset[] assets) {
+        if (assets == null) return null;
+
+        String[] ids = new String[assets.length];
+        for (int i = 0; i < assets.length; i++) {
+            ids[i] = assets[i] == null ? null : assets[i].getID();
+        }
+        return ids;
     }
 
     @Override
@@ -397,12 +554,17 @@ public class TerrainAsset extends Asset {
             terrainMaterial.setSplatNormalTexture(new SplatTexture(SplatTexture.Channel.A, splatANormal));
         }
 
+        applyLayers(terrainMaterial);
+
         terrain.update();
     }
 
     @Override
     public void dispose() {
-
+        if (terrainLayers != null) {
+            terrainLayers.dispose();
+            terrainLayers = null;
+        }
     }
 
     public void updateUvScale(Vector2 uvScale) {
@@ -425,6 +587,10 @@ public class TerrainAsset extends Asset {
         if (assetToCheck == splatmap)
             return true;
 
+        // layer splatmaps
+        if (contains(layerSplatmaps, assetToCheck))
+            return true;
+
         // does the splatmap use the asset
         if (assetToCheck instanceof TextureAsset) {
             for (Map.Entry<SplatTexture.Channel, SplatTexture> texture : terrain.getTerrainTexture().getTextures().entrySet()) {
@@ -439,8 +605,20 @@ public class TerrainAsset extends Asset {
                 return true;
             }
 
+            if (contains(layers, assetToCheck) || contains(layerNormals, assetToCheck)) {
+                return true;
+            }
         }
 
         return false;
     }
+
+    private static boolean contains(Asset[] assets, Asset asset) {
+        if (assets == null) return false;
+
+        for (Asset value : assets) {
+            if (value == asset) return true;
+        }
+        return false;
+    }
 }
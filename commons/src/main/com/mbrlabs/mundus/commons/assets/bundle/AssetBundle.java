@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.assets.bundle;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.UBJsonReader;
+import com.badlogic.gdx.utils.UBJsonWriter;
+import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import com.mbrlabs.mundus.commons.assets.meta.MetaFileParseException;
+import com.mbrlabs.mundus.commons.assets.meta.MetaLoader;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * All files of the assets folder packed into a single file, written by the exporter and read by the
+ * runtime instead of opening every asset and meta file on its own.
+ * <p>
+ * A bundle starts with a table of contents:
+ * <pre>
+ * int   magic
+ * int   version
+ * int   entry count
+ * per entry:
+ *   UTF   file name in the assets folder
+ *   UTF   uuid of the asset, empty for files without a meta file
+ *   UTF   asset type, empty for files without a meta file
+ *   int   offset of the data from the start of the bundle
+ *   int   length of the data
+ *   int   length of the meta, followed by the meta as UBJSON
+ * </pre>
+ * followed by the data of the files, each starting at a multiple of {@link #ALIGNMENT}. The data is stored
+ * as is. If the bundle can be memory mapped, files are read from the mapped buffer. Otherwise every file
+ * is a ranged read of the bundle, so internal files in jars and compressed Android assets work as well.
+ * <p>
+ * As a {@link FileHandleResolver}, the bundle resolves paths in the assets folder to its entries. Paths
+ * without an entry fall back to regular files of the type of the bundle file.
+ */
+public class AssetBundle implements FileHandleResolver {
+    public static final String FILE_NAME = "assets.bundle";
+    public static final int VERSION = 1;
+    public static final int ALIGNMENT = 16;
+
+    private static final int MAGIC = 0x4D4E4442;
+
+    private final FileHandle file;
+    // Path of the assets folder, the parent of the bundle file
+    private final String rootPath;
+    private final ObjectMap<String, Entry> entries = new ObjectMap<>();
+    private final Array<Entry> orderedEntries = new Array<>();
+    private ByteBuffer mapped;
+
+    /**
+     * Reads the table of contents and maps the bundle if possible.
+     *
+     * @param file the bundle file
+     */
+    public AssetBundle(FileHandle file) {
+        this(file, true);
+    }
+
+    /**
+     * Reads the table of contents.
+     *
+     * @param file the bundle file
+     * @param map true to memory map the bundle if the file type allows it, false to always use ranged reads
+     */
+    public AssetBundle(FileHandle file, boolean map) {
+        this.file = file;
+        this.rootPath = file.parent().path();
+        readTableOfContents();
+
+        if (map) {
+            try {
+                mapped = file.map();
+            } catch (GdxRuntimeException e) {
+                // Classpath files, files in jars and compressed assets can't be mapped
+                mapped = null;
+            }
+        }
+    }
+
+    private void readTableOfContents() {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.read()));
+            if (in.readInt() != MAGIC) {
+                throw new GdxRuntimeException("Not an asset bundle: " + file.path());
+            }
+            int version = in.readInt();
+            if (version > VERSION) {
+                throw new GdxRuntimeException("Unsupported asset bundle version " + version + ": " + file.path());
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry();
+                entry.name = in.readUTF();
+                entry.uuid = in.readUTF();
+                entry.type = in.readUTF();
+                entry.offset = in.readInt();
+                entry.length = in.readInt();
+                entry.meta = new byte[in.readInt()];
+                in.readFully(entry.meta);
+
+                entries.put(entry.name, entry);
+                orderedEntries.add(entry);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading asset bundle: " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Parses the metas of the assets in the bundle. Their files are handles of this bundle.
+     *
+     * @return the metas, in the order of the bundle
+     */
+    public Array<Meta> loadMetas() throws MetaFileParseException {
+        MetaLoader metaLoader = new MetaLoader();
+        UBJsonReader reader = new UBJsonReader();
+        Array<Meta> metas = new Array<>();
+        for (Entry entry : orderedEntries) {
+            if (entry.meta.length == 0) continue;
+            JsonValue json = reader.parse(new ByteArrayInputStream(entry.meta));
+            metas.add(metaLoader.load(resolve(childPath(entry.name + "." + Meta.META_EXTENSION)), json));
+        }
+        return metas;
+    }
+
+    @Override
+    public FileHandle resolve(String fileName) {
+        return new BundleFileHandle(this, fileName.replace('\\', '/'));
+    }
+
+    public FileHandle getFile() {
+        return file;
+    }
+
+    /**
+     * @return the entries, in the order of the bundle
+     */
+    public Array<Entry> getEntries() {
+        return orderedEntries;
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * @return the entry of the given path, or null if the path is not a file in the assets folder of the bundle
+     */
+    Entry getEntry(String path) {
+        String prefix = childPath("");
+        if (!path.startsWith(prefix)) return null;
+        return entries.get(path.substring(prefix.length()));
+    }
+
+    InputStream read(Entry entry) {
+        if (mapped != null) {
+            return new BufferInputStream(slice(entry));
+        }
+
+        InputStream in = file.read();
+        try {
+            long skip = entry.offset;
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    if (in.read() < 0) throw new IOException("Unexpected end of asset bundle");
+                    skipped = 1;
+                }
+                skip -= skipped;
+            }
+        } catch (IOException e) {
+            StreamUtils.closeQuietly(in);
+            throw new GdxRuntimeException("Error reading " + entry.name + " from asset bundle: " + file.path(), e);
+        }
+        return new RangeInputStream(in, entry.length);
+    }
+
+    byte[] readBytes(Entry entry) {
+        byte[] bytes = new byte[entry.length];
+        if (mapped != null) {
+            slice(entry).get(bytes);
+            return bytes;
+        }
+
+        InputStream in = read(entry);
+        try {
+            int position = 0;
+            while (position < bytes.length) {
+                int count = in.read(bytes, position, bytes.length - position);
+                if (count < 0) throw new IOException("Unexpected end of asset bundle");
+                position += count;
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading " + entry.name + " from asset bundle: " + file.path(), e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return a buffer of the data of the entry, null if the bundle is not mapped
+     */
+    ByteBuffer map(Entry entry) {
+        return mapped == null ? null : slice(entry).slice();
+    }
+
+    private ByteBuffer slice(Entry entry) {
+        // Duplicates share the mapping but not the position, so entries can be read from several threads
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.limit(entry.offset + entry.length);
+        buffer.position(entry.offset);
+        return buffer;
+    }
+
+    private String childPath(String name) {
+        return rootPath.length() == 0 ? name : rootPath + "/" + name;
+    }
+
+    /**
+     * A file in the bundle. Assets have a uuid, a type and their meta, other files like glTF buffers
+     * and LOD levels have none.
+     */
+    public static class Entry {
+        String name;
+        String uuid;
+        String type;
+        int offset;
+        int length;
+        byte[] meta;
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the uuid of the asset, empty if the file is not an asset
+         */
+        public String getUuid() {
+            return uuid;
+        }
+
+        /**
+         * @return the asset type name, empty if the file is not an asset
+         */
+        public String getType() {
+            return type;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Collects files and writes them as a bundle.
+     */
+    public static class Writer {
+        private final Array<FileHandle> files = new Array<>();
+        private final Array<FileHandle> metaFiles = new Array<>();
+
+        /**
+         * Adds an asset, the asset file is the meta file without its extension.
+         *
+         * @param metaFile the meta file of the asset
+         */
+        public Writer addAsset(FileHandle metaFile) {
+            files.add(metaFile.sibling(metaFile.nameWithoutExtension()));
+            metaFiles.add(metaFile);
+            return this;
+        }
+
+        /**
+         * Adds a file without a meta file, like a glTF buffer.
+         */
+        public Writer addFile(FileHandle file) {
+            files.add(file);
+            metaFiles.add(null);
+            return this;
+        }
+
+        public void write(FileHandle bundleFile) {
+            OutputStream out = null;
+            try {
+                out = bundleFile.write(false);
+                write(out);
+            } finally {
+                StreamUtils.closeQuietly(out);
+            }
+        }
+
+        public void write(OutputStream out) {
+            try {
+                JsonReader jsonReader = new JsonReader();
+                JsonValue[] metas = new JsonValue[files.size];
+                byte[][] metaBytes = new byte[files.size][];
+                for (int i = 0; i < files.size; i++) {
+                    if (metaFiles.get(i) == null) {
+                        metaBytes[i] = new byte[0];
+                    } else {
+                        metas[i] = jsonReader.parse(metaFiles.get(i));
+                        metaBytes[i] = toUBJson(metas[i]);
+                    }
+                }
+
+                // Offsets are fixed size, so the size of the table does not depend on them
+                int dataStart = align(writeTableOfContents(metas, metaBytes, 0).length);
+                byte[] toc = writeTableOfContents(metas, metaBytes, dataStart);
+
+                DataOutputStream data = new DataOutputStream(out);
+                data.write(toc);
+                long position = toc.length;
+                byte[] buffer = new byte[16 * 1024];
+                for (FileHandle file : files) {
+                    position = pad(data, position);
+                    InputStream in = file.read();
+                    try {
+                        int count;
+                        while ((count = in.read(buffer)) > 0) {
+                            data.write(buffer, 0, count);
+                            position += count;
+                        }
+                    } finally {
+                        StreamUtils.closeQuietly(in);
+                    }
+                }
+                data.flush();
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Error writing asset bundle", e);
+            }
+        }
+
+        private byte[] writeTableOfContents(JsonValue[] metas, byte[][] metaBytes, int dataStart) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size);
+
+            long offset = dataStart;
+            for (int i = 0; i < files.size; i++) {
+                FileHandle file = files.get(i);
+                JsonValue meta = metas[i];
+                long length = file.length();
+                if (offset + length > Integer.MAX_VALUE) {
+                    throw new GdxRuntimeException("Asset bundles are limited to 2 GB");
+                }
+
+                out.writeUTF(file.name());
+                out.writeUTF(meta == null ? "" : meta.getString(Meta.JSON_UUID));
+                out.writeUTF(meta == null ? "" : meta.getString(Meta.JSON_TYPE));
+                out.writeInt((int) offset);
+                out.writeInt((int) length);
+                out.writeInt(metaBytes[i].length);
+                out.write(metaBytes[i]);
+                offset = align(offset + length);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private static byte[] toUBJson(JsonValue json) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            UBJsonWriter writer = new UBJsonWriter(bytes);
+            writer.value(json);
+            writer.flush();
+            return bytes.toByteArray();
+        }
+
+        private static long pad(DataOutputStream out, long position) throws IOException {
+            long aligned = align(position);
+            for (long i = position; i < aligned; i++) {
+                out.write(0);
+            }
+            return aligned;
+        }
+
+        private static int align(int position) {
+            return (int) align((long) position);
+        }
+
+        private static long align(long position) {
+            return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        }
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Reads up to a number of bytes of a stream.
+     */
+    private static class RangeInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+
+        RangeInputStream(InputStream in, int length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int value = in.read();
+            if (value >= 0) remaining--;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (remaining <= 0) return -1;
+            int count = in.read(bytes, offset, Math.min(length, remaining));
+            if (count > 0) remaining -= count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
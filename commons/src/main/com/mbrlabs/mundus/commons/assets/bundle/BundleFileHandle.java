@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.assets.bundle;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A file handle of a path resolved by an {@link AssetBundle}. Files of the bundle are read from it, other
+ * paths are read as regular files of the type of the bundle file. Children, siblings and parents resolve
+ * through the bundle as well, so loaders looking up neighbouring files find them in the bundle.
+ */
+public class BundleFileHandle extends FileHandle {
+    private final AssetBundle bundle;
+    private final AssetBundle.Entry entry;
+
+    BundleFileHandle(AssetBundle bundle, String path) {
+        super(path, bundle.getFile().type());
+        this.bundle = bundle;
+        this.entry = bundle.getEntry(path);
+    }
+
+    /**
+     * @return true if the file is stored in the bundle
+     */
+    public boolean isInBundle() {
+        return entry != null;
+    }
+
+    @Override
+    public InputStream read() {
+        if (entry == null) return fallback().read();
+        return bundle.read(entry);
+    }
+
+    @Override
+    public byte[] readBytes() {
+        if (entry == null) return fallback().readBytes();
+        return bundle.readBytes(entry);
+    }
+
+    @Override
+    public ByteBuffer map() {
+        if (entry == null) return fallback().map();
+        ByteBuffer buffer = bundle.map(entry);
+        return buffer != null ? buffer : ByteBuffer.wrap(bundle.readBytes(entry));
+    }
+
+    @Override
+    public long length() {
+        if (entry == null) return fallback().length();
+        return entry.length;
+    }
+
+    @Override
+    public boolean exists() {
+        return entry != null || fallback().exists();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return entry == null && fallback().isDirectory();
+    }
+
+    @Override
+    public FileHandle child(String name) {
+        if (path().length() == 0) return bundle.resolve(name);
+        return bundle.resolve(path() + "/" + name);
+    }
+
+    @Override
+    public FileHandle sibling(String name) {
+        return parent().child(name);
+    }
+
+    @Override
+    public FileHandle parent() {
+        String path = path();
+        int index = path.lastIndexOf('/');
+        return bundle.resolve(index < 0 ? "" : path.substring(0, index));
+    }
+
+    private FileHandle fallback() {
+        return Gdx.files.getFileHandle(path(), type());
+    }
+}
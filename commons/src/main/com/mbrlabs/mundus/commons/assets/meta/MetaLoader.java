@@ -33,9 +33,17 @@ public class MetaLoader {
     private final JsonReader reader = new JsonReader();
 
     public Meta load(FileHandle file) throws MetaFileParseException {
-        Meta meta = new Meta(file);
+        return load(file, reader.parse(file));
+    }
 
-        JsonValue json = reader.parse(file);
+    /**
+     * Creates the meta of an already parsed meta file.
+     *
+     * @param file the meta file
+     * @param json the content of the meta file
+     */
+    public Meta load(FileHandle file, JsonValue json) throws MetaFileParseException {
+        Meta meta = new Meta(file);
         parseBasics(meta, json);
 
         if(meta.getType() == AssetType.TERRAIN) {
@@ -74,6 +82,9 @@ public class MetaLoader {
         terrain.setSplatGNormal(jsonTerrain.getString(MetaTerrain.JSON_SPLAT_G_NORMAL, null));
         terrain.setSplatBNormal(jsonTerrain.getString(MetaTerrain.JSON_SPLAT_B_NORMAL, null));
         terrain.setSplatANormal(jsonTerrain.getString(MetaTerrain.JSON_SPLAT_A_NORMAL, null));
+        terrain.setLayers(getStrings(jsonTerrain, MetaTerrain.JSON_LAYERS));
+        terrain.setLayerNormals(getStrings(jsonTerrain, MetaTerrain.JSON_LAYER_NORMALS));
+        terrain.setLayerSplatmaps(getStrings(jsonTerrain, MetaTerrain.JSON_LAYER_SPLATMAPS));
 
         meta.setTerrain(terrain);
     }
@@ -94,6 +105,18 @@ public class MetaLoader {
             model.getDefaultMaterials().put(g3dbID, assetUUID);
         }
 
+        model.setLodFile(jsonModel.getString(MetaModel.JSON_LOD_FILE, null));
+        final JsonValue lods = jsonModel.get(MetaModel.JSON_LODS);
+        if(lods != null) {
+            for(final JsonValue jsonLod : lods) {
+                final MetaLod lod = new MetaLod();
+                lod.setScreenSize(jsonLod.getFloat(MetaLod.JSON_SCREEN_SIZE));
+                lod.setRatio(jsonLod.getFloat(MetaLod.JSON_RATIO, 1f));
+                lod.setModelId(jsonLod.getString(MetaLod.JSON_MODEL, null));
+                model.getLods().add(lod);
+            }
+        }
+
         meta.setModel(model);
     }
 
@@ -126,4 +149,19 @@ public class MetaLoader {
         }
     }
 
+    /**
+     * @return the strings of the array, null entries for null values, or null if the array is not there
+     */
+    private String[] getStrings(JsonValue jsonValue, String jsonKey) {
+        final JsonValue array = jsonValue.get(jsonKey);
+        if(array == null) return null;
+
+        final String[] strings = new String[array.size];
+        int i = 0;
+        for(final JsonValue value : array) {
+            strings[i++] = value.isNull() ? null : value.asString();
+        }
+        return strings;
+    }
+
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.assets.meta;
+
+/**
+ * One LOD level of a model. Either generated by mesh simplification, with the indices stored
+ * in the models LOD file, or supplied by hand as another model asset with the same mesh parts.
+ */
+public class MetaLod {
+
+    public static final String JSON_SCREEN_SIZE = "size";
+    public static final String JSON_RATIO = "ratio";
+    public static final String JSON_MODEL = "mdl";
+
+    // Projected size as fraction of the screen height below which this level is used
+    private float screenSize;
+    // Ratio of triangles kept when generated
+    private float ratio = 1f;
+    // Model asset uuid when supplied by hand, null if generated
+    private String modelId;
+
+    public MetaLod() {
+    }
+
+    public MetaLod(float screenSize, float ratio) {
+        this.screenSize = screenSize;
+        this.ratio = ratio;
+    }
+
+    public float getScreenSize() {
+        return screenSize;
+    }
+
+    public void setScreenSize(float screenSize) {
+        this.screenSize = screenSize;
+    }
+
+    public float getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(float ratio) {
+        this.ratio = ratio;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    public void setModelId(String modelId) {
+        this.modelId = modelId;
+    }
+
+    public boolean isGenerated() {
+        return modelId == null;
+    }
+
+    @Override
+    public String toString() {
+        return "MetaLod{" +
+                "screenSize=" + screenSize +
+                ", ratio=" + ratio +
+                ", modelId='" + modelId + '\'' +
+                '}';
+    }
+}
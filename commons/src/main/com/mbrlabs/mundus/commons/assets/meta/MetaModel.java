@@ -16,6 +16,7 @@
 
 package com.mbrlabs.mundus.commons.assets.meta;
 
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
 
 /**
@@ -27,12 +28,19 @@ public class MetaModel {
 
     public static final String JSON_DEFAULT_MATERIALS = "mats";
     public static final String JSON_NUM_BONES = "numBones";
+    public static final String JSON_LODS = "lods";
+    public static final String JSON_LOD_FILE = "lodFile";
 
     // g3db material id -> material asset uuid
     private ObjectMap<String, String> defaultMaterials = new ObjectMap<>();
 
     private int numBones;
 
+    // LOD levels after the model itself, ordered from most to least detailed
+    private Array<MetaLod> lods = new Array<>();
+    // Name of the file holding the indices of generated LOD levels, next to the meta file
+    private String lodFile;
+
     public ObjectMap<String, String> getDefaultMaterials() {
         return defaultMaterials;
     }
@@ -45,11 +53,25 @@ public class MetaModel {
         this.numBones = numBones;
     }
 
+    public Array<MetaLod> getLods() {
+        return lods;
+    }
+
+    public String getLodFile() {
+        return lodFile;
+    }
+
+    public void setLodFile(String lodFile) {
+        this.lodFile = lodFile;
+    }
+
     @Override
     public String toString() {
         return "MetaModel{" +
                 "defaultMaterials=" + defaultMaterials +
-                "numBones=" + numBones +
+                ", numBones=" + numBones +
+                ", lods=" + lods +
+                ", lodFile=" + lodFile +
                 '}';
     }
 }
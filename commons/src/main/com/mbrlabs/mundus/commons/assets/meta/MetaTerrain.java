@@ -16,6 +16,8 @@
 
 package com.mbrlabs.mundus.commons.assets.meta;
 
+import java.util.Arrays;
+
 /**
  *
  * @author Marcus Brummer
@@ -40,6 +42,9 @@ public class MetaTerrain {
     public static final String JSON_UV_SCALE= "uv";
     public static final String JSON_TRIPLANAR = "triplanar";
     public static final String JSON_MATERIAL = "material";
+    public static final String JSON_LAYERS = "layers";
+    public static final String JSON_LAYER_NORMALS = "layerNorms";
+    public static final String JSON_LAYER_SPLATMAPS = "layerMaps";
 
     private int size;
     private int splatMapResolution;
@@ -58,6 +63,10 @@ public class MetaTerrain {
     private String splatGNormal;
     private String splatBNormal;
     private String splatANormal;
+    // Texture array layers, see TerrainLayers
+    private String[] layers;
+    private String[] layerNormals;
+    private String[] layerSplatmaps;
 
     public String getSplatmap() {
         return splatmap;
@@ -195,6 +204,39 @@ public class MetaTerrain {
         this.materialId = materialId;
     }
 
+    /**
+     * @return texture asset ids of the texture array layers, null if the terrain uses the splat channels
+     */
+    public String[] getLayers() {
+        return layers;
+    }
+
+    public void setLayers(String[] layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * @return normal map texture asset ids of the layers, null entries for layers without one
+     */
+    public String[] getLayerNormals() {
+        return layerNormals;
+    }
+
+    public void setLayerNormals(String[] layerNormals) {
+        this.layerNormals = layerNormals;
+    }
+
+    /**
+     * @return pixmap texture asset ids of the splatmaps weighting the layers
+     */
+    public String[] getLayerSplatmaps() {
+        return layerSplatmaps;
+    }
+
+    public void setLayerSplatmaps(String[] layerSplatmaps) {
+        this.layerSplatmaps = layerSplatmaps;
+    }
+
     @Override
     public String toString() {
         return "MetaTerrain{" +
@@ -214,6 +256,9 @@ public class MetaTerrain {
                 ", splatGNormal='" + splatGNormal + '\'' +
                 ", splatBNormal='" + splatBNormal + '\'' +
                 ", splatANormal='" + splatANormal + '\'' +
+                ", layers=" + Arrays.toString(layers) +
+                ", layerNormals=" + Arrays.toString(layerNormals) +
+                ", layerSplatmaps=" + Arrays.toString(layerSplatmaps) +
                 '}';
     }
 }
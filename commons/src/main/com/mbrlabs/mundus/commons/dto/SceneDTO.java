@@ -46,6 +46,7 @@ public class SceneDTO implements Json.Serializable {
     private float camFieldOfView;
     private float waterHeight;
     private boolean useFrustumCulling;
+    private boolean useInstancing = true;
     private boolean enableWaterReflections = true;
     private boolean enableWaterRefractions = true;
     private WaterResolution waterResolution;
@@ -198,6 +199,14 @@ public class SceneDTO implements Json.Serializable {
         this.useFrustumCulling = useFrustumCulling;
     }
 
+    public boolean isUseInstancing() {
+        return useInstancing;
+    }
+
+    public void setUseInstancing(boolean useInstancing) {
+        this.useInstancing = useInstancing;
+    }
+
     public void setSkyboxAssetId(String skyboxAssetId) {
         this.skyboxAssetId = skyboxAssetId;
     }
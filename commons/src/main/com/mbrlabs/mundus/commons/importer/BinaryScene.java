@@ -0,0 +1,622 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.importer;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.mbrlabs.mundus.commons.dto.BaseLightDTO;
+import com.mbrlabs.mundus.commons.dto.CustomPropertiesComponentDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.FogDTO;
+import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+import com.mbrlabs.mundus.commons.env.lights.LightType;
+import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.water.WaterResolution;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Binary format of exported scenes, read by the runtime in one pass without building {@link SceneDTO}s.
+ * <pre>
+ * int    magic
+ * int    version
+ * int    string count, followed by the strings as int byte count and UTF-8 bytes
+ * scene  id (long), name, skybox, camera, settings, fog, ambient and directional light
+ * int    game object count, followed by the transforms of all game objects as packed floats
+ * int    root game object count, followed by the game objects
+ * </pre>
+ * Game objects are written depth first, in the order of their transforms. Names, tags, asset IDs and enum
+ * names are indices into the string table, {@link #NULL} for null. See {@link Writer} for the details and
+ * {@link Reader} for reading it.
+ */
+public class BinaryScene {
+    public static final int VERSION = 1;
+    /** String index of null */
+    public static final int NULL = -1;
+    /** Floats per transform: translation, rotation quaternion and scale */
+    public static final int TRANSFORM_SIZE = 10;
+
+    // Component types
+    public static final byte MODEL_COMPONENT = 1;
+    public static final byte TERRAIN_COMPONENT = 2;
+    public static final byte WATER_COMPONENT = 3;
+    public static final byte LIGHT_COMPONENT = 4;
+    public static final byte CUSTOM_PROPERTIES_COMPONENT = 5;
+
+    // Scene setting flags
+    public static final int FRUSTUM_CULLING = 1;
+    public static final int INSTANCING = 1 << 1;
+    public static final int WATER_REFLECTIONS = 1 << 2;
+    public static final int WATER_REFRACTIONS = 1 << 3;
+
+    private static final int MAGIC = 0x4D534E42;
+
+    /**
+     * @return true if the data starts with the magic number of a binary scene
+     */
+    public static boolean isBinaryScene(byte[] data) {
+        return data.length >= 4 && ((data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8
+                | (data[3] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Checks the magic number and version at the start of a binary scene.
+     *
+     * @param magic the first int of the scene
+     * @param version the second int of the scene
+     */
+    public static void checkHeader(int magic, int version) {
+        if (magic != MAGIC) {
+            throw new GdxRuntimeException("Not a binary scene");
+        }
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported binary scene version " + version + ", expected " + VERSION);
+        }
+    }
+
+    /**
+     * Writes a {@link SceneDTO} as binary scene.
+     * <p>
+     * Scene:
+     * <pre>
+     * long  id
+     * int   name, skybox asset ID
+     * float camera near plane, far plane, field of view
+     * int   setting flags
+     * float water height
+     * int   water resolution
+     * byte  1 if fog follows: float near plane, far plane, gradient, int color
+     * byte  1 if ambient light follows: int color
+     * byte  1 if directional light follows: int color, float intensity, float direction x, y, z,
+     *       byte casts shadows, byte 1 if shadow settings follow: int resolution, int viewport size,
+     *       float near plane, far plane
+     * </pre>
+     * Game object:
+     * <pre>
+     * int   id, name
+     * byte  active
+     * int   tag count, followed by the tags
+     * int   component count, followed by the components as byte type and data:
+     *       model: int model ID, byte use model cache, int material count, followed by int pairs of
+     *              model material ID and material asset ID
+     *       terrain: int terrain asset ID
+     *       water: int water asset ID
+     *       light: int light type, int color, float intensity, float position x, y, z,
+     *              float direction x, y, z, float cutoff, float exponential
+     *       custom properties: int count, followed by int pairs of key and value
+     * int   child count, followed by the children
+     * </pre>
+     * Colors are RGBA8888.
+     */
+    public static class Writer {
+        private final ObjectIntMap<String> stringIndices = new ObjectIntMap<>();
+        private final Array<String> strings = new Array<>();
+        private final Array<GameObjectDTO> gameObjects = new Array<>();
+
+        public void write(SceneDTO scene, OutputStream out) {
+            stringIndices.clear();
+            strings.clear();
+            gameObjects.clear();
+            for (GameObjectDTO go : scene.getGameObjects()) {
+                collect(go);
+            }
+
+            try {
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+
+                // Scene strings are looked up before the table is written, so that it includes them
+                int name = index(scene.getName());
+                int skybox = index(scene.getSkyboxAssetId());
+                int waterResolution = index(scene.getWaterResolution() == null ? null : scene.getWaterResolution().name());
+                ShadowSettingsDTO shadow = scene.getDirectionalLight() == null ? null
+                        : scene.getDirectionalLight().getShadowSettingsDTO();
+                int shadowResolution = index(shadow == null || shadow.getShadowResolution() == null ? null
+                        : shadow.getShadowResolution().name());
+
+                // Not writeUTF, which is limited to 64 KB per string
+                data.writeInt(strings.size);
+                for (String string : strings) {
+                    byte[] bytes = string.getBytes("UTF-8");
+                    data.writeInt(bytes.length);
+                    data.write(bytes);
+                }
+
+                data.writeLong(scene.getId());
+                data.writeInt(name);
+                data.writeInt(skybox);
+                writeSettings(scene, waterResolution, data);
+                writeEnvironment(scene, shadowResolution, data);
+
+                data.writeInt(gameObjects.size);
+                for (GameObjectDTO go : gameObjects) {
+                    float[] transform = go.getTransform();
+                    for (int i = 0; i < TRANSFORM_SIZE; i++) {
+                        data.writeFloat(transform[i]);
+                    }
+                }
+
+                data.writeInt(scene.getGameObjects().size);
+                for (GameObjectDTO go : scene.getGameObjects()) {
+                    writeGameObject(go, data);
+                }
+                data.flush();
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Error writing binary scene", e);
+            }
+        }
+
+        /**
+         * Adds the game object and its children to the transform order and their strings to the table.
+         */
+        private void collect(GameObjectDTO go) {
+            gameObjects.add(go);
+            add(go.getName());
+            if (go.getTags() != null) {
+                for (String tag : go.getTags()) {
+                    add(tag);
+                }
+            }
+            ModelComponentDTO model = go.getModelComponent();
+            if (model != null) {
+                add(model.getModelID());
+                for (Map.Entry<String, String> entry : model.getMaterials().entrySet()) {
+                    add(entry.getKey());
+                    add(entry.getValue());
+                }
+            }
+            if (go.getTerrainComponent() != null) {
+                add(go.getTerrainComponent().getTerrainID());
+            }
+            if (go.getWaterComponent() != null) {
+                add(go.getWaterComponent().getWaterId());
+            }
+            LightComponentDTO light = go.getLightComponent();
+            if (light != null && light.getLightType() != null) {
+                add(light.getLightType().name());
+            }
+            if (go.getCustomPropertiesComponent() != null) {
+                OrderedMap<String, String> properties = go.getCustomPropertiesComponent().getCustomProperties();
+                if (properties != null) {
+                    for (ObjectMap.Entry<String, String> entry : properties) {
+                        add(entry.key);
+                        add(entry.value);
+                    }
+                }
+            }
+            if (go.getChilds() != null) {
+                for (GameObjectDTO child : go.getChilds()) {
+                    collect(child);
+                }
+            }
+        }
+
+        private void add(String string) {
+            if (string != null && !stringIndices.containsKey(string)) {
+                stringIndices.put(string, strings.size);
+                strings.add(string);
+            }
+        }
+
+        private int index(String string) {
+            if (string == null) return NULL;
+            add(string);
+            return stringIndices.get(string, NULL);
+        }
+
+        private void writeSettings(SceneDTO scene, int waterResolution, DataOutputStream data) throws IOException {
+            data.writeFloat(scene.getCamNearPlane());
+            data.writeFloat(scene.getCamFarPlane());
+            data.writeFloat(scene.getCamFieldOfView());
+
+            int flags = 0;
+            if (scene.isUseFrustumCulling()) flags |= FRUSTUM_CULLING;
+            if (scene.isUseInstancing()) flags |= INSTANCING;
+            if (scene.isEnableWaterReflections()) flags |= WATER_REFLECTIONS;
+            if (scene.isEnableWaterRefractions()) flags |= WATER_REFRACTIONS;
+            data.writeInt(flags);
+            data.writeFloat(scene.getWaterHeight());
+            data.writeInt(waterResolution);
+        }
+
+        private void writeEnvironment(SceneDTO scene, int shadowResolution, DataOutputStream data) throws IOException {
+            FogDTO fog = scene.getFog();
+            data.writeBoolean(fog != null);
+            if (fog != null) {
+                data.writeFloat(fog.getNearPlane());
+                data.writeFloat(fog.getFarPlane());
+                data.writeFloat(fog.getGradient());
+                data.writeInt(fog.getColor());
+            }
+
+            BaseLightDTO ambient = scene.getAmbientLight();
+            data.writeBoolean(ambient != null);
+            if (ambient != null) {
+                data.writeInt(ambient.getColor());
+            }
+
+            DirectionalLightDTO light = scene.getDirectionalLight();
+            data.writeBoolean(light != null);
+            if (light != null) {
+                data.writeInt(light.getColor());
+                data.writeFloat(light.getIntensity());
+                writeVector(light.getDirection(), data);
+                data.writeBoolean(light.isCastsShadows());
+
+                ShadowSettingsDTO shadow = light.getShadowSettingsDTO();
+                data.writeBoolean(shadow != null);
+                if (shadow != null) {
+                    data.writeInt(shadowResolution);
+                    data.writeInt(shadow.getViewportSize());
+                    data.writeFloat(shadow.getCamNearPlane());
+                    data.writeFloat(shadow.getCamFarPlane());
+                }
+            }
+        }
+
+        private void writeGameObject(GameObjectDTO go, DataOutputStream data) throws IOException {
+            data.writeInt(go.getId());
+            data.writeInt(index(go.getName()));
+            data.writeBoolean(go.isActive());
+
+            Array<String> tags = go.getTags();
+            data.writeInt(tags == null ? 0 : tags.size);
+            if (tags != null) {
+                for (String tag : tags) {
+                    data.writeInt(index(tag));
+                }
+            }
+
+            // Only one of model, terrain and water, like the JSON scenes
+            int componentCount = 0;
+            if (go.getModelComponent() != null || go.getTerrainComponent() != null || go.getWaterComponent() != null) {
+                componentCount++;
+            }
+            if (go.getLightComponent() != null) componentCount++;
+            OrderedMap<String, String> properties = go.getCustomPropertiesComponent() == null ? null
+                    : go.getCustomPropertiesComponent().getCustomProperties();
+            if (properties != null) componentCount++;
+            data.writeInt(componentCount);
+
+            if (go.getModelComponent() != null) {
+                ModelComponentDTO model = go.getModelComponent();
+                data.writeByte(MODEL_COMPONENT);
+                data.writeInt(index(model.getModelID()));
+                data.writeBoolean(model.isUseModelCache());
+                data.writeInt(model.getMaterials().size());
+                for (Map.Entry<String, String> entry : model.getMaterials().entrySet()) {
+                    data.writeInt(index(entry.getKey()));
+                    data.writeInt(index(entry.getValue()));
+                }
+            } else if (go.getTerrainComponent() != null) {
+                data.writeByte(TERRAIN_COMPONENT);
+                data.writeInt(index(go.getTerrainComponent().getTerrainID()));
+            } else if (go.getWaterComponent() != null) {
+                data.writeByte(WATER_COMPONENT);
+                data.writeInt(index(go.getWaterComponent().getWaterId()));
+            }
+
+            LightComponentDTO light = go.getLightComponent();
+            if (light != null) {
+                data.writeByte(LIGHT_COMPONENT);
+                data.writeInt(index(light.getLightType() == null ? null : light.getLightType().name()));
+                data.writeInt(Color.rgba8888(light.getColor() == null ? Color.WHITE : light.getColor()));
+                data.writeFloat(light.getIntensity());
+                writeVector(light.getPosition(), data);
+                writeVector(light.getDirection(), data);
+                data.writeFloat(light.getCutoff());
+                data.writeFloat(light.getExponential());
+            }
+
+            if (properties != null) {
+                data.writeByte(CUSTOM_PROPERTIES_COMPONENT);
+                data.writeInt(properties.size);
+                for (ObjectMap.Entry<String, String> entry : properties) {
+                    data.writeInt(index(entry.key));
+                    data.writeInt(index(entry.value));
+                }
+            }
+
+            Array<GameObjectDTO> children = go.getChilds();
+            data.writeInt(children == null ? 0 : children.size);
+            if (children != null) {
+                for (GameObjectDTO child : children) {
+                    writeGameObject(child, data);
+                }
+            }
+        }
+
+        private static void writeVector(Vector3 vector, DataOutputStream data) throws IOException {
+            data.writeFloat(vector == null ? 0 : vector.x);
+            data.writeFloat(vector == null ? 0 : vector.y);
+            data.writeFloat(vector == null ? 0 : vector.z);
+        }
+    }
+
+    /**
+     * Reads a binary scene written by {@link Writer} in one pass, without GL. The scene, its settings and
+     * environment are read into a {@link SceneDTO} without game objects, which is handed to
+     * {@link #createScene(SceneDTO)}. Game objects and their components are handed to the subclass as they are
+     * read, so that it can build its own objects directly.
+     * <p>
+     * The component DTOs are reused for all game objects, copy what you keep of them.
+     *
+     * @param <S> type of the scene
+     * @param <G> type of the game objects
+     */
+    public abstract static class Reader<S, G> {
+        /** Light type of light components stored without one, the default of new light components */
+        public static final LightType DEFAULT_LIGHT_TYPE = LightType.POINT_LIGHT;
+
+        private final ModelComponentDTO model = new ModelComponentDTO();
+        private final LightComponentDTO light = new LightComponentDTO();
+        private final CustomPropertiesComponentDTO properties = new CustomPropertiesComponentDTO();
+
+        // State of the scene being read
+        private String[] strings;
+        private float[] transforms;
+        private int transformIndex;
+        private byte[] stringBuffer = new byte[256];
+
+        public Reader() {
+            light.setColor(new Color());
+            light.setPosition(new Vector3());
+            light.setDirection(new Vector3());
+            properties.setCustomProperties(new OrderedMap<String, String>());
+        }
+
+        public S read(byte[] data) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            try {
+                checkHeader(in.readInt(), in.readInt());
+
+                strings = new String[in.readInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    int length = in.readInt();
+                    if (stringBuffer.length < length) {
+                        stringBuffer = new byte[length];
+                    }
+                    in.readFully(stringBuffer, 0, length);
+                    strings[i] = new String(stringBuffer, 0, length, "UTF-8");
+                }
+
+                SceneDTO sceneDTO = new SceneDTO();
+                sceneDTO.setId(in.readLong());
+                sceneDTO.setName(readString(in));
+                sceneDTO.setSkyboxAssetId(readString(in));
+                readSettings(sceneDTO, in);
+                readEnvironment(sceneDTO, in);
+                S scene = createScene(sceneDTO);
+
+                transforms = new float[in.readInt() * TRANSFORM_SIZE];
+                for (int i = 0; i < transforms.length; i++) {
+                    transforms[i] = in.readFloat();
+                }
+                transformIndex = 0;
+
+                int rootCount = in.readInt();
+                for (int i = 0; i < rootCount; i++) {
+                    addGameObject(scene, readGameObject(scene, in));
+                }
+                return scene;
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Error reading binary scene", e);
+            } finally {
+                strings = null;
+                transforms = null;
+                StreamUtils.closeQuietly(in);
+            }
+        }
+
+        /**
+         * @param scene the scene read so far, without game objects
+         * @return the scene to add the game objects to
+         */
+        protected abstract S createScene(SceneDTO scene);
+
+        /**
+         * @param transforms the transforms of all game objects, see {@link #TRANSFORM_SIZE}
+         * @param transformOffset offset of the transform of this game object
+         */
+        protected abstract G createGameObject(S scene, int id, String name, boolean active, float[] transforms,
+                                              int transformOffset);
+
+        protected abstract void addTag(G go, String tag);
+
+        protected abstract void addModelComponent(G go, ModelComponentDTO model);
+
+        protected abstract void addTerrainComponent(G go, String terrainId);
+
+        protected abstract void addWaterComponent(G go, String waterId);
+
+        protected abstract void addLightComponent(G go, LightComponentDTO light);
+
+        protected abstract void addCustomPropertiesComponent(G go, CustomPropertiesComponentDTO properties);
+
+        protected abstract void addChild(G parent, G child);
+
+        /**
+         * Adds a root game object to the scene.
+         */
+        protected abstract void addGameObject(S scene, G go);
+
+        private void readSettings(SceneDTO scene, DataInputStream in) throws IOException {
+            scene.setCamNearPlane(in.readFloat());
+            scene.setCamFarPlane(in.readFloat());
+            scene.setCamFieldOfView(in.readFloat());
+
+            int flags = in.readInt();
+            scene.setUseFrustumCulling((flags & FRUSTUM_CULLING) != 0);
+            scene.setUseInstancing((flags & INSTANCING) != 0);
+            scene.setEnableWaterReflections((flags & WATER_REFLECTIONS) != 0);
+            scene.setEnableWaterRefractions((flags & WATER_REFRACTIONS) != 0);
+            scene.setWaterHeight(in.readFloat());
+
+            String waterResolution = readString(in);
+            if (waterResolution != null) {
+                scene.setWaterResolution(WaterResolution.valueOf(waterResolution));
+            }
+        }
+
+        private void readEnvironment(SceneDTO scene, DataInputStream in) throws IOException {
+            if (in.readBoolean()) {
+                FogDTO fog = new FogDTO();
+                fog.setNearPlane(in.readFloat());
+                fog.setFarPlane(in.readFloat());
+                fog.setGradient(in.readFloat());
+                fog.setColor(in.readInt());
+                scene.setFog(fog);
+            }
+
+            if (in.readBoolean()) {
+                BaseLightDTO ambient = new BaseLightDTO();
+                ambient.setColor(in.readInt());
+                scene.setAmbientLight(ambient);
+            }
+
+            if (in.readBoolean()) {
+                DirectionalLightDTO directionalLight = new DirectionalLightDTO();
+                directionalLight.setColor(in.readInt());
+                directionalLight.setIntensity(in.readFloat());
+                directionalLight.setDirection(new Vector3(in.readFloat(), in.readFloat(), in.readFloat()));
+                directionalLight.setCastsShadows(in.readBoolean());
+
+                if (in.readBoolean()) {
+                    ShadowSettingsDTO shadow = new ShadowSettingsDTO();
+                    String resolution = readString(in);
+                    if (resolution != null) {
+                        shadow.setShadowResolution(ShadowResolution.valueOf(resolution));
+                    }
+                    shadow.setViewportSize(in.readInt());
+                    shadow.setCamNearPlane(in.readFloat());
+                    shadow.setCamFarPlane(in.readFloat());
+                    directionalLight.setShadowSettingsDTO(shadow);
+                }
+                scene.setDirectionalLight(directionalLight);
+            }
+        }
+
+        private G readGameObject(S scene, DataInputStream in) throws IOException {
+            int id = in.readInt();
+            String name = readString(in);
+            boolean active = in.readBoolean();
+            G go = createGameObject(scene, id, name, active, transforms, transformIndex);
+            transformIndex += TRANSFORM_SIZE;
+
+            int tagCount = in.readInt();
+            for (int i = 0; i < tagCount; i++) {
+                addTag(go, readString(in));
+            }
+
+            int componentCount = in.readInt();
+            for (int i = 0; i < componentCount; i++) {
+                readComponent(go, name, in);
+            }
+
+            int childCount = in.readInt();
+            for (int i = 0; i < childCount; i++) {
+                addChild(go, readGameObject(scene, in));
+            }
+            return go;
+        }
+
+        private void readComponent(G go, String name, DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case MODEL_COMPONENT:
+                    model.setModelID(readString(in));
+                    model.setUseModelCache(in.readBoolean());
+                    model.getMaterials().clear();
+                    int materialCount = in.readInt();
+                    for (int i = 0; i < materialCount; i++) {
+                        model.getMaterials().put(readString(in), readString(in));
+                    }
+                    addModelComponent(go, model);
+                    break;
+                case TERRAIN_COMPONENT:
+                    addTerrainComponent(go, readString(in));
+                    break;
+                case WATER_COMPONENT:
+                    addWaterComponent(go, readString(in));
+                    break;
+                case LIGHT_COMPONENT:
+                    String lightType = readString(in);
+                    light.setLightType(lightType == null ? DEFAULT_LIGHT_TYPE : LightType.valueOf(lightType));
+                    Color.rgba8888ToColor(light.getColor(), in.readInt());
+                    light.setIntensity(in.readFloat());
+                    light.getPosition().set(in.readFloat(), in.readFloat(), in.readFloat());
+                    light.getDirection().set(in.readFloat(), in.readFloat(), in.readFloat());
+                    light.setCutoff(in.readFloat());
+                    light.setExponential(in.readFloat());
+                    addLightComponent(go, light);
+                    break;
+                case CUSTOM_PROPERTIES_COMPONENT:
+                    OrderedMap<String, String> map = properties.getCustomProperties();
+                    map.clear();
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        map.put(readString(in), readString(in));
+                    }
+                    addCustomPropertiesComponent(go, properties);
+                    break;
+                default:
+                    throw new GdxRuntimeException("Unknown component type " + type + " in object " + name);
+            }
+        }
+
+        private String readString(DataInputStream in) throws IOException {
+            int index = in.readInt();
+            return index == NULL ? null : strings[index];
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.mbrlabs.mundus.commons.rendering;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
@@ -16,10 +18,12 @@ import com.mbrlabs.mundus.commons.water.WaterResolution;
  * @author JamesTKhan
  * @version October 03, 2023
  */
-public class DefaultSceneRenderer implements SceneRenderer {
+public class DefaultSceneRenderer implements SceneRenderer, Disposable {
     public static final Vector3 clippingPlaneDisable = new Vector3(0.0f, 0f, 0.0f);
     private WaterRenderer waterRenderer;
     private Shader depthShader;
+    private long visibilityFrameId = -1;
+    protected final FrameRenderList renderList = new FrameRenderList();
 
     public DefaultSceneRenderer() {
         waterRenderer = new WaterRenderer();
@@ -27,6 +31,7 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
     @Override
     public void render(Scene scene, float delta) {
+        updateVisibility(scene);
         waterRenderer.renderWaterFBOs(scene);
         renderShadowMap(scene);
         renderScene(scene, delta);
@@ -39,6 +44,7 @@ public class DefaultSceneRenderer implements SceneRenderer {
      * @param delta time since last frame
      */
     public void renderScene(Scene scene, float delta) {
+        updateVisibility(scene);
         scene.modelCacheManager.update(delta);
         scene.batch.begin(scene.cam);
         renderObjects(scene);
@@ -48,10 +54,9 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
     protected void renderObjects(Scene scene) {
         scene.setClippingPlane(clippingPlaneDisable, 0);
-        waterRenderer.renderWater(scene, scene.sceneGraph.getRoot());
-        renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
-        scene.modelCacheManager.triggerBeforeRenderEvent();
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
+        waterRenderer.renderWater(scene, renderList);
+        renderPass(scene, scene.batch, null, false, RenderPass.MAIN);
+        scene.modelCacheManager.render(scene.batch, scene.environment, null, false);
     }
 
     /**
@@ -75,11 +80,40 @@ public class DefaultSceneRenderer implements SceneRenderer {
      * @param isDepthPass whether this is a depth render pass
      */
     public void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass) {
+        renderComponents(scene, batch, parent, shader, isDepthPass, RenderPass.MAIN);
+    }
+
+    /**
+     * Renders all renderable components (except Water) of the given parent game objects children
+     * recursively, skipping components culled for the given render pass.
+     *
+     * @param batch       the model batch to use
+     * @param parent      the parent game object
+     * @param shader      the shader to use
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass        the render pass, its visibility set is used for culling
+     */
+    public void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass, RenderPass pass) {
         for (GameObject go : parent.getChildren()) {
-            renderComponent(scene, batch, go, shader, isDepthPass);
+            renderComponent(scene, batch, go, shader, isDepthPass, pass);
         }
     }
 
+    /**
+     * Renders the components of the current frame render list (except Water) that are visible to the
+     * given render pass. The render list is built once per frame and shared by all passes.
+     *
+     * @param batch       the model batch to use
+     * @param shader      the shader to use, or null for the batches shader provider
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass        the render pass
+     */
+    @Override
+    public void renderPass(Scene scene, ModelBatch batch, Shader shader, boolean isDepthPass, RenderPass pass) {
+        updateVisibility(scene);
+        renderList.render(scene, batch, shader, isDepthPass, pass);
+    }
+
     /**
      * Render models to the shadow map .This is called by the render method normally, but if using post-processing
      * you may want to call this method directly.
@@ -96,17 +130,45 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
         scene.environment.shadowMap = scene.dirLight;
 
+        updateVisibility(scene);
         scene.dirLight.setCenter(scene.cam.position);
         scene.dirLight.begin();
         scene.depthBatch.begin(scene.dirLight.getCamera());
         scene.setClippingPlane(clippingPlaneDisable, 0);
-        renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), null, true);
-        scene.modelCacheManager.triggerBeforeDepthRenderEvent();
-        scene.depthBatch.render(scene.modelCacheManager.modelCache, scene.environment);
+        renderPass(scene, scene.depthBatch, null, true, RenderPass.SHADOW);
+        scene.modelCacheManager.render(scene.depthBatch, scene.environment, null, true);
         scene.depthBatch.end();
         scene.dirLight.end();
     }
 
+    /**
+     * Computes the visibility sets of all render passes and builds the frame render list with a single
+     * traversal of the scene graph. Runs at most once per frame, so it is safe to call from each render method.
+     */
+    public void updateVisibility(Scene scene) {
+        long frameId = Gdx.graphics.getFrameId();
+        if (frameId == visibilityFrameId) return;
+        visibilityFrameId = frameId;
+
+        scene.sceneGraph.updateVisibility(RenderPass.MAIN, scene.cam);
+        int activePasses = FrameRenderList.passBit(RenderPass.MAIN);
+
+        if (scene.dirLight != null && scene.dirLight.isCastsShadows()) {
+            // Position the shadow camera for this frame before culling against it
+            scene.dirLight.setCenter(scene.cam.position);
+            scene.dirLight.updateCamera();
+            scene.sceneGraph.updateVisibility(RenderPass.SHADOW, scene.dirLight.getCamera());
+            activePasses |= FrameRenderList.passBit(RenderPass.SHADOW);
+        }
+
+        activePasses |= waterRenderer.updateVisibility(scene);
+        renderList.build(scene, activePasses);
+    }
+
+    public FrameRenderList getRenderList() {
+        return renderList;
+    }
+
     public void renderSkybox(Scene scene) {
         if (scene.skybox != null && scene.skybox.active) {
             scene.batch.render(scene.skybox.getSkyboxInstance(), scene.environment, scene.skybox.shader);
@@ -118,7 +180,7 @@ public class DefaultSceneRenderer implements SceneRenderer {
         waterRenderer.updateWaterResolution(waterResolution);
     }
 
-    protected void renderComponent(Scene scene, ModelBatch batch, GameObject go, Shader shader, boolean isDepthPass) {
+    protected void renderComponent(Scene scene, ModelBatch batch, GameObject go, Shader shader, boolean isDepthPass, RenderPass pass) {
         if (!go.active) return;
         if (go.hasWaterComponent) return;
 
@@ -128,7 +190,7 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
             if (component instanceof CullableComponent) {
                 CullableComponent cullableComponent = (CullableComponent) component;
-                if (cullableComponent.isCulled()) continue;
+                if (cullableComponent.isCulled(pass)) continue;
 
                 if (isDepthPass) {
                     cullableComponent.triggerBeforeDepthRenderEvent();
@@ -155,7 +217,7 @@ public class DefaultSceneRenderer implements SceneRenderer {
 
         // Render children recursively
         if (go.getChildren() != null) {
-            renderComponents(scene, batch, go, shader, isDepthPass);
+            renderComponents(scene, batch, go, shader, isDepthPass, pass);
         }
     }
 
@@ -167,4 +229,9 @@ public class DefaultSceneRenderer implements SceneRenderer {
     public Shader getDepthShader() {
         return depthShader;
     }
+
+    @Override
+    public void dispose() {
+        renderList.dispose();
+    }
 }
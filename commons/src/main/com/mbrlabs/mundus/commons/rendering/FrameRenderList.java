@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.rendering;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
+import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.RenderableComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
+import com.mbrlabs.mundus.commons.utils.RenderablePool;
+
+/**
+ * Flat list of everything rendered in a frame, built with a single traversal of the scene graph after
+ * the visibility sets of the frame were computed. Each entry is tagged with a bit mask of the render
+ * passes it is visible in, and its renderables are collected once and reused by every pass.
+ * <p>
+ * When instancing is enabled (GL3 and {@link com.mbrlabs.mundus.commons.SceneSettings#useInstancing}),
+ * renderables of model components that share a mesh part and material are collected into
+ * {@link InstanceGroup}s, each drawn with one instanced draw call in passes using the batches shader provider.
+ */
+public class FrameRenderList implements Disposable {
+    /** Groups with fewer members than this in a frame are rendered without instancing */
+    public static final int MIN_INSTANCES = 2;
+    /** Instanced meshes of groups unused for this many builds are disposed */
+    private static final int MAX_UNUSED_BUILDS = 120;
+
+    private final RenderablePool renderablePool = new RenderablePool();
+    private final Array<Renderable> renderables = new Array<>(512);
+    // Pass mask of each renderable, narrower than the mask of its entry for terrain chunks
+    private final IntArray renderableMasks = new IntArray(512);
+    // Terrain chunks drawn at another LOD level in the reflection pass, collected per terrain
+    private final Array<Renderable> reflectionRenderables = new Array<>(64);
+
+    // Entries, stored as parallel arrays. Renderables of entry i are [offsets[i], offsets[i + 1])
+    private final Array<RenderableComponent> components = new Array<>(256);
+    private final Array<CullableComponent> cullables = new Array<>(256);
+    private final IntArray passMasks = new IntArray(256);
+    private final IntArray offsets = new IntArray(257);
+
+    private final Array<WaterComponent> waterComponents = new Array<>(4);
+
+    // Instance groups, kept across frames to reuse their instanced meshes
+    private final ObjectMap<Mesh, Array<InstanceGroup>> instanceGroups = new ObjectMap<>();
+    private final Array<InstanceGroup> activeGroups = new Array<>(false, 32);
+    // Members of groups below MIN_INSTANCES, rendered individually
+    private final Array<Renderable> looseRenderables = new Array<>(false, 64);
+    private final IntArray looseMasks = new IntArray(false, 64);
+    private boolean instancing = false;
+
+    /**
+     * @param pass the render pass
+     * @return the bit of the pass in pass masks
+     */
+    public static int passBit(RenderPass pass) {
+        return 1 << pass.ordinal();
+    }
+
+    /**
+     * Rebuilds the list for the current frame.
+     *
+     * @param scene the scene to build the list for
+     * @param activePasses bit mask of the passes rendered this frame, see {@link #passBit(RenderPass)}
+     */
+    public void build(Scene scene, int activePasses) {
+        clear();
+        offsets.add(0);
+        instancing = scene.settings.useInstancing && Gdx.gl30 != null;
+        collect(scene.sceneGraph.getRoot(), activePasses, false);
+        finishInstanceGroups();
+    }
+
+    /**
+     * Renders all entries visible to the given pass. Water is not rendered, see {@link #getWaterComponents()}.
+     * Instance groups are drawn instanced only for non depth passes without a shader override, as
+     * only the shaders of {@link com.mbrlabs.mundus.commons.shaders.MundusPBRShaderProvider} support it.
+     *
+     * @param scene       the scene
+     * @param batch       the model batch to use
+     * @param shader      the shader to use, or null to use the batches shader provider
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass        the render pass
+     */
+    public void render(Scene scene, ModelBatch batch, Shader shader, boolean isDepthPass, RenderPass pass) {
+        final int bit = passBit(pass);
+
+        for (int i = 0; i < components.size; i++) {
+            if ((passMasks.get(i) & bit) == 0) continue;
+
+            CullableComponent cullable = cullables.get(i);
+            if (cullable != null) {
+                if (isDepthPass) {
+                    cullable.triggerBeforeDepthRenderEvent();
+                } else {
+                    cullable.triggerBeforeRenderEvent();
+                }
+            }
+
+            int end = offsets.get(i + 1);
+            for (int r = offsets.get(i); r < end; r++) {
+                if ((renderableMasks.get(r) & bit) == 0) continue;
+
+                Renderable renderable = renderables.get(r);
+                renderable.environment = scene.environment;
+                // Always reset, the previous pass may have left its shader on the renderable
+                renderable.shader = shader;
+                batch.render(renderable);
+            }
+        }
+
+        for (int i = 0; i < looseRenderables.size; i++) {
+            if ((looseMasks.get(i) & bit) == 0) continue;
+            render(scene, batch, looseRenderables.get(i), shader);
+        }
+
+        boolean drawInstanced = shader == null && !isDepthPass;
+        for (int i = 0; i < activeGroups.size; i++) {
+            InstanceGroup group = activeGroups.get(i);
+
+            if (drawInstanced) {
+                if (group.prepare(bit) > 0) {
+                    render(scene, batch, group.getRenderable(), null);
+                }
+                continue;
+            }
+
+            for (int m = 0; m < group.size(); m++) {
+                if ((group.getMemberMask(m) & bit) == 0) continue;
+                render(scene, batch, group.getMember(m), shader);
+            }
+        }
+    }
+
+    private void render(Scene scene, ModelBatch batch, Renderable renderable, Shader shader) {
+        renderable.environment = scene.environment;
+        renderable.shader = shader;
+        batch.render(renderable);
+    }
+
+    /**
+     * @return the active water components visible to the main camera this frame
+     */
+    public Array<WaterComponent> getWaterComponents() {
+        return waterComponents;
+    }
+
+    /**
+     * @return number of entries, excluding water
+     */
+    public int size() {
+        return components.size;
+    }
+
+    /**
+     * @return the instance groups with at least {@link #MIN_INSTANCES} members this frame. Do not modify.
+     */
+    public Array<InstanceGroup> getInstanceGroups() {
+        return activeGroups;
+    }
+
+    public void clear() {
+        renderablePool.flush();
+        renderables.clear();
+        renderableMasks.clear();
+        components.clear();
+        cullables.clear();
+        passMasks.clear();
+        offsets.clear();
+        waterComponents.clear();
+
+        for (int i = 0; i < activeGroups.size; i++) {
+            activeGroups.get(i).clear();
+        }
+        activeGroups.clear();
+        looseRenderables.clear();
+        looseMasks.clear();
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+        for (Array<InstanceGroup> groups : instanceGroups.values()) {
+            for (int i = 0; i < groups.size; i++) {
+                groups.get(i).dispose();
+            }
+        }
+        instanceGroups.clear();
+    }
+
+    private void collect(GameObject parent, int activePasses, boolean inWater) {
+        Array<GameObject> children = parent.getChildren();
+        if (children == null) return;
+
+        for (int i = 0; i < children.size; i++) {
+            GameObject go = children.get(i);
+            if (!go.active) continue;
+
+            // Children of water game objects only render their water, same as the recursive renderer
+            boolean waterSubtree = inWater || go.hasWaterComponent;
+
+            Array<Component> goComponents = go.getComponents();
+            for (int c = 0; c < goComponents.size; c++) {
+                Component component = goComponents.get(c);
+                if (!(component instanceof RenderableComponent)) continue;
+
+                if (component instanceof WaterComponent) {
+                    if (go.hasWaterComponent && !((WaterComponent) component).isCulled(RenderPass.MAIN)) {
+                        waterComponents.add((WaterComponent) component);
+                    }
+                    continue;
+                }
+
+                if (waterSubtree) continue;
+
+                // Model cached components are rendered through the model cache
+                if (component instanceof ModelCacheable && ((ModelCacheable) component).shouldCache()) continue;
+
+                add((RenderableComponent) component, activePasses);
+            }
+
+            collect(go, activePasses, waterSubtree);
+        }
+    }
+
+    private void add(RenderableComponent component, int activePasses) {
+        CullableComponent cullable = null;
+        int mask = activePasses;
+
+        if (component instanceof CullableComponent) {
+            cullable = (CullableComponent) component;
+            mask = 0;
+            for (RenderPass pass : RenderPass.VALUES) {
+                int bit = passBit(pass);
+                if ((activePasses & bit) != 0 && !cullable.isCulled(pass)) {
+                    mask |= bit;
+                }
+            }
+        }
+
+        // Not visible to any pass, skip collecting its renderables
+        if (mask == 0) return;
+
+        int start = renderables.size;
+        component.getRenderableProvider().getRenderables(renderables, renderablePool);
+
+        if (instancing && component instanceof ModelComponent) {
+            // Move instanceable renderables into their groups, keeping the rest in this entry
+            int kept = start;
+            for (int r = start; r < renderables.size; r++) {
+                Renderable renderable = renderables.get(r);
+                if (InstanceGroup.canInstance(renderable)) {
+                    obtainInstanceGroup(renderable).add(renderable, mask);
+                } else {
+                    renderables.set(kept++, renderable);
+                }
+            }
+            renderables.truncate(kept);
+        }
+
+        if (component instanceof TerrainComponent) {
+            // Terrain chunks are culled individually, chunks visible to no pass are dropped
+            TerrainComponent terrain = (TerrainComponent) component;
+            terrain.updateLod(mask);
+            final int reflectionBit = passBit(RenderPass.REFLECTION);
+            int kept = start;
+            int chunkMasks = 0;
+            for (int r = start; r < renderables.size; r++) {
+                int chunk = r - start;
+                int chunkMask = terrain.getChunkPassMask(chunk, mask);
+                if (chunkMask == 0) continue;
+                chunkMasks |= chunkMask;
+
+                Renderable renderable = renderables.get(r);
+                if ((chunkMask & reflectionBit) != 0 && terrain.hasReflectionLod(chunk)) {
+                    // The mirrored reflection camera sees the chunk at another level, it gets a copy
+                    Renderable reflection = renderablePool.obtain().set(renderable);
+                    terrain.applyLod(reflection, chunk, RenderPass.REFLECTION);
+                    reflectionRenderables.add(reflection);
+                    chunkMask &= ~reflectionBit;
+                    if (chunkMask == 0) continue;
+                }
+
+                terrain.applyLod(renderable, chunk, RenderPass.MAIN);
+                renderables.set(kept++, renderable);
+                renderableMasks.add(chunkMask);
+            }
+            renderables.truncate(kept);
+            for (int r = 0; r < reflectionRenderables.size; r++) {
+                renderables.add(reflectionRenderables.get(r));
+                renderableMasks.add(reflectionBit);
+            }
+            reflectionRenderables.clear();
+            if (chunkMasks == 0) return;
+            mask = chunkMasks;
+        } else {
+            for (int r = renderableMasks.size; r < renderables.size; r++) {
+                renderableMasks.add(mask);
+            }
+        }
+
+        components.add(component);
+        cullables.add(cullable);
+        passMasks.add(mask);
+        offsets.add(renderables.size);
+    }
+
+    private InstanceGroup obtainInstanceGroup(Renderable renderable) {
+        Array<InstanceGroup> groups = instanceGroups.get(renderable.meshPart.mesh);
+        if (groups == null) {
+            groups = new Array<>(false, 2);
+            instanceGroups.put(renderable.meshPart.mesh, groups);
+        }
+
+        InstanceGroup group = null;
+        for (int i = 0; i < groups.size; i++) {
+            if (groups.get(i).matches(renderable)) {
+                group = groups.get(i);
+                break;
+            }
+        }
+
+        if (group == null) {
+            group = new InstanceGroup(renderable);
+            groups.add(group);
+        }
+
+        if (group.size() == 0) {
+            activeGroups.add(group);
+        }
+        return group;
+    }
+
+    /**
+     * Renders groups below {@link #MIN_INSTANCES} individually and disposes groups unused for a while.
+     */
+    private void finishInstanceGroups() {
+        for (int i = activeGroups.size - 1; i >= 0; i--) {
+            InstanceGroup group = activeGroups.get(i);
+            if (group.size() >= MIN_INSTANCES) continue;
+
+            for (int m = 0; m < group.size(); m++) {
+                looseRenderables.add(group.getMember(m));
+                looseMasks.add(group.getMemberMask(m));
+            }
+            group.clear();
+            activeGroups.removeIndex(i);
+        }
+
+        ObjectMap.Entries<Mesh, Array<InstanceGroup>> entries = instanceGroups.entries();
+        while (entries.hasNext()) {
+            Array<InstanceGroup> groups = entries.next().value;
+            for (int i = groups.size - 1; i >= 0; i--) {
+                InstanceGroup group = groups.get(i);
+                if (group.size() > 0) {
+                    group.unusedBuilds = 0;
+                } else if (++group.unusedBuilds > MAX_UNUSED_BUILDS) {
+                    group.dispose();
+                    groups.removeIndex(i);
+                }
+            }
+            if (groups.size == 0) {
+                entries.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.rendering;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.glutils.InstanceBufferObject;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Renderables of a frame that share the same mesh part and an equal material, drawn with a single
+ * instanced draw call. The world transforms of the members visible to a pass are uploaded as per
+ * instance attributes (i_worldTrans0-3) into an instance buffer of the group. The group draws the vertices and
+ * indices of the source mesh, they are shared and not copied.
+ * <p>
+ * The group renderable is marked by having the group as its user data, see {@link #isInstanced(Renderable)},
+ * so the shader provider can compile a shader variant with instancedFlag for it.
+ */
+public class InstanceGroup implements Disposable {
+    public static final int FLOATS_PER_INSTANCE = 16;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final VertexAttribute[] INSTANCE_ATTRIBUTES = new VertexAttribute[] {
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans0"),
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans1"),
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans2"),
+            new VertexAttribute(VertexAttributes.Usage.Generic, 4, "i_worldTrans3")
+    };
+
+    private final Mesh sourceMesh;
+    private final int offset;
+    private final int size;
+    private final int primitiveType;
+    // Snapshot of the material the group was created for, members must have an equal material
+    private final Material material;
+
+    private final Renderable renderable = new Renderable();
+    private final Array<Renderable> members = new Array<>(false, 64);
+    private final IntArray memberMasks = new IntArray(false, 64);
+
+    private InstancedMesh instancedMesh;
+    private int capacity = 0;
+    private float[] instanceData = new float[0];
+
+    // Number of frame render list builds the group had no members in
+    int unusedBuilds = 0;
+
+    public InstanceGroup(Renderable source) {
+        sourceMesh = source.meshPart.mesh;
+        offset = source.meshPart.offset;
+        size = source.meshPart.size;
+        primitiveType = source.meshPart.primitiveType;
+        material = source.material.copy();
+        renderable.userData = this;
+    }
+
+    /**
+     * @param renderable the renderable to check
+     * @return true if the renderable can be drawn as part of an instance group
+     */
+    public static boolean canInstance(Renderable renderable) {
+        // Skinned and morphed renderables need per instance uniforms
+        if (renderable.bones != null || renderable.userData != null) return false;
+        if (renderable.material == null || renderable.meshPart.mesh == null) return false;
+
+        // Blended renderables must stay individually depth sorted
+        BlendingAttribute blending = (BlendingAttribute) renderable.material.get(BlendingAttribute.Type);
+        return blending == null || !blending.blended;
+    }
+
+    /**
+     * @param renderable the renderable to check
+     * @return true if the renderable is the renderable of an instance group
+     */
+    public static boolean isInstanced(Renderable renderable) {
+        return renderable.userData instanceof InstanceGroup;
+    }
+
+    /**
+     * @param renderable the renderable to check
+     * @return true if the renderable can be added to this group
+     */
+    public boolean matches(Renderable renderable) {
+        return renderable.meshPart.mesh == sourceMesh
+                && renderable.meshPart.offset == offset
+                && renderable.meshPart.size == size
+                && renderable.meshPart.primitiveType == primitiveType
+                && material.equals(renderable.material);
+    }
+
+    void add(Renderable member, int passMask) {
+        members.add(member);
+        memberMasks.add(passMask);
+    }
+
+    void clear() {
+        members.clear();
+        memberMasks.clear();
+    }
+
+    /**
+     * Uploads the world transforms of the members visible to the given pass and sets up the group renderable.
+     *
+     * @param passBit the bit of the render pass, see {@link FrameRenderList#passBit(RenderPass)}
+     * @return the number of instances uploaded, the group renderable should only be rendered if above 0
+     */
+    int prepare(int passBit) {
+        ensureCapacity(members.size);
+
+        Renderable first = null;
+        int count = 0;
+        for (int i = 0; i < members.size; i++) {
+            if ((memberMasks.get(i) & passBit) == 0) continue;
+
+            Renderable member = members.get(i);
+            if (first == null) first = member;
+            System.arraycopy(member.worldTransform.val, 0, instanceData, count * FLOATS_PER_INSTANCE, FLOATS_PER_INSTANCE);
+            count++;
+        }
+
+        if (count == 0) return 0;
+
+        instancedMesh.instanceBuffer.setInstanceData(instanceData, 0, count * FLOATS_PER_INSTANCE);
+
+        renderable.meshPart.set(first.meshPart);
+        renderable.meshPart.mesh = instancedMesh;
+        renderable.material = first.material;
+        // Used for sorting only, the shader reads the instance transforms
+        renderable.worldTransform.set(first.worldTransform);
+        return count;
+    }
+
+    private void ensureCapacity(int instances) {
+        if (instancedMesh != null && capacity >= instances) return;
+
+        if (instancedMesh == null) {
+            instancedMesh = new InstancedMesh(sourceMesh);
+        } else {
+            // Only the instance buffer grows, the source mesh stays shared
+            instancedMesh.instanceBuffer.dispose();
+        }
+
+        capacity = Math.max(MIN_CAPACITY, Math.max(instances, capacity * 2));
+        instanceData = new float[capacity * FLOATS_PER_INSTANCE];
+        instancedMesh.instanceBuffer = new InstanceBufferObject(false, capacity, INSTANCE_ATTRIBUTES);
+    }
+
+    /**
+     * @return the renderable that draws the group, valid after {@link #prepare(int)}
+     */
+    public Renderable getRenderable() {
+        return renderable;
+    }
+
+    public Renderable getMember(int index) {
+        return members.get(index);
+    }
+
+    public int getMemberMask(int index) {
+        return memberMasks.get(index);
+    }
+
+    public int size() {
+        return members.size;
+    }
+
+    @Override
+    public void dispose() {
+        if (instancedMesh != null) {
+            instancedMesh.dispose();
+            instancedMesh = null;
+        }
+        capacity = 0;
+    }
+
+    /**
+     * Draws the vertices and indices of the source mesh instanced with the instance buffer of the group.
+     * The mesh itself only holds the vertex attributes of the source mesh for the shaders, its own buffers
+     * are empty.
+     */
+    private static class InstancedMesh extends Mesh {
+        private final Mesh source;
+        InstanceBufferObject instanceBuffer;
+
+        InstancedMesh(Mesh source) {
+            super(true, 0, 0, source.getVertexAttributes());
+            this.source = source;
+        }
+
+        @Override
+        public void bind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            source.bind(shader, locations, null);
+            instanceBuffer.bind(shader, instanceLocations);
+        }
+
+        @Override
+        public void unbind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            // Before the source, its vertex array object must still be bound
+            instanceBuffer.unbind(shader, instanceLocations);
+            source.unbind(shader, locations, null);
+        }
+
+        @Override
+        public void render(ShaderProgram shader, int primitiveType, int offset, int count, boolean autoBind) {
+            int numInstances = instanceBuffer.getNumInstances();
+            if (count == 0 || numInstances == 0) return;
+
+            if (autoBind) bind(shader);
+            if (source.getNumIndices() > 0) {
+                Gdx.gl30.glDrawElementsInstanced(primitiveType, count, GL20.GL_UNSIGNED_SHORT, offset * 2, numInstances);
+            } else {
+                Gdx.gl30.glDrawArraysInstanced(primitiveType, offset, count, numInstances);
+            }
+            if (autoBind) unbind(shader);
+        }
+
+        @Override
+        public int getNumVertices() {
+            return source.getNumVertices();
+        }
+
+        @Override
+        public int getNumIndices() {
+            return source.getNumIndices();
+        }
+
+        @Override
+        public void dispose() {
+            super.dispose();
+            if (instanceBuffer != null) {
+                instanceBuffer.dispose();
+                instanceBuffer = null;
+            }
+        }
+    }
+}
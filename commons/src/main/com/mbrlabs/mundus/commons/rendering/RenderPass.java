@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.rendering;
+
+/**
+ * The render passes of a frame. Each pass renders from its own camera and has its own visibility set.
+ */
+public enum RenderPass {
+    /** Main scene camera */
+    MAIN,
+
+    /** Directional light shadow map camera */
+    SHADOW,
+
+    /** Mirrored camera below the water plane, clipped to geometry above water */
+    REFLECTION,
+
+    /** Main camera clipped to geometry below water, used for refraction color and depth */
+    REFRACTION;
+
+    /** Cached values() to avoid allocations */
+    public static final RenderPass[] VALUES = values();
+}
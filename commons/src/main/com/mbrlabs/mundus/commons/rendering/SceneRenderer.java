@@ -44,6 +44,28 @@ public interface SceneRenderer {
      */
     void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass);
 
+    /**
+     * Renders all renderable components (except Water) of the given parent game objects children
+     * recursively, skipping components culled for the given render pass.
+     *
+     * @param batch the model batch to use
+     * @param parent the parent game object
+     * @param shader the shader to use
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass the render pass, its visibility set is used for culling
+     */
+    void renderComponents(Scene scene, ModelBatch batch, GameObject parent, Shader shader, boolean isDepthPass, RenderPass pass);
+
+    /**
+     * Renders the components of the current frame (except Water) that are visible to the given render pass.
+     *
+     * @param batch the model batch to use
+     * @param shader the shader to use, or null for the batches shader provider
+     * @param isDepthPass whether this is a depth render pass
+     * @param pass the render pass
+     */
+    void renderPass(Scene scene, ModelBatch batch, Shader shader, boolean isDepthPass, RenderPass pass);
+
     void setDepthShader(Shader depthShader);
 
     Shader getDepthShader();
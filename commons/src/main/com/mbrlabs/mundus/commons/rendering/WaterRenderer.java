@@ -9,6 +9,7 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
@@ -56,6 +57,40 @@ public class WaterRenderer {
         }
     }
 
+    /**
+     * Computes the visibility sets of the water passes for this frame.
+     *
+     * @return bit mask of the water passes that will be rendered this frame
+     */
+    public int updateVisibility(Scene scene) {
+        if (!scene.sceneGraph.isContainsWater()) return 0;
+
+        // Depth and refraction passes share the main camera and the refraction clipping plane
+        scene.sceneGraph.updateVisibility(RenderPass.REFRACTION, scene.cam, clippingPlaneRefraction, getRefractionClipHeight(scene));
+        int passes = FrameRenderList.passBit(RenderPass.REFRACTION);
+
+        if (scene.settings.enableWaterReflections) {
+            mirrorCamera(scene);
+            scene.sceneGraph.updateVisibility(RenderPass.REFLECTION, scene.cam, clippingPlaneReflection, getReflectionClipHeight(scene));
+            restoreCamera(scene);
+            passes |= FrameRenderList.passBit(RenderPass.REFLECTION);
+        }
+
+        return passes;
+    }
+
+    /**
+     * Renders the water components of the given frame render list.
+     *
+     * @param renderList the render list of the current frame
+     */
+    public void renderWater(Scene scene, FrameRenderList renderList) {
+        Array<WaterComponent> waterComponents = renderList.getWaterComponents();
+        for (int i = 0; i < waterComponents.size; i++) {
+            renderWaterComponent(scene, waterComponents.get(i));
+        }
+    }
+
     /**
      * Renders all water components of the given parent game objects children recursively.
      *
@@ -71,12 +106,7 @@ public class WaterRenderer {
                     WaterComponent waterComponent = (WaterComponent) component;
 
                     if (waterComponent.isCulled()) continue;
-                    waterComponent.triggerBeforeRenderEvent();
-
-                    waterComponent.getWaterAsset().setWaterReflectionTexture(getReflectionTexture(scene));
-                    waterComponent.getWaterAsset().setWaterRefractionTexture(getRefractionTexture(scene));
-                    waterComponent.getWaterAsset().setWaterRefractionDepthTexture(getRefractionDepthTexture());
-                    scene.batch.render(waterComponent.getRenderableProvider(), scene.environment);
+                    renderWaterComponent(scene, waterComponent);
                 }
             }
 
@@ -86,14 +116,23 @@ public class WaterRenderer {
         }
     }
 
+    protected void renderWaterComponent(Scene scene, WaterComponent waterComponent) {
+        waterComponent.triggerBeforeRenderEvent();
+
+        waterComponent.getWaterAsset().setWaterReflectionTexture(getReflectionTexture(scene));
+        waterComponent.getWaterAsset().setWaterRefractionTexture(getRefractionTexture(scene));
+        waterComponent.getWaterAsset().setWaterRefractionDepthTexture(getRefractionDepthTexture());
+        scene.batch.render(waterComponent.getRenderableProvider(), scene.environment);
+    }
+
     protected void captureDepth(Scene scene) {
         // Render depth refractions to FBO
         fboDepthRefraction.begin();
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         scene.depthBatch.begin(scene.cam);
-        scene.setClippingPlane(clippingPlaneRefraction, scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.depthBatch, scene.sceneGraph.getRoot(), scene.getSceneRenderer().getDepthShader(), true);
-        scene.depthBatch.render(scene.modelCacheManager.modelCache, scene.environment, scene.getSceneRenderer().getDepthShader());
+        scene.setClippingPlane(clippingPlaneRefraction, getRefractionClipHeight(scene));
+        scene.getSceneRenderer().renderPass(scene, scene.depthBatch, scene.getSceneRenderer().getDepthShader(), true, RenderPass.REFRACTION);
+        scene.modelCacheManager.render(scene.depthBatch, scene.environment, scene.getSceneRenderer().getDepthShader(), true);
         scene.depthBatch.end();
         fboDepthRefraction.end();
     }
@@ -104,9 +143,9 @@ public class WaterRenderer {
         fboWaterRefraction.begin();
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         scene.batch.begin(scene.cam);
-        scene.setClippingPlane(clippingPlaneRefraction, scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
+        scene.setClippingPlane(clippingPlaneRefraction, getRefractionClipHeight(scene));
+        scene.getSceneRenderer().renderPass(scene, scene.batch, null, false, RenderPass.REFRACTION);
+        scene.modelCacheManager.render(scene.batch, scene.environment, null, false);
         scene.batch.end();
         fboWaterRefraction.end();
     }
@@ -114,6 +153,26 @@ public class WaterRenderer {
     protected void captureReflectionFBO(Scene scene) {
         if (!scene.settings.enableWaterReflections) return;
 
+        mirrorCamera(scene);
+
+        // Render reflections to FBO
+        fboWaterReflection.begin();
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+        scene.batch.begin(scene.cam);
+        scene.setClippingPlane(clippingPlaneReflection, getReflectionClipHeight(scene));
+        scene.getSceneRenderer().renderPass(scene, scene.batch, null, false, RenderPass.REFLECTION);
+        scene.modelCacheManager.render(scene.batch, scene.environment, null, false);
+        scene.getSceneRenderer().renderSkybox(scene);
+        scene.batch.end();
+        fboWaterReflection.end();
+
+        restoreCamera(scene);
+    }
+
+    /**
+     * Mirrors the scene camera below the water plane for reflections. Call {@link #restoreCamera(Scene)} after.
+     */
+    protected void mirrorCamera(Scene scene) {
         // Calc vertical distance for camera for reflection FBO
         float camReflectionDistance = 2 * (scene.cam.position.y - scene.settings.waterHeight);
 
@@ -129,25 +188,23 @@ public class WaterRenderer {
         // Position the scene.camera below the water plane, looking "up"
         scene.cam.position.sub(0, camReflectionDistance, 0);
         scene.cam.update();
+    }
 
-        // Render reflections to FBO
-        fboWaterReflection.begin();
-        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
-        scene.batch.begin(scene.cam);
-        scene.setClippingPlane(clippingPlaneReflection, -scene.settings.waterHeight + scene.settings.distortionEdgeCorrection);
-        scene.getSceneRenderer().renderComponents(scene, scene.batch, scene.sceneGraph.getRoot());
-        scene.batch.render(scene.modelCacheManager.modelCache, scene.environment);
-        scene.getSceneRenderer().renderSkybox(scene);
-        scene.batch.end();
-        fboWaterReflection.end();
-
-        // Restore camera data
+    protected void restoreCamera(Scene scene) {
         scene.cam.direction.set(tmpCamDir);
         scene.cam.position.set(tmpCamPos);
         scene.cam.up.set(tmpCamUp);
         scene.cam.update();
     }
 
+    private float getRefractionClipHeight(Scene scene) {
+        return scene.settings.waterHeight + scene.settings.distortionEdgeCorrection;
+    }
+
+    private float getReflectionClipHeight(Scene scene) {
+        return -scene.settings.waterHeight + scene.settings.distortionEdgeCorrection;
+    }
+
     protected void updateFBOS(int width, int height) {
         if (fboWaterReflection != null) {
             fboWaterReflection.dispose();
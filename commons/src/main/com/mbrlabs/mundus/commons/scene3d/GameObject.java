@@ -19,6 +19,7 @@ package com.mbrlabs.mundus.commons.scene3d;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.LightComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
 import com.mbrlabs.mundus.commons.scene3d.traversal.DepthFirstIterator;
@@ -193,6 +194,10 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         if (component instanceof WaterComponent) {
             hasWaterComponent = false;
         }
+
+        if (component instanceof CullableComponent) {
+            ((CullableComponent) component).removeFromCullingTree();
+        }
     }
 
     /**
@@ -316,6 +321,9 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         if (component != null) {
             sceneGraph.scene.environment.remove(component.getLight());
         }
+
+        // Removed objects are no longer rendered, drop them from the culling tree
+        removeFromCullingTree(this);
     }
 
     @Override
@@ -379,6 +387,20 @@ public class GameObject extends SimpleNode<GameObject> implements Iterable<GameO
         }
     }
 
+    private void removeFromCullingTree(GameObject go) {
+        for (int i = 0; i < go.components.size; ++i) {
+            Component c = go.components.get(i);
+            if (c instanceof CullableComponent) {
+                ((CullableComponent) c).removeFromCullingTree();
+            }
+        }
+
+        if (go.children == null) return;
+        for (int i = 0; i < go.children.size; ++i) {
+            removeFromCullingTree(go.children.get(i));
+        }
+    }
+
     private <T extends Component> Array<T> findComponentsByType(Array<T> out, GameObject go, Component.Type type, boolean recursive) {
         for (int i = 0; i < go.components.size; ++i) {
             Component c = go.components.get(i);
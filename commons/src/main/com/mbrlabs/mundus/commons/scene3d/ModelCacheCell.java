@@ -0,0 +1,103 @@
+package com.mbrlabs.mundus.commons.scene3d;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.ModelCache;
+import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * One cell of the ModelCacheManager grid. Holds its own ModelCache with the cacheable models
+ * whose origin lies inside the cell, and the combined world bounds of those models for culling.
+ */
+public class ModelCacheCell implements Disposable {
+    private static final BoundingBox tmpBounds = new BoundingBox();
+
+    public final long key;
+    public final ModelCache modelCache;
+
+    private final BoundingBox bounds = new BoundingBox();
+    private final Array<ModelCacheable> members = new Array<>();
+    private final Array<ModelEventable> modelEventables = new Array<>();
+    private boolean dirty = true;
+
+    public ModelCacheCell(long key) {
+        this.key = key;
+        this.modelCache = new ModelCache();
+    }
+
+    void add(ModelCacheable cacheable) {
+        members.add(cacheable);
+        dirty = true;
+    }
+
+    void remove(ModelCacheable cacheable) {
+        members.removeValue(cacheable, true);
+        dirty = true;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Re-merges the models of this cell into its cache and recomputes its bounds.
+     *
+     * @param camera camera used for sorting by the ModelCache
+     */
+    void rebuild(Camera camera) {
+        modelEventables.clear();
+        bounds.inf();
+
+        modelCache.begin(camera);
+        for (int i = 0; i < members.size; i++) {
+            ModelCacheable cacheable = members.get(i);
+            ModelInstance modelInstance = cacheable.getModelInstance();
+            modelCache.add(modelInstance);
+
+            modelInstance.calculateBoundingBox(tmpBounds).mul(modelInstance.transform);
+            bounds.ext(tmpBounds);
+
+            if (cacheable instanceof ModelEventable) {
+                modelEventables.add((ModelEventable) cacheable);
+            }
+        }
+        modelCache.end();
+
+        dirty = false;
+    }
+
+    void triggerBeforeDepthRenderEvent() {
+        for (int i = 0; i < modelEventables.size; i++) {
+            modelEventables.get(i).triggerBeforeDepthRenderEvent();
+        }
+    }
+
+    void triggerBeforeRenderEvent() {
+        for (int i = 0; i < modelEventables.size; i++) {
+            modelEventables.get(i).triggerBeforeRenderEvent();
+        }
+    }
+
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean isEmpty() {
+        return members.size == 0;
+    }
+
+    public int getMemberCount() {
+        return members.size;
+    }
+
+    @Override
+    public void dispose() {
+        modelCache.dispose();
+    }
+}
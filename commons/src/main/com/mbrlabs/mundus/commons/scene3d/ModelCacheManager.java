@@ -1,56 +1,96 @@
 package com.mbrlabs.mundus.commons.scene3d;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Mesh;
-import com.badlogic.gdx.graphics.g3d.ModelCache;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
 
 /**
- * Manages a ModelCache and keeps it up to date based on requests for rebuilds and set intervals
+ * Manages model caches and keeps them up to date based on requests for rebuilds and set intervals.
+ * <p>
+ * Cacheable models are partitioned into a uniform grid on the XZ plane, each cell has its own
+ * ModelCache and bounds. Cells are frustum culled against the camera of each render pass, and
+ * only cells containing a changed GameObject are rebuilt.
  *
  * @author JamesTKhan
  * @version August 02, 2022
  */
 public class ModelCacheManager implements Disposable {
+    public static final float DEFAULT_CELL_SIZE = 64f;
+
+    private static final Vector3 tmpVec = new Vector3();
+
     private final Scene scene;
 
-    public ModelCache modelCache;
     protected float modelCacheUpdateInterval = 0.5f;
     protected float lastModelCacheRebuild = modelCacheUpdateInterval;
     protected boolean modelCacheRebuildRequested = true;
-    private final Array<ModelEventable> modelEventables;
+    protected float cellSize = DEFAULT_CELL_SIZE;
+
+    private final LongMap<ModelCacheCell> cells = new LongMap<>();
+    private final Array<ModelCacheCell> cellList = new Array<>();
+    private final ObjectMap<ModelCacheable, ModelCacheCell> memberCells = new ObjectMap<>();
+    // A set, game objects are often reported changed on every frame until the next rebuild
+    private final ObjectSet<GameObject> changedGameObjects = new ObjectSet<>();
 
     public ModelCacheManager(Scene scene) {
-        modelCache = new ModelCache();
         this.scene = scene;
-        this.modelEventables = new Array<>();
     }
 
     public void update(float delta) {
-        if (modelCacheRebuildRequested) {
+        if (modelCacheRebuildRequested || changedGameObjects.size > 0) {
             lastModelCacheRebuild += delta;
 
             if (lastModelCacheRebuild > modelCacheUpdateInterval) {
-                modelCacheRebuildRequested = false;
                 lastModelCacheRebuild = 0f;
-                rebuildModelCache();
+                if (modelCacheRebuildRequested) {
+                    rebuildModelCache();
+                } else {
+                    rebuildChangedCells();
+                }
             }
         }
     }
 
     /**
-     * Rebuilds model cache for the current scene. Potentially expensive
+     * Rebuilds all model cache cells for the current scene. Potentially expensive
      * depending on the size of the scene and should only be rebuilt when needed.
      */
     public void rebuildModelCache() {
-        modelEventables.clear();
-        modelCache.begin(scene.cam);
+        modelCacheRebuildRequested = false;
+        changedGameObjects.clear();
+
+        for (ModelCacheCell cell : cellList) {
+            cell.dispose();
+        }
+        cells.clear();
+        cellList.clear();
+        memberCells.clear();
+
         addModelsToCache(scene.sceneGraph.getGameObjects());
-        modelCache.end();
+        rebuildDirtyCells();
+    }
+
+    /**
+     * Rebuilds the cells containing the given GameObject or its children, now.
+     *
+     * @param go the changed game object
+     */
+    public void rebuildModelCache(GameObject go) {
+        syncGameObject(go);
+        rebuildDirtyCells();
     }
 
     protected void addModelsToCache(Array<GameObject> gameObjects) {
@@ -59,26 +99,8 @@ public class ModelCacheManager implements Disposable {
             if (!go.active) continue;
 
             for (Component comp : go.getComponents()) {
-                if (comp instanceof ModelCacheable && ((ModelCacheable) comp).shouldCache()) {
-                    ModelInstance modelInstance = ((ModelCacheable) comp).getModelInstance();
-
-                    boolean skip = false;
-                    for (Mesh mesh : modelInstance.model.meshes) {
-                        if (mesh.getNumIndices() <= 0) {
-                            Gdx.app.error(this.getClass().getSimpleName(), "Issues in mesh for " + go.name + " prevent it from being cacheable. Try cleaning mesh up in 3D modeling software.");
-                            skip = true;
-                            break;
-                        }
-                    }
-                    if (skip) {
-                        continue;
-                    }
-
-                    modelCache.add(((ModelCacheable) comp).getModelInstance());
-
-                    if (comp instanceof ModelEventable) {
-                        modelEventables.add((ModelEventable) comp);
-                    }
+                if (comp instanceof ModelCacheable && isCacheable(go, (ModelCacheable) comp)) {
+                    syncMember((ModelCacheable) comp, true);
                 }
             }
 
@@ -89,12 +111,52 @@ public class ModelCacheManager implements Disposable {
     }
 
     /**
-     * Request for the model cache to be rebuilt on the next interval
+     * Renders the cells visible to the camera of the given batch.
+     *
+     * @param batch       the model batch, must have begun
+     * @param environment the environment
+     * @param shader      the shader to use, or null for the batches shader provider
+     * @param isDepthPass whether this is a depth render pass
+     */
+    public void render(ModelBatch batch, Environment environment, Shader shader, boolean isDepthPass) {
+        Camera camera = batch.getCamera();
+        boolean cull = camera != null && scene.settings.useFrustumCulling;
+
+        for (int i = 0; i < cellList.size; i++) {
+            ModelCacheCell cell = cellList.get(i);
+            if (cull && !camera.frustum.boundsInFrustum(cell.getBounds())) continue;
+
+            if (isDepthPass) {
+                cell.triggerBeforeDepthRenderEvent();
+            } else {
+                cell.triggerBeforeRenderEvent();
+            }
+
+            if (shader != null) {
+                batch.render(cell.modelCache, environment, shader);
+            } else {
+                batch.render(cell.modelCache, environment);
+            }
+        }
+    }
+
+    /**
+     * Request for all model cache cells to be rebuilt on the next interval. Prefer
+     * {@link #requestModelCacheRebuild(GameObject)} when the changed game object is known.
      */
     public void requestModelCacheRebuild() {
         modelCacheRebuildRequested = true;
     }
 
+    /**
+     * Request for the cells containing the given game object or its children to be rebuilt on the next interval.
+     *
+     * @param go the changed game object
+     */
+    public void requestModelCacheRebuild(GameObject go) {
+        changedGameObjects.add(go);
+    }
+
     /**
      * Change how often the model cache should be updated, in seconds.
      *
@@ -104,15 +166,36 @@ public class ModelCacheManager implements Disposable {
         modelCacheUpdateInterval = interval;
     }
 
+    /**
+     * Change the size of the grid cells on the X and Z axis, in world units. Causes a full rebuild.
+     *
+     * @param cellSize the cell size
+     */
+    public void setCellSize(float cellSize) {
+        this.cellSize = cellSize;
+        requestModelCacheRebuild();
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return all cells of the grid. Do not modify.
+     */
+    public Array<ModelCacheCell> getCells() {
+        return cellList;
+    }
+
     public void triggerBeforeDepthRenderEvent() {
-        for (final ModelEventable me : modelEventables) {
-            me.triggerBeforeDepthRenderEvent();
+        for (int i = 0; i < cellList.size; i++) {
+            cellList.get(i).triggerBeforeDepthRenderEvent();
         }
     }
 
     public void triggerBeforeRenderEvent() {
-        for (final ModelEventable me : modelEventables) {
-            me.triggerBeforeRenderEvent();
+        for (int i = 0; i < cellList.size; i++) {
+            cellList.get(i).triggerBeforeRenderEvent();
         }
     }
 
@@ -120,19 +203,124 @@ public class ModelCacheManager implements Disposable {
      * Rebuild model cache if given GameObject has a cacheable component.
      */
     public static void rebuildIfCached(GameObject go, boolean immediately) {
+        ModelCacheManager manager = go.sceneGraph.scene.modelCacheManager;
+        if (immediately)
+            manager.rebuildModelCache(go);
+        else
+            manager.requestModelCacheRebuild(go);
+    }
+
+    private void rebuildChangedCells() {
+        for (GameObject go : changedGameObjects) {
+            syncGameObject(go);
+        }
+        changedGameObjects.clear();
+        rebuildDirtyCells();
+    }
+
+    /**
+     * Updates the cell membership of all cacheables of the game object and its children,
+     * marking old and new cells dirty.
+     */
+    private void syncGameObject(GameObject go) {
+        boolean activeInScene = isActiveInScene(go);
+
         for (int i = 0; i < go.getComponents().size; i++) {
-            if (go.getComponents().get(i) instanceof ModelCacheable) {
-                if (immediately)
-                    go.sceneGraph.scene.modelCacheManager.rebuildModelCache();
-                else
-                    go.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
-                break;
+            Component comp = go.getComponents().get(i);
+            if (comp instanceof ModelCacheable) {
+                ModelCacheable cacheable = (ModelCacheable) comp;
+                syncMember(cacheable, activeInScene && isCacheable(go, cacheable));
+            }
+        }
+
+        if (go.getChildren() == null) return;
+        for (int i = 0; i < go.getChildren().size; i++) {
+            syncGameObject(go.getChildren().get(i));
+        }
+    }
+
+    private void syncMember(ModelCacheable cacheable, boolean cached) {
+        ModelCacheCell current = memberCells.get(cacheable);
+        ModelCacheCell target = cached ? obtainCell(cacheable.getModelInstance()) : null;
+
+        if (current != null) {
+            current.markDirty();
+            if (current != target) {
+                current.remove(cacheable);
+                memberCells.remove(cacheable);
+            }
+        }
+
+        if (target != null && current != target) {
+            target.add(cacheable);
+            memberCells.put(cacheable, target);
+        }
+    }
+
+    private void rebuildDirtyCells() {
+        for (int i = cellList.size - 1; i >= 0; i--) {
+            ModelCacheCell cell = cellList.get(i);
+            if (!cell.isDirty()) continue;
+
+            if (cell.isEmpty()) {
+                cell.dispose();
+                cells.remove(cell.key);
+                cellList.removeIndex(i);
+            } else {
+                cell.rebuild(scene.cam);
             }
         }
     }
 
+    private ModelCacheCell obtainCell(ModelInstance modelInstance) {
+        modelInstance.transform.getTranslation(tmpVec);
+        int cellX = MathUtils.floor(tmpVec.x / cellSize);
+        int cellZ = MathUtils.floor(tmpVec.z / cellSize);
+        long key = ((long) cellX << 32) | (cellZ & 0xffffffffL);
+
+        ModelCacheCell cell = cells.get(key);
+        if (cell == null) {
+            cell = new ModelCacheCell(key);
+            cells.put(key, cell);
+            cellList.add(cell);
+        }
+        return cell;
+    }
+
+    private boolean isCacheable(GameObject go, ModelCacheable cacheable) {
+        if (!cacheable.shouldCache()) return false;
+
+        ModelInstance modelInstance = cacheable.getModelInstance();
+        if (modelInstance == null) return false;
+
+        for (Mesh mesh : modelInstance.model.meshes) {
+            if (mesh.getNumIndices() <= 0) {
+                Gdx.app.error(this.getClass().getSimpleName(), "Issues in mesh for " + go.name + " prevent it from being cacheable. Try cleaning mesh up in 3D modeling software.");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the game object and all its parents are active and it is attached to the scene graph
+     */
+    private boolean isActiveInScene(GameObject go) {
+        GameObject root = scene.sceneGraph.getRoot();
+        while (go != root) {
+            if (go == null || !go.active) return false;
+            go = go.getParent();
+        }
+        return true;
+    }
+
     @Override
     public void dispose() {
-        modelCache.dispose();
+        for (ModelCacheCell cell : cellList) {
+            cell.dispose();
+        }
+        cells.clear();
+        cellList.clear();
+        memberCells.clear();
     }
 }
@@ -17,14 +17,19 @@
 package com.mbrlabs.mundus.commons.scene3d;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.rendering.RenderPass;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
+import com.mbrlabs.mundus.commons.scene3d.culling.DynamicAabbTree;
+import com.mbrlabs.mundus.commons.scene3d.culling.VisibilitySet;
 
 /**
  * @author Marcus Brummer
@@ -38,11 +43,20 @@ public class SceneGraph {
 
     private boolean containsWater = false;
 
+    // Spatial index of all cullable components, updated incrementally from dirty components
+    private final DynamicAabbTree<CullableComponent> cullingTree = new DynamicAabbTree<>();
+    private final Array<CullableComponent> dirtyCullables = new Array<>(false, 64);
+    private final VisibilitySet[] visibilitySets = new VisibilitySet[RenderPass.VALUES.length];
+
     public SceneGraph(Scene scene) {
         root = new GameObject(this, null, -1);
         root.initChildrenArray();
         root.active = false;
         this.scene = scene;
+
+        for (RenderPass pass : RenderPass.VALUES) {
+            visibilitySets[pass.ordinal()] = new VisibilitySet(pass);
+        }
     }
 
     public void update() {
@@ -194,6 +208,65 @@ public class SceneGraph {
         return root;
     }
 
+    /**
+     * Queues a cullable component whose bounds changed, the culling tree is updated
+     * on the next visibility update.
+     *
+     * @param component the component with changed bounds
+     */
+    public void markCullingBoundsDirty(CullableComponent component) {
+        dirtyCullables.add(component);
+    }
+
+    /**
+     * Applies all pending bounds changes to the culling tree.
+     */
+    public void updateCullingTree() {
+        // Index based, updating bounds can queue more components
+        for (int i = 0; i < dirtyCullables.size; i++) {
+            dirtyCullables.get(i).updateCullingBounds();
+        }
+        dirtyCullables.clear();
+    }
+
+    /**
+     * Computes which cullable components are visible to the camera of a render pass, with one
+     * hierarchical query of the culling tree. The result is cached in the passes visibility set
+     * until the next update of that pass.
+     *
+     * @param pass the render pass
+     * @param camera the camera of the pass
+     * @return the updated visibility set
+     */
+    public VisibilitySet updateVisibility(RenderPass pass, Camera camera) {
+        return updateVisibility(pass, camera, null, 0);
+    }
+
+    /**
+     * Computes which cullable components are visible to the camera of a render pass and are not fully
+     * clipped by the given clipping plane.
+     *
+     * @param pass the render pass
+     * @param camera the camera of the pass
+     * @param clipPlane the clipping plane normal, may be null
+     * @param clipHeight the clipping height
+     * @return the updated visibility set
+     */
+    public VisibilitySet updateVisibility(RenderPass pass, Camera camera, Vector3 clipPlane, float clipHeight) {
+        updateCullingTree();
+        VisibilitySet visibilitySet = visibilitySets[pass.ordinal()];
+        visibilitySet.update(cullingTree, camera, clipPlane, clipHeight);
+        return visibilitySet;
+    }
+
+    public VisibilitySet getVisibilitySet(RenderPass pass) {
+        return visibilitySets[pass.ordinal()];
+    }
+
+    public DynamicAabbTree<CullableComponent> getCullingTree() {
+        return cullingTree;
+    }
+
     public boolean isContainsWater() {
         return containsWater;
     }
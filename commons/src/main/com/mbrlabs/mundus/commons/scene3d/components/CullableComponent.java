@@ -17,7 +17,6 @@
 package com.mbrlabs.mundus.commons.scene3d.components;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.BoundingBox;
@@ -25,39 +24,43 @@ import com.badlogic.gdx.math.collision.OrientedBoundingBox;
 import com.badlogic.gdx.utils.Array;
 import com.mbrlabs.mundus.commons.event.Event;
 import com.mbrlabs.mundus.commons.event.EventType;
+import com.mbrlabs.mundus.commons.rendering.RenderPass;
 import com.mbrlabs.mundus.commons.scene3d.DirtyListener;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.ModelCacheable;
 import com.mbrlabs.mundus.commons.scene3d.ModelEventable;
-import com.mbrlabs.mundus.commons.shadows.MundusDirectionalShadowLight;
-
-import static com.mbrlabs.mundus.commons.utils.ModelUtils.isVisible;
+import com.mbrlabs.mundus.commons.scene3d.culling.DynamicAabbTree;
 
 /**
  * Components that can be Culled via Frustum Culling should extend
  * this class and call setDimensions once they have access to a modelInstance as well as super
- * for render() and update()
- * The isCulled value will be set accordingly and components can check if is isCulled == true
- * before rendering.
+ * for update().
+ * The bounds of the component are tracked in the scene graphs culling tree and its visibility is
+ * computed once per frame and render pass by the scene renderer. Components can check if
+ * isCulled(pass) == true before rendering.
  *
  * @author JamesTKhan
  * @version July 18, 2022
  */
 public abstract class CullableComponent extends AbstractComponent implements ModelEventable, DirtyListener {
-    private final static BoundingBox tmpBounds = new BoundingBox();
     private final static Vector3 tmpScale = new Vector3();
-    private final static short frameCullCheckInterval = 15;
 
     protected final Vector3 center = new Vector3();
     protected final Vector3 dimensions = new Vector3();
     private final OrientedBoundingBox orientedBoundingBox = new OrientedBoundingBox();
+    private final BoundingBox localBounds = new BoundingBox();
+    private final BoundingBox worldBounds = new BoundingBox();
     protected float radius;
+    // Radius of the bounds before any scaling
+    protected float localRadius;
+
+    // Leaf of this component in the scene graphs culling tree, null if not inserted
+    private DynamicAabbTree.Node<CullableComponent> cullingNode;
+    private boolean cullingBoundsDirty = false;
 
-    // Render calls since last cull check
-    protected short framesSinceLastCullCheck = 0;
+    // Visibility frame of each render pass this component was last seen in
+    private final int[] visibleFrames = new int[RenderPass.VALUES.length];
 
-    // Is it offscreen?
-    protected boolean isCulled = false;
     private Array<Event> events;
     private ModelInstance modelInstance = null;
 
@@ -73,43 +76,7 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
         if (gameObject.scaleChanged) {
             setDimensions(modelInstance);
         }
-
-        if (!gameObject.sceneGraph.scene.settings.useFrustumCulling) {
-            isCulled = false;
-            return;
-        }
-
-        // Cannot frustum cull model cache objects, no reason for perform calculations
-        if (this instanceof ModelCacheable) {
-            if (((ModelCacheable) this).shouldCache()) {
-                isCulled = false;
-                return;
-            }
-        }
-
-        // If object is not culled, don't perform a cull check every frame, just in intervals
-        // to reduce matrix calculations
-        if (!isCulled && framesSinceLastCullCheck++ < frameCullCheckInterval) return;
-        framesSinceLastCullCheck = 0;
-
-        boolean visibleToPerspective;
-        boolean visibleToShadowMap = false;
-
-        Camera sceneCam = gameObject.sceneGraph.scene.cam;
-
-        visibleToPerspective = isVisible(sceneCam, modelInstance, center, radius);
-
-        // If not visible to main cam, check if it's visible to shadow map (to prevent shadows popping out)
-        if (!visibleToPerspective) {
-            if (gameObject.sceneGraph.scene.environment.shadowMap instanceof MundusDirectionalShadowLight) {
-                MundusDirectionalShadowLight shadowLight = (MundusDirectionalShadowLight) gameObject.sceneGraph.scene.environment.shadowMap;
-                visibleToShadowMap = isVisible(shadowLight.getCamera(), modelInstance, center, radius);
-            }
-        }
-
-        isCulled = !visibleToPerspective && !visibleToShadowMap;
     }
-
     @Override
     public void addEvent(final Event event) {
         if (events == null) {
@@ -142,13 +109,15 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
             return;
         }
         this.modelInstance = modelInstance;
-        modelInstance.calculateBoundingBox(tmpBounds);
-        tmpBounds.getCenter(center);
-        tmpBounds.getDimensions(dimensions);
+        modelInstance.calculateBoundingBox(localBounds);
+        localBounds.getCenter(center);
+        localBounds.getDimensions(dimensions);
+        localRadius = dimensions.len() / 2f;
         gameObject.getScale(tmpScale);
         dimensions.scl(tmpScale);
         radius = dimensions.len() / 2f;
-        orientedBoundingBox.set(tmpBounds, modelInstance.transform);
+        orientedBoundingBox.set(localBounds, modelInstance.transform);
+        markCullingBoundsDirty();
     }
 
     public OrientedBoundingBox getOrientedBoundingBox() {
@@ -179,8 +148,76 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
         return radius;
     }
 
+    /**
+     * Returns the world space axis aligned bounds, as of the last culling tree update.
+     */
+    public BoundingBox getWorldBounds() {
+        return worldBounds;
+    }
+
+    /**
+     * Returns whether this component is culled for the main camera.
+     */
     public boolean isCulled() {
-        return isCulled;
+        return isCulled(RenderPass.MAIN);
+    }
+
+    /**
+     * Returns whether this component is culled for the camera of the given render pass,
+     * as of the last visibility update of that pass.
+     *
+     * @param pass the render pass
+     */
+    public boolean isCulled(RenderPass pass) {
+        if (modelInstance == null) return false;
+        if (!gameObject.sceneGraph.scene.settings.useFrustumCulling) return false;
+
+        // Model cache objects are culled per model cache cell instead
+        if (this instanceof ModelCacheable && ((ModelCacheable) this).shouldCache()) return false;
+
+        return !gameObject.sceneGraph.getVisibilitySet(pass).isVisible(visibleFrames[pass.ordinal()]);
+    }
+
+    /**
+     * Marks this component as visible in the given frame of a visibility set. Called by
+     * VisibilitySet for each component returned by a culling query.
+     *
+     * @param pass the render pass of the visibility set
+     * @param frame the frame of the visibility set
+     */
+    public void setVisibleFrame(RenderPass pass, int frame) {
+        visibleFrames[pass.ordinal()] = frame;
+    }
+
+    /**
+     * Inserts, moves or removes this component in the culling tree of its scene graph.
+     * Called by the SceneGraph for components whose bounds were marked dirty.
+     */
+    public void updateCullingBounds() {
+        cullingBoundsDirty = false;
+        DynamicAabbTree<CullableComponent> tree = gameObject.sceneGraph.getCullingTree();
+
+        if (modelInstance == null || !isInSceneGraph()) {
+            removeFromCullingTree();
+            return;
+        }
+
+        worldBounds.set(localBounds).mul(modelInstance.transform);
+
+        if (cullingNode == null || !cullingNode.isInTree()) {
+            cullingNode = tree.insert(worldBounds, this);
+        } else {
+            tree.move(cullingNode, worldBounds);
+        }
+    }
+
+    /**
+     * Removes this component from the culling tree of its scene graph.
+     */
+    public void removeFromCullingTree() {
+        if (cullingNode == null) return;
+        gameObject.sceneGraph.getCullingTree().remove(cullingNode);
+        cullingNode = null;
     }
 
     @Override
@@ -190,5 +227,20 @@ public abstract class CullableComponent extends AbstractComponent implements Mod
 
         if (modelInstance == null) return;
         orientedBoundingBox.setTransform(modelInstance.transform);
+        markCullingBoundsDirty();
+    }
+
+    private void markCullingBoundsDirty() {
+        if (cullingBoundsDirty) return;
+        cullingBoundsDirty = true;
+        gameObject.sceneGraph.markCullingBoundsDirty(this);
+    }
+
+    private boolean isInSceneGraph() {
+        GameObject go = gameObject;
+        while (go.getParent() != null) {
+            go = go.getParent();
+        }
+        return go == gameObject.sceneGraph.getRoot();
     }
 }
@@ -16,9 +16,19 @@
 
 package com.mbrlabs.mundus.commons.scene3d.components;
 
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
 import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.mbrlabs.mundus.commons.assets.Asset;
 import com.mbrlabs.mundus.commons.assets.MaterialAsset;
@@ -34,11 +44,23 @@ import java.util.Objects;
  * @version 17-01-2016
  */
 public class ModelComponent extends CullableComponent implements AssetUsage, ModelCacheable, RenderableComponent {
+    /** A coarser LOD is used below its screen size, the finer one only again above screen size * (1 + hysteresis) */
+    public static final float LOD_HYSTERESIS = 0.15f;
+
+    private static final Vector3 tmpCenter = new Vector3();
+    private static final Vector3 tmpScale = new Vector3();
 
     protected ModelAsset modelAsset;
     protected ModelInstance modelInstance;
     protected boolean useModelCache = false;
 
+    // Node parts of the instance and the index of their mesh part in the model, for switching LODs
+    private final Array<NodePart> lodNodeParts = new Array<>();
+    private final IntArray lodMeshPartIndices = new IntArray();
+    protected int lodLevel = 0;
+    // World space radius of the bounds for picking the LOD level, updated when the transform changes
+    private float lodRadius;
+
     protected ObjectMap<String, MaterialAsset> materials;  // g3db material id to material asset uuid
 
     public ModelComponent(GameObject go) {
@@ -66,6 +88,7 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
         applyMaterials();
 
         setDimensions(modelInstance);
+        initLods();
     }
 
     public void setModel(final ModelInstance modelInstance) {
@@ -73,6 +96,109 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
         modelInstance.transform = gameObject.getTransform();
 
         setDimensions(this.modelInstance);
+        initLods();
+    }
+
+    @Override
+    public void update(float delta) {
+        super.update(delta);
+        updateLod();
+    }
+
+    /**
+     * Picks the LOD level of the model asset from the projected size of the model on screen.
+     */
+    protected void updateLod() {
+        if (lodNodeParts.size == 0 || modelAsset.getLodCount() <= 1) return;
+
+        // Model cache merges the meshes, always cache full detail
+        if (useModelCache) {
+            setLodLevel(0);
+            return;
+        }
+
+        Camera camera = gameObject.sceneGraph.scene.cam;
+        if (camera == null) return;
+
+        float screenSize = getScreenSize(camera);
+        int level = lodLevel;
+        while (level + 1 < modelAsset.getLodCount() && screenSize < modelAsset.getLodScreenSize(level + 1)) {
+            level++;
+        }
+        while (level > 0 && screenSize > modelAsset.getLodScreenSize(level) * (1f + LOD_HYSTERESIS)) {
+            level--;
+        }
+        setLodLevel(level);
+    }
+
+    /**
+     * @param camera the camera
+     * @return projected diameter of the bounding sphere as fraction of the screen height
+     */
+    protected float getScreenSize(Camera camera) {
+        tmpCenter.set(center).mul(modelInstance.transform);
+
+        if (camera instanceof OrthographicCamera) {
+            return 2f * lodRadius / (camera.viewportHeight * ((OrthographicCamera) camera).zoom);
+        }
+
+        float distance = camera.position.dst(tmpCenter);
+        if (distance <= lodRadius) return Float.MAX_VALUE;
+
+        float fieldOfView = camera instanceof PerspectiveCamera ? ((PerspectiveCamera) camera).fieldOfView : 67f;
+        return lodRadius / (distance * (float) Math.tan(fieldOfView * 0.5f * MathUtils.degreesToRadians));
+    }
+
+    /**
+     * @param level the LOD level of the model asset to render
+     */
+    public void setLodLevel(int level) {
+        if (level == lodLevel) return;
+        lodLevel = level;
+
+        for (int i = 0; i < lodNodeParts.size; i++) {
+            lodNodeParts.get(i).meshPart.set(modelAsset.getLodMeshPart(lodMeshPartIndices.get(i), level));
+        }
+    }
+
+    public int getLodLevel() {
+        return lodLevel;
+    }
+
+    private void updateLodRadius() {
+        if (modelInstance == null) return;
+        // The instance transform includes the scale of the parents
+        modelInstance.transform.getScale(tmpScale);
+        lodRadius = localRadius * Math.max(Math.abs(tmpScale.x), Math.max(Math.abs(tmpScale.y), Math.abs(tmpScale.z)));
+    }
+
+    private void initLods() {
+        updateLodRadius();
+        lodNodeParts.clear();
+        lodMeshPartIndices.clear();
+        lodLevel = 0;
+
+        if (modelAsset == null || modelAsset.getLodCount() <= 1) return;
+
+        for (Node node : modelInstance.nodes) {
+            collectLodNodeParts(node);
+        }
+    }
+
+    private void collectLodNodeParts(Node node) {
+        for (NodePart nodePart : node.parts) {
+            int index = modelAsset.getMeshPartIndex(nodePart.meshPart);
+            if (index < 0) continue;
+
+            // Own the mesh part, so switching LODs does not affect other instances
+            nodePart.meshPart = new MeshPart(nodePart.meshPart);
+            lodNodeParts.add(nodePart);
+            lodMeshPartIndices.add(index);
+        }
+
+        for (Node child : node.getChildren()) {
+            collectLodNodeParts(child);
+        }
     }
 
     public ObjectMap<String, MaterialAsset> getMaterials() {
@@ -114,10 +240,21 @@ public class ModelComponent extends CullableComponent implements AssetUsage, Mod
         mc.setModel(new ModelInstance(modelAsset.getModel()));
         mc.materials.putAll(this.materials);
         mc.setUseModelCache(useModelCache);
-        gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
+        gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild(go);
         return mc;
     }
 
+    @Override
+    public void onDirty() {
+        super.onDirty();
+        updateLodRadius();
+
+        // Moved cached models need their model cache cell rebuilt
+        if (useModelCache) {
+            gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild(gameObject);
+        }
+    }
+
     @Override
     public boolean usesAsset(Asset assetToCheck) {
         if (Objects.equals(assetToCheck.getID(), modelAsset.getID()))
@@ -18,16 +18,26 @@ package com.mbrlabs.mundus.commons.scene3d.components;
 
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
 import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.mbrlabs.mundus.commons.assets.Asset;
 import com.mbrlabs.mundus.commons.assets.TerrainAsset;
+import com.mbrlabs.mundus.commons.rendering.FrameRenderList;
+import com.mbrlabs.mundus.commons.rendering.RenderPass;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.TerrainChunk;
+import com.mbrlabs.mundus.commons.terrain.TerrainLodLevels;
 import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -37,30 +47,179 @@ import java.util.Objects;
 public class TerrainComponent extends CullableComponent implements AssetUsage, RenderableComponent {
 
     private static final String TAG = TerrainComponent.class.getSimpleName();
+    private static final BoundingBox tmpBounds = new BoundingBox();
+    private static final Matrix4 tmpMatrix = new Matrix4();
+    private static final Vector3 tmpPosition = new Vector3();
 
     protected ModelInstance modelInstance;
     protected TerrainAsset terrainAsset;
 
+    // Transform and its inverse as of the last update(), used by the batch queries
+    private final Matrix4 inverseTransform = new Matrix4();
+    private final Matrix4 transformSnapshot = new Matrix4();
+
+    // LOD levels of the chunks, kept per component as components may share a terrain asset
+    private final TerrainLodLevels lodLevels = new TerrainLodLevels();
+    private final TerrainLodLevels reflectionLodLevels = new TerrainLodLevels();
+
     public TerrainComponent(GameObject go) {
         super(go);
         type = Component.Type.TERRAIN;
     }
 
+    /**
+     * The model instance draws the chunks at full resolution. The frame render list draws them with the
+     * LOD levels of this component, see {@link #updateLod(int)}.
+     */
     @Override
     public RenderableProvider getRenderableProvider() {
         return modelInstance;
     }
 
+    @Override
+    public void update(float delta) {
+        super.update(delta);
+        updateInverseTransform();
+    }
+
+    /**
+     * Picks the LOD levels of the chunks for the cameras of the given passes, before the renderables of the
+     * terrain are gathered for a frame. Main, shadow and refraction passes share the levels picked for the
+     * main camera. Refraction renders from the main camera, and the shadow map has to hold the surface the
+     * main camera draws, otherwise chunks shadow themselves along LOD seams. The reflection camera is
+     * mirrored below the water and gets levels of its own.
+     *
+     * @param passMask the passes the terrain is visible in, see {@link FrameRenderList#passBit(RenderPass)}
+     */
+    public void updateLod(int passMask) {
+        if (modelInstance == null) return;
+
+        Terrain terrain = terrainAsset.getTerrain();
+        SceneGraph sceneGraph = gameObject.sceneGraph;
+        tmpMatrix.set(modelInstance.transform).inv();
+
+        tmpPosition.set(sceneGraph.getVisibilitySet(RenderPass.MAIN).getCameraPosition()).mul(tmpMatrix);
+        lodLevels.update(terrain, tmpPosition);
+
+        if ((passMask & FrameRenderList.passBit(RenderPass.REFLECTION)) != 0) {
+            tmpPosition.set(sceneGraph.getVisibilitySet(RenderPass.REFLECTION).getCameraPosition()).mul(tmpMatrix);
+            reflectionLodLevels.update(terrain, tmpPosition);
+        }
+    }
+
+    /**
+     * Draws a renderable of a chunk with the LOD level picked for the given pass by {@link #updateLod(int)}.
+     *
+     * @param renderable the renderable of the chunk, from the renderables of the model instance
+     * @param chunkIndex index of the chunk
+     * @param pass the render pass
+     */
+    public void applyLod(Renderable renderable, int chunkIndex, RenderPass pass) {
+        TerrainLodLevels levels = pass == RenderPass.REFLECTION ? reflectionLodLevels : lodLevels;
+        levels.apply(renderable, chunkIndex);
+    }
+
+    /**
+     * @param chunkIndex index of the chunk
+     * @return true if the reflection pass draws the chunk with other indices than the main camera
+     */
+    public boolean hasReflectionLod(int chunkIndex) {
+        return !reflectionLodLevels.sameIndices(lodLevels, chunkIndex);
+    }
+
+    /**
+     * Culls a chunk of the terrain against the visibility sets of the render passes.
+     *
+     * @param chunkIndex index of the chunk, renderables of the model instance are in chunk order
+     * @param passMask the passes the terrain is visible in, see {@link FrameRenderList#passBit(RenderPass)}
+     * @return the passes the chunk is visible in
+     */
+    public int getChunkPassMask(int chunkIndex, int passMask) {
+        SceneGraph sceneGraph = gameObject.sceneGraph;
+        if (!sceneGraph.scene.settings.useFrustumCulling) return passMask;
+
+        TerrainChunk chunk = terrainAsset.getTerrain().getChunks().get(chunkIndex);
+        tmpBounds.set(chunk.getBounds()).mul(modelInstance.transform);
+
+        int mask = 0;
+        for (RenderPass pass : RenderPass.VALUES) {
+            int bit = FrameRenderList.passBit(pass);
+            if ((passMask & bit) != 0 && sceneGraph.getVisibilitySet(pass).isVisible(tmpBounds)) {
+                mask |= bit;
+            }
+        }
+        return mask;
+    }
+
     public void updateUVs(Vector2 uvScale) {
         terrainAsset.updateUvScale(uvScale);
     }
 
     public void setTerrainAsset(TerrainAsset terrainAsset) {
         this.terrainAsset = terrainAsset;
+        lodLevels.dispose();
+        reflectionLodLevels.dispose();
         modelInstance = new ModelInstance(terrainAsset.getTerrain().getModel());
         modelInstance.transform = gameObject.getTransform();
         applyMaterial();
         setDimensions(modelInstance);
+        updateInverseTransform();
+    }
+
+    private void updateInverseTransform() {
+        if (modelInstance == null || Arrays.equals(transformSnapshot.val, modelInstance.transform.val)) return;
+        transformSnapshot.set(modelInstance.transform);
+        inverseTransform.set(transformSnapshot).inv();
+    }
+
+    /**
+     * The inverse of the terrain transform as of the last {@link #update(float)}, for the batch queries of
+     * the terrain. It is refreshed in update(), so queries from worker threads must not overlap with the
+     * update of the scene graph.
+     *
+     * @return the inverse transform, do not modify
+     */
+    public Matrix4 getInverseTransform() {
+        return inverseTransform;
+    }
+
+    /**
+     * Samples the world height of the terrain surface below each of the given world positions, see
+     * {@link com.mbrlabs.mundus.commons.terrain.Terrain#getWorldHeights}. Allocation free and thread safe.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outHeights set to the world Y of the terrain surface at each position
+     * @param count number of positions
+     */
+    public void getWorldHeights(float[] worldX, float[] worldZ, float[] outHeights, int count) {
+        terrainAsset.getTerrain().getWorldHeights(worldX, worldZ, outHeights, count, transformSnapshot, inverseTransform);
+    }
+
+    /**
+     * Samples the world normal of the terrain surface below each of the given world positions, see
+     * {@link com.mbrlabs.mundus.commons.terrain.Terrain#getWorldNormals}. Allocation free and thread safe.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outNormals set to the world normals, three floats (x, y, z) per position
+     * @param count number of positions
+     */
+    public void getWorldNormals(float[] worldX, float[] worldZ, float[] outNormals, int count) {
+        terrainAsset.getTerrain().getWorldNormals(worldX, worldZ, outNormals, count, inverseTransform);
+    }
+
+    /**
+     * Checks for each of the given world positions if it is within the X and Z boundaries of the terrain.
+     * Allocation free and thread safe.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outOnTerrain set to true for the positions within the terrain boundaries
+     * @param count number of positions
+     */
+    public void getOnTerrain(float[] worldX, float[] worldZ, boolean[] outOnTerrain, int count) {
+        terrainAsset.getTerrain().getOnTerrain(worldX, worldZ, outOnTerrain, count, inverseTransform);
     }
 
     public void applyMaterial() {
@@ -85,6 +244,13 @@ public class TerrainComponent extends CullableComponent implements AssetUsage, R
         throw new GdxRuntimeException("Duplicating terrains is not supported.");
     }
 
+    @Override
+    public void remove() {
+        super.remove();
+        lodLevels.dispose();
+        reflectionLodLevels.dispose();
+    }
+
     @Override
     public boolean usesAsset(Asset assetToCheck) {
         if (Objects.equals(terrainAsset.getID(), assetToCheck.getID()))
@@ -134,7 +300,7 @@ public class TerrainComponent extends CullableComponent implements AssetUsage, R
      *
      * @param out Vector3 to populate with intersect point with
      * @param ray the ray to cast
-     * @return The out Vector3 which contains the intersect point.
+     * @return The out Vector3 which contains the intersect point, or null if the ray misses the terrain.
      */
     public Vector3 getRayIntersection(Vector3 out, Ray ray) {
         return terrainAsset.getTerrain().getRayIntersection(out, ray, modelInstance.transform);
@@ -0,0 +1,560 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.scene3d.culling;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Plane;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Dynamic bounding volume hierarchy of axis aligned bounding boxes, in the style of the Box2D/Bullet
+ * dynamic tree. Leaves store a tight and a "fat" (margin enlarged) box, so that small movements do not
+ * restructure the tree. Inserts and removals keep the tree balanced with AVL style rotations.
+ * <p>
+ * Queries are hierarchical, subtrees fully inside a frustum are collected without further plane tests.
+ */
+public class DynamicAabbTree<T> {
+
+    /** Default amount each leaf box is enlarged by in every direction, in world units */
+    public static final float DEFAULT_MARGIN = 0.5f;
+
+    private static final int OUTSIDE = 0;
+    private static final int INTERSECTING = 1;
+    private static final int INSIDE = 2;
+
+    private final float margin;
+    private final Array<Node<T>> stack = new Array<>(false, 64);
+    private final Array<Node<T>> collectStack = new Array<>(false, 64);
+    private final Array<Node<T>> freeNodes = new Array<>(false, 16);
+
+    private Node<T> root;
+    private int leafCount;
+
+    public DynamicAabbTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    public DynamicAabbTree(float margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Inserts a new leaf into the tree.
+     *
+     * @param bounds world bounds of the object
+     * @param userData the object the leaf represents
+     * @return the leaf node, use it for {@link #move(Node, BoundingBox)} and {@link #remove(Node)}
+     */
+    public Node<T> insert(BoundingBox bounds, T userData) {
+        Node<T> leaf = new Node<>();
+        leaf.userData = userData;
+        leaf.setTight(bounds);
+        leaf.fatten(margin);
+        insertLeaf(leaf);
+        leaf.inTree = true;
+        leafCount++;
+        return leaf;
+    }
+
+    /**
+     * Removes the given leaf from the tree. Does nothing if the leaf is not in the tree.
+     *
+     * @param leaf the leaf to remove
+     */
+    public void remove(Node<T> leaf) {
+        if (leaf == null || !leaf.inTree) return;
+        removeLeaf(leaf);
+        leaf.inTree = false;
+        leafCount--;
+    }
+
+    /**
+     * Updates the bounds of a leaf. The tree is only restructured if the new bounds escape the fat
+     * bounds of the leaf, or if the fat bounds became much larger than needed.
+     *
+     * @param leaf the leaf to update
+     * @param bounds the new world bounds
+     * @return true if the tree was restructured
+     */
+    public boolean move(Node<T> leaf, BoundingBox bounds) {
+        leaf.setTight(bounds);
+        if (leaf.fatContainsTight(margin * 4f)) return false;
+
+        removeLeaf(leaf);
+        leaf.fatten(margin);
+        insertLeaf(leaf);
+        return true;
+    }
+
+    /**
+     * Collects the user data of all leaves whose tight bounds intersect the given frustum.
+     *
+     * @param frustum the frustum to test against
+     * @param out the array to add results to, not cleared
+     */
+    public void query(Frustum frustum, Array<T> out) {
+        query(frustum.planes, frustum.planes.length, out);
+    }
+
+    /**
+     * Collects the user data of all leaves whose tight bounds intersect the convex volume
+     * bounded by the given planes. Planes face inwards, like frustum planes.
+     *
+     * @param planes the planes to test against
+     * @param planeCount number of planes to use from the array
+     * @param out the array to add results to, not cleared
+     */
+    public void query(Plane[] planes, int planeCount, Array<T> out) {
+        if (root == null) return;
+
+        stack.add(root);
+        while (stack.size > 0) {
+            Node<T> node = stack.pop();
+
+            if (node.isLeaf()) {
+                // Test tight bounds on leaves so results are exact
+                if (classify(planes, planeCount, node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ) != OUTSIDE) {
+                    out.add(node.userData);
+                }
+                continue;
+            }
+
+            int result = classify(planes, planeCount, node.fatMinX, node.fatMinY, node.fatMinZ, node.fatMaxX, node.fatMaxY, node.fatMaxZ);
+            if (result == OUTSIDE) continue;
+
+            if (result == INSIDE) {
+                collectLeaves(node, out);
+                continue;
+            }
+
+            stack.add(node.child1);
+            stack.add(node.child2);
+        }
+    }
+
+    /**
+     * Collects the user data of all leaves whose tight bounds overlap the given box.
+     *
+     * @param bounds the box to test against
+     * @param out the array to add results to, not cleared
+     */
+    public void query(BoundingBox bounds, Array<T> out) {
+        if (root == null) return;
+
+        stack.add(root);
+        while (stack.size > 0) {
+            Node<T> node = stack.pop();
+
+            if (node.isLeaf()) {
+                if (overlaps(bounds, node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ)) {
+                    out.add(node.userData);
+                }
+                continue;
+            }
+
+            if (!overlaps(bounds, node.fatMinX, node.fatMinY, node.fatMinZ, node.fatMaxX, node.fatMaxY, node.fatMaxZ)) continue;
+
+            stack.add(node.child1);
+            stack.add(node.child2);
+        }
+    }
+
+    /**
+     * @return number of leaves in the tree
+     */
+    public int size() {
+        return leafCount;
+    }
+
+    /**
+     * @return height of the tree, 0 when empty or when holding a single leaf
+     */
+    public int getHeight() {
+        return root == null ? 0 : root.height;
+    }
+
+    /**
+     * Removes all leaves from the tree.
+     */
+    public void clear() {
+        if (root != null) {
+            stack.add(root);
+            while (stack.size > 0) {
+                Node<T> node = stack.pop();
+                if (node.isLeaf()) {
+                    node.inTree = false;
+                    node.parent = null;
+                } else {
+                    stack.add(node.child1);
+                    stack.add(node.child2);
+                    freeNode(node);
+                }
+            }
+        }
+        root = null;
+        leafCount = 0;
+    }
+
+    private void collectLeaves(Node<T> start, Array<T> out) {
+        collectStack.add(start);
+        while (collectStack.size > 0) {
+            Node<T> node = collectStack.pop();
+            if (node.isLeaf()) {
+                out.add(node.userData);
+            } else {
+                collectStack.add(node.child1);
+                collectStack.add(node.child2);
+            }
+        }
+    }
+
+    private void insertLeaf(Node<T> leaf) {
+        if (root == null) {
+            root = leaf;
+            leaf.parent = null;
+            return;
+        }
+
+        // Find the best sibling using the surface area heuristic
+        Node<T> sibling = root;
+        while (!sibling.isLeaf()) {
+            Node<T> child1 = sibling.child1;
+            Node<T> child2 = sibling.child2;
+
+            float area = sibling.area();
+            float combinedArea = combinedArea(sibling, leaf);
+
+            // Cost of creating a new parent for this node and the new leaf
+            float cost = 2f * combinedArea;
+
+            // Minimum cost of pushing the leaf further down the tree
+            float inheritanceCost = 2f * (combinedArea - area);
+
+            float cost1 = descendCost(child1, leaf) + inheritanceCost;
+            float cost2 = descendCost(child2, leaf) + inheritanceCost;
+
+            if (cost < cost1 && cost < cost2) break;
+
+            sibling = cost1 < cost2 ? child1 : child2;
+        }
+
+        Node<T> oldParent = sibling.parent;
+        Node<T> newParent = obtainNode();
+        newParent.parent = oldParent;
+        newParent.setUnion(leaf, sibling);
+        newParent.height = sibling.height + 1;
+        newParent.child1 = sibling;
+        newParent.child2 = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+
+        if (oldParent != null) {
+            if (oldParent.child1 == sibling) {
+                oldParent.child1 = newParent;
+            } else {
+                oldParent.child2 = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+
+        refit(leaf.parent);
+    }
+
+    private void removeLeaf(Node<T> leaf) {
+        if (leaf == root) {
+            root = null;
+            return;
+        }
+
+        Node<T> parent = leaf.parent;
+        Node<T> grandParent = parent.parent;
+        Node<T> sibling = parent.child1 == leaf ? parent.child2 : parent.child1;
+
+        if (grandParent != null) {
+            if (grandParent.child1 == parent) {
+                grandParent.child1 = sibling;
+            } else {
+                grandParent.child2 = sibling;
+            }
+            sibling.parent = grandParent;
+            freeNode(parent);
+            refit(grandParent);
+        } else {
+            root = sibling;
+            sibling.parent = null;
+            freeNode(parent);
+        }
+
+        leaf.parent = null;
+    }
+
+    /**
+     * Walks up from the given node, rebalancing and recomputing bounds and heights.
+     */
+    private void refit(Node<T> node) {
+        while (node != null) {
+            node = balance(node);
+
+            Node<T> child1 = node.child1;
+            Node<T> child2 = node.child2;
+            node.height = 1 + Math.max(child1.height, child2.height);
+            node.setUnion(child1, child2);
+
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if node a is imbalanced.
+     *
+     * @return the new root of the subtree
+     */
+    private Node<T> balance(Node<T> a) {
+        if (a.isLeaf() || a.height < 2) return a;
+
+        Node<T> b = a.child1;
+        Node<T> c = a.child2;
+        int balance = c.height - b.height;
+
+        // Rotate c up
+        if (balance > 1) {
+            Node<T> f = c.child1;
+            Node<T> g = c.child2;
+
+            c.child1 = a;
+            c.parent = a.parent;
+            a.parent = c;
+            replaceChild(c.parent, a, c);
+
+            if (f.height > g.height) {
+                c.child2 = f;
+                a.child2 = g;
+                g.parent = a;
+                a.setUnion(b, g);
+                c.setUnion(a, f);
+                a.height = 1 + Math.max(b.height, g.height);
+                c.height = 1 + Math.max(a.height, f.height);
+            } else {
+                c.child2 = g;
+                a.child2 = f;
+                f.parent = a;
+                a.setUnion(b, f);
+                c.setUnion(a, g);
+                a.height = 1 + Math.max(b.height, f.height);
+                c.height = 1 + Math.max(a.height, g.height);
+            }
+            return c;
+        }
+
+        // Rotate b up
+        if (balance < -1) {
+            Node<T> d = b.child1;
+            Node<T> e = b.child2;
+
+            b.child1 = a;
+            b.parent = a.parent;
+            a.parent = b;
+            replaceChild(b.parent, a, b);
+
+            if (d.height > e.height) {
+                b.child2 = d;
+                a.child1 = e;
+                e.parent = a;
+                a.setUnion(c, e);
+                b.setUnion(a, d);
+                a.height = 1 + Math.max(c.height, e.height);
+                b.height = 1 + Math.max(a.height, d.height);
+            } else {
+                b.child2 = e;
+                a.child1 = d;
+                d.parent = a;
+                a.setUnion(c, d);
+                b.setUnion(a, e);
+                a.height = 1 + Math.max(c.height, d.height);
+                b.height = 1 + Math.max(a.height, e.height);
+            }
+            return b;
+        }
+
+        return a;
+    }
+
+    private void replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.child1 == oldChild) {
+            parent.child1 = newChild;
+        } else {
+            parent.child2 = newChild;
+        }
+    }
+
+    private Node<T> obtainNode() {
+        if (freeNodes.size > 0) return freeNodes.pop();
+        return new Node<>();
+    }
+
+    private void freeNode(Node<T> node) {
+        node.parent = null;
+        node.child1 = null;
+        node.child2 = null;
+        node.height = 0;
+        freeNodes.add(node);
+    }
+
+    private float descendCost(Node<T> child, Node<T> leaf) {
+        if (child.isLeaf()) {
+            return combinedArea(child, leaf);
+        }
+        return combinedArea(child, leaf) - child.area();
+    }
+
+    private static float combinedArea(Node<?> a, Node<?> b) {
+        return area(Math.min(a.fatMinX, b.fatMinX), Math.min(a.fatMinY, b.fatMinY), Math.min(a.fatMinZ, b.fatMinZ),
+                Math.max(a.fatMaxX, b.fatMaxX), Math.max(a.fatMaxY, b.fatMaxY), Math.max(a.fatMaxZ, b.fatMaxZ));
+    }
+
+    private static float area(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float dx = maxX - minX;
+        float dy = maxY - minY;
+        float dz = maxZ - minZ;
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * @param planes the planes to test against, facing inwards
+     * @param planeCount number of planes to use from the array
+     * @param bounds the box to test
+     * @return true if the box intersects the convex volume bounded by the planes
+     */
+    public static boolean intersects(Plane[] planes, int planeCount, BoundingBox bounds) {
+        return classify(planes, planeCount, bounds.min.x, bounds.min.y, bounds.min.z,
+                bounds.max.x, bounds.max.y, bounds.max.z) != OUTSIDE;
+    }
+
+    private static boolean overlaps(BoundingBox b, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return b.min.x <= maxX && b.max.x >= minX
+                && b.min.y <= maxY && b.max.y >= minY
+                && b.min.z <= maxZ && b.max.z >= minZ;
+    }
+
+    /**
+     * Classifies a box against frustum planes. Frustum planes face inwards, a point is inside if it is
+     * not on the back side of any plane.
+     */
+    private static int classify(Plane[] planes, int planeCount, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float cx = (minX + maxX) * 0.5f;
+        float cy = (minY + maxY) * 0.5f;
+        float cz = (minZ + maxZ) * 0.5f;
+        float ex = (maxX - minX) * 0.5f;
+        float ey = (maxY - minY) * 0.5f;
+        float ez = (maxZ - minZ) * 0.5f;
+
+        boolean intersecting = false;
+        for (int i = 0; i < planeCount; i++) {
+            Plane plane = planes[i];
+            float nx = plane.normal.x;
+            float ny = plane.normal.y;
+            float nz = plane.normal.z;
+
+            float distance = nx * cx + ny * cy + nz * cz + plane.d;
+            float radius = ex * Math.abs(nx) + ey * Math.abs(ny) + ez * Math.abs(nz);
+
+            if (distance + radius < 0) return OUTSIDE;
+            if (distance - radius < 0) intersecting = true;
+        }
+        return intersecting ? INTERSECTING : INSIDE;
+    }
+
+    /**
+     * A node of the tree. Leaves are handed out by {@link #insert(BoundingBox, Object)}.
+     */
+    public static class Node<T> {
+        T userData;
+        Node<T> parent;
+        Node<T> child1;
+        Node<T> child2;
+        int height;
+        boolean inTree;
+
+        // Tight bounds, only used on leaves
+        float minX, minY, minZ, maxX, maxY, maxZ;
+
+        // Enlarged bounds, used for tree structure
+        float fatMinX, fatMinY, fatMinZ, fatMaxX, fatMaxY, fatMaxZ;
+
+        Node() {
+        }
+
+        public T getUserData() {
+            return userData;
+        }
+
+        public boolean isInTree() {
+            return inTree;
+        }
+
+        boolean isLeaf() {
+            return child1 == null;
+        }
+
+        float area() {
+            return DynamicAabbTree.area(fatMinX, fatMinY, fatMinZ, fatMaxX, fatMaxY, fatMaxZ);
+        }
+
+        void setTight(BoundingBox bounds) {
+            minX = bounds.min.x;
+            minY = bounds.min.y;
+            minZ = bounds.min.z;
+            maxX = bounds.max.x;
+            maxY = bounds.max.y;
+            maxZ = bounds.max.z;
+        }
+
+        void fatten(float margin) {
+            fatMinX = minX - margin;
+            fatMinY = minY - margin;
+            fatMinZ = minZ - margin;
+            fatMaxX = maxX + margin;
+            fatMaxY = maxY + margin;
+            fatMaxZ = maxZ + margin;
+        }
+
+        /**
+         * @param slack how much larger than the tight bounds the fat bounds may be on each side
+         * @return true if the tight bounds are inside the fat bounds and the fat bounds are not oversized
+         */
+        boolean fatContainsTight(float slack) {
+            if (minX < fatMinX || minY < fatMinY || minZ < fatMinZ) return false;
+            if (maxX > fatMaxX || maxY > fatMaxY || maxZ > fatMaxZ) return false;
+
+            return minX - fatMinX <= slack && minY - fatMinY <= slack && minZ - fatMinZ <= slack
+                    && fatMaxX - maxX <= slack && fatMaxY - maxY <= slack && fatMaxZ - maxZ <= slack;
+        }
+
+        void setUnion(Node<?> a, Node<?> b) {
+            fatMinX = Math.min(a.fatMinX, b.fatMinX);
+            fatMinY = Math.min(a.fatMinY, b.fatMinY);
+            fatMinZ = Math.min(a.fatMinZ, b.fatMinZ);
+            fatMaxX = Math.max(a.fatMaxX, b.fatMaxX);
+            fatMaxY = Math.max(a.fatMaxY, b.fatMaxY);
+            fatMaxZ = Math.max(a.fatMaxZ, b.fatMaxZ);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.scene3d.culling;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.Plane;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.rendering.RenderPass;
+import com.mbrlabs.mundus.commons.scene3d.components.CullableComponent;
+
+/**
+ * The cullable components visible to the camera of one render pass, cached until the pass is
+ * updated again. An optional clipping plane (as used by the water passes) is culled against
+ * as well, so geometry that would be fully clipped is not submitted.
+ */
+public class VisibilitySet {
+    private static final int MAX_PLANES = 7;
+
+    private final RenderPass pass;
+    private final Array<CullableComponent> visible = new Array<>(false, 256);
+    private final Plane[] planes = new Plane[MAX_PLANES];
+    private final Vector3 cameraPosition = new Vector3();
+
+    private int planeCount = 0;
+
+    // Incremented on each update, 0 means the set was never computed
+    private int frame = 0;
+
+    public VisibilitySet(RenderPass pass) {
+        this.pass = pass;
+        for (int i = 0; i < MAX_PLANES; i++) {
+            planes[i] = new Plane();
+        }
+    }
+
+    /**
+     * Recomputes the set from the culling tree.
+     *
+     * @param tree the culling tree to query
+     * @param camera the camera of the pass
+     * @param clipPlane the clipping plane normal, or null for none
+     * @param clipHeight the clipping height, geometry where dot(pos, clipPlane) + clipHeight is negative is clipped
+     */
+    public void update(DynamicAabbTree<CullableComponent> tree, Camera camera, Vector3 clipPlane, float clipHeight) {
+        // Copy the frustum planes so the clipping plane can be appended
+        Plane[] frustumPlanes = camera.frustum.planes;
+        int planeCount = frustumPlanes.length;
+        for (int i = 0; i < planeCount; i++) {
+            planes[i].set(frustumPlanes[i]);
+        }
+
+        if (clipPlane != null && !clipPlane.isZero()) {
+            planes[planeCount++].set(clipPlane.x, clipPlane.y, clipPlane.z, clipHeight);
+        }
+
+        this.planeCount = planeCount;
+        cameraPosition.set(camera.position);
+        frame++;
+        visible.clear();
+        tree.query(planes, planeCount, visible);
+
+        for (int i = 0; i < visible.size; i++) {
+            visible.get(i).setVisibleFrame(pass, frame);
+        }
+    }
+
+    /**
+     * @param componentFrame the frame a component was last seen in for this pass
+     * @return true if the component is in the set, or the set was never computed
+     */
+    public boolean isVisible(int componentFrame) {
+        return frame == 0 || componentFrame == frame;
+    }
+
+    /**
+     * Tests bounds against the camera and clipping plane of the last update, for parts of components
+     * that are culled individually, like terrain chunks.
+     *
+     * @param worldBounds the world space bounds to test
+     * @return true if the bounds are visible, or the set was never computed
+     */
+    public boolean isVisible(BoundingBox worldBounds) {
+        return frame == 0 || DynamicAabbTree.intersects(planes, planeCount, worldBounds);
+    }
+
+    /**
+     * @return the visible components of the last update. Do not modify.
+     */
+    public Array<CullableComponent> getVisible() {
+        return visible;
+    }
+
+    /**
+     * @return the camera position of the last update, for level of detail selection. Do not modify.
+     */
+    public Vector3 getCameraPosition() {
+        return cameraPosition;
+    }
+
+    public RenderPass getPass() {
+        return pass;
+    }
+}
@@ -6,6 +6,8 @@ import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 import com.mbrlabs.mundus.commons.utils.ShaderUtils;
 
 public class DepthShader extends ClippableShader {
@@ -18,6 +20,9 @@ public class DepthShader extends ClippableShader {
     protected final int UNIFORM_TRANS_MATRIX = register(new Uniform("u_transMatrix"));
 
     protected ShaderProgram program;
+    // Terrains with compact vertices, see Terrain#setCompactVertices. Compiled on first use.
+    protected ShaderProgram compactProgram;
+    private Camera camera;
 
     public DepthShader() {
         program = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this);
@@ -41,6 +46,7 @@ public class DepthShader extends ClippableShader {
     @Override
     public void begin(Camera camera, RenderContext context) {
         this.context = context;
+        this.camera = camera;
         context.begin();
         context.setCullFace(GL20.GL_BACK);
 
@@ -54,6 +60,11 @@ public class DepthShader extends ClippableShader {
 
     @Override
     public void render(Renderable renderable) {
+        if (Terrain.isCompact(renderable.meshPart.mesh)) {
+            renderCompactTerrain(renderable);
+            return;
+        }
+
         super.render(renderable);
 
         set(UNIFORM_TRANS_MATRIX, renderable.worldTransform);
@@ -62,6 +73,27 @@ public class DepthShader extends ClippableShader {
         renderable.meshPart.render(program);
     }
 
+    /**
+     * Renders a terrain with compact vertices with its own program. The uniforms registered with
+     * the base shader belong to the main program, so they are set by name.
+     */
+    protected void renderCompactTerrain(Renderable renderable) {
+        if (compactProgram == null) {
+            compactProgram = ShaderUtils.compile(VERTEX_SHADER, FRAGMENT_SHADER, this, "#define terrainCompactFlag\n");
+        }
+        Terrain terrain = renderable.material.get(TerrainMaterialAttribute.class,
+                TerrainMaterialAttribute.TerrainMaterial).terrainMaterial.getTerrain();
+
+        compactProgram.bind();
+        compactProgram.setUniformMatrix("u_projViewMatrix", camera.combined);
+        compactProgram.setUniformMatrix("u_transMatrix", renderable.worldTransform);
+        compactProgram.setUniformf("u_clipPlane", clippingPlane.x, clippingPlane.y, clippingPlane.z, clippingHeight);
+        compactProgram.setUniformf("u_terrainCellSize", terrain.getCellWidth(), terrain.getCellDepth());
+        renderable.meshPart.render(compactProgram);
+
+        program.bind();
+    }
+
     @Override
     public void end() {
         context.end();
@@ -70,5 +102,8 @@ public class DepthShader extends ClippableShader {
     @Override
     public void dispose() {
         program.dispose();
+        if (compactProgram != null) {
+            compactProgram.dispose();
+        }
     }
 }
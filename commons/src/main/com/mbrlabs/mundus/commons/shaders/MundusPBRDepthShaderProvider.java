@@ -0,0 +1,74 @@
+package com.mbrlabs.mundus.commons.shaders;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g3d.Attributes;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.Shader;
+import com.badlogic.gdx.graphics.g3d.shaders.BaseShader;
+import com.badlogic.gdx.graphics.g3d.shaders.DepthShader;
+import com.badlogic.gdx.math.Vector2;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
+import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider;
+
+/**
+ * Depth shader provider of the shadow pass. Terrains with compact vertices, see
+ * {@link Terrain#setCompactVertices(boolean)}, have no a_position attribute and get a depth shader that
+ * decodes the position from the height and the grid position.
+ */
+public class MundusPBRDepthShaderProvider extends PBRDepthShaderProvider {
+
+    protected static final String COMPACT_TERRAIN_VERTEX_SHADER = "com/mbrlabs/mundus/commons/shaders/terrain.depth.vert.glsl";
+
+    private String compactTerrainVertexShader;
+
+    public MundusPBRDepthShaderProvider(DepthShader.Config config) {
+        super(config);
+    }
+
+    @Override
+    protected Shader createShader(Renderable renderable) {
+        if (Terrain.isCompact(renderable.meshPart.mesh)) {
+            return createCompactTerrainShader(renderable);
+        }
+        return super.createShader(renderable);
+    }
+
+    protected Shader createCompactTerrainShader(Renderable renderable) {
+        if (compactTerrainVertexShader == null) {
+            compactTerrainVertexShader = Gdx.files.classpath(COMPACT_TERRAIN_VERTEX_SHADER).readString();
+        }
+        String fragmentShader = config.fragmentShader != null ? config.fragmentShader : DepthShader.getDefaultFragmentShader();
+        return new CompactTerrainDepthShader(renderable, config, DepthShader.createPrefix(renderable, config),
+                compactTerrainVertexShader, fragmentShader);
+    }
+
+    /**
+     * Depth shader of terrains with compact vertices. Writes the same varyings as the gdx-gltf depth vertex
+     * shader, so it shares its fragment shader.
+     */
+    public static class CompactTerrainDepthShader extends DepthShader {
+        private static final Vector2 v2 = new Vector2();
+
+        public static final Setter terrainCellSize = new LocalSetter() {
+            @Override
+            public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                TerrainMaterialAttribute attribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+                Terrain terrain = attribute.terrainMaterial.getTerrain();
+                shader.set(inputID, v2.set(terrain.getCellWidth(), terrain.getCellDepth()));
+            }
+        };
+
+        public final int u_terrainCellSize;
+
+        public CompactTerrainDepthShader(Renderable renderable, Config config, String prefix, String vertexShader, String fragmentShader) {
+            super(renderable, config, prefix, vertexShader, fragmentShader);
+            u_terrainCellSize = register(PBRTerrainShader.TerrainInputs.terrainCellSize, terrainCellSize);
+        }
+
+        @Override
+        public boolean canRender(Renderable renderable) {
+            return Terrain.isCompact(renderable.meshPart.mesh) && super.canRender(renderable);
+        }
+    }
+}
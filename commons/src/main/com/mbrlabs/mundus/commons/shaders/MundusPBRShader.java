@@ -5,6 +5,7 @@ import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Vector3;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
+import com.mbrlabs.mundus.commons.rendering.InstanceGroup;
 import net.mgsx.gltf.scene3d.shaders.PBRShader;
 
 /**
@@ -15,8 +16,18 @@ public class MundusPBRShader extends PBRShader {
 
     private final int u_clipPlane = register("u_clipPlane");
 
+    // Compiled with instancedFlag, reads world transforms from instance attributes
+    private final boolean instanced;
+
     public MundusPBRShader(Renderable renderable, Config config, String prefix) {
         super(renderable, config, prefix);
+        instanced = InstanceGroup.isInstanced(renderable);
+    }
+
+    @Override
+    public boolean canRender(Renderable renderable) {
+        if (instanced != InstanceGroup.isInstanced(renderable)) return false;
+        return super.canRender(renderable);
     }
 
     @Override
@@ -3,7 +3,10 @@ package com.mbrlabs.mundus.commons.shaders;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
+import com.mbrlabs.mundus.commons.rendering.InstanceGroup;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.TerrainLayers;
 import com.mbrlabs.mundus.commons.terrain.TerrainMaterial;
 import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 import com.mbrlabs.mundus.commons.water.attributes.WaterMaterialAttribute;
@@ -35,6 +38,10 @@ public class MundusPBRShaderProvider extends PBRShaderProvider {
             return createPBRTerrainShader(renderable, config, prefix);
         }
 
+        if (InstanceGroup.isInstanced(renderable)) {
+            prefix += "#define instancedFlag\n";
+        }
+
         return new MundusPBRShader(renderable, config, prefix);
     }
 
@@ -44,6 +51,12 @@ public class MundusPBRShaderProvider extends PBRShaderProvider {
 
          prefix += getTerrainPrefix(terrainMaterial);
 
+        if (Terrain.isCompact(renderable.meshPart.mesh)) {
+            // Tangents are decoded in the shader, there is no tangent attribute to enable them
+            prefix += "#define terrainCompactFlag\n";
+            prefix += "#define tangentFlag\n";
+        }
+
         return new PBRTerrainShader(renderable, config, prefix);
     }
 
@@ -60,6 +73,17 @@ public class MundusPBRShaderProvider extends PBRShaderProvider {
             prefix += "#define triplanarFlag\n";
         }
 
+        TerrainLayers layers = terrainMaterial.getLayers();
+        if (layers != null) {
+            // One permutation per splatmap count, the layer count is a uniform
+            prefix += "#define splatArrayFlag\n";
+            prefix += "#define numSplatmaps " + layers.getSplatmapCount() + "\n";
+            if (layers.hasNormals()) {
+                prefix += "#define splatArrayNormalFlag\n";
+            }
+            return prefix;
+        }
+
         if (terrainMaterial.getSplatmap() != null && terrainMaterial.getSplatmap().getTexture() != null) {
             prefix += "#define splatFlag\n";
         }
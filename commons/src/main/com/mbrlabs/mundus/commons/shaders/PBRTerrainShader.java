@@ -7,6 +7,8 @@ import com.badlogic.gdx.graphics.g3d.shaders.BaseShader;
 import com.badlogic.gdx.graphics.g3d.utils.TextureDescriptor;
 import com.badlogic.gdx.math.Vector2;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.TerrainLayers;
 import com.mbrlabs.mundus.commons.terrain.TerrainMaterial;
 import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 
@@ -19,6 +21,8 @@ public class PBRTerrainShader extends MundusPBRShader {
     private final static Vector2 v2 = new Vector2();
     public static class TerrainInputs {
         public final static Uniform terrainSize = new Uniform("u_terrainSize");
+        public final static Uniform terrainCellSize = new Uniform("u_terrainCellSize");
+        public final static Uniform terrainUvScale = new Uniform("u_terrainUvScale");
 
         public final static Uniform splatTexture = new Uniform("u_texture_splat");
         public final static Uniform splatRTexture = new Uniform("u_texture_r");
@@ -30,6 +34,14 @@ public class PBRTerrainShader extends MundusPBRShader {
         public final static Uniform splatGNormal = new Uniform("u_texture_g_normal");
         public final static Uniform splatBNormal = new Uniform("u_texture_b_normal");
         public final static Uniform splatANormal = new Uniform("u_texture_a_normal");
+
+        public final static Uniform layerCount = new Uniform("u_layerCount");
+        public final static Uniform layers = new Uniform("u_texture_layers");
+        public final static Uniform layerNormals = new Uniform("u_texture_layer_normals");
+        public final static Uniform layerSplat0 = new Uniform("u_texture_splat0");
+        public final static Uniform layerSplat1 = new Uniform("u_texture_splat1");
+        public final static Uniform layerSplat2 = new Uniform("u_texture_splat2");
+        public final static Uniform layerSplat3 = new Uniform("u_texture_splat3");
     }
 
     public static class TerrainSetters {
@@ -41,6 +53,25 @@ public class PBRTerrainShader extends MundusPBRShader {
             }
         };
 
+        // Compact vertices only, see Terrain#setCompactVertices
+        public final static Setter terrainCellSize = new LocalSetter() {
+            @Override
+            public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+                Terrain terrain = terrainMaterialAttribute.terrainMaterial.getTerrain();
+                shader.set(inputID, v2.set(terrain.getCellWidth(), terrain.getCellDepth()));
+            }
+        };
+
+        public final static Setter terrainUvScale = new LocalSetter() {
+            @Override
+            public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+                Terrain terrain = terrainMaterialAttribute.terrainMaterial.getTerrain();
+                shader.set(inputID, v2.set(terrain.getUvScale()).scl(1f / (terrain.vertexResolution - 1)));
+            }
+        };
+
         public final static Setter splatRTexture = getTerrainTextureSetter(SplatTexture.Channel.R);
         public final static Setter splatGTexture = getTerrainTextureSetter(SplatTexture.Channel.G);
         public final static Setter splatBTexture = getTerrainTextureSetter(SplatTexture.Channel.B);
@@ -79,6 +110,47 @@ public class PBRTerrainShader extends MundusPBRShader {
             };
         }
 
+        public final static Setter layerCount = new LocalSetter() {
+            @Override
+            public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                shader.set(inputID, getLayers(combinedAttributes).getLayerCount());
+            }
+        };
+
+        public final static Setter layers = new LocalSetter() {
+            @Override
+            public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                shader.set(inputID, shader.context.textureBinder.bind(getLayers(combinedAttributes).getDiffuse()));
+            }
+        };
+
+        public final static Setter layerNormals = new LocalSetter() {
+            @Override
+            public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                shader.set(inputID, shader.context.textureBinder.bind(getLayers(combinedAttributes).getNormals()));
+            }
+        };
+
+        public final static Setter layerSplat0 = getLayerSplatSetter(0);
+        public final static Setter layerSplat1 = getLayerSplatSetter(1);
+        public final static Setter layerSplat2 = getLayerSplatSetter(2);
+        public final static Setter layerSplat3 = getLayerSplatSetter(3);
+
+        private static Setter getLayerSplatSetter(final int index) {
+            return new LocalSetter() {
+                @Override
+                public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                    textureDescription.texture = getLayers(combinedAttributes).getSplatmap(index);
+                    shader.set(inputID, shader.context.textureBinder.bind(textureDescription));
+                }
+            };
+        }
+
+        private static TerrainLayers getLayers(Attributes combinedAttributes) {
+            TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+            return terrainMaterialAttribute.terrainMaterial.getLayers();
+        }
+
         public static Setter splatTexture = new LocalSetter() {
             @Override
             public void set(BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
@@ -106,7 +178,19 @@ public class PBRTerrainShader extends MundusPBRShader {
     public final int u_splatANormal;
     public final int u_terrainSize;
 
+    public final int u_layerCount;
+    public final int u_layers;
+    public final int u_layerNormals;
+    public final int u_layerSplat0;
+    public final int u_layerSplat1;
+    public final int u_layerSplat2;
+    public final int u_layerSplat3;
+    public final int u_terrainCellSize;
+    public final int u_terrainUvScale;
+
     protected final long terrainMaterialMask;
+    // Splatmaps and normal maps of the layers, they change the shader like the material mask
+    protected final int layersKey;
 
 
     public PBRTerrainShader(Renderable renderable, Config config, String prefix) {
@@ -114,8 +198,11 @@ public class PBRTerrainShader extends MundusPBRShader {
 
         TerrainMaterial terrainMaterial = getTerrainMaterial(renderable);
         terrainMaterialMask = terrainMaterial.getMask();
+        layersKey = getLayersKey(terrainMaterial);
 
         u_terrainSize = register(TerrainInputs.terrainSize, TerrainSetters.terrainSize);
+        u_terrainCellSize = register(TerrainInputs.terrainCellSize, TerrainSetters.terrainCellSize);
+        u_terrainUvScale = register(TerrainInputs.terrainUvScale, TerrainSetters.terrainUvScale);
 
         u_splatTexture = register(TerrainInputs.splatTexture, TerrainSetters.splatTexture);
 
@@ -129,17 +216,33 @@ public class PBRTerrainShader extends MundusPBRShader {
         u_splatGNormal = register(TerrainInputs.splatGNormal, TerrainSetters.splatGNormal);
         u_splatBNormal = register(TerrainInputs.splatBNormal, TerrainSetters.splatBNormal);
         u_splatANormal = register(TerrainInputs.splatANormal, TerrainSetters.splatANormal);
+
+        // Texture array layers
+        u_layerCount = register(TerrainInputs.layerCount, TerrainSetters.layerCount);
+        u_layers = register(TerrainInputs.layers, TerrainSetters.layers);
+        u_layerNormals = register(TerrainInputs.layerNormals, TerrainSetters.layerNormals);
+        u_layerSplat0 = register(TerrainInputs.layerSplat0, TerrainSetters.layerSplat0);
+        u_layerSplat1 = register(TerrainInputs.layerSplat1, TerrainSetters.layerSplat1);
+        u_layerSplat2 = register(TerrainInputs.layerSplat2, TerrainSetters.layerSplat2);
+        u_layerSplat3 = register(TerrainInputs.layerSplat3, TerrainSetters.layerSplat3);
     }
 
     @Override
     public boolean canRender(Renderable renderable) {
         TerrainMaterial terrainMaterial = getTerrainMaterial(renderable);
         if (terrainMaterial != null)
-            return terrainMaterialMask == terrainMaterial.getMask() && super.canRender(renderable);
+            return terrainMaterialMask == terrainMaterial.getMask() && layersKey == getLayersKey(terrainMaterial)
+                    && super.canRender(renderable);
 
         return super.canRender(renderable);
     }
 
+    private static int getLayersKey(TerrainMaterial terrainMaterial) {
+        TerrainLayers layers = terrainMaterial.getLayers();
+        if (layers == null) return 0;
+        return layers.getSplatmapCount() << 1 | (layers.hasNormals() ? 1 : 0);
+    }
+
     private static TerrainMaterial getTerrainMaterial(Renderable renderable) {
         TerrainMaterialAttribute attr = renderable.material.get(TerrainMaterialAttribute.class, TerrainMaterialAttribute.TerrainMaterial);
         if (attr != null)
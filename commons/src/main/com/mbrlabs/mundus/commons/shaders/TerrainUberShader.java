@@ -16,6 +16,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.mbrlabs.mundus.commons.env.MundusEnvironment;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
 import com.mbrlabs.mundus.commons.terrain.TerrainMaterial;
 import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 import com.mbrlabs.mundus.commons.utils.ShaderUtils;
@@ -38,6 +39,8 @@ public class TerrainUberShader extends LightShader {
 
     public static class TerrainInputs {
         public final static Uniform terrainSize = new Uniform("u_terrainSize");
+        public final static Uniform terrainCellSize = new Uniform("u_terrainCellSize");
+        public final static Uniform terrainUvScale = new Uniform("u_terrainUvScale");
         public final static Uniform clipPlane = new Uniform("u_clipPlane");
 
         public final static Uniform uvScale = new Uniform("u_uvScale");
@@ -69,6 +72,25 @@ public class TerrainUberShader extends LightShader {
             }
         };
 
+        // Compact vertices only, see Terrain#setCompactVertices
+        public final static Setter terrainCellSize = new LocalSetter() {
+            @Override
+            public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+                Terrain terrain = terrainMaterialAttribute.terrainMaterial.getTerrain();
+                shader.set(inputID, v2.set(terrain.getCellWidth(), terrain.getCellDepth()));
+            }
+        };
+
+        public final static Setter terrainUvScale = new LocalSetter() {
+            @Override
+            public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+                TerrainMaterialAttribute terrainMaterialAttribute = (TerrainMaterialAttribute) combinedAttributes.get(TerrainMaterialAttribute.TerrainMaterial);
+                Terrain terrain = terrainMaterialAttribute.terrainMaterial.getTerrain();
+                shader.set(inputID, v2.set(terrain.getUvScale()).scl(1f / (terrain.vertexResolution - 1)));
+            }
+        };
+
         public final static Setter clipPlane = new LocalSetter() {
             @Override
             public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
@@ -153,6 +175,8 @@ public class TerrainUberShader extends LightShader {
 
     // Terrain uniforms
     public final int u_terrainSize;
+    public final int u_terrainCellSize;
+    public final int u_terrainUvScale;
     public final int u_clipPlane;
     public final int u_uvScale;
     public final int u_baseTexture;
@@ -174,6 +198,7 @@ public class TerrainUberShader extends LightShader {
     /** The attributes that this shader supports */
     protected final long attributesMask;
     protected final long terrainMaterialMask;
+    protected final boolean compactVertices;
 
     public TerrainUberShader(Renderable renderable, DefaultShader.Config config) {
         this.renderable = renderable;
@@ -182,6 +207,7 @@ public class TerrainUberShader extends LightShader {
 
         attributesMask = ShaderUtils.combineAttributeMasks(renderable);
         terrainMaterialMask = terrainMaterial.getMask();
+        compactVertices = Terrain.isCompact(renderable.meshPart.mesh);
 
         String prefix = createPrefixForRenderable(renderable);
 
@@ -195,6 +221,8 @@ public class TerrainUberShader extends LightShader {
 
         // Custom setters
         u_terrainSize = register(TerrainInputs.terrainSize, TerrainSetters.terrainSize);
+        u_terrainCellSize = register(TerrainInputs.terrainCellSize, TerrainSetters.terrainCellSize);
+        u_terrainUvScale = register(TerrainInputs.terrainUvScale, TerrainSetters.terrainUvScale);
         u_clipPlane = register(TerrainInputs.clipPlane, TerrainSetters.clipPlane);
         u_uvScale = register(TerrainInputs.uvScale, TerrainSetters.uvScale);
 
@@ -226,6 +254,10 @@ public class TerrainUberShader extends LightShader {
             prefix += "#define fogFlag\n";
         }
 
+        if (Terrain.isCompact(renderable.meshPart.mesh)) {
+            prefix += "#define terrainCompactFlag\n";
+        }
+
         TerrainMaterial terrainMaterial = getTerrainMaterial(renderable);
 
         if (terrainMaterial.isTriplanar()) {
@@ -329,6 +361,10 @@ public class TerrainUberShader extends LightShader {
             return false;
         }
 
+        if (Terrain.isCompact(instance.meshPart.mesh) != compactVertices) {
+            return false;
+        }
+
         TerrainMaterial terrainMaterial = getTerrainMaterial(instance);
         return terrainMaterialMask == terrainMaterial.getMask();
     }
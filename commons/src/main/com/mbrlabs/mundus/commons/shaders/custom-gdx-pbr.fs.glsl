@@ -142,6 +142,30 @@ uniform sampler2D u_texture_splat;
     #endif
 #endif
 
+#ifdef splatArrayFlag
+// Layers in texture arrays, see TerrainLayers. Layer 0 is the base, layer i > 0 is weighted by
+// channel (i - 1) % 4 of splatmap (i - 1) / 4. Needs GLSL3.
+#define maxLayers (1 + numSplatmaps * 4)
+varying vec2 v_layerUV;
+varying vec2 v_splatPosition;
+uniform int u_layerCount;
+uniform MED sampler2DArray u_texture_layers;
+#ifdef splatArrayNormalFlag
+uniform MED sampler2DArray u_texture_layer_normals;
+#endif
+uniform sampler2D u_texture_splat0;
+#if numSplatmaps > 1
+uniform sampler2D u_texture_splat1;
+#endif
+#if numSplatmaps > 2
+uniform sampler2D u_texture_splat2;
+#endif
+#if numSplatmaps > 3
+uniform sampler2D u_texture_splat3;
+#endif
+vec4 splatWeights[numSplatmaps];
+#endif
+
 // mouse picking
 #ifdef PICKER
 const MED vec4 COLOR_BRUSH = vec4(0.4,0.4,0.4, 0.4);
@@ -304,6 +328,84 @@ varying float v_clipDistance;
 #define getColor texture2D
 #endif
 
+#ifdef splatArrayFlag
+void sampleSplatWeights()
+{
+    splatWeights[0] = texture(u_texture_splat0, v_splatPosition);
+    #if numSplatmaps > 1
+    splatWeights[1] = texture(u_texture_splat1, v_splatPosition);
+    #endif
+    #if numSplatmaps > 2
+    splatWeights[2] = texture(u_texture_splat2, v_splatPosition);
+    #endif
+    #if numSplatmaps > 3
+    splatWeights[3] = texture(u_texture_splat3, v_splatPosition);
+    #endif
+}
+
+float getLayerWeight(int layer)
+{
+    return splatWeights[(layer - 1) / 4][(layer - 1) % 4];
+}
+
+#ifdef triplanarFlag
+vec4 getLayer(MED sampler2DArray layers, int layer, vec3 triblend)
+{
+    vec2 uvX = v_position.zy * scaleAdjust;
+    vec2 uvY = v_position.xz * scaleAdjust;
+    vec2 uvZ = v_position.xy * scaleAdjust;
+
+    #ifdef textureFlag
+    uvX = (u_texCoord0Transform * vec3(uvX, 1.0)).xy;
+    uvY = (u_texCoord0Transform * vec3(uvY, 1.0)).xy;
+    uvZ = (u_texCoord0Transform * vec3(uvZ, 1.0)).xy;
+    #endif
+
+    return texture(layers, vec3(uvX, float(layer))) * triblend.x
+        + texture(layers, vec3(uvY, float(layer))) * triblend.y
+        + texture(layers, vec3(uvZ, float(layer))) * triblend.z;
+}
+
+vec4 getLayerColors(vec3 uv)
+#else
+vec4 getLayer(MED sampler2DArray layers, int layer, vec2 uv)
+{
+    return texture(layers, vec3(uv, float(layer)));
+}
+
+vec4 getLayerColors(vec2 uv)
+#endif
+{
+    // Same blending as the splat channels
+    vec4 color = getLayer(u_texture_layers, 0, uv);
+    for (int layer = 1; layer < maxLayers; layer++) {
+        if (layer >= u_layerCount) break;
+        vec4 layerColor = getLayer(u_texture_layers, layer, uv);
+        color = mix(color, mix(color, layerColor, getLayerWeight(layer)), layerColor.a);
+    }
+    return color;
+}
+
+#ifdef splatArrayNormalFlag
+#ifdef triplanarFlag
+vec3 getLayerNormals(vec3 uv)
+#else
+vec3 getLayerNormals(vec2 uv)
+#endif
+{
+    vec3 normal = vec3(0.0);
+    float baseWeight = 1.0;
+    for (int layer = 1; layer < maxLayers; layer++) {
+        if (layer >= u_layerCount) break;
+        float weight = getLayerWeight(layer);
+        normal += getLayer(u_texture_layer_normals, layer, uv).rgb * weight;
+        baseWeight -= weight;
+    }
+    return normal + getLayer(u_texture_layer_normals, 0, uv).rgb * max(baseWeight, 0.0);
+}
+#endif // splatArrayNormalFlag
+#endif // splatArrayFlag
+
 // Encapsulate the various inputs used by the various functions in the shading equation
 // We store values in structs to simplify the integration of alternative implementations
 // PBRSurfaceInfo contains light independant information (surface/material only)
@@ -354,7 +456,24 @@ vec4 SRGBtoLINEAR(vec4 srgbIn)
 vec3 getNormal()
 {
 #ifdef tangentFlag
-#ifdef normalTextureFlag
+#ifdef splatArrayNormalFlag
+
+    #ifdef triplanarFlag
+        vec3 colorUv = clamp(pow(abs(v_TBN[2]), vec3(4.0)), vec3(0.0, 0.0, 0.0), vec3(1.0, 1.0, 1.0));
+        colorUv /= dot(colorUv, vec3(1.0,1.0,1.0));
+    #else
+        vec2 colorUv = v_layerUV;
+    #endif
+
+    #ifdef normalTextureFlag
+    float normalScale = u_NormalScale;
+    #else
+    float normalScale = 1.0;
+    #endif
+
+    vec3 n = getLayerNormals(colorUv);
+    n = normalize(v_TBN * ((2.0 * n - 1.0) * vec3(normalScale, normalScale, 1.0)));
+#elif defined(normalTextureFlag)
 
     #ifdef triplanarFlag
         vec3 colorUv = clamp(pow(abs(v_TBN[2]), vec3(4.0)), vec3(0.0, 0.0, 0.0), vec3(1.0, 1.0, 1.0));
@@ -634,7 +753,9 @@ void main() {
     vec3 colorUv = clamp(pow(abs(v_TBN[2]), vec3(4.0)), vec3(0.0, 0.0, 0.0), vec3(1.0, 1.0, 1.0));
     colorUv /= dot(colorUv, vec3(1.0,1.0,1.0));
 #else
-    #ifdef diffuseTextureFlag
+    #if defined(splatArrayFlag)
+    vec2 colorUv = v_layerUV;
+    #elif defined(diffuseTextureFlag)
     vec2 colorUv = v_diffuseUV;
     #else
     vec2 colorUv = vec2(0.0);
@@ -642,7 +763,10 @@ void main() {
     #define getColor texture2D
 #endif
 
-#ifdef diffuseTextureFlag
+#if defined(splatArrayFlag)
+    sampleSplatWeights();
+    vec4 baseColor = SRGBtoLINEAR(getLayerColors(colorUv)) * baseColorFactor;
+#elif defined(diffuseTextureFlag)
     vec4 baseColor = getColor(u_diffuseTexture, colorUv);
 
     #ifdef splatFlag
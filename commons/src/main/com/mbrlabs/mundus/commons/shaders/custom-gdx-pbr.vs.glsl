@@ -145,6 +145,41 @@ varying vec2 v_texCoord1;
 uniform mat3 u_texCoord1Transform;
 #endif // textureCoord1Flag
 
+#ifdef splatArrayFlag
+#if !defined(textureFlag) && !defined(terrainCompactFlag)
+attribute vec2 a_texCoord0;
+#endif
+varying vec2 v_layerUV;
+#endif // splatArrayFlag
+
+#ifdef terrainCompactFlag
+// Compact terrain vertex, see Terrain#setCompactVertices. The attributes above are replaced
+// by the ones decoded from the height and the grid position packed with the normal.
+attribute float a_height;
+attribute vec2 a_gridNormal;
+uniform vec2 u_terrainCellSize;
+uniform vec2 u_terrainUvScale;
+
+vec3 terrainPosition;
+vec3 terrainNormal;
+vec4 terrainTangent;
+vec2 terrainTexCoord0;
+#define a_position terrainPosition
+#define a_normal terrainNormal
+#define a_tangent terrainTangent
+#define a_texCoord0 terrainTexCoord0
+
+void decodeTerrainVertex() {
+	vec2 grid = floor(a_gridNormal * 0.25);
+	vec2 oct = a_gridNormal - grid * 4.0 - 1.0;
+	terrainPosition = vec3(grid.x * u_terrainCellSize.x, a_height, grid.y * u_terrainCellSize.y);
+	terrainNormal = normalize(vec3(oct.x, 1.0 - abs(oct.x) - abs(oct.y), oct.y));
+	// UVs are planar, so the tangent is the slope along X
+	terrainTangent = vec4(normalize(vec3(terrainNormal.y, -terrainNormal.x, 0.0)), -1.0);
+	terrainTexCoord0 = grid * u_terrainUvScale;
+}
+#endif // terrainCompactFlag
+
 #ifdef boneWeight0Flag
 #define boneWeightsFlag
 attribute vec2 a_boneWeight0;
@@ -207,6 +242,14 @@ attribute vec2 a_boneWeight7;
 
 uniform mat4 u_worldTrans;
 
+#ifdef instancedFlag
+// Per instance world transform columns, see InstanceGroup
+attribute vec4 i_worldTrans0;
+attribute vec4 i_worldTrans1;
+attribute vec4 i_worldTrans2;
+attribute vec4 i_worldTrans3;
+#endif
+
 #if defined(numBones)
 #if numBones > 0
 uniform mat4 u_bones[numBones];
@@ -232,20 +275,38 @@ varying vec3 v_shadowMapUv;
 varying float v_clipDistance;
 uniform vec4 u_clipPlane;
 
-#ifdef splatFlag
+#if defined(splatFlag) || defined(splatArrayFlag)
 varying vec2 v_splatPosition;
 uniform vec2 u_terrainSize;
 #endif
 
 void main() {
 
-	#ifdef splatFlag
-		v_splatPosition = vec2(a_position.x / u_terrainSize.x, a_position.z / u_terrainSize);
+	#ifdef terrainCompactFlag
+		decodeTerrainVertex();
+	#endif
+
+	#ifdef instancedFlag
+		mat4 worldTrans = mat4(i_worldTrans0, i_worldTrans1, i_worldTrans2, i_worldTrans3);
+	#else
+		mat4 worldTrans = u_worldTrans;
+	#endif
+
+	#if defined(splatFlag) || defined(splatArrayFlag)
+		v_splatPosition = vec2(a_position.x / u_terrainSize.x, a_position.z / u_terrainSize.y);
 	#endif
 	
 	#ifdef textureFlag
 		v_texCoord0 = (u_texCoord0Transform * vec3(a_texCoord0, 1.0)).xy;
 	#endif
+
+	#ifdef splatArrayFlag
+		#ifdef textureFlag
+			v_layerUV = v_texCoord0;
+		#else
+			v_layerUV = a_texCoord0;
+		#endif
+	#endif
 	
 	#ifdef textureCoord1Flag
 		v_texCoord1 = (u_texCoord1Transform * vec3(a_texCoord1, 1.0)).xy;
@@ -321,9 +382,9 @@ void main() {
 	#endif		
 	
 	#ifdef skinningFlag
-		vec4 pos = u_worldTrans * skinning * vec4(morph_pos, 1.0);
+		vec4 pos = worldTrans * skinning * vec4(morph_pos, 1.0);
 	#else
-		vec4 pos = u_worldTrans * vec4(morph_pos, 1.0);
+		vec4 pos = worldTrans * vec4(morph_pos, 1.0);
 	#endif
 
 	v_clipDistance = dot(pos, u_clipPlane);
@@ -337,6 +398,16 @@ void main() {
 	#endif //shadowMapFlag
 	
 	#if defined(normalFlag)
+
+		#ifdef instancedFlag
+			// Inverse transpose of the upper 3x3 from its cofactors, scaled by the sign of the determinant
+			vec3 w0 = worldTrans[0].xyz;
+			vec3 w1 = worldTrans[1].xyz;
+			vec3 w2 = worldTrans[2].xyz;
+			mat3 normalMatrix = mat3(cross(w1, w2), cross(w2, w0), cross(w0, w1)) * sign(dot(w0, cross(w1, w2)));
+		#else
+			mat3 normalMatrix = u_normalMatrix;
+		#endif
 		
 		vec3 morph_nor = a_normal;
 		#ifdef morphTargetsFlag
@@ -410,12 +481,12 @@ void main() {
 			#endif
 			
 			
-			vec3 normalW = normalize(vec3(u_normalMatrix * normal.xyz));
-			vec3 tangentW = normalize(vec3(u_worldTrans * vec4(tangent, 0.0)));
+			vec3 normalW = normalize(vec3(normalMatrix * normal.xyz));
+			vec3 tangentW = normalize(vec3(worldTrans * vec4(tangent, 0.0)));
 			vec3 bitangentW = cross(normalW, tangentW) * a_tangent.w;
 			v_TBN = mat3(tangentW, bitangentW, normalW);
 		#else // tangentFlag != 1
-			v_normal = normalize(vec3(u_normalMatrix * normal.xyz));
+			v_normal = normalize(vec3(normalMatrix * normal.xyz));
 		#endif
 	#endif // normalFlag
 	
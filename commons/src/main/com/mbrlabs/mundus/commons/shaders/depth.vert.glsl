@@ -14,7 +14,14 @@
  * limitations under the License.
  */
 
+#ifdef terrainCompactFlag
+// Compact terrain vertex, see Terrain#setCompactVertices
+attribute float a_height;
+attribute vec2 a_gridNormal;
+uniform vec2 u_terrainCellSize;
+#else
 attribute vec3 a_position;
+#endif
 
 uniform mat4 u_transMatrix;
 uniform mat4 u_projViewMatrix;
@@ -24,7 +31,14 @@ varying float v_clipDistance;
 uniform vec4 u_clipPlane;
 
 void main() {
-    vec4 worldPos = u_transMatrix * vec4(a_position, 1.0);
+    #ifdef terrainCompactFlag
+    vec2 grid = floor(a_gridNormal * 0.25);
+    vec3 position = vec3(grid.x * u_terrainCellSize.x, a_height, grid.y * u_terrainCellSize.y);
+    #else
+    vec3 position = a_position;
+    #endif
+
+    vec4 worldPos = u_transMatrix * vec4(position, 1.0);
     gl_Position = u_projViewMatrix * worldPos;
 
     // clipping plane
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifdef GLSL3
+#define attribute in
+#define varying out
+#endif
+
+// Compact terrain vertex, see Terrain#setCompactVertices
+attribute float a_height;
+attribute vec2 a_gridNormal;
+uniform vec2 u_terrainCellSize;
+
+uniform mat4 u_projViewWorldTrans;
+
+#ifdef PackedDepthFlag
+varying float v_depth;
+#endif
+
+void main() {
+    vec2 grid = floor(a_gridNormal * 0.25);
+    vec3 position = vec3(grid.x * u_terrainCellSize.x, a_height, grid.y * u_terrainCellSize.y);
+
+    vec4 pos = u_projViewWorldTrans * vec4(position, 1.0);
+
+    #ifdef PackedDepthFlag
+    v_depth = pos.z / pos.w * 0.5 + 0.5;
+    #endif
+
+    gl_Position = pos;
+}
@@ -21,6 +21,33 @@ attribute vec3 a_normal;
 attribute vec2 a_texCoord0;
 attribute vec4 a_tangent;
 
+#ifdef terrainCompactFlag
+// Compact terrain vertex, see Terrain#setCompactVertices
+attribute float a_height;
+attribute vec2 a_gridNormal;
+uniform vec2 u_terrainCellSize;
+uniform vec2 u_terrainUvScale;
+
+vec3 terrainPosition;
+vec3 terrainNormal;
+vec4 terrainTangent;
+vec2 terrainTexCoord0;
+#define a_position terrainPosition
+#define a_normal terrainNormal
+#define a_tangent terrainTangent
+#define a_texCoord0 terrainTexCoord0
+
+void decodeTerrainVertex() {
+    vec2 grid = floor(a_gridNormal * 0.25);
+    vec2 oct = a_gridNormal - grid * 4.0 - 1.0;
+    terrainPosition = vec3(grid.x * u_terrainCellSize.x, a_height, grid.y * u_terrainCellSize.y);
+    terrainNormal = normalize(vec3(oct.x, 1.0 - abs(oct.x) - abs(oct.y), oct.y));
+    // UVs are planar, so the tangent is the slope along X
+    terrainTangent = vec4(normalize(vec3(terrainNormal.y, -terrainNormal.x, 0.0)), -1.0);
+    terrainTexCoord0 = grid * u_terrainUvScale;
+}
+#endif
+
 // Default Uniforms
 uniform mat4 u_worldTrans;
 uniform mat4 u_projViewTrans;
@@ -48,6 +75,10 @@ uniform mat4 u_shadowMapProjViewTrans;
 varying vec3 v_shadowMapUv;
 
 void main(void) {
+    #ifdef terrainCompactFlag
+    decodeTerrainVertex();
+    #endif
+
     // position
     vec4 worldPos = u_worldTrans * vec4(a_position, 1.0);
     gl_Position = u_projViewTrans * worldPos;
@@ -70,7 +101,7 @@ void main(void) {
     v_texCoord0 = a_texCoord0;
 
     #ifdef splatFlag
-    v_splatPosition = vec2(a_position.x / u_terrainSize.x, a_position.z / u_terrainSize);
+    v_splatPosition = vec2(a_position.x / u_terrainSize.x, a_position.z / u_terrainSize.y);
     #endif
 
     v_worldPos = worldPos.xyz;
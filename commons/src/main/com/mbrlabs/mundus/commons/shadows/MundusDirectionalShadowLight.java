@@ -65,6 +65,14 @@ public class MundusDirectionalShadowLight extends DirectionalShadowLight {
         fbo = new NestableFrameBuffer(Pixmap.Format.RGBA8888, (int) res.x, (int) res.y, true);
     }
 
+    /**
+     * Updates the shadow camera for the current center and direction without beginning
+     * the shadow pass, so it can be used for culling before rendering.
+     */
+    public void updateCamera() {
+        validate();
+    }
+
     public boolean isCastsShadows() {
         return castsShadows;
     }
@@ -19,10 +19,14 @@ package com.mbrlabs.mundus.commons.terrain;
 import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.mbrlabs.mundus.commons.assets.PixmapTextureAsset;
 
+import java.nio.ByteBuffer;
+
 /**
  * @author Marcus Brummer
  * @version 31-01-2016
@@ -36,6 +40,9 @@ public class SplatMap {
 
     private final Color c0 = new Color();
 
+    // Rows of the region uploaded by updateTexture(x, y, width, height)
+    private ByteBuffer uploadBuffer;
+
     public SplatMap(PixmapTextureAsset asset) {
         this.pixmapAsset = asset;
         this.pixmapAsset.getPixmap().setBlending(Pixmap.Blending.None);
@@ -60,6 +67,18 @@ public class SplatMap {
             return;
 
         Pixmap pixmap = getPixmap();
+        if (pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            int channelOffset = getChannelOffset(channel);
+            if (channelOffset < 0) return;
+
+            ByteBuffer pixels = pixmap.getPixels();
+            int size = pixmap.getWidth() * pixmap.getHeight() * 4;
+            for (int i = channelOffset; i < size; i += 4) {
+                pixels.put(i, (byte) 0);
+            }
+            return;
+        }
+
         for (int smX = 0; smX < pixmap.getWidth(); smX++) {
             for (int smY = 0; smY < pixmap.getHeight(); smY++) {
                 c0.set(pixmap.getPixel(smX, smY));
@@ -88,6 +107,45 @@ public class SplatMap {
         getTexture().draw(getPixmap(), 0, 0);
     }
 
+    /**
+     * Uploads the given region of the pixmap to the texture.
+     *
+     * @param x first pixel on X of the region
+     * @param y first pixel on Y of the region
+     * @param regionWidth width of the region in pixels
+     * @param regionHeight height of the region in pixels
+     */
+    public void updateTexture(int x, int y, int regionWidth, int regionHeight) {
+        Pixmap pixmap = getPixmap();
+        if (!hasDirectPixels()) {
+            updateTexture();
+            return;
+        }
+
+        int bpp = 4;
+        int rowBytes = regionWidth * bpp;
+        int size = rowBytes * regionHeight;
+        if (uploadBuffer == null || uploadBuffer.capacity() < size) {
+            uploadBuffer = BufferUtils.newByteBuffer(size);
+        }
+
+        // GLES 2 can't upload a sub rectangle of a larger image, so copy the rows of the region first
+        ByteBuffer pixels = pixmap.getPixels();
+        uploadBuffer.clear();
+        for (int row = 0; row < regionHeight; row++) {
+            int src = ((y + row) * width + x) * bpp;
+            for (int i = 0; i < rowBytes; i++) {
+                uploadBuffer.put(pixels.get(src + i));
+            }
+        }
+        uploadBuffer.flip();
+
+        getTexture().bind();
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x, y, regionWidth, regionHeight,
+                pixmap.getGLFormat(), pixmap.getGLType(), uploadBuffer);
+    }
+
     public int getHeight() {
         return height;
     }
@@ -123,4 +181,78 @@ public class SplatMap {
         return Color.rgba8888(c0);
     }
 
+    /**
+     * Blends the given pixel of the pixmap in place, like {@link #additiveBlend(int, SplatTexture.Channel, float)}.
+     *
+     * @param x pixel on X
+     * @param y pixel on Y
+     * @param channel the channel to add to, BASE subtracts from all channels
+     * @param strength the amount to add
+     */
+    public void additiveBlend(int x, int y, SplatTexture.Channel channel, float strength) {
+        Pixmap pixmap = getPixmap();
+        if (!hasDirectPixels()) {
+            pixmap.drawPixel(x, y, additiveBlend(pixmap.getPixel(x, y), channel, strength));
+            return;
+        }
+
+        ByteBuffer pixels = pixmap.getPixels();
+        int index = (y * width + x) * 4;
+        float r = (pixels.get(index) & 0xff) / 255f;
+        float g = (pixels.get(index + 1) & 0xff) / 255f;
+        float b = (pixels.get(index + 2) & 0xff) / 255f;
+        float a = (pixels.get(index + 3) & 0xff) / 255f;
+
+        if (channel == SplatTexture.Channel.BASE) {
+            r = clamp(r - strength);
+            g = clamp(g - strength);
+            b = clamp(b - strength);
+            a = clamp(a - strength);
+        } else if (channel == SplatTexture.Channel.R) {
+            r = clamp(r + strength);
+        } else if (channel == SplatTexture.Channel.G) {
+            g = clamp(g + strength);
+        } else if (channel == SplatTexture.Channel.B) {
+            b = clamp(b + strength);
+        } else if (channel == SplatTexture.Channel.A) {
+            a = clamp(a + strength);
+        }
+
+        // prevent the sum to be greater than 1
+        final float sum = r + g + b + a;
+        if (sum > 1f) {
+            final float correction = 1f / sum;
+            r *= correction;
+            g *= correction;
+            b *= correction;
+            a *= correction;
+        }
+
+        pixels.put(index, (byte) (r * 255));
+        pixels.put(index + 1, (byte) (g * 255));
+        pixels.put(index + 2, (byte) (b * 255));
+        pixels.put(index + 3, (byte) (a * 255));
+    }
+
+    /**
+     * @return true if the pixels of the pixmap can be modified through its RGBA8888 pixel buffer
+     */
+    private boolean hasDirectPixels() {
+        // The pixel buffer of a GWT pixmap is a copy, see clearChannel()
+        return getPixmap().getFormat() == Pixmap.Format.RGBA8888
+                && Gdx.app.getType() != Application.ApplicationType.WebGL;
+    }
+
+    private static int getChannelOffset(SplatTexture.Channel channel) {
+        if (channel == SplatTexture.Channel.R) return 0;
+        if (channel == SplatTexture.Channel.G) return 1;
+        if (channel == SplatTexture.Channel.B) return 2;
+        if (channel == SplatTexture.Channel.A) return 3;
+        return -1;
+    }
+
+    private static float clamp(float value) {
+        return value < 0 ? 0 : (value > 1 ? 1 : value);
+    }
+
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the height data of .terra files.
+ * <p>
+ * Version 1 files are the raw big endian floats of the heights, without a header. Version 2 files start
+ * with a header:
+ * <pre>
+ * int   magic, a NaN bit pattern so it can't be the first height of a version 1 file
+ * int   version
+ * int   vertex resolution
+ * float min height
+ * float max height
+ * int   flags, {@link #FLAG_QUANTIZED} and {@link #FLAG_COMPRESSED}
+ * </pre>
+ * followed by the samples row by row. Samples are floats, or unsigned shorts spanning the height range if
+ * quantized. Compressed samples are stored as the zigzag varint of their difference to the planar prediction
+ * from the left, upper and upper left samples. For quantized smooth terrain that is mostly a single byte per
+ * sample. Compressing floats barely pays off, the residuals of their bit patterns stay large, so lossless
+ * saves use {@link #FLAG_LOSSLESS} to quantize only if that loses nothing and store plain floats otherwise.
+ */
+public class TerraFile {
+    public static final int VERSION = 2;
+    /** Heights are stored as 16 bit values between the min and max height */
+    public static final int FLAG_QUANTIZED = 1;
+    /** Samples are delta coded */
+    public static final int FLAG_COMPRESSED = 2;
+    /**
+     * Only for writing: quantize only if all heights survive it unchanged, else write uncompressed floats.
+     * Not stored in the file.
+     */
+    public static final int FLAG_LOSSLESS = 4;
+    /** Smallest file that keeps the heights exactly, for files that are edited again */
+    public static final int LOSSLESS_FLAGS = FLAG_QUANTIZED | FLAG_COMPRESSED | FLAG_LOSSLESS;
+
+    private static final int MAGIC = 0x7FF75452;
+    private static final int HEADER_SIZE = 24;
+    private static final int QUANTIZED_MAX = 0xFFFF;
+    // Larger resolutions would overflow the sample count
+    private static final int MAX_RESOLUTION = 0xB504;
+
+    /**
+     * Reads the heights of a version 1 or version 2 .terra file with a single bulk read.
+     *
+     * @param file the .terra file
+     * @return the heights, row by row
+     */
+    public static float[] read(FileHandle file) {
+        try {
+            return decode(file.readBytes());
+        } catch (GdxRuntimeException e) {
+            throw new GdxRuntimeException("Error reading terra file: " + file.name(), e);
+        }
+    }
+
+    /**
+     * Writes the heights as a version 2 .terra file.
+     *
+     * @param file the .terra file
+     * @param heightData the heights, row by row
+     * @param flags {@link #FLAG_QUANTIZED}, {@link #FLAG_COMPRESSED} and/or {@link #FLAG_LOSSLESS}, or 0 for
+     *              raw floats
+     */
+    public static void write(FileHandle file, float[] heightData, int flags) {
+        file.writeBytes(encode(heightData, flags), false);
+    }
+
+    static float[] decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        if (bytes.length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            // Version 1, raw floats
+            float[] heights = new float[bytes.length / 4];
+            buffer.asFloatBuffer().get(heights);
+            return heights;
+        }
+
+        buffer.position(4);
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported terra file version " + version);
+        }
+
+        int resolution = buffer.getInt();
+        float minHeight = buffer.getFloat();
+        float maxHeight = buffer.getFloat();
+        int flags = buffer.getInt();
+        boolean quantized = (flags & FLAG_QUANTIZED) != 0;
+        float scale = (maxHeight - minHeight) / QUANTIZED_MAX;
+
+        if (resolution <= 0 || resolution > MAX_RESOLUTION) {
+            throw new GdxRuntimeException("Invalid terra file resolution " + resolution);
+        }
+        if ((flags & ~(FLAG_QUANTIZED | FLAG_COMPRESSED)) != 0) {
+            throw new GdxRuntimeException("Invalid terra file flags " + flags);
+        }
+        // Compressed samples take at least one byte
+        long sampleCount = (long) resolution * resolution;
+        long minSampleBytes = (flags & FLAG_COMPRESSED) != 0 ? sampleCount : sampleCount * (quantized ? 2 : 4);
+        if (buffer.remaining() < minSampleBytes) {
+            throw new GdxRuntimeException("Truncated terra file, " + resolution + "x" + resolution + " samples need "
+                    + minSampleBytes + " bytes, got " + buffer.remaining());
+        }
+
+        float[] heights = new float[resolution * resolution];
+        if ((flags & FLAG_COMPRESSED) == 0) {
+            if (quantized) {
+                for (int i = 0; i < heights.length; i++) {
+                    heights[i] = minHeight + (buffer.getShort() & QUANTIZED_MAX) * scale;
+                }
+            } else {
+                buffer.asFloatBuffer().get(heights);
+            }
+            return heights;
+        }
+
+        int[] samples = new int[heights.length];
+        int position = buffer.position();
+        for (int z = 0; z < resolution; z++) {
+            for (int x = 0; x < resolution; x++) {
+                // Varint of the zigzag coded residual
+                int value = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (position >= bytes.length) throw new GdxRuntimeException("Truncated terra file");
+                    b = bytes[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                int residual = (value >>> 1) ^ -(value & 1);
+                int index = z * resolution + x;
+                samples[index] = predict(samples, resolution, x, z) + residual;
+                heights[index] = quantized
+                        ? minHeight + (samples[index] & QUANTIZED_MAX) * scale
+                        : Float.intBitsToFloat(samples[index]);
+            }
+        }
+        return heights;
+    }
+
+    static byte[] encode(float[] heightData, int flags) {
+        int resolution = (int) Math.sqrt(heightData.length);
+        if (resolution * resolution != heightData.length) {
+            throw new GdxRuntimeException("Height data is not square: " + heightData.length);
+        }
+
+        float minHeight = Float.MAX_VALUE;
+        float maxHeight = -Float.MAX_VALUE;
+        for (float height : heightData) {
+            minHeight = Math.min(minHeight, height);
+            maxHeight = Math.max(maxHeight, height);
+        }
+        if (heightData.length == 0) {
+            minHeight = 0;
+            maxHeight = 0;
+        }
+
+        boolean quantized = (flags & FLAG_QUANTIZED) != 0;
+        boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+        float range = maxHeight - minHeight;
+        if ((flags & FLAG_LOSSLESS) != 0 && !(quantized && isQuantizationLossless(heightData, minHeight, maxHeight))) {
+            quantized = false;
+            compressed = false;
+        }
+        flags = (quantized ? FLAG_QUANTIZED : 0) | (compressed ? FLAG_COMPRESSED : 0);
+
+        int[] samples = new int[heightData.length];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = quantized
+                    ? (range > 0 ? Math.round((heightData[i] - minHeight) / range * QUANTIZED_MAX) : 0)
+                    : Float.floatToIntBits(heightData[i]);
+        }
+
+        // Compressed samples take at most 5 bytes each
+        int sampleBytes = compressed ? samples.length * 5 : samples.length * (quantized ? 2 : 4);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sampleBytes);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(resolution);
+        buffer.putFloat(minHeight);
+        buffer.putFloat(maxHeight);
+        buffer.putInt(flags);
+
+        for (int z = 0; z < resolution; z++) {
+            for (int x = 0; x < resolution; x++) {
+                int sample = samples[z * resolution + x];
+                if (!compressed) {
+                    if (quantized) {
+                        buffer.putShort((short) sample);
+                    } else {
+                        buffer.putInt(sample);
+                    }
+                    continue;
+                }
+
+                int residual = sample - predict(samples, resolution, x, z);
+                int value = (residual << 1) ^ (residual >> 31);
+                while ((value & ~0x7F) != 0) {
+                    buffer.put((byte) ((value & 0x7F) | 0x80));
+                    value >>>= 7;
+                }
+                buffer.put((byte) value);
+            }
+        }
+
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return true if quantizing the heights over the given range and decoding them gives the same heights
+     */
+    private static boolean isQuantizationLossless(float[] heightData, float minHeight, float maxHeight) {
+        float range = maxHeight - minHeight;
+        // Same arithmetic as decode()
+        float scale = range / QUANTIZED_MAX;
+        for (float height : heightData) {
+            int sample = range > 0 ? Math.round((height - minHeight) / range * QUANTIZED_MAX) : 0;
+            float decoded = minHeight + sample * scale;
+            if (Float.floatToIntBits(decoded) != Float.floatToIntBits(height)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Planar prediction of a sample from its left, upper and upper left neighbours, which are decoded first.
+     */
+    private static int predict(int[] samples, int resolution, int x, int z) {
+        int index = z * resolution + x;
+        if (x == 0 && z == 0) return 0;
+        if (z == 0) return samples[index - 1];
+        if (x == 0) return samples[index - resolution];
+        return samples[index - 1] + samples[index - resolution] - samples[index - resolution - 1];
+    }
+}
@@ -16,13 +16,11 @@
 
 package com.mbrlabs.mundus.commons.terrain;
 
-import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.VertexAttribute;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.Model;
-import com.badlogic.gdx.graphics.g3d.model.MeshPart;
 import com.badlogic.gdx.graphics.g3d.utils.MeshPartBuilder;
 import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
@@ -32,15 +30,24 @@ import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
 import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 import com.mbrlabs.mundus.commons.utils.MathUtils;
-import com.mbrlabs.mundus.commons.utils.Pools;
-import net.mgsx.gltf.loaders.shared.geometry.MeshTangentSpaceGenerator;
-
-import java.util.HashMap;
-import java.util.Map;
 
 /**
+ * The terrain mesh is split into chunks of {@link #CHUNK_SIZE} cells, each with its own mesh so the vertex
+ * resolution is not limited by 16 bit indices. Chunks are culled individually and draw one of up to
+ * {@link #LOD_LEVELS} geomipmapped LOD levels, picked by camera distance. Edges to coarser neighbours are
+ * stitched by snapping the edge vertices in between to the vertices of the neighbour. The levels are kept
+ * per user of the terrain in {@link TerrainLodLevels}, the chunk meshes themselves hold the full resolution.
+ * <p>
+ * Vertices use either the full layout (position, normal, tangent, UVs) or the compact layout of
+ * {@link #setCompactVertices(boolean)}.
+ *
  * @author Marcus Brummer
  * @version 30-11-2015
  */
@@ -50,7 +57,22 @@ public class Terrain implements Disposable {
     public static final int DEFAULT_VERTEX_RESOLUTION = 180;
     public static final int DEFAULT_UV_SCALE = 60;
 
-    private static final MeshPartBuilder.VertexInfo tempVertexInfo = new MeshPartBuilder.VertexInfo();
+    /** Size of a chunk in cells, must be a power of two */
+    public static final int CHUNK_SIZE = 32;
+    /** Number of LOD levels including full resolution, each level doubles the cell size */
+    public static final int LOD_LEVELS = 4;
+
+    /** Vertex attribute of the compact layout holding the height */
+    public static final String HEIGHT_ATTRIBUTE = "a_height";
+    /** Vertex attribute of the compact layout holding the grid position and the packed normal */
+    public static final String GRID_NORMAL_ATTRIBUTE = "a_gridNormal";
+
+    // Normals of regions with fewer vertices are calculated on the calling thread only
+    private static final int PARALLEL_MIN_VERTICES = 128 * 128;
+    // Worker threads for normals, shared by all terrains. The calling thread takes a band as well.
+    private static final int NORMAL_THREADS = 3;
+    private static AsyncExecutor normalExecutor;
+
     private static final Vector3 c00 = new Vector3();
     private static final Vector3 c01 = new Vector3();
     private static final Vector3 c10 = new Vector3();
@@ -58,6 +80,9 @@ public class Terrain implements Disposable {
     private static final Vector3 tmp = new Vector3();
     private static final Vector2 tmpV2 = new Vector2();
     private static final Matrix4 tmpMatrix = new Matrix4();
+    private static final Vector3 tmpNormal = new Vector3();
+    private static final Vector3 rayOrigin = new Vector3();
+    private static final Vector3 rayDirection = new Vector3();
 
     public float[] heightData;
     public int terrainWidth = 1200;
@@ -65,14 +90,27 @@ public class Terrain implements Disposable {
     public int vertexResolution;
 
     // used for building the mesh
-    private final VertexAttributes attribs;
+    private boolean compactVertices = false;
+    private VertexAttributes attribs;
+    // Per terrain, terrains may be prepared on several loading threads at once
+    private final MeshPartBuilder.VertexInfo tempVertexInfo = new MeshPartBuilder.VertexInfo();
     private Vector2 uvScale = new Vector2(DEFAULT_UV_SCALE, DEFAULT_UV_SCALE);
     private float[] vertices;
-    private short[] indices;
-    private final int stride;
-    private final int posPos;
-    private final int norPos;
-    private final int uvPos;
+    // Face normals of the cells being updated, reused between updates
+    private float[] faceNormals = new float[0];
+    // Region of the current normal update and the cells of its face normals, read by the normal tasks
+    private int normalMinX;
+    private int normalMaxX;
+    private int faceMinX;
+    private int faceMinZ;
+    private int faceCellsWide;
+    private NormalTask[] normalTasks;
+    private AsyncResult<?>[] normalResults;
+    private int stride;
+    private int posPos;
+    private int norPos;
+    private int tanPos;
+    private int uvPos;
 
     // Textures
     private TerrainMaterial terrainMaterial;
@@ -80,22 +118,17 @@ public class Terrain implements Disposable {
 
     // Mesh
     private Model model;
-    private Mesh mesh;
-    private Map<Integer, Array<Integer>> vertexToTriangleMap;
+    private final Array<TerrainChunk> chunks = new Array<>();
+    private int chunksX;
+    private int chunksZ;
+    // Min/max heights for ray casts
+    private TerrainHeightTree heightTree;
 
-    private Terrain(int vertexResolution) {
-        this.attribs = new VertexAttributes(
-                VertexAttribute.Position(),
-                VertexAttribute.Normal(),
-                new VertexAttribute(VertexAttributes.Usage.Tangent, 4, ShaderProgram.TANGENT_ATTRIBUTE),
-                VertexAttribute.TexCoords(0)
-        );
-
-        this.posPos = attribs.getOffset(VertexAttributes.Usage.Position, -1);
-        this.norPos = attribs.getOffset(VertexAttributes.Usage.Normal, -1);
-        this.uvPos = attribs.getOffset(VertexAttributes.Usage.TextureCoordinates, -1);
-        this.stride = attribs.vertexSize / 4;
+    // LOD
+    private float lodDistance = -1;
+    private final IntMap<short[]> lodIndices = new IntMap<>();
 
+    private Terrain(int vertexResolution) {
         this.vertexResolution = vertexResolution;
         this.heightData = new float[vertexResolution * vertexResolution];
 
@@ -114,146 +147,297 @@ public class Terrain implements Disposable {
         this.heightData = heightData;
     }
 
-    public void init() {
+    /**
+     * Builds the vertices, normals and tangents of the terrain without touching GL, so it can be called
+     * on a loading thread. Called by {@link #init()} if it was not called before.
+     */
+    public void prepare() {
         final int numVertices = this.vertexResolution * vertexResolution;
-        final int numIndices = (this.vertexResolution - 1) * (vertexResolution - 1) * 6;
 
-        mesh = new Mesh(true, numVertices, numIndices, attribs);
+        if (compactVertices) {
+            // Usage Normal on the packed attribute, so shader providers still enable lighting
+            attribs = new VertexAttributes(
+                    new VertexAttribute(VertexAttributes.Usage.Position, 1, HEIGHT_ATTRIBUTE),
+                    new VertexAttribute(VertexAttributes.Usage.Normal, 2, GRID_NORMAL_ATTRIBUTE)
+            );
+        } else {
+            attribs = new VertexAttributes(
+                    VertexAttribute.Position(),
+                    VertexAttribute.Normal(),
+                    new VertexAttribute(VertexAttributes.Usage.Tangent, 4, ShaderProgram.TANGENT_ATTRIBUTE),
+                    VertexAttribute.TexCoords(0)
+            );
+        }
+        posPos = attribs.getOffset(VertexAttributes.Usage.Position, -1);
+        norPos = attribs.getOffset(VertexAttributes.Usage.Normal, -1);
+        tanPos = attribs.getOffset(VertexAttributes.Usage.Tangent, -1);
+        uvPos = attribs.getOffset(VertexAttributes.Usage.TextureCoordinates, -1);
+        stride = attribs.vertexSize / 4;
+
         this.vertices = new float[numVertices * stride];
-        indices = buildIndices();
-        mesh.setIndices(indices);
-        buildVertexToTriangleMap();
-        buildVertices();
-        mesh.setVertices(vertices);
-        MeshPart meshPart = new MeshPart(null, mesh, 0, numIndices, GL20.GL_TRIANGLES);
-        meshPart.update();
+        buildVertices(0, 0, vertexResolution - 1, vertexResolution - 1);
+
+        heightTree = new TerrainHeightTree(vertexResolution);
+        heightTree.update(heightData, 0, 0, vertexResolution - 1, vertexResolution - 1);
+    }
+
+    /**
+     * Creates the chunk meshes and the model, must be called on the render thread.
+     */
+    public void init() {
+        if (vertices == null) {
+            prepare();
+        }
+        buildChunks();
+
+        // One node part per chunk, in chunk order
         ModelBuilder mb = new ModelBuilder();
         mb.begin();
-        mb.part(meshPart, material);
+        for (TerrainChunk chunk : chunks) {
+            chunk.updateVertices(vertices, heightData, vertexResolution, stride, getCellWidth(), getCellDepth(),
+                    0, 0, vertexResolution - 1, vertexResolution - 1);
+            chunk.setIndices(getLodIndices(lodKey(chunk, 0, 0, 0, 0, 0)));
+            mb.part(chunk.getMeshPart(), material);
+        }
         model = mb.end();
+
+        if (lodDistance < 0) {
+            lodDistance = 2f * CHUNK_SIZE * terrainWidth / (vertexResolution - 1);
+        }
     }
 
-    /**
-     * This method builds a map that associates each vertex index with a list of indices
-     * of triangles that the vertex is part of. This map is used for efficient lookup
-     * of adjacent triangles when calculating vertex normals.
-     *
-     * The map is stored in the instance variable vertexToTriangleMap, where the key is
-     * the vertex index and the value is a list of triangle indices.
-     *
-     * Note: This method is to be called during the mesh building process, after the
-     * indices array has been populated.
-     */
-    private void buildVertexToTriangleMap() {
-        vertexToTriangleMap = new HashMap<>();
-        for (int i = 0; i < indices.length; i += 3) {
-            int triangleIndex = i / 3;
-            for (int j = 0; j < 3; j++) {
-                int vertexIndex = (indices[i + j] & 0xFFFF);
-                Array<Integer> triangleIndices = vertexToTriangleMap.get(vertexIndex);
-                if (triangleIndices == null) {
-                    triangleIndices = new Array<>();
-                    vertexToTriangleMap.put(vertexIndex, triangleIndices);
-                }
-                triangleIndices.add(triangleIndex);
+    private void buildChunks() {
+        final int cells = vertexResolution - 1;
+        chunksX = (cells + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunksZ = chunksX;
+
+        for (int z = 0; z < chunksZ; z++) {
+            for (int x = 0; x < chunksX; x++) {
+                int startX = x * CHUNK_SIZE;
+                int startZ = z * CHUNK_SIZE;
+                int width = Math.min(CHUNK_SIZE, cells - startX);
+                int depth = Math.min(CHUNK_SIZE, cells - startZ);
+                chunks.add(new TerrainChunk(x, z, startX, startZ, width, depth, LOD_LEVELS - 1, attribs));
             }
         }
     }
 
     /**
-     * This method calculates and sets the average normal for each vertex in the terrain mesh.
-     * It first calculates the normal of each face (triangle) in the mesh, then for each vertex,
-     * it calculates the average normal from the normals of all faces that include this vertex.
+     * Calculates the normals and tangents of the vertices in the given region. The terrain is a regular grid,
+     * so the face normals of the two triangles of a cell come straight from the heights of its corners and
+     * the normal of a vertex is the average of the up to six faces around it. Large regions are split into
+     * bands of rows that are calculated in parallel.
      *
-     * @param numIndices   The total number of indices in the index buffer, representing the total number of vertices in the mesh.
-     * @param numVertices  The total number of unique vertices in the vertex buffer.
-     *
-     * Note: This method should be called after the vertices and indices of the mesh have been defined and set.
-     * It directly modifies the vertices array to set the normal for each vertex.
+     * Note: This method reads the height data only, the vertex positions do not need to be set.
+     */
+    private void calculateNormals(int minX, int minZ, int maxX, int maxZ) {
+        // Cells with a vertex in the region
+        final int cells = vertexResolution - 1;
+        normalMinX = minX;
+        normalMaxX = maxX;
+        faceMinX = Math.max(minX - 1, 0);
+        faceMinZ = Math.max(minZ - 1, 0);
+        faceCellsWide = Math.min(maxX, cells - 1) - faceMinX + 1;
+        final int faceMaxZ = Math.min(maxZ, cells - 1);
+
+        final int size = faceCellsWide * (faceMaxZ - faceMinZ + 1) * 6;
+        if (faceNormals.length < size) {
+            faceNormals = new float[size];
+        }
+
+        if ((maxX - minX + 1) * (maxZ - minZ + 1) < PARALLEL_MIN_VERTICES) {
+            calculateFaceNormals(faceMinZ, faceMaxZ);
+            calculateVertexNormals(minZ, maxZ);
+        } else {
+            // Vertex normals need the face normals of the rows above and below, so wait for all faces first
+            runNormalTasks(true, faceMinZ, faceMaxZ);
+            runNormalTasks(false, minZ, maxZ);
+        }
+    }
+
+    /**
+     * Splits the rows into bands, runs all but the last band on the normal executor and the last one on
+     * the calling thread, then waits for the others.
      */
-    private void calculateAverageNormals(int numIndices, int numVertices) {
-        Vector3 v1 = Pools.vector3Pool.obtain();
-        Vector3 v2 = Pools.vector3Pool.obtain();
-        Vector3 v3 = Pools.vector3Pool.obtain();
+    private void runNormalTasks(boolean faces, int fromZ, int toZ) {
+        AsyncExecutor normalExecutor = getNormalExecutor();
+        if (normalTasks == null) {
+            normalTasks = new NormalTask[NORMAL_THREADS];
+            normalResults = new AsyncResult<?>[NORMAL_THREADS];
+            for (int i = 0; i < NORMAL_THREADS; i++) {
+                normalTasks[i] = new NormalTask();
+            }
+        }
+
+        final int rows = toZ - fromZ + 1;
+        final int bands = Math.min(NORMAL_THREADS + 1, rows);
+        for (int i = 0; i < bands - 1; i++) {
+            NormalTask task = normalTasks[i];
+            task.faces = faces;
+            task.fromZ = fromZ + rows * i / bands;
+            task.toZ = fromZ + rows * (i + 1) / bands - 1;
+            normalResults[i] = normalExecutor.submit(task);
+        }
 
-        // Calculate face normals for each triangle and store them in an array
-        Vector3[] faceNormals = new Vector3[numIndices / 3];
-        for (int i = 0; i < numIndices; i += 3) {
-            getVertexPos(v1, indices[i] & 0xFFFF);
-            getVertexPos(v2, indices[i + 1] & 0xFFFF);
-            getVertexPos(v3, indices[i + 2] & 0xFFFF);
-            Vector3 normal = calculateFaceNormal(new Vector3(), v1, v2, v3);
-            faceNormals[i / 3] = normal;
+        final int lastFromZ = fromZ + rows * (bands - 1) / bands;
+        if (faces) {
+            calculateFaceNormals(lastFromZ, toZ);
+        } else {
+            calculateVertexNormals(lastFromZ, toZ);
         }
 
-        // Calculate and set vertex normals
-        for (int i = 0; i < numVertices; i++) {
-            calculateVertexNormal(v1, i, faceNormals);
-            setVertexNormal(i, v1);
+        for (int i = 0; i < bands - 1; i++) {
+            normalResults[i].get();
+            normalResults[i] = null;
         }
+    }
 
-        Pools.vector3Pool.free(v1);
-        Pools.vector3Pool.free(v2);
-        Pools.vector3Pool.free(v3);
+    private static synchronized AsyncExecutor getNormalExecutor() {
+        if (normalExecutor == null) {
+            normalExecutor = new AsyncExecutor(NORMAL_THREADS, "TerrainNormals");
+        }
+        return normalExecutor;
     }
 
     /**
-     * Retrieve the vertex x,y,z position from the vertices array for the given vertex index.
+     * Calculates the normalized face normals of the two triangles of the cells in the given rows, for the
+     * cells on X of the current normal update.
      */
-    private void getVertexPos(Vector3 out, int index) {
-        int start = index * stride;
-        out.set(vertices[start + posPos], vertices[start + posPos + 1], vertices[start + posPos + 2]);
+    private void calculateFaceNormals(int fromZ, int toZ) {
+        final float w = terrainWidth / (float) (vertexResolution - 1);
+        final float d = terrainDepth / (float) (vertexResolution - 1);
+        final float wd = w * d;
+
+        for (int z = fromZ; z <= toZ; z++) {
+            int out = (z - faceMinZ) * faceCellsWide * 6;
+            for (int x = faceMinX; x < faceMinX + faceCellsWide; x++) {
+                int i = z * vertexResolution + x;
+                float h00 = heightData[i];
+                float h10 = heightData[i + 1];
+                float h01 = heightData[i + vertexResolution];
+                float h11 = heightData[i + vertexResolution + 1];
+
+                // Cross products of the edges of (c11, c10, c00) and (c00, c01, c11), as in the mesh
+                out = putNormal(faceNormals, out, d * (h00 - h10), wd, w * (h10 - h11));
+                out = putNormal(faceNormals, out, d * (h01 - h11), wd, w * (h00 - h01));
+            }
+        }
+    }
+
+    private static int putNormal(float[] out, int offset, float x, float y, float z) {
+        float invLength = 1f / (float) Math.sqrt(x * x + y * y + z * z);
+        out[offset] = x * invLength;
+        out[offset + 1] = y * invLength;
+        out[offset + 2] = z * invLength;
+        return offset + 3;
     }
 
     /**
-     * Set the vertex x,y,z normal in the vertices array for the given vertex index.
+     * Sets the normals and tangents of the vertices in the given rows, for the vertices on X of the current
+     * normal update. The face normals of the cells around them must be calculated.
      */
-    private void setVertexNormal(int vertexIndex, Vector3 normal) {
-        int start = vertexIndex * stride;
-        vertices[start + norPos] = normal.x;
-        vertices[start + norPos + 1] = normal.y;
-        vertices[start + norPos + 2] = normal.z;
+    private void calculateVertexNormals(int fromZ, int toZ) {
+        final int cells = vertexResolution - 1;
+        final float cellWidth = terrainWidth / (float) cells;
+        final float cellDepth = terrainDepth / (float) cells;
+
+        for (int z = fromZ; z <= toZ; z++) {
+            for (int x = normalMinX; x <= normalMaxX; x++) {
+                float nx = 0, ny = 0, nz = 0;
+                int i;
+
+                // The vertex is c00 of its own cell, c10 of the cell on the left, c01 of the cell above
+                // and c11 of the cell above left. c00 and c11 are in both triangles of a cell.
+                if (x < cells && z < cells) {
+                    i = faceNormalOffset(x, z);
+                    nx += faceNormals[i] + faceNormals[i + 3];
+                    ny += faceNormals[i + 1] + faceNormals[i + 4];
+                    nz += faceNormals[i + 2] + faceNormals[i + 5];
+                }
+                if (x > 0 && z < cells) {
+                    i = faceNormalOffset(x - 1, z);
+                    nx += faceNormals[i];
+                    ny += faceNormals[i + 1];
+                    nz += faceNormals[i + 2];
+                }
+                if (x < cells && z > 0) {
+                    i = faceNormalOffset(x, z - 1) + 3;
+                    nx += faceNormals[i];
+                    ny += faceNormals[i + 1];
+                    nz += faceNormals[i + 2];
+                }
+                if (x > 0 && z > 0) {
+                    i = faceNormalOffset(x - 1, z - 1);
+                    nx += faceNormals[i] + faceNormals[i + 3];
+                    ny += faceNormals[i + 1] + faceNormals[i + 4];
+                    nz += faceNormals[i + 2] + faceNormals[i + 5];
+                }
+
+                float invLength = 1f / (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                nx *= invLength;
+                ny *= invLength;
+                nz *= invLength;
+
+                int start = (z * vertexResolution + x) * stride;
+                if (compactVertices) {
+                    setPackedNormal(start, x, z, nx, ny, nz);
+                } else {
+                    vertices[start + norPos] = nx;
+                    vertices[start + norPos + 1] = ny;
+                    vertices[start + norPos + 2] = nz;
+                }
+
+                if (tanPos >= 0) {
+                    setTangent(start, x, z, nx, ny, nz, cellWidth, cellDepth);
+                }
+            }
+        }
     }
 
     /**
-     * This method calculates the normal of a face in 3D space given its three vertices.
-     * The face is assumed to be a triangle.
-     *
-     * @param out The Vector3 to store the result in.
-     * @param vertex1 The first vertex of the triangle.
-     * @param vertex2 The second vertex of the triangle.
-     * @param vertex3 The third vertex of the triangle.
-     *
-     * @return A normalized Vector3 representing the normal of the face.
+     * Packs the normal of a compact vertex with its grid position into one vec2, as
+     * (gridX * 4 + octX + 1, gridZ * 4 + octZ + 1). The normal is octahedral encoded over the upper
+     * hemisphere only, terrain normals always point up. Shaders take the grid position with floor(v / 4).
      */
-    private Vector3 calculateFaceNormal(Vector3 out, Vector3 vertex1, Vector3 vertex2, Vector3 vertex3) {
-        Vector3 edge1 = vertex2.sub(vertex1); // Vector from vertex1 to vertex2
-        Vector3 edge2 = vertex3.sub(vertex1); // Vector from vertex1 to vertex3
-        out.set(edge1).crs(edge2); // Cross product of edge1 and edge2
-        return out.nor(); // Return the normalized normal vector
+    private void setPackedNormal(int start, int x, int z, float nx, float ny, float nz) {
+        float invSum = 1f / (Math.abs(nx) + Math.abs(ny) + Math.abs(nz));
+        vertices[start + norPos] = x * 4 + nx * invSum + 1f;
+        vertices[start + norPos + 1] = z * 4 + nz * invSum + 1f;
+    }
+
+    private int faceNormalOffset(int cellX, int cellZ) {
+        return ((cellZ - faceMinZ) * faceCellsWide + cellX - faceMinX) * 6;
     }
 
     /**
-     * This method calculates the average normal of a vertex by averaging the normals
-     * of all the faces that the vertex is part of.
-     *
-     * @param vertexIndex The index of the vertex for which the normal is to be calculated.
-     * @param faceNormals An array containing the normals of all faces in the mesh.
-     *
-     * @return A normalized Vector3 representing the average normal of the vertex.
-     */
-    private Vector3 calculateVertexNormal(Vector3 out, int vertexIndex, Vector3[] faceNormals) {
-        Vector3 vertexNormal = out.set(0,0,0);
-        Array<Integer> triangleIndices = vertexToTriangleMap.get(vertexIndex);
-        if (triangleIndices != null) {
-            for (int triangleIndex : triangleIndices) {
-                Vector3 faceNormal = faceNormals[triangleIndex];
-                if (faceNormal != null) {
-                    vertexNormal.add(faceNormal);
-                }
-            }
-        }
-        return vertexNormal.nor();
+     * Sets the tangent for normal mapping. The UVs are planar along X and Z, so the tangent is the slope
+     * along X orthogonalized against the normal and the bitangent points along Z.
+     */
+    private void setTangent(int start, int x, int z, float nx, float ny, float nz, float cellWidth, float cellDepth) {
+        int x0 = Math.max(x - 1, 0);
+        int x1 = Math.min(x + 1, vertexResolution - 1);
+        int z0 = Math.max(z - 1, 0);
+        int z1 = Math.min(z + 1, vertexResolution - 1);
+        float slopeX = (heightData[z * vertexResolution + x1] - heightData[z * vertexResolution + x0]) / ((x1 - x0) * cellWidth);
+        float slopeZ = (heightData[z1 * vertexResolution + x] - heightData[z0 * vertexResolution + x]) / ((z1 - z0) * cellDepth);
+
+        // Tangent (1, slopeX, 0) minus its part along the normal
+        float dot = nx + ny * slopeX;
+        float tx = 1f - nx * dot;
+        float ty = slopeX - ny * dot;
+        float tz = -nz * dot;
+        float invLength = 1f / (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+        tx *= invLength;
+        ty *= invLength;
+        tz *= invLength;
+
+        // Handedness, the bitangent is (0, slopeZ, 1)
+        float bitangentDot = (nz * tx - nx * tz) * slopeZ + (nx * ty - ny * tx);
+
+        vertices[start + tanPos] = tx;
+        vertices[start + tanPos + 1] = ty;
+        vertices[start + tanPos + 2] = tz;
+        vertices[start + tanPos + 3] = bitangentDot < 0 ? -1f : 1f;
     }
 
     public Vector3 getVertexPosition(Vector3 out, int x, int z) {
@@ -313,70 +497,160 @@ public class Terrain implements Disposable {
      * @param out Vector3 to populate with intersect point with
      * @param ray the ray to cast
      * @param terrainTransform The world transform (modelInstance transform) of the terrain
-     * @return
+     * @return the out Vector3 containing the intersect point, or null if the ray misses the terrain
      */
     public Vector3 getRayIntersection(Vector3 out, Ray ray, Matrix4 terrainTransform) {
-        // TODO improve performance. use binary search
-        float curDistance = 2;
-        int rounds = 0;
+        if (intersectRay(ray, terrainTransform, out, null) < 0) return null;
+        return out;
+    }
 
-        ray.getEndPoint(out, curDistance);
-        boolean isUnder = isUnderTerrain(out, terrainTransform);
+    /**
+     * Casts the given ray against the triangles of the terrain, using the min/max height pyramid of the
+     * terrain to skip the parts the ray passes above or below.
+     *
+     * @param ray the ray to cast, in world coordinates
+     * @param terrainTransform The world transform (modelInstance transform) of the terrain
+     * @param outPosition set to the intersect point in world coordinates, if hit
+     * @param outNormal set to the world normal of the hit triangle, if hit. May be null.
+     * @return the distance to the intersect point in multiples of the ray direction, or -1 if the ray misses
+     */
+    public float intersectRay(Ray ray, Matrix4 terrainTransform, Vector3 outPosition, Vector3 outNormal) {
+        tmpMatrix.set(terrainTransform).inv();
+        rayOrigin.set(ray.origin).mul(tmpMatrix);
+        rayDirection.set(ray.origin).add(ray.direction).mul(tmpMatrix).sub(rayOrigin);
+
+        final float cellWidth = terrainWidth / (float) (vertexResolution - 1);
+        final float cellDepth = terrainDepth / (float) (vertexResolution - 1);
+        final float t = heightTree.intersect(heightData, cellWidth, cellDepth, rayOrigin, rayDirection, tmpNormal);
+        if (t < 0) return -1;
+
+        // Affine transforms keep the ray parameter, so it applies to the world ray as well
+        ray.getEndPoint(outPosition, t);
+        if (outNormal != null) {
+            outNormal.set(tmpNormal).rot(tmpMatrix.tra()).nor();
+        }
+        return t;
+    }
 
-        while (true) {
-            rounds++;
-            ray.getEndPoint(out, curDistance);
+    public Material getMaterial() {
+        return material;
+    }
 
-            boolean u = isUnderTerrain(out, terrainTransform);
-            if (u != isUnder || rounds == 20000) {
-                return out;
-            }
-            curDistance += u ? -0.1f : 0.1f;
+    /**
+     * Picks the LOD level of a chunk by its distance to the camera.
+     *
+     * @param chunk the chunk
+     * @param localPosition position of the camera in the local space of the terrain
+     * @return the LOD level, 0 for full resolution
+     */
+    int getLodLevel(TerrainChunk chunk, Vector3 localPosition) {
+        float distance = chunk.distanceTo(localPosition);
+
+        int level = 0;
+        float levelDistance = lodDistance;
+        while (level < chunk.maxLodLevel && distance >= levelDistance) {
+            level++;
+            levelDistance *= 2f;
         }
+        return level;
+    }
 
+    /**
+     * @return the key of the indices of a chunk for a LOD level and the levels of its edges, see {@link #getLodIndices(int)}
+     */
+    static int lodKey(TerrainChunk chunk, int level, int north, int south, int west, int east) {
+        return chunk.width | chunk.depth << 7 | level << 14 | north << 17 | south << 20 | west << 23 | east << 26;
     }
 
-    public Material getMaterial() {
-        return material;
+    /**
+     * Returns the indices for a key of {@link #lodKey(TerrainChunk, int, int, int, int, int)}. They are built
+     * once and shared by all chunks and LOD levels using them.
+     *
+     * @param key the key
+     * @return the indices, do not modify
+     */
+    short[] getLodIndices(int key) {
+        short[] indices = lodIndices.get(key);
+        if (indices == null) {
+            indices = buildLodIndices(key & 127, key >> 7 & 127, key >> 14 & 7,
+                    key >> 17 & 7, key >> 20 & 7, key >> 23 & 7, key >> 26 & 7);
+            lodIndices.put(key, indices);
+        }
+        return indices;
     }
 
-    private short[] buildIndices() {
-        final int w = vertexResolution - 1;
-        final int h = vertexResolution - 1;
-        short[] indices = new short[w * h * 6];
-        int i = -1;
-        for (int y = 0; y < h; ++y) {
-            for (int x = 0; x < w; ++x) {
-                final int c00 = y * vertexResolution + x;
-                final int c10 = c00 + 1;
-                final int c01 = c00 + vertexResolution;
-                final int c11 = c10 + vertexResolution;
-                indices[++i] = (short) c11;
-                indices[++i] = (short) c10;
-                indices[++i] = (short) c00;
-                indices[++i] = (short) c00;
-                indices[++i] = (short) c01;
-                indices[++i] = (short) c11;
+    /**
+     * Builds the indices of a chunk for a LOD level. Vertices on an edge to a coarser neighbour that
+     * the neighbour does not have are snapped to the previous vertex of the neighbour, so the edge
+     * matches the neighbour exactly. Triangles degenerated by snapping are dropped.
+     */
+    static short[] buildLodIndices(int width, int depth, int level, int north, int south, int west, int east) {
+        final int step = 1 << level;
+        final int row = width + 1;
+        short[] out = new short[(width / step) * (depth / step) * 6];
+        int count = 0;
+
+        for (int z = 0; z < depth; z += step) {
+            for (int x = 0; x < width; x += step) {
+                int c00 = snap(x, z, width, depth, north, south, west, east, row);
+                int c10 = snap(x + step, z, width, depth, north, south, west, east, row);
+                int c01 = snap(x, z + step, width, depth, north, south, west, east, row);
+                int c11 = snap(x + step, z + step, width, depth, north, south, west, east, row);
+
+                if (c11 != c10 && c10 != c00 && c00 != c11) {
+                    out[count++] = (short) c11;
+                    out[count++] = (short) c10;
+                    out[count++] = (short) c00;
+                }
+                if (c00 != c01 && c01 != c11 && c11 != c00) {
+                    out[count++] = (short) c00;
+                    out[count++] = (short) c01;
+                    out[count++] = (short) c11;
+                }
             }
         }
+
+        short[] indices = new short[count];
+        System.arraycopy(out, 0, indices, 0, count);
         return indices;
     }
 
-    private void buildVertices() {
-        for (int x = 0; x < vertexResolution; x++) {
-            for (int z = 0; z < vertexResolution; z++) {
+    private static int snap(int x, int z, int width, int depth, int north, int south, int west, int east, int row) {
+        if (z == 0) x -= x % (1 << north);
+        else if (z == depth) x -= x % (1 << south);
+
+        if (x == 0) z -= z % (1 << west);
+        else if (x == width) z -= z % (1 << east);
+
+        return z * row + x;
+    }
+
+    /**
+     * Builds the vertices of the given region. Normals and tangents are rebuilt for the region
+     * and a one vertex border, as they depend on the neighbouring heights.
+     */
+    private void buildVertices(int minX, int minZ, int maxX, int maxZ) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
                 calculateVertexAt(tempVertexInfo, x, z);
                 setVertex(z * vertexResolution + x, tempVertexInfo);
             }
         }
 
-        final int numVertices = this.vertexResolution * vertexResolution;
-        final int numIndices = (this.vertexResolution - 1) * (vertexResolution - 1) * 6;
-        calculateAverageNormals(numIndices, numVertices);
+        minX = Math.max(minX - 1, 0);
+        minZ = Math.max(minZ - 1, 0);
+        maxX = Math.min(maxX + 1, vertexResolution - 1);
+        maxZ = Math.min(maxZ + 1, vertexResolution - 1);
+        calculateNormals(minX, minZ, maxX, maxZ);
     }
 
     private void setVertex(int index, MeshPartBuilder.VertexInfo info) {
         index *= stride;
+        if (compactVertices) {
+            // The height only, the grid position is packed with the normal in calculateNormals
+            vertices[index + posPos] = info.position.y;
+            return;
+        }
         if (posPos >= 0) {
             vertices[index + posPos] = info.position.x;
             vertices[index + posPos + 1] = info.position.y;
@@ -387,7 +661,7 @@ public class Terrain implements Disposable {
             vertices[index + uvPos + 1] = info.uv.y;
         }
         if (norPos >= 0) {
-            // The final normal is calculated after vertices are built in calculateAverageNormals
+            // The final normal is calculated after vertices are built in calculateNormals
             vertices[index + norPos] = 0f;
             vertices[index + norPos + 1] = 1f;
             vertices[index + norPos + 2] = 0f;
@@ -405,6 +679,51 @@ public class Terrain implements Disposable {
         return out;
     }
 
+    /**
+     * Selects the compact vertex layout, must be called before {@link #prepare()} and {@link #init()}. A compact vertex is three
+     * floats instead of twelve: the height ({@link #HEIGHT_ATTRIBUTE}) and the grid position packed with
+     * an octahedral encoded normal ({@link #GRID_NORMAL_ATTRIBUTE}). Shaders rebuild the position, UVs and
+     * tangent from these, so the mesh and {@link #getVertices()} take a quarter of the memory.
+     * <p>
+     * Only the terrain shaders and {@link com.mbrlabs.mundus.commons.shaders.DepthShader} decode the
+     * compact layout, depth shaders of gdx-gltf do not, so such terrains cast no shadows. Normals lose
+     * precision as the resolution grows, about 1/1000 at 4096 vertices per side.
+     *
+     * @param compactVertices true for the compact layout, false for the full layout (default)
+     */
+    public void setCompactVertices(boolean compactVertices) {
+        if (vertices != null) {
+            throw new GdxRuntimeException("The vertex layout must be set before the terrain is prepared");
+        }
+        this.compactVertices = compactVertices;
+    }
+
+    public boolean isCompactVertices() {
+        return compactVertices;
+    }
+
+    /**
+     * @return true if the mesh uses the compact vertex layout of {@link #setCompactVertices(boolean)}
+     */
+    public static boolean isCompact(Mesh mesh) {
+        VertexAttribute normal = mesh.getVertexAttribute(VertexAttributes.Usage.Normal);
+        return normal != null && GRID_NORMAL_ATTRIBUTE.equals(normal.alias);
+    }
+
+    /**
+     * @return the size of a cell of the vertex grid on X in local units
+     */
+    public float getCellWidth() {
+        return terrainWidth / (float) (vertexResolution - 1);
+    }
+
+    /**
+     * @return the size of a cell of the vertex grid on Z in local units
+     */
+    public float getCellDepth() {
+        return terrainDepth / (float) (vertexResolution - 1);
+    }
+
     public void updateUvScale(Vector2 uvScale) {
         this.uvScale = uvScale;
     }
@@ -440,7 +759,7 @@ public class Terrain implements Disposable {
         int gridZ = (int) Math.floor(terrainZ / gridSquareSize);
 
         if (gridX >= vertexResolution - 1 || gridZ >= vertexResolution - 1 || gridX < 0 || gridZ < 0) {
-            return Vector3.Y.cpy();
+            return out.set(Vector3.Y);
         }
 
         return getNormalAt(out, gridX, gridZ);
@@ -460,6 +779,11 @@ public class Terrain implements Disposable {
     public Vector3 getNormalAt(Vector3 out, int x, int z) {
         int vertexIndex = z * vertexResolution + x;
         int start = vertexIndex * stride;
+        if (compactVertices) {
+            float octX = vertices[start + norPos] - x * 4 - 1f;
+            float octZ = vertices[start + norPos + 1] - z * 4 - 1f;
+            return out.set(octX, 1f - Math.abs(octX) - Math.abs(octZ), octZ).nor();
+        }
         return out.set(vertices[start + norPos], vertices[start + norPos + 1], vertices[start + norPos + 2]);
     }
 
@@ -488,6 +812,143 @@ public class Terrain implements Disposable {
         return 0 <= tmp.x && tmp.x <= terrainWidth && 0 <= tmp.z && tmp.z <= terrainDepth;
     }
 
+    /**
+     * Samples the world height of the terrain surface below each of the given world positions. Does not
+     * allocate and uses no shared temporaries, so it can be called from multiple threads as long as the
+     * height data is not modified at the same time. Positions outside the terrain get the height of
+     * a local height of 0, check them with {@link #getOnTerrain(float[], float[], boolean[], int, Matrix4)}.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outHeights set to the world Y of the terrain surface at each position
+     * @param count number of positions
+     * @param terrainTransform the world transform (modelInstance transform) of the terrain
+     * @param inverseTransform the inverse of the terrain transform, see {@link com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent#getInverseTransform()}
+     */
+    public void getWorldHeights(float[] worldX, float[] worldZ, float[] outHeights, int count,
+                                Matrix4 terrainTransform, Matrix4 inverseTransform) {
+        final float[] m = terrainTransform.val;
+        final float[] inv = inverseTransform.val;
+        for (int i = 0; i < count; i++) {
+            final float localX = inv[Matrix4.M00] * worldX[i] + inv[Matrix4.M02] * worldZ[i] + inv[Matrix4.M03];
+            final float localZ = inv[Matrix4.M20] * worldX[i] + inv[Matrix4.M22] * worldZ[i] + inv[Matrix4.M23];
+            final float height = getLocalHeight(localX, localZ);
+            outHeights[i] = m[Matrix4.M10] * localX + m[Matrix4.M11] * height + m[Matrix4.M12] * localZ + m[Matrix4.M13];
+        }
+    }
+
+    /**
+     * Samples the world normal of the terrain surface below each of the given world positions, interpolated
+     * between the vertices like the rendered normals. Thread safe like
+     * {@link #getWorldHeights(float[], float[], float[], int, Matrix4, Matrix4)}. Positions outside the terrain
+     * get the normal of a flat terrain.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outNormals set to the normalized world normals, three floats (x, y, z) per position
+     * @param count number of positions
+     * @param inverseTransform the inverse of the terrain transform
+     */
+    public void getWorldNormals(float[] worldX, float[] worldZ, float[] outNormals, int count, Matrix4 inverseTransform) {
+        final float[] inv = inverseTransform.val;
+        final float cellWidth = terrainWidth / (float) (vertexResolution - 1);
+        final float cellDepth = terrainDepth / (float) (vertexResolution - 1);
+        final int cells = vertexResolution - 1;
+
+        for (int i = 0; i < count; i++) {
+            final float localX = inv[Matrix4.M00] * worldX[i] + inv[Matrix4.M02] * worldZ[i] + inv[Matrix4.M03];
+            final float localZ = inv[Matrix4.M20] * worldX[i] + inv[Matrix4.M22] * worldZ[i] + inv[Matrix4.M23];
+
+            float nx = 0;
+            float nz = 0;
+            final float gridX = localX / cellWidth;
+            final float gridZ = localZ / cellDepth;
+            if (gridX >= 0 && gridZ >= 0 && gridX <= cells && gridZ <= cells) {
+                final int x = Math.min((int) gridX, cells - 1);
+                final int z = Math.min((int) gridZ, cells - 1);
+                final float fx = gridX - x;
+                final float fz = gridZ - z;
+
+                // Bilinear interpolation of the slopes at the four corners
+                final float slopeX0 = getSlopeX(x, z, cellWidth) * (1 - fx) + getSlopeX(x + 1, z, cellWidth) * fx;
+                final float slopeX1 = getSlopeX(x, z + 1, cellWidth) * (1 - fx) + getSlopeX(x + 1, z + 1, cellWidth) * fx;
+                final float slopeZ0 = getSlopeZ(x, z, cellDepth) * (1 - fx) + getSlopeZ(x + 1, z, cellDepth) * fx;
+                final float slopeZ1 = getSlopeZ(x, z + 1, cellDepth) * (1 - fx) + getSlopeZ(x + 1, z + 1, cellDepth) * fx;
+                nx = -(slopeX0 * (1 - fz) + slopeX1 * fz);
+                nz = -(slopeZ0 * (1 - fz) + slopeZ1 * fz);
+            }
+
+            // Normals transform with the inverse transpose
+            float wx = inv[Matrix4.M00] * nx + inv[Matrix4.M10] + inv[Matrix4.M20] * nz;
+            float wy = inv[Matrix4.M01] * nx + inv[Matrix4.M11] + inv[Matrix4.M21] * nz;
+            float wz = inv[Matrix4.M02] * nx + inv[Matrix4.M12] + inv[Matrix4.M22] * nz;
+            final float length = (float) Math.sqrt(wx * wx + wy * wy + wz * wz);
+
+            outNormals[i * 3] = wx / length;
+            outNormals[i * 3 + 1] = wy / length;
+            outNormals[i * 3 + 2] = wz / length;
+        }
+    }
+
+    /**
+     * Checks for each of the given world positions if it is within the X and Z boundaries of the terrain.
+     * Thread safe like {@link #getWorldHeights(float[], float[], float[], int, Matrix4, Matrix4)}.
+     *
+     * @param worldX X world positions
+     * @param worldZ Z world positions
+     * @param outOnTerrain set to true for the positions within the terrain boundaries
+     * @param count number of positions
+     * @param inverseTransform the inverse of the terrain transform
+     */
+    public void getOnTerrain(float[] worldX, float[] worldZ, boolean[] outOnTerrain, int count, Matrix4 inverseTransform) {
+        final float[] inv = inverseTransform.val;
+        for (int i = 0; i < count; i++) {
+            final float localX = inv[Matrix4.M00] * worldX[i] + inv[Matrix4.M02] * worldZ[i] + inv[Matrix4.M03];
+            final float localZ = inv[Matrix4.M20] * worldX[i] + inv[Matrix4.M22] * worldZ[i] + inv[Matrix4.M23];
+            outOnTerrain[i] = 0 <= localX && localX <= terrainWidth && 0 <= localZ && localZ <= terrainDepth;
+        }
+    }
+
+    /**
+     * @return the height of the mesh surface at the given local position, 0 outside of the terrain
+     */
+    private float getLocalHeight(float localX, float localZ) {
+        final int cells = vertexResolution - 1;
+        final float gridX = localX / (terrainWidth / (float) cells);
+        final float gridZ = localZ / (terrainDepth / (float) cells);
+        if (gridX < 0 || gridZ < 0 || gridX > cells || gridZ > cells) return 0;
+
+        final int x = Math.min((int) gridX, cells - 1);
+        final int z = Math.min((int) gridZ, cells - 1);
+        final float fx = gridX - x;
+        final float fz = gridZ - z;
+
+        final int i = z * vertexResolution + x;
+        final float h00 = heightData[i];
+        final float h11 = heightData[i + vertexResolution + 1];
+
+        // Same triangles as the mesh, split along the diagonal from c00 to c11
+        if (fx >= fz) {
+            final float h10 = heightData[i + 1];
+            return h00 + fx * (h10 - h00) + fz * (h11 - h10);
+        } else {
+            final float h01 = heightData[i + vertexResolution];
+            return h00 + fz * (h01 - h00) + fx * (h11 - h01);
+        }
+    }
+
+    private float getSlopeX(int x, int z, float cellWidth) {
+        final int x0 = Math.max(x - 1, 0);
+        final int x1 = Math.min(x + 1, vertexResolution - 1);
+        return (heightData[z * vertexResolution + x1] - heightData[z * vertexResolution + x0]) / ((x1 - x0) * cellWidth);
+    }
+
+    private float getSlopeZ(int x, int z, float cellDepth) {
+        final int z0 = Math.max(z - 1, 0);
+        final int z1 = Math.min(z + 1, vertexResolution - 1);
+        return (heightData[z1 * vertexResolution + x] - heightData[z0 * vertexResolution + x]) / ((z1 - z0) * cellDepth);
+    }
+
     public TerrainMaterial getTerrainTexture() {
         return terrainMaterial;
     }
@@ -505,29 +966,113 @@ public class Terrain implements Disposable {
         return vertices;
     }
 
+    /**
+     * Rebuilds the whole terrain mesh from the height data.
+     */
     public void update() {
-        buildVertices();
+        update(0, 0, vertexResolution - 1, vertexResolution - 1);
+    }
 
-        VertexAttribute normalMapUVs = null;
-        for(VertexAttribute a : attribs){
-            if(a.usage == VertexAttributes.Usage.TextureCoordinates){
-                normalMapUVs = a;
-            }
+    /**
+     * Rebuilds the terrain mesh for height data changed in the given region of the vertex grid. Only the
+     * region and a one vertex border are recomputed and uploaded to the chunks overlapping them.
+     *
+     * @param minX first changed vertex on X
+     * @param minZ first changed vertex on Z
+     * @param maxX last changed vertex on X, inclusive
+     * @param maxZ last changed vertex on Z, inclusive
+     */
+    public void update(int minX, int minZ, int maxX, int maxZ) {
+        minX = Math.max(minX, 0);
+        minZ = Math.max(minZ, 0);
+        maxX = Math.min(maxX, vertexResolution - 1);
+        maxZ = Math.min(maxZ, vertexResolution - 1);
+        if (minX > maxX || minZ > maxZ) return;
+
+        buildVertices(minX, minZ, maxX, maxZ);
+        heightTree.update(heightData, minX, minZ, maxX, maxZ);
+
+        // Normals and tangents of the border changed as well
+        minX = Math.max(minX - 1, 0);
+        minZ = Math.max(minZ - 1, 0);
+        maxX = Math.min(maxX + 1, vertexResolution - 1);
+        maxZ = Math.min(maxZ + 1, vertexResolution - 1);
+
+        for (int i = 0; i < chunks.size; i++) {
+            TerrainChunk chunk = chunks.get(i);
+            if (chunk.startX > maxX || chunk.startX + chunk.width < minX
+                    || chunk.startZ > maxZ || chunk.startZ + chunk.depth < minZ) continue;
+
+            chunk.updateVertices(vertices, heightData, vertexResolution, stride, getCellWidth(), getCellDepth(),
+                    minX, minZ, maxX, maxZ);
         }
-        // Get tangents added to terrains vertices array for normal mapping
-        MeshTangentSpaceGenerator.computeTangentSpace(vertices, indices, attribs, false, true, normalMapUVs);
-
-        mesh.setVertices(vertices);
     }
 
     public Model getModel() {
         return model;
     }
 
+    /**
+     * @return the chunks, ordered by row along Z then column along X. Renderables of the model are in the same order.
+     */
+    public Array<TerrainChunk> getChunks() {
+        return chunks;
+    }
+
+    /**
+     * @return number of chunks along X
+     */
+    public int getChunksX() {
+        return chunksX;
+    }
+
+    /**
+     * @return number of chunks along Z
+     */
+    public int getChunksZ() {
+        return chunksZ;
+    }
+
+    /**
+     * @return the distance from the camera at which chunks switch to LOD level 1, doubling for each further level
+     */
+    public float getLodDistance() {
+        return lodDistance;
+    }
+
+    /**
+     * @param lodDistance distance in local units from the camera at which chunks switch to LOD level 1
+     */
+    public void setLodDistance(float lodDistance) {
+        this.lodDistance = lodDistance;
+    }
+
     @Override
     public void dispose() {
         model.dispose();
-        mesh.dispose();
+        for (TerrainChunk chunk : chunks) {
+            chunk.dispose();
+        }
+        chunks.clear();
+    }
+
+    /**
+     * Calculates the face or vertex normals of a band of rows of the current normal update.
+     */
+    private class NormalTask implements AsyncTask<Void> {
+        boolean faces;
+        int fromZ;
+        int toZ;
+
+        @Override
+        public Void call() {
+            if (faces) {
+                calculateFaceNormals(fromZ, toZ);
+            } else {
+                calculateVertexNormals(fromZ, toZ);
+            }
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * A rectangular part of a terrain with its own mesh and bounds. Chunks duplicate the vertices on the
+ * edges they share with their neighbours. The index buffer of a chunk holds the full resolution triangles,
+ * the LOD levels are drawn with index buffers of their own, see {@link TerrainLodLevels}.
+ */
+public class TerrainChunk implements Disposable {
+
+    /** Position of the chunk in the chunk grid */
+    public final int chunkX;
+    public final int chunkZ;
+    /** First vertex of the chunk in the terrain vertex grid */
+    public final int startX;
+    public final int startZ;
+    /** Size in cells, vertices per side are one more */
+    public final int width;
+    public final int depth;
+    /** Coarsest LOD level the size of the chunk allows */
+    public final int maxLodLevel;
+
+    private final Mesh mesh;
+    private final MeshPart meshPart;
+    private final BoundingBox bounds = new BoundingBox();
+    private final float[] vertices;
+
+    private boolean verticesUploaded = false;
+
+    TerrainChunk(int chunkX, int chunkZ, int startX, int startZ, int width, int depth, int maxLodLevel, VertexAttributes attribs) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.startX = startX;
+        this.startZ = startZ;
+        this.width = width;
+        this.depth = depth;
+
+        int level = 0;
+        while (level < maxLodLevel && width % (2 << level) == 0 && depth % (2 << level) == 0) {
+            level++;
+        }
+        this.maxLodLevel = level;
+
+        int numVertices = (width + 1) * (depth + 1);
+        vertices = new float[numVertices * attribs.vertexSize / 4];
+        mesh = new Mesh(true, false, numVertices, width * depth * 6, attribs);
+        meshPart = new MeshPart(null, mesh, 0, 0, GL20.GL_TRIANGLES);
+    }
+
+    /**
+     * Copies the vertices of this chunk in the given region of the terrain vertex grid from the vertices
+     * of the whole terrain, uploads the changed rows and updates the bounds. The bounds come from the
+     * heights, so they do not depend on the vertex layout.
+     *
+     * @param terrainVertices vertices of the terrain
+     * @param heightData heights of the terrain
+     * @param vertexResolution vertices per side of the terrain
+     * @param stride floats per vertex
+     * @param cellWidth size of a cell on X
+     * @param cellDepth size of a cell on Z
+     * @param minX first vertex on X of the region
+     * @param minZ first vertex on Z of the region
+     * @param maxX last vertex on X of the region, inclusive
+     * @param maxZ last vertex on Z of the region, inclusive
+     */
+    void updateVertices(float[] terrainVertices, float[] heightData, int vertexResolution, int stride,
+                        float cellWidth, float cellDepth, int minX, int minZ, int maxX, int maxZ) {
+        int fromX = Math.max(minX - startX, 0);
+        int toX = Math.min(maxX - startX, width);
+        int fromZ = Math.max(minZ - startZ, 0);
+        int toZ = Math.min(maxZ - startZ, depth);
+        if (fromX > toX || fromZ > toZ) return;
+
+        int row = width + 1;
+        int length = (toX - fromX + 1) * stride;
+        for (int z = fromZ; z <= toZ; z++) {
+            int src = ((startZ + z) * vertexResolution + startX + fromX) * stride;
+            System.arraycopy(terrainVertices, src, vertices, (z * row + fromX) * stride, length);
+        }
+
+        if (!verticesUploaded) {
+            mesh.setVertices(vertices);
+            verticesUploaded = true;
+        } else {
+            // Upload the span from the first to the last changed vertex
+            int first = (fromZ * row + fromX) * stride;
+            int last = (toZ * row + toX + 1) * stride;
+            mesh.updateVertices(first, vertices, first, last - first);
+        }
+
+        float minHeight = Float.POSITIVE_INFINITY;
+        float maxHeight = Float.NEGATIVE_INFINITY;
+        for (int z = startZ; z <= startZ + depth; z++) {
+            for (int i = z * vertexResolution + startX; i <= z * vertexResolution + startX + width; i++) {
+                minHeight = Math.min(minHeight, heightData[i]);
+                maxHeight = Math.max(maxHeight, heightData[i]);
+            }
+        }
+        bounds.min.set(startX * cellWidth, minHeight, startZ * cellDepth);
+        bounds.max.set((startX + width) * cellWidth, maxHeight, (startZ + depth) * cellDepth);
+        bounds.update();
+
+        // Set instead of MeshPart.update(), the bounds of the chunk do not depend on the LOD level
+        bounds.getCenter(meshPart.center);
+        bounds.getDimensions(meshPart.halfExtents).scl(0.5f);
+        meshPart.radius = meshPart.halfExtents.len();
+    }
+
+    /**
+     * Uploads the indices of the mesh.
+     *
+     * @param indices the indices
+     */
+    void setIndices(short[] indices) {
+        mesh.setIndices(indices);
+        meshPart.size = indices.length;
+    }
+
+    /**
+     * @return distance from the given local position to the bounds of this chunk, 0 if inside
+     */
+    float distanceTo(Vector3 localPosition) {
+        float dx = Math.max(0, Math.max(bounds.min.x - localPosition.x, localPosition.x - bounds.max.x));
+        float dy = Math.max(0, Math.max(bounds.min.y - localPosition.y, localPosition.y - bounds.max.y));
+        float dz = Math.max(0, Math.max(bounds.min.z - localPosition.z, localPosition.z - bounds.max.z));
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * @return the bounds in terrain local space
+     */
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public Mesh getMesh() {
+        return mesh;
+    }
+
+    public MeshPart getMeshPart() {
+        return meshPart;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Min/max height pyramid over the cells of a terrain height grid, used for ray casts. Level 0 holds the
+ * height range of each cell, every level above merges 2x2 nodes of the level below until a single root
+ * node covers the whole terrain. Ray casts descend front to back into the nodes whose bounds the ray
+ * enters and test the two triangles of the cells they reach, so they visit O(log n) nodes for most rays.
+ * <p>
+ * The cells are split into triangles like the terrain mesh, along the diagonal from (x, z) to (x + 1, z + 1).
+ */
+class TerrainHeightTree {
+
+    private final int vertexResolution;
+    // Nodes per side and min/max heights of each level, level 0 are the cells
+    private final int[] sizes;
+    private final float[][] minHeights;
+    private final float[][] maxHeights;
+
+    // Current ray cast, in terrain local space
+    private float[] heightData;
+    private float cellWidth;
+    private float cellDepth;
+    private float originX, originY, originZ;
+    private float dirX, dirY, dirZ;
+    private float nearestT;
+    private final Vector3 hitNormal = new Vector3();
+
+    TerrainHeightTree(int vertexResolution) {
+        this.vertexResolution = vertexResolution;
+
+        int cells = vertexResolution - 1;
+        int levels = 1;
+        while ((1 << (levels - 1)) < cells) {
+            levels++;
+        }
+
+        sizes = new int[levels];
+        minHeights = new float[levels][];
+        maxHeights = new float[levels][];
+        for (int level = 0; level < levels; level++) {
+            sizes[level] = (cells + (1 << level) - 1) >> level;
+            minHeights[level] = new float[sizes[level] * sizes[level]];
+            maxHeights[level] = new float[sizes[level] * sizes[level]];
+        }
+    }
+
+    /**
+     * Updates the height ranges of the nodes touching the given region of the vertex grid.
+     *
+     * @param heightData height data of the terrain
+     * @param minX first changed vertex on X
+     * @param minZ first changed vertex on Z
+     * @param maxX last changed vertex on X, inclusive
+     * @param maxZ last changed vertex on Z, inclusive
+     */
+    void update(float[] heightData, int minX, int minZ, int maxX, int maxZ) {
+        int cells = sizes[0];
+        int fromX = Math.max(minX - 1, 0);
+        int fromZ = Math.max(minZ - 1, 0);
+        int toX = Math.min(maxX, cells - 1);
+        int toZ = Math.min(maxZ, cells - 1);
+
+        float[] min = minHeights[0];
+        float[] max = maxHeights[0];
+        for (int z = fromZ; z <= toZ; z++) {
+            for (int x = fromX; x <= toX; x++) {
+                int i = z * vertexResolution + x;
+                float h00 = heightData[i];
+                float h10 = heightData[i + 1];
+                float h01 = heightData[i + vertexResolution];
+                float h11 = heightData[i + vertexResolution + 1];
+                min[z * cells + x] = Math.min(Math.min(h00, h10), Math.min(h01, h11));
+                max[z * cells + x] = Math.max(Math.max(h00, h10), Math.max(h01, h11));
+            }
+        }
+
+        for (int level = 1; level < sizes.length; level++) {
+            fromX >>= 1;
+            fromZ >>= 1;
+            toX >>= 1;
+            toZ >>= 1;
+
+            int size = sizes[level];
+            int childSize = sizes[level - 1];
+            float[] childMin = minHeights[level - 1];
+            float[] childMax = maxHeights[level - 1];
+            min = minHeights[level];
+            max = maxHeights[level];
+
+            for (int z = fromZ; z <= toZ; z++) {
+                for (int x = fromX; x <= toX; x++) {
+                    float nodeMin = Float.MAX_VALUE;
+                    float nodeMax = -Float.MAX_VALUE;
+                    for (int cz = z * 2; cz <= Math.min(z * 2 + 1, childSize - 1); cz++) {
+                        for (int cx = x * 2; cx <= Math.min(x * 2 + 1, childSize - 1); cx++) {
+                            nodeMin = Math.min(nodeMin, childMin[cz * childSize + cx]);
+                            nodeMax = Math.max(nodeMax, childMax[cz * childSize + cx]);
+                        }
+                    }
+                    min[z * size + x] = nodeMin;
+                    max[z * size + x] = nodeMax;
+                }
+            }
+        }
+    }
+
+    /**
+     * Intersects a ray with the terrain, all in terrain local space. The direction does not need to be
+     * normalized, the result is in multiples of it.
+     *
+     * @param heightData height data of the terrain, as last passed to {@link #update}
+     * @param cellWidth size of a cell on X
+     * @param cellDepth size of a cell on Z
+     * @param origin origin of the ray
+     * @param direction direction of the ray
+     * @param outNormal set to the normal of the hit triangle, not normalized, if hit
+     * @return the ray parameter of the nearest hit in front of the origin, or -1 if the ray misses
+     */
+    float intersect(float[] heightData, float cellWidth, float cellDepth, Vector3 origin, Vector3 direction, Vector3 outNormal) {
+        this.heightData = heightData;
+        this.cellWidth = cellWidth;
+        this.cellDepth = cellDepth;
+        originX = origin.x;
+        originY = origin.y;
+        originZ = origin.z;
+        dirX = direction.x;
+        dirY = direction.y;
+        dirZ = direction.z;
+        nearestT = Float.MAX_VALUE;
+
+        int root = sizes.length - 1;
+        intersectNode(root, 0, 0);
+        this.heightData = null;
+
+        if (nearestT == Float.MAX_VALUE) return -1;
+        outNormal.set(hitNormal);
+        return nearestT;
+    }
+
+    private void intersectNode(int level, int nodeX, int nodeZ) {
+        int size = sizes[level];
+        float minY = minHeights[level][nodeZ * size + nodeX];
+        float maxY = maxHeights[level][nodeZ * size + nodeX];
+
+        // Cells covered by the node, the last node of a level may cover fewer
+        int cells = sizes[0];
+        int cellMinX = nodeX << level;
+        int cellMinZ = nodeZ << level;
+        int cellMaxX = Math.min((nodeX + 1) << level, cells);
+        int cellMaxZ = Math.min((nodeZ + 1) << level, cells);
+
+        float tNear = 0;
+        float tFar = nearestT;
+        float t0, t1;
+
+        // X slab
+        if (dirX != 0) {
+            t0 = (cellMinX * cellWidth - originX) / dirX;
+            t1 = (cellMaxX * cellWidth - originX) / dirX;
+            tNear = Math.max(tNear, Math.min(t0, t1));
+            tFar = Math.min(tFar, Math.max(t0, t1));
+        } else if (originX < cellMinX * cellWidth || originX > cellMaxX * cellWidth) {
+            return;
+        }
+
+        // Z slab
+        if (dirZ != 0) {
+            t0 = (cellMinZ * cellDepth - originZ) / dirZ;
+            t1 = (cellMaxZ * cellDepth - originZ) / dirZ;
+            tNear = Math.max(tNear, Math.min(t0, t1));
+            tFar = Math.min(tFar, Math.max(t0, t1));
+        } else if (originZ < cellMinZ * cellDepth || originZ > cellMaxZ * cellDepth) {
+            return;
+        }
+
+        // Height range
+        if (dirY != 0) {
+            t0 = (minY - originY) / dirY;
+            t1 = (maxY - originY) / dirY;
+            tNear = Math.max(tNear, Math.min(t0, t1));
+            tFar = Math.min(tFar, Math.max(t0, t1));
+        } else if (originY < minY || originY > maxY) {
+            return;
+        }
+
+        if (tNear > tFar) return;
+
+        if (level == 0) {
+            intersectCell(nodeX, nodeZ);
+            return;
+        }
+
+        // Visit the children in the order the ray crosses them on the XZ plane. The children don't
+        // overlap on XZ, so a hit in a child is nearer than any hit in the children after it.
+        int childLevel = level - 1;
+        int childSize = sizes[childLevel];
+        int firstX = nodeX * 2;
+        int firstZ = nodeZ * 2;
+        boolean hasSecondX = firstX + 1 < childSize;
+        boolean hasSecondZ = firstZ + 1 < childSize;
+        int stepX = dirX < 0 ? 1 : 0;
+        int stepZ = dirZ < 0 ? 1 : 0;
+
+        // Whether the ray crosses the middle line on X before the one on Z
+        float midX = (firstX + 1) << childLevel;
+        float midZ = (firstZ + 1) << childLevel;
+        float tMidX = dirX != 0 ? (midX * cellWidth - originX) / dirX : Float.MAX_VALUE;
+        float tMidZ = dirZ != 0 ? (midZ * cellDepth - originZ) / dirZ : Float.MAX_VALUE;
+        boolean xFirst = tMidX < tMidZ;
+
+        for (int i = 0; i < 4; i++) {
+            // near child first, then the child across the first crossed middle line, then the other, then the far one
+            int ox, oz;
+            if (i == 0) {
+                ox = 0;
+                oz = 0;
+            } else if (i == 1) {
+                ox = xFirst ? 1 : 0;
+                oz = xFirst ? 0 : 1;
+            } else if (i == 2) {
+                ox = xFirst ? 0 : 1;
+                oz = xFirst ? 1 : 0;
+            } else {
+                ox = 1;
+                oz = 1;
+            }
+
+            int childX = ox ^ stepX;
+            int childZ = oz ^ stepZ;
+            if (childX == 1 && !hasSecondX) continue;
+            if (childZ == 1 && !hasSecondZ) continue;
+
+            intersectNode(childLevel, firstX + childX, firstZ + childZ);
+            if (nearestT != Float.MAX_VALUE) return;
+        }
+    }
+
+    private void intersectCell(int cellX, int cellZ) {
+        int i = cellZ * vertexResolution + cellX;
+        float x0 = cellX * cellWidth;
+        float x1 = (cellX + 1) * cellWidth;
+        float z0 = cellZ * cellDepth;
+        float z1 = (cellZ + 1) * cellDepth;
+        float h00 = heightData[i];
+        float h10 = heightData[i + 1];
+        float h01 = heightData[i + vertexResolution];
+        float h11 = heightData[i + vertexResolution + 1];
+
+        // Same triangles as the terrain mesh
+        intersectTriangle(x1, h11, z1, x1, h10, z0, x0, h00, z0);
+        intersectTriangle(x0, h00, z0, x0, h01, z1, x1, h11, z1);
+    }
+
+    /**
+     * Moller-Trumbore ray triangle intersection, keeps the nearest hit.
+     */
+    private void intersectTriangle(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz) {
+        float e1x = bx - ax, e1y = by - ay, e1z = bz - az;
+        float e2x = cx - ax, e2y = cy - ay, e2z = cz - az;
+
+        float px = dirY * e2z - dirZ * e2y;
+        float py = dirZ * e2x - dirX * e2z;
+        float pz = dirX * e2y - dirY * e2x;
+        float det = e1x * px + e1y * py + e1z * pz;
+        if (det == 0) return;
+        float invDet = 1f / det;
+
+        float sx = originX - ax, sy = originY - ay, sz = originZ - az;
+        float u = (sx * px + sy * py + sz * pz) * invDet;
+        if (u < 0 || u > 1) return;
+
+        float qx = sy * e1z - sz * e1y;
+        float qy = sz * e1x - sx * e1z;
+        float qz = sx * e1y - sy * e1x;
+        float v = (dirX * qx + dirY * qy + dirZ * qz) * invDet;
+        if (v < 0 || u + v > 1) return;
+
+        float t = (e2x * qx + e2y * qy + e2z * qz) * invDet;
+        if (t < 0 || t >= nearestT) return;
+
+        nearestT = t;
+        hitNormal.set(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureArray;
+import com.badlogic.gdx.graphics.TextureArrayData;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.mbrlabs.mundus.commons.utils.GLUtils;
+
+/**
+ * Terrain layers packed into texture arrays, an alternative to the BASE and R, G, B, A channels of
+ * {@link TerrainMaterial} for more than five layers. All layers are blended in one shader pass with one
+ * diffuse and one normal texture array bound, see {@link TerrainMaterial#setLayers(TerrainLayers)}.
+ * <p>
+ * Layer 0 is the base. Layer i > 0 is weighted by channel (i - 1) % 4 of splatmap (i - 1) / 4, so
+ * each splatmap adds four layers. Needs GL3.
+ */
+public class TerrainLayers implements Disposable {
+
+    public static final int MAX_SPLATMAPS = 4;
+    /** The base and four layers per splatmap */
+    public static final int MAX_LAYERS = 1 + MAX_SPLATMAPS * 4;
+
+    // Fills the normal maps of layers without one
+    private static final Color FLAT_NORMAL = new Color(0.5f, 0.5f, 1f, 1f);
+
+    private final int layerCount;
+    private final TextureArray diffuse;
+    private final TextureArray normals;
+    private final Texture[] splatmaps;
+
+    /**
+     * Packs the layers into texture arrays. The pixmaps are not disposed.
+     *
+     * @param diffuse diffuse texture of each layer, all of the same size
+     * @param normals normal map of each layer, all of the same size. Null for no normal maps, null
+     *                entries for layers without a normal map.
+     * @param splatmaps weights of the layers, one splatmap per four layers after the base. Not disposed
+     *                  with the layers, updates to them show up as usual.
+     */
+    public TerrainLayers(Pixmap[] diffuse, Pixmap[] normals, Texture... splatmaps) {
+        if (!GLUtils.isGL3()) {
+            throw new GdxRuntimeException("Terrain layers need GL3");
+        }
+        if (diffuse.length < 2 || diffuse.length > MAX_LAYERS) {
+            throw new GdxRuntimeException("Terrain layers need 2 to " + MAX_LAYERS + " layers, got " + diffuse.length);
+        }
+        if (splatmaps.length != getSplatmapCount(diffuse.length)) {
+            throw new GdxRuntimeException(diffuse.length + " terrain layers need " + getSplatmapCount(diffuse.length)
+                    + " splatmaps, got " + splatmaps.length);
+        }
+        for (Pixmap pixmap : diffuse) {
+            if (pixmap == null) {
+                throw new GdxRuntimeException("Terrain layers need a diffuse texture per layer");
+            }
+        }
+        if (normals != null && normals.length != diffuse.length) {
+            throw new GdxRuntimeException("Terrain layers need a normal map entry per layer");
+        }
+
+        this.layerCount = diffuse.length;
+        this.splatmaps = splatmaps;
+        this.diffuse = createArray(diffuse, null);
+        this.normals = normals == null ? null : createArray(normals, FLAT_NORMAL);
+    }
+
+    /**
+     * Loads the layers from image files, see {@link #TerrainLayers(Pixmap[], Pixmap[], Texture...)}.
+     *
+     * @param diffuse diffuse texture file of each layer
+     * @param normals normal map file of each layer or null, may contain null entries
+     * @param splatmaps weights of the layers
+     */
+    public static TerrainLayers fromFiles(FileHandle[] diffuse, FileHandle[] normals, Texture... splatmaps) {
+        Pixmap[] diffusePixmaps = loadPixmaps(diffuse);
+        Pixmap[] normalPixmaps = normals == null ? null : loadPixmaps(normals);
+        try {
+            return new TerrainLayers(diffusePixmaps, normalPixmaps, splatmaps);
+        } finally {
+            disposePixmaps(diffusePixmaps);
+            if (normalPixmaps != null) {
+                disposePixmaps(normalPixmaps);
+            }
+        }
+    }
+
+    /**
+     * @return number of splatmaps needed for the given number of layers
+     */
+    public static int getSplatmapCount(int layerCount) {
+        return (layerCount + 2) / 4;
+    }
+
+    /**
+     * @param layer a layer after the base
+     * @return index of the splatmap weighting the layer
+     */
+    public static int getSplatmapIndex(int layer) {
+        checkWeightedLayer(layer);
+        return (layer - 1) / 4;
+    }
+
+    /**
+     * @param layer a layer after the base
+     * @return channel of the splatmap weighting the layer, 0 to 3 for R, G, B and A
+     */
+    public static int getChannel(int layer) {
+        checkWeightedLayer(layer);
+        return (layer - 1) % 4;
+    }
+
+    private static void checkWeightedLayer(int layer) {
+        if (layer < 1 || layer >= MAX_LAYERS) {
+            throw new GdxRuntimeException("Layer " + layer + " has no splatmap weight, layers 1 to "
+                    + (MAX_LAYERS - 1) + " have one");
+        }
+    }
+
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    public int getSplatmapCount() {
+        return splatmaps.length;
+    }
+
+    public TextureArray getDiffuse() {
+        return diffuse;
+    }
+
+    /**
+     * @return the normal maps, null if the layers have none
+     */
+    public TextureArray getNormals() {
+        return normals;
+    }
+
+    public boolean hasNormals() {
+        return normals != null;
+    }
+
+    public Texture getSplatmap(int index) {
+        return splatmaps[index];
+    }
+
+    /**
+     * Creates a mipmapped, repeating texture array of the pixmaps. Null pixmaps are filled with the
+     * given color, the size comes from the first pixmap that is not null.
+     */
+    private static TextureArray createArray(Pixmap[] pixmaps, Color fill) {
+        Pixmap first = null;
+        for (Pixmap pixmap : pixmaps) {
+            if (pixmap != null) {
+                first = pixmap;
+                break;
+            }
+        }
+        if (first == null) {
+            throw new GdxRuntimeException("Terrain layers need at least one texture per array");
+        }
+
+        final int width = first.getWidth();
+        final int height = first.getHeight();
+        final Pixmap[] layers = new Pixmap[pixmaps.length];
+        try {
+            for (int i = 0; i < pixmaps.length; i++) {
+                Pixmap pixmap = pixmaps[i];
+                if (pixmap != null && (pixmap.getWidth() != width || pixmap.getHeight() != height)) {
+                    throw new GdxRuntimeException("Terrain layer " + i + " is " + pixmap.getWidth() + "x"
+                            + pixmap.getHeight() + ", all layers must be " + width + "x" + height);
+                }
+                layers[i] = toRgba(pixmap, width, height, fill);
+            }
+
+            TextureArray array = new TextureArray(new PixmapArrayData(layers));
+            array.setFilter(Texture.TextureFilter.MipMapLinearLinear, Texture.TextureFilter.Linear);
+            array.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+            return array;
+        } finally {
+            // Copies only, the given pixmaps belong to the caller
+            for (int i = 0; i < layers.length; i++) {
+                if (layers[i] != null && layers[i] != pixmaps[i]) {
+                    layers[i].dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the pixmap if it is RGBA8888 already, else an RGBA8888 copy of it, or a new pixmap
+     * filled with the given color if the pixmap is null
+     */
+    private static Pixmap toRgba(Pixmap pixmap, int width, int height, Color fill) {
+        if (pixmap != null && pixmap.getFormat() == Pixmap.Format.RGBA8888) {
+            return pixmap;
+        }
+
+        Pixmap rgba = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        rgba.setBlending(Pixmap.Blending.None);
+        if (pixmap == null) {
+            rgba.setColor(fill);
+            rgba.fill();
+        } else {
+            rgba.drawPixmap(pixmap, 0, 0);
+        }
+        return rgba;
+    }
+
+    private static Pixmap[] loadPixmaps(FileHandle[] files) {
+        Pixmap[] pixmaps = new Pixmap[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                if (files[i] != null) {
+                    pixmaps[i] = new Pixmap(files[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            disposePixmaps(pixmaps);
+            throw e;
+        }
+        return pixmaps;
+    }
+
+    private static void disposePixmaps(Pixmap[] pixmaps) {
+        for (Pixmap pixmap : pixmaps) {
+            if (pixmap != null) {
+                pixmap.dispose();
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        diffuse.dispose();
+        if (normals != null) {
+            normals.dispose();
+        }
+    }
+
+    /**
+     * Uploads RGBA8888 pixmaps of equal size as the layers of a texture array and builds its mipmaps.
+     * Not managed, the pixmaps can be disposed after the upload.
+     */
+    private static class PixmapArrayData implements TextureArrayData {
+        private final Pixmap[] pixmaps;
+
+        PixmapArrayData(Pixmap[] pixmaps) {
+            this.pixmaps = pixmaps;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public void consumeTextureArrayData() {
+            for (int i = 0; i < pixmaps.length; i++) {
+                Pixmap pixmap = pixmaps[i];
+                Gdx.gl30.glTexSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, 0, 0, i, pixmap.getWidth(), pixmap.getHeight(),
+                        1, pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
+            }
+            Gdx.gl.glGenerateMipmap(GL30.GL_TEXTURE_2D_ARRAY);
+        }
+
+        @Override
+        public int getWidth() {
+            return pixmaps[0].getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return pixmaps[0].getHeight();
+        }
+
+        @Override
+        public int getDepth() {
+            return pixmaps.length;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return false;
+        }
+
+        @Override
+        public int getInternalFormat() {
+            return pixmaps[0].getGLInternalFormat();
+        }
+
+        @Override
+        public int getGLType() {
+            return pixmaps[0].getGLType();
+        }
+    }
+}
@@ -9,15 +9,9 @@ import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.mbrlabs.mundus.commons.assets.meta.MetaTerrain;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
-import java.io.EOFException;
-import java.io.IOException;
-
 /**
  * Loads Mundus Terrain objects via meta and .terra file data.
  * @author JamesTKhan
@@ -51,30 +45,17 @@ public class TerrainLoader extends AsynchronousAssetLoader<Terrain, TerrainLoade
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, TerrainParameter parameter) {
         terrain = null;
 
-        final FloatArray floatArray = new FloatArray();
-
         // load height data from terra file
-        DataInputStream is;
-        try {
-            is = new DataInputStream(new BufferedInputStream(file.read()));
-            while (is.available() > 0) {
-                floatArray.add(is.readFloat());
-            }
-            is.close();
-        } catch (EOFException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new GdxRuntimeException("Error reading terra file: " + file.name());
-        }
-        terrain = new Terrain(parameter.metaTerrain.getSize(), floatArray.toArray());
+        float[] heightData = TerraFile.read(file);
+        terrain = new Terrain(parameter.metaTerrain.getSize(), heightData);
+        terrain.setCompactVertices(parameter.compactVertices);
         terrain.updateUvScale(new Vector2(parameter.metaTerrain.getUv(), parameter.metaTerrain.getUv()));
+        terrain.prepare();
     }
 
     @Override
     public Terrain loadSync(AssetManager manager, String fileName, FileHandle file, TerrainParameter parameter) {
         terrain.init();
-        terrain.update();
 
         Terrain terrain = this.terrain;
         this.terrain = null;
@@ -88,5 +69,8 @@ public class TerrainLoader extends AsynchronousAssetLoader<Terrain, TerrainLoade
 
         /** Required to create the terrain properly **/
         public MetaTerrain metaTerrain = null;
+
+        /** Use the compact vertex layout, see {@link Terrain#setCompactVertices(boolean)} **/
+        public boolean compactVertices = false;
     }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.glutils.IndexBufferObject;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The LOD levels of the chunks of a terrain as seen from one camera. Terrain components keep their own,
+ * so components sharing a terrain asset do not overwrite each other's levels. Each chunk is drawn with an
+ * index buffer of its own that shares the vertices of the chunk mesh.
+ */
+public class TerrainLodLevels implements Disposable {
+
+    private Terrain terrain;
+    // Chunks the levels were built for, the terrain recreates them when it is initialized again
+    private TerrainChunk[] chunks = new TerrainChunk[0];
+    private int[] levels = new int[0];
+    private int[] keys = new int[0];
+    private ChunkLodMesh[] meshes = new ChunkLodMesh[0];
+
+    /**
+     * Picks the LOD level of each chunk by its distance to the camera and stitches the chunk edges.
+     *
+     * @param terrain the terrain
+     * @param localPosition position of the camera in the local space of the terrain
+     */
+    public void update(Terrain terrain, Vector3 localPosition) {
+        if (!prepare(terrain)) return;
+
+        for (int i = 0; i < chunks.length; i++) {
+            levels[i] = terrain.getLodLevel(chunks[i], localPosition);
+        }
+        apply();
+    }
+
+    /**
+     * Draws the renderable of a chunk with the indices of its current LOD level. The renderable must be
+     * one of the renderables of the terrain model, which are in chunk order.
+     *
+     * @param renderable the renderable
+     * @param chunkIndex index of the chunk
+     */
+    public void apply(Renderable renderable, int chunkIndex) {
+        if (chunkIndex >= meshes.length) return;
+
+        ChunkLodMesh mesh = meshes[chunkIndex];
+        renderable.meshPart.mesh = mesh;
+        renderable.meshPart.offset = 0;
+        renderable.meshPart.size = mesh.getNumIndices();
+    }
+
+    /**
+     * @param other LOD levels of the same terrain
+     * @param chunkIndex index of the chunk
+     * @return true if the chunk is drawn with the same indices by both
+     */
+    public boolean sameIndices(TerrainLodLevels other, int chunkIndex) {
+        return chunkIndex < keys.length && chunkIndex < other.keys.length && keys[chunkIndex] == other.keys[chunkIndex];
+    }
+
+    /**
+     * @param chunkIndex index of the chunk
+     * @return the LOD level of the chunk, 0 for full resolution
+     */
+    public int getLevel(int chunkIndex) {
+        return levels[chunkIndex];
+    }
+
+    /**
+     * Rebuilds the meshes if the terrain or its chunks changed.
+     *
+     * @return false if the terrain has no chunks
+     */
+    private boolean prepare(Terrain terrain) {
+        Array<TerrainChunk> terrainChunks = terrain.getChunks();
+        if (terrainChunks.size == 0) return false;
+
+        boolean changed = terrain != this.terrain || terrainChunks.size != chunks.length;
+        for (int i = 0; !changed && i < chunks.length; i++) {
+            changed = chunks[i] != terrainChunks.get(i);
+        }
+        if (!changed) return true;
+
+        dispose();
+        this.terrain = terrain;
+        chunks = terrainChunks.toArray(TerrainChunk.class);
+        levels = new int[chunks.length];
+        keys = new int[chunks.length];
+        meshes = new ChunkLodMesh[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            keys[i] = -1;
+            meshes[i] = new ChunkLodMesh(chunks[i]);
+        }
+        return true;
+    }
+
+    private void apply() {
+        final int chunksX = terrain.getChunksX();
+        final int chunksZ = terrain.getChunksZ();
+
+        for (int z = 0; z < chunksZ; z++) {
+            for (int x = 0; x < chunksX; x++) {
+                int index = z * chunksX + x;
+                int level = levels[index];
+
+                // Edges to coarser neighbours use the cell size of the neighbour
+                int north = z > 0 ? Math.max(level, levels[index - chunksX]) : level;
+                int south = z < chunksZ - 1 ? Math.max(level, levels[index + chunksX]) : level;
+                int west = x > 0 ? Math.max(level, levels[index - 1]) : level;
+                int east = x < chunksX - 1 ? Math.max(level, levels[index + 1]) : level;
+
+                int key = Terrain.lodKey(chunks[index], level, north, south, west, east);
+                if (key == keys[index]) continue;
+
+                keys[index] = key;
+                short[] indices = terrain.getLodIndices(key);
+                meshes[index].indexBuffer.setIndices(indices, 0, indices.length);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (ChunkLodMesh mesh : meshes) {
+            mesh.dispose();
+        }
+        meshes = new ChunkLodMesh[0];
+        chunks = new TerrainChunk[0];
+        terrain = null;
+    }
+
+    /**
+     * Draws the vertices of a chunk mesh with its own index buffer, the vertices are shared and not copied.
+     * The buffers of the mesh itself are empty.
+     */
+    private static class ChunkLodMesh extends Mesh {
+        private final Mesh source;
+        final IndexBufferObject indexBuffer;
+
+        ChunkLodMesh(TerrainChunk chunk) {
+            super(true, 0, 0, chunk.getMesh().getVertexAttributes());
+            this.source = chunk.getMesh();
+            indexBuffer = new IndexBufferObject(false, chunk.width * chunk.depth * 6);
+        }
+
+        @Override
+        public void bind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            source.bind(shader, locations, instanceLocations);
+            indexBuffer.bind();
+        }
+
+        @Override
+        public void unbind(ShaderProgram shader, int[] locations, int[] instanceLocations) {
+            // Before the source, its vertex array object must still be bound
+            indexBuffer.unbind();
+            source.unbind(shader, locations, instanceLocations);
+        }
+
+        @Override
+        public void render(ShaderProgram shader, int primitiveType, int offset, int count, boolean autoBind) {
+            if (count == 0) return;
+
+            if (autoBind) bind(shader);
+            Gdx.gl20.glDrawElements(primitiveType, count, GL20.GL_UNSIGNED_SHORT, offset * 2);
+            if (autoBind) unbind(shader);
+        }
+
+        @Override
+        public int getNumVertices() {
+            return source.getNumVertices();
+        }
+
+        @Override
+        public int getNumIndices() {
+            return indexBuffer.getNumIndices();
+        }
+
+        @Override
+        public FloatBuffer getVerticesBuffer(boolean forWriting) {
+            return source.getVerticesBuffer(forWriting);
+        }
+
+        @Override
+        public ShortBuffer getIndicesBuffer(boolean forWriting) {
+            return indexBuffer.getBuffer(forWriting);
+        }
+
+        @Override
+        public void dispose() {
+            super.dispose();
+            indexBuffer.dispose();
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class TerrainMaterial extends TerrainAttributes {
     private final Map<SplatTexture.Channel, SplatTexture> textures;
     private final Map<SplatTexture.Channel, SplatTexture> normalTextures;
     private SplatMap splatmap;
+    private TerrainLayers layers;
     private Terrain terrain;
 
     public TerrainMaterial() {
@@ -170,6 +171,25 @@ public class TerrainMaterial extends TerrainAttributes {
         }
     }
 
+    public TerrainLayers getLayers() {
+        return layers;
+    }
+
+    /**
+     * Uses texture array layers instead of the channel textures and the splatmap, for more than five
+     * layers in one shader pass. Opt-in and GL3 only. The layers are not disposed with the material.
+     *
+     * @param layers the layers, null to go back to the channel textures
+     */
+    public void setLayers(TerrainLayers layers) {
+        this.layers = layers;
+        if (layers == null) {
+            remove(TerrainAttribute.Layers);
+        } else {
+            set(new TerrainAttribute(TerrainAttribute.Layers));
+        }
+    }
+
     public Terrain getTerrain() {
         return terrain;
     }
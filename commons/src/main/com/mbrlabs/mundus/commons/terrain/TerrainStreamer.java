@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.mbrlabs.mundus.commons.assets.AssetManager;
+import com.mbrlabs.mundus.commons.assets.PixmapTextureAsset;
+import com.mbrlabs.mundus.commons.assets.TerrainAsset;
+import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import com.mbrlabs.mundus.commons.assets.meta.MetaLoader;
+import com.mbrlabs.mundus.commons.assets.meta.MetaTerrain;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+
+/**
+ * Streams a grid of terrain tiles in and out of a scene graph around the camera.
+ * <p>
+ * Tiles are terrain assets that are not listed in assets.txt, so the asset manager does not load them up
+ * front. When the camera comes within the load distance of a tile, its meta file, heights and splatmap are
+ * read and decoded and its vertices are built on a background thread. The GL resources (meshes, splatmap texture) are then created
+ * in {@link #update(Vector3)} on the render thread, limited to a time budget per frame. Tiles beyond the
+ * unload distance are removed from the scene graph and disposed. The unload distance should be larger
+ * than the load distance, so tiles on the border do not load and unload every frame.
+ * <p>
+ * Dependencies of the tiles other than their splatmap, like the material and splat textures, must be
+ * loaded by the asset manager.
+ */
+public class TerrainStreamer implements Disposable {
+    private static final String TAG = TerrainStreamer.class.getSimpleName();
+
+    private final AssetManager assetManager;
+    private final SceneGraph sceneGraph;
+    private final float tileSize;
+    private final Array<Tile> tiles = new Array<>();
+    private final AsyncExecutor executor;
+
+    private float loadDistance;
+    private float unloadDistance;
+    private long frameBudgetNanos;
+    private int gameObjectId = -2;
+
+    /**
+     * @param assetManager the asset manager holding the dependencies of the tiles
+     * @param sceneGraph the scene graph to add the tiles to
+     * @param tileSize size of a tile on X and Z, the tile at grid position (x, z) is placed at
+     *                 (x * tileSize, 0, z * tileSize)
+     * @param loadDistance distance from the camera to a tile on the XZ plane at which the tile is loaded
+     * @param unloadDistance distance at which a tile is unloaded, larger than the load distance
+     * @param threads number of background threads decoding tiles
+     */
+    public TerrainStreamer(AssetManager assetManager, SceneGraph sceneGraph, float tileSize,
+                           float loadDistance, float unloadDistance, int threads) {
+        this(assetManager, sceneGraph, tileSize, loadDistance, unloadDistance, new AsyncExecutor(threads, TAG));
+    }
+
+    /**
+     * @param executor runs the decoding of the tiles, disposed with the streamer
+     */
+    TerrainStreamer(AssetManager assetManager, SceneGraph sceneGraph, float tileSize,
+                    float loadDistance, float unloadDistance, AsyncExecutor executor) {
+        this.assetManager = assetManager;
+        this.sceneGraph = sceneGraph;
+        this.tileSize = tileSize;
+        this.executor = executor;
+        setDistances(loadDistance, unloadDistance);
+        setFrameBudget(4f);
+    }
+
+    /**
+     * Registers a tile, it is loaded by {@link #update(Vector3)} once the camera is near.
+     *
+     * @param gridX position of the tile in the tile grid on X
+     * @param gridZ position of the tile in the tile grid on Z
+     * @param terrainMetaFile meta file of the terrain asset of the tile
+     * @param splatmapFile the splatmap image of the tile, its meta file must be next to it, may be null
+     */
+    public void addTile(int gridX, int gridZ, FileHandle terrainMetaFile, FileHandle splatmapFile) {
+        for (Tile tile : tiles) {
+            if (tile.gridX == gridX && tile.gridZ == gridZ) {
+                throw new GdxRuntimeException("Terrain tile already added at " + gridX + ", " + gridZ);
+            }
+        }
+        tiles.add(new Tile(gridX, gridZ, terrainMetaFile, splatmapFile));
+    }
+
+    public void setDistances(float loadDistance, float unloadDistance) {
+        if (unloadDistance < loadDistance) {
+            throw new GdxRuntimeException("Unload distance must not be smaller than the load distance");
+        }
+        this.loadDistance = loadDistance;
+        this.unloadDistance = unloadDistance;
+    }
+
+    /**
+     * Sets the time per frame spent creating the GL resources of loaded tiles. At least one tile is
+     * finalized per frame, whatever the budget.
+     *
+     * @param millis the budget in milliseconds
+     */
+    public void setFrameBudget(float millis) {
+        frameBudgetNanos = (long) (millis * 1000000L);
+    }
+
+    /**
+     * Starts loading the tiles near the camera, adds the tiles that finished loading to the scene graph
+     * and unloads the tiles far from the camera. Call once per frame on the render thread.
+     *
+     * @param cameraPosition position of the camera in world space
+     */
+    public void update(Vector3 cameraPosition) {
+        long start = TimeUtils.nanoTime();
+        boolean finalized = false;
+
+        for (int i = 0; i < tiles.size; i++) {
+            Tile tile = tiles.get(i);
+            float distance = tile.distanceTo(cameraPosition.x, cameraPosition.z, tileSize);
+
+            switch (tile.state) {
+                case UNLOADED:
+                    if (distance <= loadDistance) {
+                        tile.state = TileState.LOADING;
+                        tile.compactVertices = assetManager.compactTerrainVertices;
+                        tile.result = executor.submit(tile);
+                    }
+                    break;
+                case LOADING:
+                    if (!tile.result.isDone()) break;
+                    if (distance > unloadDistance) {
+                        // Camera left before the tile was finished, drop the decoded data
+                        discard(tile, TileState.UNLOADED);
+                        break;
+                    }
+                    if (finalized && TimeUtils.timeSinceNanos(start) > frameBudgetNanos) break;
+                    finalizeTile(tile);
+                    finalized = true;
+                    break;
+                case RESIDENT:
+                    if (distance > unloadDistance) {
+                        unload(tile);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return the game object of the tile at the given grid position, or null if it is not resident
+     */
+    public GameObject getTile(int gridX, int gridZ) {
+        for (Tile tile : tiles) {
+            if (tile.gridX == gridX && tile.gridZ == gridZ) {
+                return tile.gameObject;
+            }
+        }
+        return null;
+    }
+
+    public int getResidentTileCount() {
+        int count = 0;
+        for (Tile tile : tiles) {
+            if (tile.state == TileState.RESIDENT) count++;
+        }
+        return count;
+    }
+
+    private void finalizeTile(Tile tile) {
+        try {
+            tile.result.get();
+        } catch (GdxRuntimeException e) {
+            Gdx.app.error(TAG, "Cannot load terrain tile " + tile.terrainMetaFile.path(), e);
+            discard(tile, TileState.FAILED);
+            return;
+        }
+        tile.result = null;
+
+        create(tile);
+        tile.state = TileState.RESIDENT;
+    }
+
+    /**
+     * Reads and decodes the files of a tile, called on a background thread. Must not touch GL.
+     *
+     * @param tile the tile
+     */
+    void decode(Tile tile) throws Exception {
+        MetaLoader metaLoader = new MetaLoader();
+        tile.terrainMeta = metaLoader.load(tile.terrainMetaFile);
+        tile.terraFile = tile.terrainMetaFile.sibling(tile.terrainMetaFile.nameWithoutExtension());
+        float[] heights = TerraFile.read(tile.terraFile);
+
+        // Vertices, normals and tangents, only the meshes are left for the render thread
+        MetaTerrain metaTerrain = tile.terrainMeta.getTerrain();
+        Terrain terrain = new Terrain(metaTerrain.getSize(), heights);
+        terrain.updateUvScale(new Vector2(metaTerrain.getUv(), metaTerrain.getUv()));
+        terrain.setCompactVertices(tile.compactVertices);
+        terrain.prepare();
+        tile.terrain = terrain;
+
+        if (tile.splatmapFile != null) {
+            tile.splatmapMeta = metaLoader.load(tile.splatmapFile.sibling(tile.splatmapFile.name() + "." + Meta.META_EXTENSION));
+            tile.splatmapPixmap = new Pixmap(tile.splatmapFile);
+        }
+    }
+
+    /**
+     * Creates the GL resources, assets and game object of a decoded tile, called on the render thread.
+     *
+     * @param tile the tile
+     */
+    void create(Tile tile) {
+        PixmapTextureAsset splatmap = null;
+        if (tile.splatmapPixmap != null) {
+            splatmap = new PixmapTextureAsset(tile.splatmapMeta, tile.splatmapFile);
+            splatmap.load(tile.splatmapPixmap);
+            assetManager.addAsset(splatmap);
+        }
+
+        Terrain terrain = tile.terrain;
+        terrain.init();
+
+        TerrainAsset asset = new TerrainAsset(tile.terrainMeta, tile.terraFile);
+        asset.load(terrain);
+        asset.resolveDependencies(assetManager.getAssetMap());
+        asset.applyDependencies();
+        assetManager.addAsset(asset);
+
+        GameObject go = new GameObject(sceneGraph, "Terrain tile " + tile.gridX + ", " + tile.gridZ, gameObjectId--);
+        go.setLocalPosition(tile.gridX * tileSize, 0, tile.gridZ * tileSize);
+        TerrainComponent component = new TerrainComponent(go);
+        component.setTerrainAsset(asset);
+        go.getComponents().add(component);
+        sceneGraph.addGameObject(go);
+
+        tile.splatmapAsset = splatmap;
+        tile.terrainAsset = asset;
+        tile.gameObject = go;
+        tile.terrain = null;
+        tile.splatmapPixmap = null;
+    }
+
+    private void discard(Tile tile, TileState state) {
+        tile.result = null;
+        if (tile.splatmapPixmap != null) {
+            tile.splatmapPixmap.dispose();
+            tile.splatmapPixmap = null;
+        }
+        tile.terrain = null;
+        tile.state = state;
+    }
+
+    private void unload(Tile tile) {
+        destroy(tile);
+        tile.state = TileState.UNLOADED;
+    }
+
+    /**
+     * Removes a resident tile from the scene graph and disposes its resources.
+     *
+     * @param tile the tile
+     */
+    void destroy(Tile tile) {
+        tile.gameObject.remove();
+        tile.gameObject = null;
+
+        // Terrain assets don't own their terrain, it is owned by the gdx asset manager otherwise
+        assetManager.removeAsset(tile.terrainAsset);
+        tile.terrainAsset.getTerrain().dispose();
+        tile.terrainAsset = null;
+
+        if (tile.splatmapAsset != null) {
+            assetManager.removeAsset(tile.splatmapAsset);
+            tile.splatmapAsset.dispose();
+            tile.splatmapAsset = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // Waits for running tasks
+        executor.dispose();
+        for (Tile tile : tiles) {
+            if (tile.state == TileState.LOADING) {
+                discard(tile, TileState.UNLOADED);
+            } else if (tile.state == TileState.RESIDENT) {
+                unload(tile);
+            }
+        }
+        tiles.clear();
+    }
+
+    private enum TileState {
+        UNLOADED,
+        /** Decoding on a background thread, or decoded and waiting to be finalized */
+        LOADING,
+        RESIDENT,
+        /** Loading failed, the tile is not retried */
+        FAILED
+    }
+
+    /**
+     * A tile of the grid. As an {@link AsyncTask}, it reads and decodes its files without touching GL.
+     */
+    class Tile implements AsyncTask<Void> {
+        final int gridX;
+        final int gridZ;
+        final FileHandle terrainMetaFile;
+        final FileHandle splatmapFile;
+
+        TileState state = TileState.UNLOADED;
+        AsyncResult<Void> result;
+        boolean compactVertices;
+
+        // Set by the background thread, read on the render thread once the result is done
+        Meta terrainMeta;
+        FileHandle terraFile;
+        Terrain terrain;
+        Meta splatmapMeta;
+        Pixmap splatmapPixmap;
+
+        // Resident resources
+        TerrainAsset terrainAsset;
+        PixmapTextureAsset splatmapAsset;
+        GameObject gameObject;
+
+        Tile(int gridX, int gridZ, FileHandle terrainMetaFile, FileHandle splatmapFile) {
+            this.gridX = gridX;
+            this.gridZ = gridZ;
+            this.terrainMetaFile = terrainMetaFile;
+            this.splatmapFile = splatmapFile;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            decode(this);
+            return null;
+        }
+
+        /**
+         * @return distance on the XZ plane from the given position to the bounds of this tile, 0 if inside
+         */
+        float distanceTo(float x, float z, float tileSize) {
+            float minX = gridX * tileSize;
+            float minZ = gridZ * tileSize;
+            float dx = Math.max(0, Math.max(minX - x, x - (minX + tileSize)));
+            float dz = Math.max(0, Math.max(minZ - z, z - (minZ + tileSize)));
+            return (float) Math.sqrt(dx * dx + dz * dz);
+        }
+    }
+}
@@ -34,6 +34,8 @@ public class TerrainAttribute extends MundusAttribute {
     public final static long NormalMapA = register(NormalMapAAlias);
     public final static String TriplanarAlias = "triplanar";
     public final static long Triplanar = register(TriplanarAlias);
+    public final static String LayersAlias = "layers";
+    public final static long Layers = register(LayersAlias);
 
     public TerrainAttribute(long type) {
         super(type);
@@ -0,0 +1,458 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.utils;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntSet;
+
+import java.util.PriorityQueue;
+
+/**
+ * Quadric error metric mesh simplifier (Garland and Heckbert) using half edge collapses.
+ * <p>
+ * Vertices are only ever collapsed onto other existing vertices, so the result is a new index
+ * list referencing the original vertex buffer, which lets LOD levels share the vertex data of
+ * the source mesh. Vertices are welded by position for the topology, so UV and normal seams do
+ * not tear. Seam vertices only move along their seam and border vertices are kept in place, to
+ * preserve the silhouette and texturing.
+ */
+public class MeshSimplifier {
+
+    /** Minimum cosine between a face normal before and after a collapse */
+    private static final float MAX_NORMAL_FLIP = 0.2f;
+
+    // Welded vertices (nodes)
+    private float[] nodePositions;
+    private double[] quadrics;
+    private IntArray[] nodeVertices;
+    private IntArray[] nodeFaces;
+    private int[] nodeVersions;
+    private boolean[] nodeLocked;
+    private int nodeCount;
+
+    // Faces, as welded nodes and original vertex indices per corner
+    private int[] faceNodes;
+    private int[] faceVertices;
+    private boolean[] faceRemoved;
+
+    private final IntIntMap edgeVertexPairs = new IntIntMap();
+    private final IntSet seamNeighbours = new IntSet();
+    private final float[] before = new float[4];
+    private final float[] after = new float[4];
+
+    private float[] vertices;
+    private int vertexSize;
+    private int positionOffset;
+
+    /**
+     * Simplifies a triangle mesh part.
+     *
+     * @param mesh  the mesh
+     * @param part  the mesh part, must be indexed triangles
+     * @param ratio target ratio of triangles to keep, 0 to 1
+     * @return the simplified indices referencing the vertices of the mesh, or null if the part can not be simplified
+     */
+    public short[] simplify(Mesh mesh, MeshPart part, float ratio) {
+        if (part.primitiveType != GL20.GL_TRIANGLES || mesh.getNumIndices() == 0) return null;
+
+        VertexAttribute position = mesh.getVertexAttribute(VertexAttributes.Usage.Position);
+        if (position == null) return null;
+
+        float[] meshVertices = new float[mesh.getNumVertices() * mesh.getVertexSize() / 4];
+        mesh.getVertices(meshVertices);
+        short[] meshIndices = new short[mesh.getNumIndices()];
+        mesh.getIndices(meshIndices);
+
+        return simplify(meshVertices, mesh.getVertexSize() / 4, position.offset / 4, meshIndices, part.offset, part.size, ratio);
+    }
+
+    /**
+     * Simplifies an indexed triangle list.
+     *
+     * @param vertices       interleaved vertex data
+     * @param vertexSize     size of one vertex in floats
+     * @param positionOffset offset of the position in a vertex in floats
+     * @param indices        the indices
+     * @param offset         offset of the first index to simplify
+     * @param count          number of indices to simplify, multiple of 3
+     * @param ratio          target ratio of triangles to keep, 0 to 1
+     * @return the simplified indices referencing the given vertices
+     */
+    public short[] simplify(float[] vertices, int vertexSize, int positionOffset, short[] indices, int offset, int count, float ratio) {
+        this.vertices = vertices;
+        this.vertexSize = vertexSize;
+        this.positionOffset = positionOffset;
+
+        int faceCount = count / 3;
+        buildNodes(indices, offset, faceCount * 3);
+        buildQuadrics(faceCount);
+
+        int targetFaces = Math.max(1, (int) (faceCount * ratio));
+        int liveFaces = countLiveFaces(faceCount);
+
+        PriorityQueue<Collapse> queue = new PriorityQueue<>();
+        for (int f = 0; f < faceCount; f++) {
+            if (faceRemoved[f]) continue;
+            for (int c = 0; c < 3; c++) {
+                int a = faceNodes[f * 3 + c];
+                int b = faceNodes[f * 3 + (c + 1) % 3];
+                pushCollapse(queue, a, b);
+                pushCollapse(queue, b, a);
+            }
+        }
+
+        while (liveFaces > targetFaces && !queue.isEmpty()) {
+            Collapse collapse = queue.poll();
+            if (nodeVersions[collapse.from] != collapse.fromVersion || nodeVersions[collapse.to] != collapse.toVersion) continue;
+            if (!canCollapse(collapse.from, collapse.to)) continue;
+
+            liveFaces -= collapse(collapse.from, collapse.to);
+
+            // Costs of edges around the surviving node changed
+            IntArray faces = nodeFaces[collapse.to];
+            for (int i = 0; i < faces.size; i++) {
+                int f = faces.get(i);
+                for (int c = 0; c < 3; c++) {
+                    int other = faceNodes[f * 3 + c];
+                    if (other == collapse.to) continue;
+                    pushCollapse(queue, other, collapse.to);
+                    pushCollapse(queue, collapse.to, other);
+                }
+            }
+        }
+
+        short[] result = new short[liveFaces * 3];
+        int r = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (faceRemoved[f]) continue;
+            for (int c = 0; c < 3; c++) {
+                result[r++] = (short) faceVertices[f * 3 + c];
+            }
+        }
+
+        this.vertices = null;
+        return result;
+    }
+
+    private void buildNodes(short[] indices, int offset, int count) {
+        nodePositions = new float[count * 3];
+        nodeVertices = new IntArray[count];
+        faceNodes = new int[count];
+        faceVertices = new int[count];
+        nodeCount = 0;
+
+        IntIntMap vertexToNode = new IntIntMap(count);
+        IntIntMap bucketHeads = new IntIntMap(count);
+        int[] bucketNext = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            int vertex = indices[offset + i] & 0xFFFF;
+            faceVertices[i] = vertex;
+
+            int node = vertexToNode.get(vertex, -1);
+            if (node == -1) {
+                int p = vertex * vertexSize + positionOffset;
+                float x = vertices[p], y = vertices[p + 1], z = vertices[p + 2];
+                int hash = Float.floatToIntBits(x) * 73856093 ^ Float.floatToIntBits(y) * 19349663 ^ Float.floatToIntBits(z) * 83492791;
+
+                node = bucketHeads.get(hash, -1);
+                while (node != -1 && !(nodePositions[node * 3] == x && nodePositions[node * 3 + 1] == y && nodePositions[node * 3 + 2] == z)) {
+                    node = bucketNext[node];
+                }
+
+                if (node == -1) {
+                    node = nodeCount++;
+                    nodePositions[node * 3] = x;
+                    nodePositions[node * 3 + 1] = y;
+                    nodePositions[node * 3 + 2] = z;
+                    nodeVertices[node] = new IntArray(2);
+                    bucketNext[node] = bucketHeads.get(hash, -1);
+                    bucketHeads.put(hash, node);
+                }
+
+                nodeVertices[node].add(vertex);
+                vertexToNode.put(vertex, node);
+            }
+            faceNodes[i] = node;
+        }
+
+        nodeFaces = new IntArray[nodeCount];
+        nodeVersions = new int[nodeCount];
+        nodeLocked = new boolean[nodeCount];
+        quadrics = new double[nodeCount * 10];
+
+        for (int n = 0; n < nodeCount; n++) {
+            nodeFaces[n] = new IntArray(6);
+        }
+
+        faceRemoved = new boolean[count / 3];
+        for (int f = 0; f < count / 3; f++) {
+            int a = faceNodes[f * 3], b = faceNodes[f * 3 + 1], c = faceNodes[f * 3 + 2];
+            if (a == b || b == c || a == c) {
+                faceRemoved[f] = true;
+                continue;
+            }
+            nodeFaces[a].add(f);
+            nodeFaces[b].add(f);
+            nodeFaces[c].add(f);
+        }
+    }
+
+    private void buildQuadrics(int faceCount) {
+        float[] n = new float[4];
+
+        for (int f = 0; f < faceCount; f++) {
+            if (faceRemoved[f]) continue;
+
+            faceNormal(faceNodes[f * 3], faceNodes[f * 3 + 1], faceNodes[f * 3 + 2], n);
+            float d = -dotPosition(faceNodes[f * 3], n);
+            for (int c = 0; c < 3; c++) {
+                addPlane(faceNodes[f * 3 + c], n[0], n[1], n[2], d, n[3]);
+            }
+        }
+
+        // Lock border nodes so open edges keep their shape. An edge is a border if only one face uses it
+        IntIntMap edgeFaces = new IntIntMap();
+        for (int node = 0; node < nodeCount; node++) {
+            edgeFaces.clear();
+            IntArray faces = nodeFaces[node];
+            for (int i = 0; i < faces.size; i++) {
+                int f = faces.get(i);
+                for (int c = 0; c < 3; c++) {
+                    int other = faceNodes[f * 3 + c];
+                    if (other != node) edgeFaces.getAndIncrement(other, 0, 1);
+                }
+            }
+
+            for (IntIntMap.Entry entry : edgeFaces) {
+                if (entry.value == 1) {
+                    nodeLocked[node] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean canCollapse(int from, int to) {
+        if (nodeLocked[from]) return false;
+        if (nodeVertices[from].size > 1 && !isSeamCollapse(from, to)) return false;
+
+        IntArray faces = nodeFaces[from];
+        for (int i = 0; i < faces.size; i++) {
+            int f = faces.get(i);
+            int a = faceNodes[f * 3], b = faceNodes[f * 3 + 1], c = faceNodes[f * 3 + 2];
+            // Faces containing the edge are removed
+            if (a == to || b == to || c == to) continue;
+
+            faceNormal(a, b, c, before);
+            faceNormal(a == from ? to : a, b == from ? to : b, c == from ? to : c, after);
+            if (after[3] == 0f) return false;
+            if (before[0] * after[0] + before[1] * after[1] + before[2] * after[2] < MAX_NORMAL_FLIP) return false;
+        }
+        return true;
+    }
+
+    /**
+     * A node with split vertices lies on an attribute seam. It may only collapse along the seam onto its
+     * neighbour on the seam, so both sides keep their attributes. Where more than two seam edges meet
+     * the node is a corner and stays in place.
+     */
+    private boolean isSeamCollapse(int from, int to) {
+        // An edge is a seam edge if its faces use different vertex pairs
+        edgeVertexPairs.clear();
+        seamNeighbours.clear();
+        IntArray faces = nodeFaces[from];
+        for (int i = 0; i < faces.size; i++) {
+            int f = faces.get(i);
+            int fromVertex = faceNodes[f * 3] == from ? faceVertices[f * 3]
+                    : faceNodes[f * 3 + 1] == from ? faceVertices[f * 3 + 1] : faceVertices[f * 3 + 2];
+            for (int c = 0; c < 3; c++) {
+                int other = faceNodes[f * 3 + c];
+                if (other == from) continue;
+
+                int pair = fromVertex << 16 | faceVertices[f * 3 + c];
+                if (!edgeVertexPairs.containsKey(other)) {
+                    edgeVertexPairs.put(other, pair);
+                } else if (edgeVertexPairs.get(other, 0) != pair) {
+                    seamNeighbours.add(other);
+                }
+            }
+        }
+        return seamNeighbours.size == 2 && seamNeighbours.contains(to);
+    }
+
+    /**
+     * Collapses the node onto the target node.
+     *
+     * @return number of faces removed
+     */
+    private int collapse(int from, int to) {
+        int removed = 0;
+
+        IntArray faces = nodeFaces[from];
+        for (int i = 0; i < faces.size; i++) {
+            int f = faces.get(i);
+            boolean hasTarget = faceNodes[f * 3] == to || faceNodes[f * 3 + 1] == to || faceNodes[f * 3 + 2] == to;
+
+            if (hasTarget) {
+                faceRemoved[f] = true;
+                removed++;
+                for (int c = 0; c < 3; c++) {
+                    int node = faceNodes[f * 3 + c];
+                    if (node != from) nodeFaces[node].removeValue(f);
+                }
+                continue;
+            }
+
+            for (int c = 0; c < 3; c++) {
+                if (faceNodes[f * 3 + c] != from) continue;
+                faceNodes[f * 3 + c] = to;
+                faceVertices[f * 3 + c] = closestVertex(to, faceVertices[f * 3 + c]);
+            }
+            nodeFaces[to].add(f);
+        }
+
+        faces.clear();
+        for (int i = 0; i < 10; i++) {
+            quadrics[to * 10 + i] += quadrics[from * 10 + i];
+        }
+        nodeVersions[from]++;
+        nodeVersions[to]++;
+        return removed;
+    }
+
+    /**
+     * @return the vertex of the node whose attributes are closest to the given vertex
+     */
+    private int closestVertex(int node, int vertex) {
+        IntArray candidates = nodeVertices[node];
+        if (candidates.size == 1) return candidates.first();
+
+        int best = candidates.first();
+        float bestDistance = Float.MAX_VALUE;
+        for (int i = 0; i < candidates.size; i++) {
+            int candidate = candidates.get(i);
+            float distance = 0;
+            for (int k = 0; k < vertexSize; k++) {
+                if (k >= positionOffset && k < positionOffset + 3) continue;
+                float d = vertices[candidate * vertexSize + k] - vertices[vertex * vertexSize + k];
+                distance += d * d;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private void pushCollapse(PriorityQueue<Collapse> queue, int from, int to) {
+        if (nodeLocked[from]) return;
+
+        double[] q = quadrics;
+        int a = from * 10, b = to * 10;
+        double x = nodePositions[to * 3], y = nodePositions[to * 3 + 1], z = nodePositions[to * 3 + 2];
+
+        // v^T (Qa + Qb) v, with v = (x, y, z, 1)
+        double q00 = q[a] + q[b], q01 = q[a + 1] + q[b + 1], q02 = q[a + 2] + q[b + 2], q03 = q[a + 3] + q[b + 3];
+        double q11 = q[a + 4] + q[b + 4], q12 = q[a + 5] + q[b + 5], q13 = q[a + 6] + q[b + 6];
+        double q22 = q[a + 7] + q[b + 7], q23 = q[a + 8] + q[b + 8];
+        double q33 = q[a + 9] + q[b + 9];
+        double cost = x * x * q00 + 2 * x * y * q01 + 2 * x * z * q02 + 2 * x * q03
+                + y * y * q11 + 2 * y * z * q12 + 2 * y * q13
+                + z * z * q22 + 2 * z * q23
+                + q33;
+
+        queue.add(new Collapse(from, to, nodeVersions[from], nodeVersions[to], (float) Math.max(0, cost)));
+    }
+
+    private void addPlane(int node, float a, float b, float c, float d, float weight) {
+        int i = node * 10;
+        quadrics[i] += weight * a * a;
+        quadrics[i + 1] += weight * a * b;
+        quadrics[i + 2] += weight * a * c;
+        quadrics[i + 3] += weight * a * d;
+        quadrics[i + 4] += weight * b * b;
+        quadrics[i + 5] += weight * b * c;
+        quadrics[i + 6] += weight * b * d;
+        quadrics[i + 7] += weight * c * c;
+        quadrics[i + 8] += weight * c * d;
+        quadrics[i + 9] += weight * d * d;
+    }
+
+    private float dotPosition(int node, float[] n) {
+        return nodePositions[node * 3] * n[0] + nodePositions[node * 3 + 1] * n[1] + nodePositions[node * 3 + 2] * n[2];
+    }
+
+    /**
+     * Writes the unit normal of the triangle into out[0..2] and its area into out[3].
+     */
+    private void faceNormal(int a, int b, int c, float[] out) {
+        float ax = nodePositions[a * 3], ay = nodePositions[a * 3 + 1], az = nodePositions[a * 3 + 2];
+        float e1x = nodePositions[b * 3] - ax, e1y = nodePositions[b * 3 + 1] - ay, e1z = nodePositions[b * 3 + 2] - az;
+        float e2x = nodePositions[c * 3] - ax, e2y = nodePositions[c * 3 + 1] - ay, e2z = nodePositions[c * 3 + 2] - az;
+
+        float nx = e1y * e2z - e1z * e2y;
+        float ny = e1z * e2x - e1x * e2z;
+        float nz = e1x * e2y - e1y * e2x;
+        float len = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+
+        if (len == 0f) {
+            out[0] = out[1] = out[2] = out[3] = 0f;
+            return;
+        }
+        out[0] = nx / len;
+        out[1] = ny / len;
+        out[2] = nz / len;
+        out[3] = len * 0.5f;
+    }
+
+    private int countLiveFaces(int faceCount) {
+        int live = 0;
+        for (int f = 0; f < faceCount; f++) {
+            if (!faceRemoved[f]) live++;
+        }
+        return live;
+    }
+
+    private static class Collapse implements Comparable<Collapse> {
+        final int from;
+        final int to;
+        final int fromVersion;
+        final int toVersion;
+        final float cost;
+
+        Collapse(int from, int to, int fromVersion, int toVersion, float cost) {
+            this.from = from;
+            this.to = to;
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Collapse other) {
+            return Float.compare(cost, other.cost);
+        }
+    }
+}
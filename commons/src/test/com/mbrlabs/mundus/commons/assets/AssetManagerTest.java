@@ -0,0 +1,55 @@
+package com.mbrlabs.mundus.commons.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AssetManagerTest {
+
+    @Test
+    public void indexesAddedAssets() {
+        AssetManager manager = new AssetManager(null);
+        MaterialAsset material = new MaterialAsset(meta("1", AssetType.MATERIAL, "a.mat"), new FileHandle("a.mat"));
+        WaterAsset water = new WaterAsset(meta("2", AssetType.WATER, "b.water"), new FileHandle("b.water"));
+        manager.addAsset(material);
+        manager.addAsset(water);
+
+        assertSame(material, manager.findAssetByID("1", MaterialAsset.class));
+        assertNull(manager.findAssetByID("2", MaterialAsset.class));
+        assertSame(water, manager.findAssetByFileName("b.water"));
+        assertEquals(1, manager.getMaterialAssets().size);
+        assertSame(material, manager.getMaterialAssets().first());
+        assertEquals(1, manager.getAssetsByType(AssetType.WATER).size);
+        assertEquals(0, manager.getModelAssets().size);
+    }
+
+    @Test
+    public void updatesIndexesOnRemove() {
+        AssetManager manager = new AssetManager(null);
+        MaterialAsset first = new MaterialAsset(meta("1", AssetType.MATERIAL, "a.mat"), new FileHandle("first/a.mat"));
+        MaterialAsset second = new MaterialAsset(meta("2", AssetType.MATERIAL, "a.mat"), new FileHandle("second/a.mat"));
+        manager.addAsset(first);
+        manager.addAsset(second);
+        assertSame(first, manager.findAssetByFileName("a.mat"));
+
+        manager.removeAsset(first);
+        assertNull(manager.findAssetByID("1"));
+        assertSame(second, manager.findAssetByFileName("a.mat"));
+        assertEquals(1, manager.getMaterialAssets().size);
+
+        manager.removeAsset(second);
+        assertNull(manager.findAssetByFileName("a.mat"));
+        assertEquals(0, manager.getMaterialAssets().size);
+    }
+
+    private static Meta meta(String uuid, AssetType type, String fileName) {
+        Meta meta = new Meta(new FileHandle(fileName + "." + Meta.META_EXTENSION));
+        meta.setUuid(uuid);
+        meta.setType(type);
+        return meta;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mbrlabs.mundus.commons.assets.bundle;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.mbrlabs.mundus.commons.assets.AssetType;
+import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AssetBundleTest {
+
+    @Test
+    public void readsWrittenFiles() throws Exception {
+        File folder = Files.createTempDirectory("bundle").toFile();
+        FileHandle assets = new FileHandle(folder);
+        assets.child("stone.mat").writeString("diffuseColor=ff0000ff", false);
+        assets.child("stone.mat.meta").writeString("{v:1,mod:5,id:abc,t:MATERIAL}", false);
+        byte[] buffer = new byte[1000];
+        for (int i = 0; i < buffer.length; i++) buffer[i] = (byte) i;
+        assets.child("tree.bin").writeBytes(buffer, false);
+
+        FileHandle bundleFile = assets.child(AssetBundle.FILE_NAME);
+        new AssetBundle.Writer()
+                .addAsset(assets.child("stone.mat.meta"))
+                .addFile(assets.child("tree.bin"))
+                .write(bundleFile);
+        assets.child("stone.mat").delete();
+        assets.child("stone.mat.meta").delete();
+        assets.child("tree.bin").delete();
+
+        for (boolean map : new boolean[] {true, false}) {
+            AssetBundle bundle = new AssetBundle(bundleFile, map);
+            assertEquals(map, bundle.isMapped());
+
+            Array<Meta> metas = bundle.loadMetas();
+            assertEquals(1, metas.size);
+            assertEquals("abc", metas.first().getUuid());
+            assertEquals(AssetType.MATERIAL, metas.first().getType());
+            assertEquals(5, metas.first().getLastModified());
+
+            FileHandle material = metas.first().getFile().sibling("stone.mat");
+            assertTrue(material.exists());
+            assertEquals("diffuseColor=ff0000ff", material.readString());
+
+            FileHandle bin = bundle.resolve(assets.child("tree.bin").path());
+            assertEquals(buffer.length, bin.length());
+            assertArrayEquals(buffer, bin.readBytes());
+        }
+
+        bundleFile.delete();
+        folder.delete();
+    }
+}
@@ -0,0 +1,36 @@
+package com.mbrlabs.mundus.commons.assets.meta;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+public class MetaLoaderTest {
+
+    private static final String TERRAIN = "{v: 1, mod: 0, id: t1, t: TERRAIN, ter: { size: 1200, uv: 60, base: b1";
+
+    @Test
+    public void readsTerrainLayers() throws Exception {
+        MetaTerrain terrain = load(TERRAIN + ", layers: [l0, l1, l2], layerNorms: [n0, null, n2], layerMaps: [m0] } }");
+
+        assertArrayEquals(new String[] {"l0", "l1", "l2"}, terrain.getLayers());
+        assertArrayEquals(new String[] {"n0", null, "n2"}, terrain.getLayerNormals());
+        assertArrayEquals(new String[] {"m0"}, terrain.getLayerSplatmaps());
+    }
+
+    @Test
+    public void readsTerrainWithoutLayers() throws Exception {
+        MetaTerrain terrain = load(TERRAIN + " } }");
+
+        assertNull(terrain.getLayers());
+        assertNull(terrain.getLayerNormals());
+        assertNull(terrain.getLayerSplatmaps());
+    }
+
+    private static MetaTerrain load(String json) throws MetaFileParseException {
+        Meta meta = new MetaLoader().load(new FileHandle("terrain.terra.meta"), new JsonReader().parse(json));
+        return meta.getTerrain();
+    }
+}
@@ -0,0 +1,345 @@
+package com.mbrlabs.mundus.commons.importer;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.mbrlabs.mundus.commons.dto.BaseLightDTO;
+import com.mbrlabs.mundus.commons.dto.CustomPropertiesComponentDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.FogDTO;
+import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+import com.mbrlabs.mundus.commons.dto.TerrainComponentDTO;
+import com.mbrlabs.mundus.commons.dto.WaterComponentDTO;
+import com.mbrlabs.mundus.commons.env.lights.LightType;
+import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.water.WaterResolution;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinarySceneTest {
+
+    @Test
+    public void readsWrittenScene() {
+        SceneDTO scene = read(write(buildScene()));
+
+        assertEquals(1698900000000123L, scene.getId());
+        assertEquals("Main Scene", scene.getName());
+        assertEquals("sky", scene.getSkyboxAssetId());
+        assertEquals(0.2f, scene.getCamNearPlane(), 0);
+        assertEquals(67, scene.getCamFieldOfView(), 0);
+        assertTrue(scene.isUseFrustumCulling());
+        assertFalse(scene.isUseInstancing());
+        assertEquals(-2, scene.getWaterHeight(), 0);
+        assertEquals(WaterResolution._1024, scene.getWaterResolution());
+
+        assertEquals(500, scene.getFog().getNearPlane(), 0);
+        assertEquals(1.5f, scene.getFog().getGradient(), 0);
+        assertEquals(Color.rgba8888(Color.GRAY), scene.getFog().getColor());
+        assertEquals(Color.rgba8888(Color.DARK_GRAY), scene.getAmbientLight().getColor());
+
+        DirectionalLightDTO light = scene.getDirectionalLight();
+        assertEquals(2, light.getIntensity(), 0);
+        assertEquals(new Vector3(0.1f, -1, 0), light.getDirection());
+        assertTrue(light.isCastsShadows());
+        assertEquals(ShadowResolution._2048, light.getShadowSettingsDTO().getShadowResolution());
+        assertEquals(128, light.getShadowSettingsDTO().getViewportSize());
+        assertEquals(100, light.getShadowSettingsDTO().getCamFarPlane(), 0);
+
+        assertEquals(2, scene.getGameObjects().size);
+        GameObjectDTO tree = scene.getGameObjects().get(0);
+        assertEquals(3, tree.getId());
+        assertEquals("Tree", tree.getName());
+        assertTrue(tree.isActive());
+        assertArrayEquals(transform(3), tree.getTransform(), 0);
+        assertEquals(Arrays.asList("foliage", "static"), toList(tree.getTags()));
+        assertEquals("model", tree.getModelComponent().getModelID());
+        assertTrue(tree.getModelComponent().isUseModelCache());
+        assertEquals(2, tree.getModelComponent().getMaterials().size());
+        assertEquals("bark", tree.getModelComponent().getMaterials().get("trunk"));
+        assertEquals("leaves", tree.getModelComponent().getMaterials().get("crown"));
+
+        assertEquals(2, tree.getChilds().size);
+        GameObjectDTO lamp = tree.getChilds().get(0);
+        assertEquals("Lamp", lamp.getName());
+        assertFalse(lamp.isActive());
+        assertArrayEquals(transform(4), lamp.getTransform(), 0);
+        assertNull(lamp.getModelComponent());
+        LightComponentDTO lampLight = lamp.getLightComponent();
+        assertEquals(LightType.SPOT_LIGHT, lampLight.getLightType());
+        assertEquals(new Color(1, 0.5f, 0, 1), lampLight.getColor());
+        assertEquals(10, lampLight.getIntensity(), 0);
+        assertEquals(new Vector3(1, 2, 3), lampLight.getPosition());
+        assertEquals(new Vector3(0, -1, 0), lampLight.getDirection());
+        assertEquals(30, lampLight.getCutoff(), 0);
+        OrderedMap<String, String> properties = lamp.getCustomPropertiesComponent().getCustomProperties();
+        assertEquals(Arrays.asList("health", "note"), toList(properties.orderedKeys()));
+        assertEquals("100", properties.get("health"));
+        assertEquals("Tree", properties.get("note"));
+
+        GameObjectDTO leaf = tree.getChilds().get(1);
+        assertArrayEquals(transform(5), leaf.getTransform(), 0);
+        assertEquals("model", leaf.getModelComponent().getModelID());
+        assertEquals(0, leaf.getModelComponent().getMaterials().size());
+
+        GameObjectDTO ground = scene.getGameObjects().get(1);
+        assertArrayEquals(transform(6), ground.getTransform(), 0);
+        assertEquals("terrain", ground.getTerrainComponent().getTerrainID());
+        assertEquals(0, ground.getChilds().size);
+    }
+
+    @Test
+    public void storesDuplicateStringsOnce() throws Exception {
+        byte[] data = write(buildScene());
+        assertTrue(BinaryScene.isBinaryScene(data));
+        assertFalse(BinaryScene.isBinaryScene("{\"name\":\"Scene 1\"}".getBytes("UTF-8")));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        BinaryScene.checkHeader(in.readInt(), in.readInt());
+        List<String> strings = new ArrayList<>();
+        int stringCount = in.readInt();
+        for (int i = 0; i < stringCount; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            strings.add(new String(bytes, "UTF-8"));
+        }
+
+        assertEquals(new ArrayList<>(new LinkedHashSet<>(strings)), strings);
+        assertTrue(strings.contains("Tree"));
+        assertTrue(strings.contains("model"));
+    }
+
+    @Test
+    public void readsLongStrings() {
+        char[] chars = new char[70000];
+        Arrays.fill(chars, '\u00e9');
+        String note = new String(chars);
+
+        SceneDTO scene = buildScene();
+        scene.getGameObjects().first().getChilds().first().getCustomPropertiesComponent()
+                .getCustomProperties().put("note", note);
+
+        GameObjectDTO lamp = read(write(scene)).getGameObjects().first().getChilds().first();
+        assertEquals(note, lamp.getCustomPropertiesComponent().getCustomProperties().get("note"));
+    }
+
+    @Test
+    public void readsLightWithoutTypeAsDefault() {
+        SceneDTO scene = buildScene();
+        scene.getGameObjects().first().getChilds().first().getLightComponent().setLightType(null);
+
+        GameObjectDTO lamp = read(write(scene)).getGameObjects().first().getChilds().first();
+        assertEquals(BinaryScene.Reader.DEFAULT_LIGHT_TYPE, lamp.getLightComponent().getLightType());
+    }
+
+    private static byte[] write(SceneDTO scene) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryScene.Writer().write(scene, out);
+        return out.toByteArray();
+    }
+
+    private static SceneDTO read(byte[] data) {
+        return new DTOReader().read(data);
+    }
+
+    private static SceneDTO buildScene() {
+        SceneDTO scene = new SceneDTO();
+        scene.setId(1698900000000123L);
+        scene.setName("Main Scene");
+        scene.setSkyboxAssetId("sky");
+        scene.setCamNearPlane(0.2f);
+        scene.setCamFieldOfView(67);
+        scene.setUseFrustumCulling(true);
+        scene.setUseInstancing(false);
+        scene.setWaterHeight(-2);
+        scene.setWaterResolution(WaterResolution._1024);
+
+        FogDTO fog = new FogDTO();
+        fog.setNearPlane(500);
+        fog.setGradient(1.5f);
+        fog.setColor(Color.rgba8888(Color.GRAY));
+        scene.setFog(fog);
+
+        BaseLightDTO ambient = new BaseLightDTO();
+        ambient.setColor(Color.rgba8888(Color.DARK_GRAY));
+        scene.setAmbientLight(ambient);
+
+        DirectionalLightDTO light = new DirectionalLightDTO();
+        light.setIntensity(2);
+        light.setColor(-1);
+        light.setDirection(new Vector3(0.1f, -1, 0));
+        light.setCastsShadows(true);
+        ShadowSettingsDTO shadow = new ShadowSettingsDTO();
+        shadow.setShadowResolution(ShadowResolution._2048);
+        shadow.setViewportSize(128);
+        shadow.setCamFarPlane(100);
+        light.setShadowSettingsDTO(shadow);
+        scene.setDirectionalLight(light);
+
+        GameObjectDTO tree = gameObject("Tree", 3);
+        tree.getTags().add("foliage");
+        tree.getTags().add("static");
+        ModelComponentDTO model = new ModelComponentDTO();
+        model.setModelID("model");
+        model.setUseModelCache(true);
+        model.getMaterials().put("trunk", "bark");
+        model.getMaterials().put("crown", "leaves");
+        tree.setModelComponent(model);
+
+        GameObjectDTO lamp = gameObject("Lamp", 4);
+        lamp.setActive(false);
+        LightComponentDTO lightComponent = new LightComponentDTO();
+        lightComponent.setLightType(LightType.SPOT_LIGHT);
+        lightComponent.setColor(new Color(1, 0.5f, 0, 1));
+        lightComponent.setIntensity(10);
+        lightComponent.setPosition(new Vector3(1, 2, 3));
+        lightComponent.setDirection(new Vector3(0, -1, 0));
+        lightComponent.setCutoff(30);
+        lamp.setLightComponent(lightComponent);
+        CustomPropertiesComponentDTO properties = new CustomPropertiesComponentDTO();
+        OrderedMap<String, String> map = new OrderedMap<>();
+        map.put("health", "100");
+        map.put("note", "Tree");
+        properties.setCustomProperties(map);
+        lamp.setCustomPropertiesComponent(properties);
+
+        GameObjectDTO leaf = gameObject("Leaf", 5);
+        ModelComponentDTO leafModel = new ModelComponentDTO();
+        leafModel.setModelID("model");
+        leaf.setModelComponent(leafModel);
+
+        GameObjectDTO ground = gameObject("Ground", 6);
+        TerrainComponentDTO terrain = new TerrainComponentDTO();
+        terrain.setTerrainID("terrain");
+        ground.setTerrainComponent(terrain);
+
+        tree.getChilds().add(lamp);
+        tree.getChilds().add(leaf);
+        scene.getGameObjects().add(tree);
+        scene.getGameObjects().add(ground);
+        return scene;
+    }
+
+    private static GameObjectDTO gameObject(String name, int id) {
+        GameObjectDTO go = new GameObjectDTO();
+        go.setName(name);
+        go.setId(id);
+        go.setActive(true);
+        System.arraycopy(transform(id), 0, go.getTransform(), 0, BinaryScene.TRANSFORM_SIZE);
+        return go;
+    }
+
+    private static float[] transform(int id) {
+        float[] transform = new float[BinaryScene.TRANSFORM_SIZE];
+        for (int i = 0; i < transform.length; i++) {
+            transform[i] = id * 10 + i;
+        }
+        return transform;
+    }
+
+    private static List<String> toList(Iterable<String> strings) {
+        List<String> list = new ArrayList<>();
+        for (String string : strings) {
+            list.add(string);
+        }
+        return list;
+    }
+
+    /**
+     * Reads the scene back into DTOs, copying the reused component DTOs.
+     */
+    private static class DTOReader extends BinaryScene.Reader<SceneDTO, GameObjectDTO> {
+
+        @Override
+        protected SceneDTO createScene(SceneDTO scene) {
+            return scene;
+        }
+
+        @Override
+        protected GameObjectDTO createGameObject(SceneDTO scene, int id, String name, boolean active,
+                                                 float[] transforms, int transformOffset) {
+            GameObjectDTO go = new GameObjectDTO();
+            go.setId(id);
+            go.setName(name);
+            go.setActive(active);
+            System.arraycopy(transforms, transformOffset, go.getTransform(), 0, BinaryScene.TRANSFORM_SIZE);
+            return go;
+        }
+
+        @Override
+        protected void addTag(GameObjectDTO go, String tag) {
+            go.getTags().add(tag);
+        }
+
+        @Override
+        protected void addModelComponent(GameObjectDTO go, ModelComponentDTO model) {
+            ModelComponentDTO copy = new ModelComponentDTO();
+            copy.setModelID(model.getModelID());
+            copy.setUseModelCache(model.isUseModelCache());
+            copy.getMaterials().putAll(model.getMaterials());
+            go.setModelComponent(copy);
+        }
+
+        @Override
+        protected void addTerrainComponent(GameObjectDTO go, String terrainId) {
+            TerrainComponentDTO terrain = new TerrainComponentDTO();
+            terrain.setTerrainID(terrainId);
+            go.setTerrainComponent(terrain);
+        }
+
+        @Override
+        protected void addWaterComponent(GameObjectDTO go, String waterId) {
+            WaterComponentDTO water = new WaterComponentDTO();
+            water.setWaterId(waterId);
+            go.setWaterComponent(water);
+        }
+
+        @Override
+        protected void addLightComponent(GameObjectDTO go, LightComponentDTO light) {
+            LightComponentDTO copy = new LightComponentDTO();
+            copy.setLightType(light.getLightType());
+            copy.setColor(new Color(light.getColor()));
+            copy.setIntensity(light.getIntensity());
+            copy.setPosition(new Vector3(light.getPosition()));
+            copy.setDirection(new Vector3(light.getDirection()));
+            copy.setCutoff(light.getCutoff());
+            copy.setExponential(light.getExponential());
+            go.setLightComponent(copy);
+        }
+
+        @Override
+        protected void addCustomPropertiesComponent(GameObjectDTO go, CustomPropertiesComponentDTO properties) {
+            CustomPropertiesComponentDTO copy = new CustomPropertiesComponentDTO();
+            OrderedMap<String, String> map = new OrderedMap<>();
+            map.putAll(properties.getCustomProperties());
+            copy.setCustomProperties(map);
+            go.setCustomPropertiesComponent(copy);
+        }
+
+        @Override
+        protected void addChild(GameObjectDTO parent, GameObjectDTO child) {
+            parent.getChilds().add(child);
+        }
+
+        @Override
+        protected void addGameObject(SceneDTO scene, GameObjectDTO go) {
+            scene.getGameObjects().add(go);
+        }
+    }
+}
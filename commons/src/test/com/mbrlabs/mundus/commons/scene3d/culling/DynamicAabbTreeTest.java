@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.commons.scene3d.culling;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DynamicAabbTreeTest {
+
+    private static final int GRID = 30;
+
+    @Test
+    public void frustumQueryMatchesBruteForce() {
+        DynamicAabbTree<BoundingBox> tree = new DynamicAabbTree<>();
+        Array<BoundingBox> boxes = createGrid(tree, null);
+
+        PerspectiveCamera cam = createCamera();
+
+        Array<BoundingBox> result = new Array<>();
+        tree.query(cam.frustum, result);
+
+        int expected = 0;
+        for (BoundingBox box : boxes) {
+            if (cam.frustum.boundsInFrustum(box)) {
+                expected++;
+                Assert.assertTrue(result.contains(box, true));
+            }
+        }
+        Assert.assertEquals(expected, result.size);
+        Assert.assertTrue(result.size > 0);
+        Assert.assertTrue(result.size < boxes.size);
+    }
+
+    @Test
+    public void treeStaysBalanced() {
+        DynamicAabbTree<BoundingBox> tree = new DynamicAabbTree<>();
+        createGrid(tree, null);
+
+        Assert.assertEquals(GRID * GRID, tree.size());
+        // A balanced tree of 900 leaves has a height close to log2(900) ~ 10
+        Assert.assertTrue(tree.getHeight() < 20);
+    }
+
+    @Test
+    public void moveAndRemove() {
+        DynamicAabbTree<BoundingBox> tree = new DynamicAabbTree<>();
+        Array<DynamicAabbTree.Node<BoundingBox>> nodes = new Array<>();
+        Array<BoundingBox> boxes = createGrid(tree, nodes);
+
+        PerspectiveCamera cam = createCamera();
+
+        // Move every box far behind the camera
+        for (int i = 0; i < boxes.size; i++) {
+            BoundingBox box = boxes.get(i);
+            box.min.z += 1000f;
+            box.max.z += 1000f;
+            tree.move(nodes.get(i), box);
+        }
+
+        Array<BoundingBox> result = new Array<>();
+        tree.query(cam.frustum, result);
+        Assert.assertEquals(0, result.size);
+
+        for (int i = 0; i < nodes.size; i++) {
+            tree.remove(nodes.get(i));
+            Assert.assertFalse(nodes.get(i).isInTree());
+        }
+        Assert.assertEquals(0, tree.size());
+
+        // Removing twice is a no op
+        tree.remove(nodes.first());
+        Assert.assertEquals(0, tree.size());
+    }
+
+    @Test
+    public void boundsQuery() {
+        DynamicAabbTree<BoundingBox> tree = new DynamicAabbTree<>();
+        createGrid(tree, null);
+
+        Array<BoundingBox> result = new Array<>();
+        tree.query(new BoundingBox(new Vector3(-0.5f, -1f, -0.5f),
+                new Vector3(0.5f, 1f, 0.5f)), result);
+        Assert.assertEquals(1, result.size);
+    }
+
+    private Array<BoundingBox> createGrid(DynamicAabbTree<BoundingBox> tree, Array<DynamicAabbTree.Node<BoundingBox>> nodes) {
+        Array<BoundingBox> boxes = new Array<>();
+        for (int x = 0; x < GRID; x++) {
+            for (int z = 0; z < GRID; z++) {
+                BoundingBox box = new BoundingBox();
+                box.min.set(x * 4f - 0.25f, -0.25f, -z * 4f - 0.25f);
+                box.max.set(x * 4f + 0.25f, 0.25f, -z * 4f + 0.25f);
+                box.update();
+                boxes.add(box);
+
+                DynamicAabbTree.Node<BoundingBox> node = tree.insert(box, box);
+                if (nodes != null) nodes.add(node);
+            }
+        }
+        return boxes;
+    }
+
+    private PerspectiveCamera createCamera() {
+        PerspectiveCamera cam = new PerspectiveCamera(60, 800, 600);
+        cam.position.set(20, 5, 10);
+        cam.lookAt(20, 0, -40);
+        cam.near = 0.1f;
+        cam.far = 60f;
+        cam.update();
+        return cam;
+    }
+}
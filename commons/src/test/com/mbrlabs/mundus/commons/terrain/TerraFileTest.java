@@ -0,0 +1,134 @@
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TerraFileTest {
+    private static final int RESOLUTION = 65;
+
+    @Test
+    public void roundTripsLossless() {
+        float[] heights = heights();
+        for (int flags : new int[] {0, TerraFile.FLAG_COMPRESSED}) {
+            float[] decoded = TerraFile.decode(TerraFile.encode(heights, flags));
+            assertEquals(heights.length, decoded.length);
+            for (int i = 0; i < heights.length; i++) {
+                assertEquals(heights[i], decoded[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripsQuantized() {
+        float[] heights = heights();
+        float tolerance = (max(heights) - min(heights)) / 65535f;
+        for (int flags : new int[] {TerraFile.FLAG_QUANTIZED, TerraFile.FLAG_QUANTIZED | TerraFile.FLAG_COMPRESSED}) {
+            float[] decoded = TerraFile.decode(TerraFile.encode(heights, flags));
+            for (int i = 0; i < heights.length; i++) {
+                assertEquals(heights[i], decoded[i], tolerance);
+            }
+        }
+    }
+
+    @Test
+    public void compressesSmoothTerrain() {
+        float[] heights = heights();
+        int raw = heights.length * 4;
+        assertTrue(TerraFile.encode(heights, TerraFile.FLAG_QUANTIZED | TerraFile.FLAG_COMPRESSED).length < raw / 3);
+        assertTrue(TerraFile.encode(new float[RESOLUTION * RESOLUTION], TerraFile.FLAG_COMPRESSED).length < raw / 3);
+    }
+
+    @Test
+    public void quantizesOnlyIfLossless() {
+        int lossless = TerraFile.FLAG_QUANTIZED | TerraFile.FLAG_COMPRESSED | TerraFile.FLAG_LOSSLESS;
+
+        // Sculpted heights don't survive quantization and fall back to floats
+        float[] heights = heights();
+        byte[] bytes = TerraFile.encode(heights, lossless);
+        assertEquals(24 + heights.length * 4, bytes.length);
+        float[] decoded = TerraFile.decode(bytes);
+        for (int i = 0; i < heights.length; i++) {
+            assertEquals(heights[i], decoded[i], 0f);
+        }
+
+        // Flat heights and heights on the quantization steps are stored quantized and compressed
+        float[] flat = new float[RESOLUTION * RESOLUTION];
+        assertTrue(TerraFile.encode(flat, lossless).length < flat.length / 2);
+        float[] quantized = new float[heights.length];
+        for (int i = 0; i < heights.length; i++) {
+            // Range of 65535, so one step is 1
+            quantized[i] = Math.round((heights[i] + 60) * 500);
+        }
+        quantized[0] = 0;
+        quantized[1] = 65535;
+        bytes = TerraFile.encode(quantized, lossless);
+        assertTrue(bytes.length < heights.length * 2);
+        decoded = TerraFile.decode(bytes);
+        for (int i = 0; i < quantized.length; i++) {
+            assertEquals(quantized[i], decoded[i], 0f);
+        }
+    }
+
+    @Test
+    public void rejectsCorruptFiles() {
+        byte[] bytes = TerraFile.encode(heights(), TerraFile.FLAG_QUANTIZED);
+        assertRejected(Arrays.copyOf(bytes, bytes.length - 2));
+
+        ByteBuffer header = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length));
+        header.putInt(8, -5);
+        assertRejected(header.array());
+        header.putInt(8, 100000);
+        assertRejected(header.array());
+    }
+
+    @Test
+    public void readsVersion1() {
+        float[] heights = heights();
+        ByteBuffer buffer = ByteBuffer.allocate(heights.length * 4);
+        buffer.asFloatBuffer().put(heights);
+
+        float[] decoded = TerraFile.decode(buffer.array());
+        assertEquals(heights.length, decoded.length);
+        for (int i = 0; i < heights.length; i++) {
+            assertEquals(heights[i], decoded[i], 0f);
+        }
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            TerraFile.decode(bytes);
+            fail("Corrupt terra file was read");
+        } catch (GdxRuntimeException e) {
+            // expected
+        }
+    }
+
+    private static float[] heights() {
+        float[] heights = new float[RESOLUTION * RESOLUTION];
+        for (int z = 0; z < RESOLUTION; z++) {
+            for (int x = 0; x < RESOLUTION; x++) {
+                heights[z * RESOLUTION + x] = (float) (Math.sin(x * 0.1) * 20 + Math.cos(z * 0.07) * 35 - 5);
+            }
+        }
+        return heights;
+    }
+
+    private static float min(float[] values) {
+        float min = Float.MAX_VALUE;
+        for (float value : values) min = Math.min(min, value);
+        return min;
+    }
+
+    private static float max(float[] values) {
+        float max = -Float.MAX_VALUE;
+        for (float value : values) max = Math.max(max, value);
+        return max;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.math.Vector3;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TerrainHeightTreeTest {
+    private static final int RESOLUTION = 37;
+    private static final float CELL_SIZE = 2f;
+
+    @Test
+    public void matchesBruteForce() {
+        Random random = new Random(42);
+        float[] heights = heights(random);
+        TerrainHeightTree tree = new TerrainHeightTree(RESOLUTION);
+        tree.update(heights, 0, 0, RESOLUTION - 1, RESOLUTION - 1);
+
+        // Edit a region afterwards, the tree must pick up the change
+        for (int z = 5; z <= 12; z++) {
+            for (int x = 20; x <= 30; x++) {
+                heights[z * RESOLUTION + x] += 15f;
+            }
+        }
+        tree.update(heights, 20, 5, 30, 12);
+
+        Vector3 origin = new Vector3();
+        Vector3 direction = new Vector3();
+        Vector3 normal = new Vector3();
+        int hits = 0;
+        for (int i = 0; i < 2000; i++) {
+            float extent = RESOLUTION * CELL_SIZE;
+            origin.set(random.nextFloat() * extent * 1.4f - extent * 0.2f, 10f + random.nextFloat() * 30f,
+                    random.nextFloat() * extent * 1.4f - extent * 0.2f);
+            direction.set(random.nextFloat() * 2 - 1, -random.nextFloat(), random.nextFloat() * 2 - 1).nor();
+            if (i % 10 == 0) direction.set(0, -1, 0);
+
+            float expected = bruteForce(heights, origin, direction);
+            float t = tree.intersect(heights, CELL_SIZE, CELL_SIZE, origin, direction, normal);
+            assertEquals(expected, t, 0.001f);
+            if (t >= 0) {
+                assertTrue(normal.y > 0);
+                hits++;
+            }
+        }
+        assertTrue(hits > 500);
+    }
+
+    @Test
+    public void missesFromAbovePointingUp() {
+        float[] heights = new float[RESOLUTION * RESOLUTION];
+        TerrainHeightTree tree = new TerrainHeightTree(RESOLUTION);
+        tree.update(heights, 0, 0, RESOLUTION - 1, RESOLUTION - 1);
+
+        float t = tree.intersect(heights, CELL_SIZE, CELL_SIZE, new Vector3(10, 5, 10), new Vector3(0, 1, 0), new Vector3());
+        assertEquals(-1f, t, 0f);
+
+        t = tree.intersect(heights, CELL_SIZE, CELL_SIZE, new Vector3(10, 5, 10), new Vector3(0, -1, 0), new Vector3());
+        assertEquals(5f, t, 0.0001f);
+    }
+
+    private static float[] heights(Random random) {
+        float[] heights = new float[RESOLUTION * RESOLUTION];
+        for (int z = 0; z < RESOLUTION; z++) {
+            for (int x = 0; x < RESOLUTION; x++) {
+                heights[z * RESOLUTION + x] = (float) (Math.sin(x * 0.3) * 6 + Math.cos(z * 0.2) * 4) + random.nextFloat();
+            }
+        }
+        return heights;
+    }
+
+    private static float bruteForce(float[] heights, Vector3 origin, Vector3 direction) {
+        float nearest = Float.MAX_VALUE;
+        for (int z = 0; z < RESOLUTION - 1; z++) {
+            for (int x = 0; x < RESOLUTION - 1; x++) {
+                Vector3 c00 = vertex(heights, x, z);
+                Vector3 c10 = vertex(heights, x + 1, z);
+                Vector3 c01 = vertex(heights, x, z + 1);
+                Vector3 c11 = vertex(heights, x + 1, z + 1);
+                nearest = Math.min(nearest, triangle(origin, direction, c11, c10, c00));
+                nearest = Math.min(nearest, triangle(origin, direction, c00, c01, c11));
+            }
+        }
+        return nearest == Float.MAX_VALUE ? -1 : nearest;
+    }
+
+    private static Vector3 vertex(float[] heights, int x, int z) {
+        return new Vector3(x * CELL_SIZE, heights[z * RESOLUTION + x], z * CELL_SIZE);
+    }
+
+    private static float triangle(Vector3 origin, Vector3 direction, Vector3 a, Vector3 b, Vector3 c) {
+        Vector3 e1 = new Vector3(b).sub(a);
+        Vector3 e2 = new Vector3(c).sub(a);
+        Vector3 p = new Vector3(direction).crs(e2);
+        float det = e1.dot(p);
+        if (det == 0) return Float.MAX_VALUE;
+        Vector3 s = new Vector3(origin).sub(a);
+        float u = s.dot(p) / det;
+        if (u < 0 || u > 1) return Float.MAX_VALUE;
+        Vector3 q = new Vector3(s).crs(e1);
+        float v = direction.dot(q) / det;
+        if (v < 0 || u + v > 1) return Float.MAX_VALUE;
+        float t = e2.dot(q) / det;
+        return t < 0 ? Float.MAX_VALUE : t;
+    }
+}
@@ -0,0 +1,47 @@
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TerrainLayersTest {
+
+    @Test
+    public void needsOneSplatmapPerFourLayersAfterBase() {
+        assertEquals(1, TerrainLayers.getSplatmapCount(2));
+        assertEquals(1, TerrainLayers.getSplatmapCount(5));
+        assertEquals(2, TerrainLayers.getSplatmapCount(6));
+        assertEquals(2, TerrainLayers.getSplatmapCount(9));
+        assertEquals(3, TerrainLayers.getSplatmapCount(10));
+        assertEquals(TerrainLayers.MAX_SPLATMAPS, TerrainLayers.getSplatmapCount(TerrainLayers.MAX_LAYERS));
+    }
+
+    @Test
+    public void mapsLayersToSplatmapChannels() {
+        // Layers 1 to 4 are the R, G, B and A channels of the first splatmap, like the splat channels
+        for (int layer = 1; layer <= 4; layer++) {
+            assertEquals(0, TerrainLayers.getSplatmapIndex(layer));
+            assertEquals(layer - 1, TerrainLayers.getChannel(layer));
+        }
+        assertEquals(1, TerrainLayers.getSplatmapIndex(5));
+        assertEquals(0, TerrainLayers.getChannel(5));
+        assertEquals(TerrainLayers.MAX_SPLATMAPS - 1, TerrainLayers.getSplatmapIndex(TerrainLayers.MAX_LAYERS - 1));
+        assertEquals(3, TerrainLayers.getChannel(TerrainLayers.MAX_LAYERS - 1));
+
+        // Every layer of a layer count has a channel in its splatmaps
+        for (int count = 2; count <= TerrainLayers.MAX_LAYERS; count++) {
+            assertEquals(TerrainLayers.getSplatmapCount(count) - 1, TerrainLayers.getSplatmapIndex(count - 1));
+        }
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void baseHasNoChannel() {
+        TerrainLayers.getChannel(0);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void rejectsLayersAfterLast() {
+        TerrainLayers.getSplatmapIndex(TerrainLayers.MAX_LAYERS);
+    }
+}
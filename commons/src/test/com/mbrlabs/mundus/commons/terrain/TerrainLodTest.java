@@ -0,0 +1,57 @@
+package com.mbrlabs.mundus.commons.terrain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TerrainLodTest {
+    private static final int SIZE = Terrain.CHUNK_SIZE;
+    private static final int ROW = SIZE + 1;
+
+    @Test
+    public void fullResolutionHasAllCells() {
+        short[] indices = Terrain.buildLodIndices(SIZE, SIZE, 0, 0, 0, 0, 0);
+        assertEquals(SIZE * SIZE * 6, indices.length);
+    }
+
+    @Test
+    public void levelsCoverChunkWithoutFlippedTriangles() {
+        for (int level = 0; level < Terrain.LOD_LEVELS; level++) {
+            for (int north = level; north < Terrain.LOD_LEVELS; north++) {
+                for (int east = level; east < Terrain.LOD_LEVELS; east++) {
+                    short[] indices = Terrain.buildLodIndices(SIZE, SIZE, level, north, level, level, east);
+                    assertEquals(SIZE * SIZE, area(indices), 0.0001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void edgesUseOnlyVerticesOfCoarserNeighbour() {
+        int north = 2;
+        int east = 3;
+        short[] indices = Terrain.buildLodIndices(SIZE, SIZE, 0, north, 0, 0, east);
+
+        for (short index : indices) {
+            int x = index % ROW;
+            int z = index / ROW;
+            if (z == 0) assertEquals(0, x % (1 << north));
+            if (x == SIZE) assertEquals(0, z % (1 << east));
+        }
+    }
+
+    /**
+     * Sums the area of the triangles in cells, asserting all have the winding of the full resolution grid.
+     */
+    private static double area(short[] indices) {
+        double area = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            int a = indices[i], b = indices[i + 1], c = indices[i + 2];
+            double cross = (b % ROW - a % ROW) * (c / ROW - a / ROW) - (b / ROW - a / ROW) * (c % ROW - a % ROW);
+            assertTrue(cross < 0);
+            area -= cross / 2;
+        }
+        return area;
+    }
+}
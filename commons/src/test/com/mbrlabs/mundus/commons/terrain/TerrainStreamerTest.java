@@ -0,0 +1,158 @@
+package com.mbrlabs.mundus.commons.terrain;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.mbrlabs.mundus.commons.assets.AssetManager;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TerrainStreamerTest {
+    private static final float TILE_SIZE = 10;
+
+    private FakeStreamer streamer;
+
+    @Before
+    public void setUp() {
+        // Failed tiles are logged
+        Gdx.app = Mockito.mock(Application.class);
+        streamer = new FakeStreamer();
+    }
+
+    @After
+    public void tearDown() {
+        streamer.dispose();
+        Gdx.app = null;
+    }
+
+    @Test
+    public void loadsAndUnloadsTilesAroundCamera() {
+        streamer.addTile(0, 0);
+        streamer.addTile(1, 0);
+        streamer.addTile(5, 0);
+
+        // Inside tile 0, 5 units from tile 1 and far from tile 5. Decoded in one frame, created in the next
+        Vector3 camera = new Vector3(5, 0, 5);
+        streamer.update(camera);
+        assertEquals(0, streamer.getResidentTileCount());
+        streamer.update(camera);
+        assertEquals(2, streamer.getResidentTileCount());
+        assertNotNull(streamer.getTile(0, 0));
+        assertNotNull(streamer.getTile(1, 0));
+        assertNull(streamer.getTile(5, 0));
+
+        // Tiles between the load and unload distance stay resident
+        camera.set(10, 0, 20);
+        streamer.update(camera);
+        assertEquals(2, streamer.getResidentTileCount());
+
+        camera.set(55, 0, 5);
+        streamer.update(camera);
+        assertEquals(0, streamer.getResidentTileCount());
+        assertEquals(2, streamer.destroyed.size);
+        streamer.update(camera);
+        assertEquals(1, streamer.getResidentTileCount());
+        assertNotNull(streamer.getTile(5, 0));
+    }
+
+    @Test
+    public void failedTileIsNotRetried() {
+        streamer.addTile(0, 0);
+        streamer.failing = true;
+
+        Vector3 camera = new Vector3(5, 0, 5);
+        for (int i = 0; i < 5; i++) {
+            streamer.update(camera);
+        }
+        assertEquals(1, streamer.decoded);
+        assertEquals(0, streamer.created);
+        assertNull(streamer.getTile(0, 0));
+    }
+
+    @Test
+    public void finalizesOneTilePerFrameWithoutBudget() {
+        streamer.setFrameBudget(0);
+        streamer.addTile(0, 0);
+        streamer.addTile(1, 0);
+        streamer.addTile(0, 1);
+
+        Vector3 camera = new Vector3(10, 0, 10);
+        streamer.update(camera);
+        assertEquals(3, streamer.decoded);
+        for (int frame = 1; frame <= 3; frame++) {
+            streamer.update(camera);
+            assertEquals(frame, streamer.getResidentTileCount());
+        }
+    }
+
+    /**
+     * Creates game objects without GL resources and decodes nothing.
+     */
+    private static class FakeStreamer extends TerrainStreamer {
+        final SceneGraph sceneGraph = new SceneGraph(null);
+        final Array<GameObject> destroyed = new Array<>();
+        boolean failing;
+        int decoded;
+        int created;
+
+        FakeStreamer() {
+            super(new AssetManager(null), null, TILE_SIZE, 5, 15, new SynchronousExecutor());
+        }
+
+        void addTile(int gridX, int gridZ) {
+            addTile(gridX, gridZ, new FileHandle("tile_" + gridX + "_" + gridZ + ".terra.meta"), null);
+        }
+
+        @Override
+        void decode(Tile tile) {
+            decoded++;
+            if (failing) throw new GdxRuntimeException("Broken tile");
+        }
+
+        @Override
+        void create(Tile tile) {
+            created++;
+            tile.gameObject = new GameObject(sceneGraph, "Tile " + tile.gridX + ", " + tile.gridZ, -1);
+        }
+
+        @Override
+        void destroy(Tile tile) {
+            destroyed.add(tile.gameObject);
+            tile.gameObject = null;
+        }
+    }
+
+    /**
+     * Runs each task before submit() returns, so its result is done in the same frame.
+     */
+    private static class SynchronousExecutor extends AsyncExecutor {
+        SynchronousExecutor() {
+            super(1);
+        }
+
+        @Override
+        public <T> AsyncResult<T> submit(AsyncTask<T> task) {
+            AsyncResult<T> result = super.submit(task);
+            try {
+                result.get();
+            } catch (GdxRuntimeException e) {
+                // Reported by the streamer when it finalizes the tile
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.mbrlabs.mundus.commons.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MeshSimplifierTest {
+    private static final int GRID = 21;
+
+    @Test
+    public void reducesFlatGrid() {
+        float[] vertices = gridVertices();
+        short[] indices = gridIndices();
+        int faces = indices.length / 3;
+
+        short[] simplified = new MeshSimplifier().simplify(vertices, 3, 0, indices, 0, indices.length, 0.25f);
+
+        assertEquals(0, simplified.length % 3);
+        assertTrue(simplified.length / 3 <= faces / 2);
+        assertTrue(simplified.length > 0);
+
+        // Indices reference the original vertices and faces keep facing up
+        for (int i = 0; i < simplified.length; i += 3) {
+            for (int c = 0; c < 3; c++) {
+                assertTrue(simplified[i + c] >= 0 && simplified[i + c] < GRID * GRID);
+            }
+            assertTrue(normalY(vertices, simplified, i) > 0);
+        }
+
+        // Border is locked, so the covered area stays the same
+        assertEquals(area(vertices, indices), area(vertices, simplified), 0.001f);
+    }
+
+    @Test
+    public void keepsAllFacesWithRatioOne() {
+        short[] indices = gridIndices();
+        short[] simplified = new MeshSimplifier().simplify(gridVertices(), 3, 0, indices, 0, indices.length, 1f);
+        assertEquals(indices.length, simplified.length);
+    }
+
+    @Test
+    public void collapsesAlongSeams() {
+        // UV seam down the middle column, the right side uses duplicated vertices with u = 1
+        int seam = GRID / 2;
+        float[] vertices = new float[(GRID * GRID + GRID) * 4];
+        for (int z = 0; z < GRID; z++) {
+            for (int x = 0; x < GRID; x++) {
+                setVertex(vertices, z * GRID + x, x, z, x > seam ? 1 : 0);
+            }
+            setVertex(vertices, GRID * GRID + z, seam, z, 1);
+        }
+
+        short[] indices = gridIndices();
+        for (int i = 0; i < indices.length; i++) {
+            int x = indices[i] % GRID, z = indices[i] / GRID;
+            boolean rightCell = (i / 6) % (GRID - 1) >= seam;
+            if (x == seam && rightCell) indices[i] = (short) (GRID * GRID + z);
+        }
+
+        short[] simplified = new MeshSimplifier().simplify(vertices, 4, 0, indices, 0, indices.length, 0.25f);
+        assertTrue(simplified.length / 3 <= indices.length / 6);
+
+        int seamVertices = 0;
+        boolean[] used = new boolean[GRID * GRID + GRID];
+        for (int i = 0; i < simplified.length; i += 3) {
+            // Faces stay on one side of the seam
+            assertEquals(vertices[simplified[i] * 4 + 3], vertices[simplified[i + 1] * 4 + 3], 0);
+            assertEquals(vertices[simplified[i] * 4 + 3], vertices[simplified[i + 2] * 4 + 3], 0);
+            for (int c = 0; c < 3; c++) {
+                int v = simplified[i + c];
+                if (!used[v] && vertices[v * 4] == seam) seamVertices++;
+                used[v] = true;
+            }
+        }
+
+        // Seam vertices were collapsed along the seam instead of being locked
+        assertTrue(seamVertices < GRID * 2);
+        assertEquals(area(vertices, indices, 4), area(vertices, simplified, 4), 0.001f);
+    }
+
+    private static void setVertex(float[] vertices, int index, float x, float z, float u) {
+        vertices[index * 4] = x;
+        vertices[index * 4 + 2] = z;
+        vertices[index * 4 + 3] = u;
+    }
+
+    private static float[] gridVertices() {
+        float[] vertices = new float[GRID * GRID * 3];
+        for (int z = 0; z < GRID; z++) {
+            for (int x = 0; x < GRID; x++) {
+                int i = (z * GRID + x) * 3;
+                vertices[i] = x;
+                vertices[i + 2] = z;
+            }
+        }
+        return vertices;
+    }
+
+    private static short[] gridIndices() {
+        short[] indices = new short[(GRID - 1) * (GRID - 1) * 6];
+        int i = 0;
+        for (int z = 0; z < GRID - 1; z++) {
+            for (int x = 0; x < GRID - 1; x++) {
+                short a = (short) (z * GRID + x);
+                short b = (short) (a + 1);
+                short c = (short) (a + GRID);
+                short d = (short) (c + 1);
+                indices[i++] = a; indices[i++] = c; indices[i++] = b;
+                indices[i++] = b; indices[i++] = c; indices[i++] = d;
+            }
+        }
+        return indices;
+    }
+
+    private static float normalY(float[] v, short[] indices, int i) {
+        return normalY(v, indices, i, 3);
+    }
+
+    private static float normalY(float[] v, short[] indices, int i, int vertexSize) {
+        int a = indices[i] * vertexSize, b = indices[i + 1] * vertexSize, c = indices[i + 2] * vertexSize;
+        float e1x = v[b] - v[a], e1z = v[b + 2] - v[a + 2];
+        float e2x = v[c] - v[a], e2z = v[c + 2] - v[a + 2];
+        return e1z * e2x - e1x * e2z;
+    }
+
+    private static float area(float[] v, short[] indices) {
+        return area(v, indices, 3);
+    }
+
+    private static float area(float[] v, short[] indices, int vertexSize) {
+        float area = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            area += normalY(v, indices, i, vertexSize) * 0.5f;
+        }
+        return area;
+    }
+}
@@ -111,7 +111,7 @@ object Mundus {
         handlePicker = ToolHandlePicker()
         ioManager = MigrationIOManager()
         registry = ioManager.loadRegistry()
-        commandHistory = CommandHistory(CommandHistory.DEFAULT_LIMIT)
+        commandHistory = CommandHistory(CommandHistory.DEFAULT_MAX_BYTES)
         modelImporter = ModelImporter(registry)
         projectManager = ProjectManager(ioManager, registry, modelBatch)
         freeCamController = FreeCamController(projectManager, goPicker)
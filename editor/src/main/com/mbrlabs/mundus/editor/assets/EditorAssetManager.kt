@@ -40,6 +40,7 @@ import com.mbrlabs.mundus.commons.assets.meta.Meta
 import com.mbrlabs.mundus.commons.assets.meta.MetaTerrain
 import com.mbrlabs.mundus.commons.dto.GameObjectDTO
 import com.mbrlabs.mundus.commons.dto.SceneDTO
+import com.mbrlabs.mundus.commons.terrain.TerraFile
 import com.mbrlabs.mundus.commons.utils.FileFormatUtils
 import com.mbrlabs.mundus.commons.water.attributes.WaterColorAttribute
 import com.mbrlabs.mundus.commons.water.attributes.WaterFloatAttribute
@@ -54,8 +55,6 @@ import com.mbrlabs.mundus.editor.utils.Log
 import net.mgsx.gltf.exporters.GLTFExporter
 import org.apache.commons.io.FileUtils
 import org.apache.commons.io.FilenameUtils
-import java.io.BufferedOutputStream
-import java.io.DataOutputStream
 import java.io.File
 import java.io.FileNotFoundException
 import java.io.FileOutputStream
@@ -165,7 +164,7 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
                 queueAssetForLoading(asset.meta)
             }
 
-            gdxAssetManager.finishLoading()
+            finishLoading()
 
             for (asset in reloadedAssets) {
                 asset.load(gdxAssetManager)
@@ -344,12 +343,7 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
         }
 
         // write terra file
-        val outputStream = DataOutputStream(BufferedOutputStream(FileOutputStream(terraFile)))
-        for (f in data) {
-            outputStream.writeFloat(f)
-        }
-        outputStream.flush()
-        outputStream.close()
+        TerraFile.write(FileHandle(terraFile), data, TerraFile.LOSSLESS_FLAGS)
 
         // load & apply standard chessboard texture
         val asset = TerrainAsset(meta, FileHandle(terraFile))
@@ -612,7 +606,7 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
      */
     fun deleteAsset(asset: Asset) {
         // continue with deletion
-        assets?.removeValue(asset, true)
+        removeAsset(asset)
 
         if (asset.file.extension().equals(FileFormatUtils.FORMAT_3D_GLTF)) {
             // Delete the additional gltf binary file if found
@@ -622,6 +616,13 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
                 binFile.delete()
         }
 
+        if (asset is ModelAsset && asset.meta.model?.lodFile != null) {
+            // Delete the generated LOD levels
+            val lodFile = asset.meta.file.sibling(asset.meta.model.lodFile)
+            if (lodFile.exists())
+                lodFile.delete()
+        }
+
         if (asset.meta.file.exists())
             asset.meta.file.delete()
 
@@ -751,13 +752,8 @@ class EditorAssetManager(assetsRoot: FileHandle) : AssetManager(assetsRoot) {
      */
     @Throws(IOException::class)
     fun saveTerrainAsset(terrain: TerrainAsset) {
-        // save .terra file
-        val outputStream = DataOutputStream(BufferedOutputStream(FileOutputStream(terrain.file.file())))
-        for (f in terrain.terrain.heightData) {
-            outputStream.writeFloat(f)
-        }
-        outputStream.flush()
-        outputStream.close()
+        // save .terra file, lossless so repeated saves don't drift
+        TerraFile.write(terrain.file, terrain.terrain.heightData, TerraFile.LOSSLESS_FLAGS)
 
         // save splatmap
         val splatmap = terrain.splatmap
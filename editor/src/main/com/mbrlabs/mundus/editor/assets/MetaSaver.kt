@@ -20,6 +20,7 @@ import com.badlogic.gdx.utils.Json
 import com.badlogic.gdx.utils.JsonWriter
 import com.mbrlabs.mundus.commons.assets.AssetType
 import com.mbrlabs.mundus.commons.assets.meta.Meta
+import com.mbrlabs.mundus.commons.assets.meta.MetaLod
 import com.mbrlabs.mundus.commons.assets.meta.MetaModel
 import com.mbrlabs.mundus.commons.assets.meta.MetaTerrain
 
@@ -66,6 +67,20 @@ class MetaSaver {
             json.writeObjectEnd()
         }
 
+        // LOD levels
+        if (model.lodFile != null) json.writeValue(MetaModel.JSON_LOD_FILE, model.lodFile)
+        if (model.lods != null && model.lods.size > 0) {
+            json.writeArrayStart(MetaModel.JSON_LODS)
+            for (lod in model.lods) {
+                json.writeObjectStart()
+                json.writeValue(MetaLod.JSON_SCREEN_SIZE, lod.screenSize)
+                json.writeValue(MetaLod.JSON_RATIO, lod.ratio)
+                if (lod.modelId != null) json.writeValue(MetaLod.JSON_MODEL, lod.modelId)
+                json.writeObjectEnd()
+            }
+            json.writeArrayEnd()
+        }
+
         json.writeObjectEnd()
     }
 
@@ -90,7 +105,20 @@ class MetaSaver {
         if (terrain.splatGNormal != null) json.writeValue(MetaTerrain.JSON_SPLAT_G_NORMAL, terrain.splatGNormal)
         if (terrain.splatBNormal != null) json.writeValue(MetaTerrain.JSON_SPLAT_B_NORMAL, terrain.splatBNormal)
         if (terrain.splatANormal != null) json.writeValue(MetaTerrain.JSON_SPLAT_A_NORMAL, terrain.splatANormal)
+        addStrings(json, MetaTerrain.JSON_LAYERS, terrain.layers)
+        addStrings(json, MetaTerrain.JSON_LAYER_NORMALS, terrain.layerNormals)
+        addStrings(json, MetaTerrain.JSON_LAYER_SPLATMAPS, terrain.layerSplatmaps)
         json.writeObjectEnd()
     }
 
+    private fun addStrings(json: Json, name: String, strings: Array<String?>?) {
+        if (strings == null) return
+
+        json.writeArrayStart(name)
+        for (string in strings) {
+            json.writeValue(string)
+        }
+        json.writeArrayEnd()
+    }
+
 }
\ No newline at end of file
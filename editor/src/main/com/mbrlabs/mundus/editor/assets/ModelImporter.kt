@@ -23,8 +23,12 @@ import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute
 import com.badlogic.gdx.graphics.g3d.attributes.IntAttribute
 import com.mbrlabs.mundus.commons.assets.MaterialAsset
+import com.mbrlabs.mundus.commons.assets.ModelAsset
+import com.mbrlabs.mundus.commons.assets.ModelLodData
 import com.mbrlabs.mundus.commons.assets.TextureAsset
 import com.mbrlabs.mundus.commons.assets.TexCoordInfo
+import com.mbrlabs.mundus.commons.assets.meta.MetaLod
+import com.mbrlabs.mundus.commons.utils.MeshSimplifier
 import com.mbrlabs.mundus.editor.Mundus
 import com.mbrlabs.mundus.editor.core.registry.Registry
 import com.mbrlabs.mundus.editor.events.SettingsChangedEvent
@@ -41,6 +45,13 @@ import java.util.HashMap
  */
 class ModelImporter(private val registry: Registry) : SettingsChangedEvent.SettingsChangedListener {
 
+    companion object {
+        private val TAG = ModelImporter::class.java.simpleName
+
+        /** Default generated LOD levels as pairs of screen size and triangle ratio */
+        val DEFAULT_LODS = arrayOf(0.25f to 0.5f, 0.1f to 0.25f, 0.04f to 0.1f)
+    }
+
     private val fbxConv: FbxConv
 
     init {
@@ -90,6 +101,44 @@ class ModelImporter(private val registry: Registry) : SettingsChangedEvent.Setti
         return if (retFile != null && retFile.exists()) retFile else null
     }
 
+    /**
+     * Generates the default LOD levels of the model asset by simplifying each mesh part, writes them into a .lod
+     * file next to the model and adds the levels to the model meta. The meta file must be saved afterwards.
+     */
+    fun generateLods(modelAsset: ModelAsset, assetManager: EditorAssetManager) {
+        val meshParts = modelAsset.model.meshParts
+        if (meshParts.isEmpty) return
+
+        val simplifier = MeshSimplifier()
+        val lodData = ModelLodData(DEFAULT_LODS.size, meshParts.size)
+        var simplified = false
+        for ((level, lod) in DEFAULT_LODS.withIndex()) {
+            for (p in 0 until meshParts.size) {
+                val indices = simplifier.simplify(meshParts[p].mesh, meshParts[p], lod.second)
+                lodData.setIndices(level, p, indices)
+                if (indices != null) simplified = true
+            }
+        }
+
+        if (!simplified) {
+            Log.info(TAG, "No LOD levels generated for {}, meshes are not indexed triangles", modelAsset.name)
+            return
+        }
+
+        val lodFile = modelAsset.meta.file.sibling(modelAsset.file.name() + "." + ModelLodData.EXTENSION)
+        lodData.write(lodFile)
+
+        val metaModel = modelAsset.meta.model
+        metaModel.lodFile = lodFile.name()
+        metaModel.lods.clear()
+        for (lod in DEFAULT_LODS) {
+            metaModel.lods.add(MetaLod(lod.first, lod.second))
+        }
+
+        modelAsset.lodData = lodData
+        modelAsset.buildLods(assetManager.assetMap)
+    }
+
     /**
      * Populate a material asset based on the given material. The imported model is
      * required for resolving image/texture files.
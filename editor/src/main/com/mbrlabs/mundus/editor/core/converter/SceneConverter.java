@@ -70,6 +70,7 @@ public class SceneConverter {
         dto.setEnableWaterRefractions(scene.settings.enableWaterRefractions);
 
         dto.setUseFrustumCulling(scene.settings.useFrustumCulling);
+        dto.setUseInstancing(scene.settings.useInstancing);
 
         // camera
         dto.setCamPosX(scene.cam.position.x);
@@ -116,6 +117,7 @@ public class SceneConverter {
 
         scene.settings.waterHeight = dto.getWaterHeight();
         scene.settings.useFrustumCulling = dto.isUseFrustumCulling();
+        scene.settings.useInstancing = dto.isUseInstancing();
         scene.settings.enableWaterReflections = dto.isEnableWaterReflections();
         scene.settings.enableWaterRefractions = dto.isEnableWaterRefractions();
 
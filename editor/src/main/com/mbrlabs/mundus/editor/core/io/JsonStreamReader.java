@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.core.io;
+
+import com.badlogic.gdx.utils.SerializationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser for the JSON written by libGDX {@link com.badlogic.gdx.utils.JsonWriter} in all output types,
+ * including the unquoted names and values of the minimal type, and comments. Reads tokens one at a time
+ * from a {@link Reader}, without building a DOM.
+ */
+public class JsonStreamReader implements Closeable {
+
+    public enum Token {
+        OBJECT_START, OBJECT_END, ARRAY_START, ARRAY_END, NAME, VALUE, END
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder text = new StringBuilder();
+
+    // Open objects (true) and arrays (false)
+    private boolean[] stack = new boolean[32];
+    private int depth;
+    private boolean expectName;
+
+    private Token peeked;
+    private String value;
+    private boolean quoted;
+
+    public JsonStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next token without consuming it
+     */
+    public Token peek() {
+        if (peeked != null) return peeked;
+        try {
+            int c = skipSeparators();
+            if (c == -1) {
+                peeked = Token.END;
+            } else if (c == '}' || c == ']') {
+                position++;
+                peeked = c == '}' ? Token.OBJECT_END : Token.ARRAY_END;
+            } else if (expectName) {
+                value = readScalar(true);
+                if (skipSeparators() != ':') {
+                    throw new SerializationException("Expected ':' after name " + value);
+                }
+                position++;
+                peeked = Token.NAME;
+            } else if (c == '{' || c == '[') {
+                position++;
+                peeked = c == '{' ? Token.OBJECT_START : Token.ARRAY_START;
+            } else {
+                value = readScalar(false);
+                peeked = Token.VALUE;
+            }
+            return peeked;
+        } catch (IOException e) {
+            throw new SerializationException("Error reading JSON", e);
+        }
+    }
+
+    /**
+     * @return true if the current object or array has more entries
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.OBJECT_END && token != Token.ARRAY_END && token != Token.END;
+    }
+
+    public void beginObject() {
+        expect(Token.OBJECT_START);
+        push(true);
+    }
+
+    public void endObject() {
+        expect(Token.OBJECT_END);
+        pop();
+    }
+
+    public void beginArray() {
+        expect(Token.ARRAY_START);
+        push(false);
+    }
+
+    public void endArray() {
+        expect(Token.ARRAY_END);
+        pop();
+    }
+
+    public String nextName() {
+        expect(Token.NAME);
+        expectName = false;
+        return value;
+    }
+
+    /**
+     * @return the next value as string, null for a null literal
+     */
+    public String nextString() {
+        expect(Token.VALUE);
+        valueRead();
+        return value;
+    }
+
+    /**
+     * Consumes the next value if it is a null literal.
+     *
+     * @return true if a null literal was consumed
+     */
+    public boolean nextNull() {
+        if (peek() != Token.VALUE || quoted || value != null) return false;
+        nextString();
+        return true;
+    }
+
+    public boolean nextBoolean() {
+        return Boolean.parseBoolean(nextString());
+    }
+
+    public int nextInt() {
+        String string = nextNumber();
+        try {
+            return Integer.parseInt(string);
+        } catch (NumberFormatException e) {
+            return (int) parseDouble(string);
+        }
+    }
+
+    public long nextLong() {
+        String string = nextNumber();
+        try {
+            return Long.parseLong(string);
+        } catch (NumberFormatException e) {
+            return (long) parseDouble(string);
+        }
+    }
+
+    public float nextFloat() {
+        return (float) parseDouble(nextNumber());
+    }
+
+    /**
+     * Skips the next value, including all nested values of an object or array.
+     */
+    public void skipValue() {
+        int skipDepth = 0;
+        do {
+            switch (peek()) {
+                case OBJECT_START:
+                    beginObject();
+                    skipDepth++;
+                    break;
+                case ARRAY_START:
+                    beginArray();
+                    skipDepth++;
+                    break;
+                case OBJECT_END:
+                    endObject();
+                    skipDepth--;
+                    break;
+                case ARRAY_END:
+                    endArray();
+                    skipDepth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case VALUE:
+                    nextString();
+                    break;
+                case END:
+                    throw new SerializationException("Unexpected end of JSON");
+            }
+        } while (skipDepth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextNumber() {
+        String string = nextString();
+        if (string == null) {
+            throw new SerializationException("Expected a number but was null");
+        }
+        return string;
+    }
+
+    private static double parseDouble(String string) {
+        try {
+            return Double.parseDouble(string);
+        } catch (NumberFormatException e) {
+            throw new SerializationException("Expected a number but was " + string, e);
+        }
+    }
+
+    private void expect(Token token) {
+        Token next = peek();
+        if (next != token) {
+            throw new SerializationException("Expected " + token + " but was " + next);
+        }
+        peeked = null;
+    }
+
+    private void push(boolean object) {
+        if (depth == stack.length) {
+            boolean[] newStack = new boolean[depth * 2];
+            System.arraycopy(stack, 0, newStack, 0, depth);
+            stack = newStack;
+        }
+        stack[depth++] = object;
+        expectName = object;
+    }
+
+    private void pop() {
+        depth--;
+        valueRead();
+    }
+
+    // A value of the enclosing object is complete, a name comes next
+    private void valueRead() {
+        expectName = depth > 0 && stack[depth - 1];
+    }
+
+    /**
+     * Skips whitespace, commas and comments.
+     *
+     * @return the next character without consuming it, -1 at the end
+     */
+    private int skipSeparators() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position];
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == ',') {
+                position++;
+            } else if (c == '/') {
+                skipComment();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        position++;
+        int type = read();
+        if (type == '/') {
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && c != '\n');
+        } else if (type == '*') {
+            int previous = 0;
+            int c;
+            while ((c = read()) != -1) {
+                if (previous == '*' && c == '/') return;
+                previous = c;
+            }
+        } else {
+            throw new SerializationException("Unexpected character '/'");
+        }
+    }
+
+    /**
+     * Reads a quoted or unquoted string. Unquoted names end at ':', unquoted values at ',', '}' or ']'.
+     * Both end at line breaks and have trailing whitespace removed.
+     */
+    private String readScalar(boolean name) throws IOException {
+        text.setLength(0);
+        if (buffer[position] == '"') {
+            position++;
+            quoted = true;
+            while (true) {
+                int c = read();
+                if (c == -1) throw new SerializationException("Unterminated string");
+                if (c == '"') break;
+                if (c == '\\') {
+                    readEscape();
+                } else {
+                    text.append((char) c);
+                }
+            }
+            return text.toString();
+        }
+
+        quoted = false;
+        int length = 0;
+        while (true) {
+            if (position == limit && !fill()) break;
+            char c = buffer[position];
+            if (c == '\r' || c == '\n' || (name ? c == ':' : c == ',' || c == '}' || c == ']')) break;
+            position++;
+            if (c == '\\') {
+                readEscape();
+                length = text.length();
+            } else {
+                text.append(c);
+                if (c != ' ' && c != '\t') length = text.length();
+            }
+        }
+        text.setLength(length);
+        String string = text.toString();
+        return !name && string.equals("null") ? null : string;
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b': text.append('\b'); break;
+            case 'f': text.append('\f'); break;
+            case 'n': text.append('\n'); break;
+            case 'r': text.append('\r'); break;
+            case 't': text.append('\t'); break;
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw new SerializationException("Invalid unicode escape");
+                    code = code * 16 + digit;
+                }
+                text.append((char) code);
+                break;
+            case -1:
+                throw new SerializationException("Unterminated escape");
+            default:
+                text.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        if (count <= 0) return false;
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
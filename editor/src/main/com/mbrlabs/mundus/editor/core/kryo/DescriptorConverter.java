@@ -172,6 +172,8 @@ public class DescriptorConverter {
         // export settings
         descriptor.setExportAllAssets(settings.getExport().allAssets);
         descriptor.setExportCompressScenes(settings.getExport().compressScenes);
+        descriptor.setExportBundleAssets(settings.getExport().bundleAssets);
+        descriptor.setExportBinaryScenes(settings.getExport().binaryScenes);
         if(settings.getExport().outputFolder != null) {
             descriptor.setExportOutputFolder(settings.getExport().outputFolder.path());
         }
@@ -187,6 +189,8 @@ public class DescriptorConverter {
         // export settings
         settings.getExport().allAssets = descriptor.isExportAllAssets();
         settings.getExport().compressScenes = descriptor.isExportCompressScenes();
+        settings.getExport().bundleAssets = descriptor.isExportBundleAssets();
+        settings.getExport().binaryScenes = descriptor.isExportBinaryScenes();
         if(descriptor.getExportOutputFolder() != null && descriptor.getExportOutputFolder().length() > 0) {
             settings.getExport().outputFolder = new FileHandle(descriptor.getExportOutputFolder());
         }
@@ -34,6 +34,10 @@ public class ProjectSettingsDescriptor {
     private String exportOutputFolder;
     @Tag(3)
     private String jsonType;
+    @Tag(4)
+    private boolean exportBundleAssets;
+    @Tag(5)
+    private boolean exportBinaryScenes;
 
     public String getJsonType() {
         return jsonType;
@@ -59,6 +63,22 @@ public class ProjectSettingsDescriptor {
         this.exportAllAssets = exportAllAssets;
     }
 
+    public boolean isExportBundleAssets() {
+        return exportBundleAssets;
+    }
+
+    public void setExportBundleAssets(boolean exportBundleAssets) {
+        this.exportBundleAssets = exportBundleAssets;
+    }
+
+    public boolean isExportBinaryScenes() {
+        return exportBinaryScenes;
+    }
+
+    public void setExportBinaryScenes(boolean exportBinaryScenes) {
+        this.exportBinaryScenes = exportBinaryScenes;
+    }
+
     public String getExportOutputFolder() {
         return exportOutputFolder;
     }
@@ -569,7 +569,6 @@ public class ProjectManager implements Disposable {
     }
 
     private void initComponents(ProjectContext context, GameObject go) {
-        Array<ModelAsset> models = context.assetManager.getModelAssets();
         Array.ArrayIterator<Component> iterator = go.getComponents().iterator();
         while(iterator.hasNext()) {
             Component c = iterator.next();
@@ -584,7 +583,7 @@ public class ProjectManager implements Disposable {
             // Model component
             if (c.getType() == Component.Type.MODEL) {
                 ModelComponent modelComponent = (ModelComponent) c;
-                ModelAsset model = findModelById(models, modelComponent.getModelAsset().getID());
+                ModelAsset model = context.assetManager.findAssetByID(modelComponent.getModelAsset().getID(), ModelAsset.class);
                 if (model != null) {
                     modelComponent.setModel(model, false);
                 } else {
@@ -601,16 +600,6 @@ public class ProjectManager implements Disposable {
         }
     }
 
-    private ModelAsset findModelById(Array<ModelAsset> models, String id) {
-        for (ModelAsset m : models) {
-            if (m.getID().equals(id)) {
-                return m;
-            }
-        }
-
-        return null;
-    }
-
     private String constructWindowTitle() {
         return currentProject.name + " - " + currentProject.currScene.getName() + " [" + currentProject.path + "]"
                 + " - " + Main.TITLE;
@@ -38,6 +38,8 @@ public class ProjectSettings {
         public JsonWriter.OutputType jsonType = JsonWriter.OutputType.json;
         public boolean compressScenes = false;
         public boolean allAssets = true;
+        public boolean bundleAssets = false;
+        public boolean binaryScenes = false;
         public FileHandle outputFolder;
     }
 
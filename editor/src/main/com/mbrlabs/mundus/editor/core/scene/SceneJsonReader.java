@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.core.scene;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.mbrlabs.mundus.commons.dto.BaseLightDTO;
+import com.mbrlabs.mundus.commons.dto.CustomPropertiesComponentDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.FogDTO;
+import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+import com.mbrlabs.mundus.commons.dto.TerrainComponentDTO;
+import com.mbrlabs.mundus.commons.dto.WaterComponentDTO;
+import com.mbrlabs.mundus.commons.env.lights.LightType;
+import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.water.WaterResolution;
+import com.mbrlabs.mundus.editor.core.io.JsonStreamReader;
+
+import java.io.Reader;
+import java.util.HashMap;
+
+/**
+ * Reads a {@link SceneDTO} from JSON without reflection or a DOM, field by field from a {@link Reader}.
+ * Reads scene files written by libGDX {@link com.badlogic.gdx.utils.Json} and {@link SceneJsonWriter}.
+ * Missing fields keep the values of a new DTO, unknown fields are skipped.
+ */
+public class SceneJsonReader {
+
+    private final JsonStreamReader json;
+
+    /**
+     * @param reader the reader to read from, not closed
+     */
+    public SceneJsonReader(Reader reader) {
+        json = new JsonStreamReader(reader);
+    }
+
+    public static SceneDTO read(Reader reader) {
+        return new SceneJsonReader(reader).read();
+    }
+
+    public SceneDTO read() {
+        SceneDTO scene = new SceneDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "id": scene.setId(json.nextLong()); break;
+                case "name": scene.setName(json.nextString()); break;
+                case "skyboxAssetId": scene.setSkyboxAssetId(json.nextString()); break;
+                case "gameObjects": scene.setGameObjects(readGameObjects()); break;
+                case "fog": scene.setFog(readFog()); break;
+                case "ambientLight": scene.setAmbientLight(readBaseLight()); break;
+                case "directionalLight": scene.setDirectionalLight(readDirectionalLight()); break;
+                case "camPosX": scene.setCamPosX(json.nextFloat()); break;
+                case "camPosY": scene.setCamPosY(json.nextFloat()); break;
+                case "camPosZ": scene.setCamPosZ(json.nextFloat()); break;
+                case "camDirX": scene.setCamDirX(json.nextFloat()); break;
+                case "camDirY": scene.setCamDirY(json.nextFloat()); break;
+                case "camDirZ": scene.setCamDirZ(json.nextFloat()); break;
+                case "camNearPlane": scene.setCamNearPlane(json.nextFloat()); break;
+                case "camFarPlane": scene.setCamFarPlane(json.nextFloat()); break;
+                case "camFieldOfView": scene.setCamFieldOfView(json.nextFloat()); break;
+                case "waterHeight": scene.setWaterHeight(json.nextFloat()); break;
+                case "useFrustumCulling": scene.setUseFrustumCulling(json.nextBoolean()); break;
+                case "useInstancing": scene.setUseInstancing(json.nextBoolean()); break;
+                case "enableWaterReflections": scene.setEnableWaterReflections(json.nextBoolean()); break;
+                case "enableWaterRefractions": scene.setEnableWaterRefractions(json.nextBoolean()); break;
+                case "waterResolution": scene.setWaterResolution(WaterResolution.valueOf(json.nextString())); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return scene;
+    }
+
+    private Array<GameObjectDTO> readGameObjects() {
+        Array<GameObjectDTO> gameObjects = new Array<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            gameObjects.add(json.nextNull() ? null : readGameObject());
+        }
+        json.endArray();
+        return gameObjects;
+    }
+
+    private GameObjectDTO readGameObject() {
+        GameObjectDTO go = new GameObjectDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "id": go.setId(json.nextInt()); break;
+                case "name": go.setName(json.nextString()); break;
+                case "active": go.setActive(json.nextBoolean()); break;
+                case "transform": readFloats(go.getTransform()); break;
+                case "tags": go.setTags(readStrings()); break;
+                case "childs": go.setChilds(readGameObjects()); break;
+                case "modelComponent": go.setModelComponent(readModelComponent()); break;
+                case "terrainComponent": go.setTerrainComponent(readTerrainComponent()); break;
+                case "waterComponent": go.setWaterComponent(readWaterComponent()); break;
+                case "lightComponent": go.setLightComponent(readLightComponent()); break;
+                case "customPropertiesComponent": go.setCustomPropertiesComponent(readCustomPropertiesComponent()); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return go;
+    }
+
+    private ModelComponentDTO readModelComponent() {
+        ModelComponentDTO model = new ModelComponentDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "modelID": model.setModelID(json.nextString()); break;
+                case "materials":
+                    HashMap<String, String> materials = new HashMap<>();
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        materials.put(json.nextName(), json.nextString());
+                    }
+                    json.endObject();
+                    model.setMaterials(materials);
+                    break;
+                case "useModelCache": model.setUseModelCache(json.nextBoolean()); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return model;
+    }
+
+    private TerrainComponentDTO readTerrainComponent() {
+        TerrainComponentDTO terrain = new TerrainComponentDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("terrainID") && !json.nextNull()) {
+                terrain.setTerrainID(json.nextString());
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return terrain;
+    }
+
+    private WaterComponentDTO readWaterComponent() {
+        WaterComponentDTO water = new WaterComponentDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("waterId") && !json.nextNull()) {
+                water.setWaterId(json.nextString());
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return water;
+    }
+
+    private LightComponentDTO readLightComponent() {
+        LightComponentDTO light = new LightComponentDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "lightType": light.setLightType(LightType.valueOf(json.nextString())); break;
+                case "direction": light.setDirection(readVector()); break;
+                case "cutoff": light.setCutoff(json.nextFloat()); break;
+                case "position": light.setPosition(readVector()); break;
+                case "constant": light.setConstant(json.nextFloat()); break;
+                case "linear": light.setLinear(json.nextFloat()); break;
+                case "exponential": light.setExponential(json.nextFloat()); break;
+                case "color": light.setColor(readColor()); break;
+                case "intensity": light.setIntensity(json.nextFloat()); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return light;
+    }
+
+    private CustomPropertiesComponentDTO readCustomPropertiesComponent() {
+        CustomPropertiesComponentDTO component = new CustomPropertiesComponentDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("customProperties") && !json.nextNull()) {
+                OrderedMap<String, String> properties = new OrderedMap<>();
+                json.beginObject();
+                while (json.hasNext()) {
+                    properties.put(json.nextName(), json.nextString());
+                }
+                json.endObject();
+                component.setCustomProperties(properties);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return component;
+    }
+
+    private FogDTO readFog() {
+        FogDTO fog = new FogDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "nearPlane": fog.setNearPlane(json.nextFloat()); break;
+                case "farPlane": fog.setFarPlane(json.nextFloat()); break;
+                case "gradient": fog.setGradient(json.nextFloat()); break;
+                case "color": fog.setColor(json.nextInt()); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return fog;
+    }
+
+    private BaseLightDTO readBaseLight() {
+        BaseLightDTO light = new BaseLightDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!readBaseLightField(json.nextName(), light)) {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return light;
+    }
+
+    private DirectionalLightDTO readDirectionalLight() {
+        DirectionalLightDTO light = new DirectionalLightDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (readBaseLightField(name, light) || json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "direction": light.setDirection(readVector()); break;
+                case "castsShadows": light.setCastsShadows(json.nextBoolean()); break;
+                case "shadowSettingsDTO": light.setShadowSettingsDTO(readShadowSettings()); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return light;
+    }
+
+    private boolean readBaseLightField(String name, BaseLightDTO light) {
+        switch (name) {
+            case "intensity": light.setIntensity(json.nextFloat()); return true;
+            case "color": light.setColor(json.nextInt()); return true;
+            default: return false;
+        }
+    }
+
+    private ShadowSettingsDTO readShadowSettings() {
+        ShadowSettingsDTO shadow = new ShadowSettingsDTO();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "viewportSize": shadow.setViewportSize(json.nextInt()); break;
+                case "camNearPlane": shadow.setCamNearPlane(json.nextFloat()); break;
+                case "camFarPlane": shadow.setCamFarPlane(json.nextFloat()); break;
+                case "shadowResolution": shadow.setShadowResolution(ShadowResolution.valueOf(json.nextString())); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return shadow;
+    }
+
+    private Vector3 readVector() {
+        Vector3 vector = new Vector3();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "x": vector.x = json.nextFloat(); break;
+                case "y": vector.y = json.nextFloat(); break;
+                case "z": vector.z = json.nextFloat(); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return vector;
+    }
+
+    private Color readColor() {
+        Color color = new Color();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "r": color.r = json.nextFloat(); break;
+                case "g": color.g = json.nextFloat(); break;
+                case "b": color.b = json.nextFloat(); break;
+                case "a": color.a = json.nextFloat(); break;
+                default: json.skipValue();
+            }
+        }
+        json.endObject();
+        return color;
+    }
+
+    private void readFloats(float[] values) {
+        json.beginArray();
+        int i = 0;
+        while (json.hasNext()) {
+            float value = json.nextFloat();
+            if (i < values.length) values[i++] = value;
+        }
+        json.endArray();
+    }
+
+    private Array<String> readStrings() {
+        Array<String> strings = new Array<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            strings.add(json.nextString());
+        }
+        json.endArray();
+        return strings;
+    }
+}
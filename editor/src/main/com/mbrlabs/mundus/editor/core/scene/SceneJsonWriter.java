@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.core.scene;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.badlogic.gdx.utils.SerializationException;
+import com.mbrlabs.mundus.commons.dto.BaseLightDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.FogDTO;
+import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes a {@link SceneDTO} as JSON without reflection, streaming it to a {@link Writer}.
+ * <p>
+ * The output is the same as libGDX {@link com.badlogic.gdx.utils.Json} writes for the DTOs: fields in
+ * declaration order, null fields and fields equal to those of a new instance left out, so existing scene
+ * files and {@link SceneJsonReader} read it alike.
+ */
+public class SceneJsonWriter {
+
+    // Prototypes of the DTOs with default values, fields equal to these are not written
+    private static final SceneDTO SCENE = new SceneDTO();
+    private static final GameObjectDTO GAME_OBJECT = new GameObjectDTO();
+    private static final ModelComponentDTO MODEL_COMPONENT = new ModelComponentDTO();
+    private static final LightComponentDTO LIGHT_COMPONENT = new LightComponentDTO();
+    private static final FogDTO FOG = new FogDTO();
+    private static final BaseLightDTO BASE_LIGHT = new BaseLightDTO();
+    private static final DirectionalLightDTO DIRECTIONAL_LIGHT = new DirectionalLightDTO();
+    private static final ShadowSettingsDTO SHADOW_SETTINGS = new ShadowSettingsDTO();
+    private static final Vector3 VECTOR = new Vector3();
+    private static final Color COLOR = new Color();
+
+    private final JsonWriter json;
+
+    /**
+     * @param writer the writer to write to, not closed
+     * @param outputType the JSON output type
+     */
+    public SceneJsonWriter(Writer writer, JsonWriter.OutputType outputType) {
+        json = new JsonWriter(writer);
+        json.setOutputType(outputType);
+    }
+
+    /**
+     * Writes the scene in the minimal output type, the default of libGDX {@link com.badlogic.gdx.utils.Json}.
+     */
+    public static void write(SceneDTO scene, Writer writer) {
+        new SceneJsonWriter(writer, JsonWriter.OutputType.minimal).write(scene);
+    }
+
+    public void write(SceneDTO scene) {
+        try {
+            json.object();
+            // Written separately by SceneDTO as well
+            json.set("id", scene.getId());
+            set("name", scene.getName());
+            set("skyboxAssetId", scene.getSkyboxAssetId());
+            if (scene.getGameObjects() != null && !scene.getGameObjects().equals(SCENE.getGameObjects())) {
+                writeGameObjects("gameObjects", scene.getGameObjects());
+            }
+            if (scene.getFog() != null) writeFog(scene.getFog());
+            if (scene.getAmbientLight() != null) {
+                json.object("ambientLight");
+                writeBaseLight(scene.getAmbientLight());
+                json.pop();
+            }
+            if (scene.getDirectionalLight() != null) writeDirectionalLight(scene.getDirectionalLight());
+            set("camPosX", scene.getCamPosX(), SCENE.getCamPosX());
+            set("camPosY", scene.getCamPosY(), SCENE.getCamPosY());
+            set("camPosZ", scene.getCamPosZ(), SCENE.getCamPosZ());
+            set("camDirX", scene.getCamDirX(), SCENE.getCamDirX());
+            set("camDirY", scene.getCamDirY(), SCENE.getCamDirY());
+            set("camDirZ", scene.getCamDirZ(), SCENE.getCamDirZ());
+            set("camNearPlane", scene.getCamNearPlane(), SCENE.getCamNearPlane());
+            set("camFarPlane", scene.getCamFarPlane(), SCENE.getCamFarPlane());
+            set("camFieldOfView", scene.getCamFieldOfView(), SCENE.getCamFieldOfView());
+            set("waterHeight", scene.getWaterHeight(), SCENE.getWaterHeight());
+            set("useFrustumCulling", scene.isUseFrustumCulling(), SCENE.isUseFrustumCulling());
+            set("useInstancing", scene.isUseInstancing(), SCENE.isUseInstancing());
+            set("enableWaterReflections", scene.isEnableWaterReflections(), SCENE.isEnableWaterReflections());
+            set("enableWaterRefractions", scene.isEnableWaterRefractions(), SCENE.isEnableWaterRefractions());
+            if (scene.getWaterResolution() != null) set("waterResolution", scene.getWaterResolution().name());
+            json.pop();
+            json.flush();
+        } catch (IOException e) {
+            throw new SerializationException("Error writing scene " + scene.getName(), e);
+        }
+    }
+
+    private void writeGameObjects(String name, Array<GameObjectDTO> gameObjects) throws IOException {
+        json.array(name);
+        for (GameObjectDTO go : gameObjects) {
+            if (go == null) {
+                json.value(null);
+            } else {
+                json.object();
+                writeGameObject(go);
+                json.pop();
+            }
+        }
+        json.pop();
+    }
+
+    private void writeGameObject(GameObjectDTO go) throws IOException {
+        set("id", go.getId(), GAME_OBJECT.getId());
+        set("name", go.getName());
+        set("active", go.isActive(), GAME_OBJECT.isActive());
+        if (!Arrays.equals(go.getTransform(), GAME_OBJECT.getTransform())) {
+            json.array("transform");
+            for (float value : go.getTransform()) {
+                json.value(value);
+            }
+            json.pop();
+        }
+        if (go.getTags() != null && !go.getTags().equals(GAME_OBJECT.getTags())) {
+            json.array("tags");
+            for (String tag : go.getTags()) {
+                json.value(tag);
+            }
+            json.pop();
+        }
+        if (go.getChilds() != null && !go.getChilds().equals(GAME_OBJECT.getChilds())) {
+            writeGameObjects("childs", go.getChilds());
+        }
+
+        if (go.getModelComponent() != null) writeModelComponent(go.getModelComponent());
+        if (go.getTerrainComponent() != null) {
+            json.object("terrainComponent");
+            set("terrainID", go.getTerrainComponent().getTerrainID());
+            json.pop();
+        }
+        if (go.getWaterComponent() != null) {
+            json.object("waterComponent");
+            set("waterId", go.getWaterComponent().getWaterId());
+            json.pop();
+        }
+        if (go.getLightComponent() != null) writeLightComponent(go.getLightComponent());
+        if (go.getCustomPropertiesComponent() != null) {
+            json.object("customPropertiesComponent");
+            OrderedMap<String, String> properties = go.getCustomPropertiesComponent().getCustomProperties();
+            if (properties != null) {
+                json.object("customProperties");
+                for (ObjectMap.Entry<String, String> entry : properties) {
+                    json.set(entry.key, entry.value);
+                }
+                json.pop();
+            }
+            json.pop();
+        }
+    }
+
+    private void writeModelComponent(ModelComponentDTO model) throws IOException {
+        json.object("modelComponent");
+        set("modelID", model.getModelID());
+        if (model.getMaterials() != null && !model.getMaterials().equals(MODEL_COMPONENT.getMaterials())) {
+            json.object("materials");
+            for (Map.Entry<String, String> entry : model.getMaterials().entrySet()) {
+                json.set(entry.getKey(), entry.getValue());
+            }
+            json.pop();
+        }
+        set("useModelCache", model.isUseModelCache(), MODEL_COMPONENT.isUseModelCache());
+        json.pop();
+    }
+
+    private void writeLightComponent(LightComponentDTO light) throws IOException {
+        json.object("lightComponent");
+        if (light.getLightType() != null) set("lightType", light.getLightType().name());
+        if (light.getDirection() != null) writeVector("direction", light.getDirection());
+        set("cutoff", light.getCutoff(), LIGHT_COMPONENT.getCutoff());
+        if (light.getPosition() != null) writeVector("position", light.getPosition());
+        set("constant", light.getConstant(), LIGHT_COMPONENT.getConstant());
+        set("linear", light.getLinear(), LIGHT_COMPONENT.getLinear());
+        set("exponential", light.getExponential(), LIGHT_COMPONENT.getExponential());
+        if (light.getColor() != null) {
+            Color color = light.getColor();
+            json.object("color");
+            set("r", color.r, COLOR.r);
+            set("g", color.g, COLOR.g);
+            set("b", color.b, COLOR.b);
+            set("a", color.a, COLOR.a);
+            json.pop();
+        }
+        set("intensity", light.getIntensity(), LIGHT_COMPONENT.getIntensity());
+        json.pop();
+    }
+
+    private void writeFog(FogDTO fog) throws IOException {
+        json.object("fog");
+        set("nearPlane", fog.getNearPlane(), FOG.getNearPlane());
+        set("farPlane", fog.getFarPlane(), FOG.getFarPlane());
+        set("gradient", fog.getGradient(), FOG.getGradient());
+        set("color", fog.getColor(), FOG.getColor());
+        json.pop();
+    }
+
+    private void writeBaseLight(BaseLightDTO light) throws IOException {
+        set("intensity", light.getIntensity(), BASE_LIGHT.getIntensity());
+        set("color", light.getColor(), BASE_LIGHT.getColor());
+    }
+
+    private void writeDirectionalLight(DirectionalLightDTO light) throws IOException {
+        json.object("directionalLight");
+        // Fields of the super class come first
+        set("intensity", light.getIntensity(), DIRECTIONAL_LIGHT.getIntensity());
+        set("color", light.getColor(), DIRECTIONAL_LIGHT.getColor());
+        if (light.getDirection() != null) writeVector("direction", light.getDirection());
+        set("castsShadows", light.isCastsShadows(), DIRECTIONAL_LIGHT.isCastsShadows());
+        ShadowSettingsDTO shadow = light.getShadowSettingsDTO();
+        if (shadow != null) {
+            json.object("shadowSettingsDTO");
+            set("viewportSize", shadow.getViewportSize(), SHADOW_SETTINGS.getViewportSize());
+            set("camNearPlane", shadow.getCamNearPlane(), SHADOW_SETTINGS.getCamNearPlane());
+            set("camFarPlane", shadow.getCamFarPlane(), SHADOW_SETTINGS.getCamFarPlane());
+            if (shadow.getShadowResolution() != null) set("shadowResolution", shadow.getShadowResolution().name());
+            json.pop();
+        }
+        json.pop();
+    }
+
+    private void writeVector(String name, Vector3 vector) throws IOException {
+        json.object(name);
+        set("x", vector.x, VECTOR.x);
+        set("y", vector.y, VECTOR.y);
+        set("z", vector.z, VECTOR.z);
+        json.pop();
+    }
+
+    private void set(String name, String value) throws IOException {
+        if (value != null) json.set(name, value);
+    }
+
+    private void set(String name, float value, float defaultValue) throws IOException {
+        // Same as Float.equals, like the prototype check of Json
+        if (Float.floatToIntBits(value) != Float.floatToIntBits(defaultValue)) json.set(name, value);
+    }
+
+    private void set(String name, int value, int defaultValue) throws IOException {
+        if (value != defaultValue) json.set(name, value);
+    }
+
+    private void set(String name, boolean value, boolean defaultValue) throws IOException {
+        if (value != defaultValue) json.set(name, value);
+    }
+}
@@ -18,7 +18,7 @@ package com.mbrlabs.mundus.editor.core.scene;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.StreamUtils;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.dto.SceneDTO;
 import com.mbrlabs.mundus.editor.core.converter.SceneConverter;
@@ -26,13 +26,17 @@ import com.mbrlabs.mundus.editor.core.project.ProjectContext;
 import com.mbrlabs.mundus.editor.core.project.ProjectManager;
 import org.apache.commons.io.FilenameUtils;
 
+import java.io.BufferedWriter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 public class SceneManager {
 
-    private static final Json JSON = new Json();
-
 
     /**
      * Saves a scene.
@@ -44,8 +48,7 @@ public class SceneManager {
         String sceneDir = getScenePath(context, scene.getName());
 
         SceneDTO sceneDTO = SceneConverter.convert(scene);
-        FileHandle saveFile = Gdx.files.absolute(sceneDir);
-        saveFile.writeString(JSON.toJson(sceneDTO), false);
+        writeScene(sceneDTO, Gdx.files.absolute(sceneDir));
     }
 
     /**
@@ -60,7 +63,7 @@ public class SceneManager {
      */
     public static SceneDTO loadScene(ProjectContext context, String sceneName) throws FileNotFoundException {
         String sceneDir = getScenePath(context, sceneName);
-        return JSON.fromJson(SceneDTO.class, new FileInputStream(sceneDir));
+        return readScene(new FileInputStream(sceneDir));
     }
 
     /**
@@ -73,11 +76,10 @@ public class SceneManager {
     public static void renameScene(final ProjectContext context, final String oldSceneName, final String newSceneName) {
         final String oldSceneDir = getScenePath(context, oldSceneName);
         final String newSceneDir = getScenePath(context, newSceneName);
-        final SceneDTO scene = JSON.fromJson(SceneDTO.class, new FileHandle(oldSceneDir));
+        final SceneDTO scene = readScene(new FileHandle(oldSceneDir).read());
         scene.setName(newSceneName);
 
-        FileHandle saveFile = Gdx.files.absolute(newSceneDir);
-        saveFile.writeString(JSON.toJson(scene), false);
+        writeScene(scene, Gdx.files.absolute(newSceneDir));
 
         deleteScene(context, oldSceneName);
     }
@@ -94,6 +96,31 @@ public class SceneManager {
         sceneFile.delete();
     }
 
+    /**
+     * Reads a scene file as a stream, without reflection or an intermediate string.
+     */
+    private static SceneDTO readScene(InputStream input) {
+        // Not buffered, JsonStreamReader reads in chunks
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        try {
+            return SceneJsonReader.read(reader);
+        } finally {
+            StreamUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Streams a scene to a file, in the same format libGDX Json writes.
+     */
+    private static void writeScene(SceneDTO scene, FileHandle file) {
+        Writer writer = new BufferedWriter(file.writer(false, "UTF-8"));
+        try {
+            SceneJsonWriter.write(scene, writer);
+        } finally {
+            StreamUtils.closeQuietly(writer);
+        }
+    }
+
     private static String getScenePath(ProjectContext context, String sceneName) {
         return FilenameUtils.concat(context.path + "/" + ProjectManager.PROJECT_SCENES_DIR,
                 sceneName + "." + ProjectManager.PROJECT_SCENE_EXTENSION);
@@ -17,16 +17,22 @@
 package com.mbrlabs.mundus.editor.exporter
 
 import com.badlogic.gdx.files.FileHandle
+import com.badlogic.gdx.utils.Array
 import com.badlogic.gdx.utils.Json
 import com.badlogic.gdx.utils.JsonWriter
 import com.kotcrab.vis.ui.util.async.AsyncTask
 import com.kotcrab.vis.ui.util.async.AsyncTaskListener
 import com.mbrlabs.mundus.commons.assets.Asset
+import com.mbrlabs.mundus.commons.assets.TerrainAsset
+import com.mbrlabs.mundus.commons.assets.bundle.AssetBundle
 import com.mbrlabs.mundus.commons.dto.GameObjectDTO
 import com.mbrlabs.mundus.commons.dto.ModelComponentDTO
 import com.mbrlabs.mundus.commons.dto.SceneDTO
 import com.mbrlabs.mundus.commons.dto.TerrainComponentDTO
+import com.mbrlabs.mundus.commons.importer.BinaryScene
 import com.mbrlabs.mundus.commons.importer.JsonScene
+import com.mbrlabs.mundus.commons.terrain.TerraFile
+import com.mbrlabs.mundus.commons.utils.FileFormatUtils
 import com.mbrlabs.mundus.editor.core.converter.SceneConverter
 import com.mbrlabs.mundus.editor.core.io.IOManager
 import com.mbrlabs.mundus.editor.core.project.ProjectContext
@@ -52,6 +58,8 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
         // and while converting (on the other thread)
         val currentSceneDTO = SceneConverter.convert(project.currScene)
         val jsonType = project.settings.export.jsonType
+        val bundleAssets = project.settings.export.bundleAssets
+        val binaryScenes = project.settings.export.binaryScenes
 
         val task = object: AsyncTask("export_${project.name}") {
             override fun doInBackground() {
@@ -69,12 +77,18 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
                 // sleep a bit to open the progress dialog
                 Thread.sleep(250)
 
-                for(asset in assetManager.assets) {
-                    exportAsset(asset, assetFolder)
-                    progress += step
+                if (bundleAssets) {
+                    exportBundle(assetManager.assets, assetFolder)
+                    progress += step * assetManager.assets.size
                     setProgressPercent(progress.toInt())
-                    setMessage(asset.id)
-                    Thread.sleep(50)
+                } else {
+                    for(asset in assetManager.assets) {
+                        exportAsset(asset, assetFolder)
+                        progress += step
+                        setProgressPercent(progress.toInt())
+                        setMessage(asset.id)
+                        Thread.sleep(50)
+                    }
                 }
 
                 // load, convert & copy scenes
@@ -91,7 +105,11 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
                     }
 
                     // convert & export
-                    exportScene(scene, file, jsonType)
+                    if (binaryScenes) {
+                        exportBinaryScene(scene, file)
+                    } else {
+                        exportScene(scene, file, jsonType)
+                    }
                     progress += step
                     setProgressPercent(progress.toInt())
                     setMessage(scene.name)
@@ -115,8 +133,64 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
     }
 
     private fun exportAsset(asset: Asset, folder: FileHandle) {
-        asset.file.copyTo(folder)
+        if (asset is TerrainAsset) {
+            // The project keeps heights lossless, the runtime gets the much smaller 16 bit heights
+            val heights = TerraFile.read(asset.file)
+            TerraFile.write(folder.child(asset.file.name()), heights, TerraFile.FLAG_QUANTIZED or TerraFile.FLAG_COMPRESSED)
+        } else {
+            asset.file.copyTo(folder)
+        }
         asset.meta.file.copyTo(folder)
+
+        for (file in additionalFiles(asset)) {
+            file.copyTo(folder)
+        }
+    }
+
+    /**
+     * Writes all assets into a single bundle file, read by the runtime instead of the separate files.
+     */
+    private fun exportBundle(assets: Array<Asset>, folder: FileHandle) {
+        val writer = AssetBundle.Writer()
+        // Terrains are converted for the runtime first, see exportAsset
+        val staging = FileHandle.tempDirectory("mundus-export")
+        try {
+            for (asset in assets) {
+                if (asset is TerrainAsset) {
+                    exportAsset(asset, staging)
+                    writer.addAsset(staging.child(asset.meta.file.name()))
+                } else {
+                    writer.addAsset(asset.meta.file)
+                }
+                for (file in additionalFiles(asset)) {
+                    writer.addFile(file)
+                }
+            }
+            writer.write(folder.child(AssetBundle.FILE_NAME))
+        } finally {
+            staging.deleteDirectory()
+        }
+    }
+
+    /**
+     * Files of an asset besides the asset and meta file.
+     */
+    private fun additionalFiles(asset: Asset): List<FileHandle> {
+        val files = ArrayList<FileHandle>()
+
+        // Binary buffer of glTF models
+        if (asset.file.extension() == FileFormatUtils.FORMAT_3D_GLTF) {
+            val binFile = asset.file.sibling(asset.file.nameWithoutExtension() + ".bin")
+            if (binFile.exists()) files.add(binFile)
+        }
+
+        // Generated LOD levels of models
+        val lodFile = asset.meta.model?.lodFile
+        if (lodFile != null) {
+            val file = asset.meta.file.sibling(lodFile)
+            if (file.exists()) files.add(file)
+        }
+        return files
     }
 
     private fun exportScene(scene: SceneDTO, file: FileHandle, jsonType: JsonWriter.OutputType) {
@@ -124,6 +198,18 @@ class Exporter(val ioManager: IOManager, val project: ProjectContext) {
         exportScene(scene, writer, jsonType)
     }
 
+    /**
+     * Writes the scene in the binary format, the runtime tells it apart from JSON by its header.
+     */
+    private fun exportBinaryScene(scene: SceneDTO, file: FileHandle) {
+        val out = file.write(false)
+        try {
+            BinaryScene.Writer().write(scene, out)
+        } finally {
+            out.close()
+        }
+    }
+
     fun exportScene(scene: SceneDTO, writer: Writer, jsonType: JsonWriter.OutputType) {
         val json = Json()
         json.setOutputType(jsonType)
@@ -21,37 +21,35 @@ import com.badlogic.gdx.utils.Array
 /**
  * Add commands to undo/redo a previously called process.
  *
+ * The history keeps within a memory budget instead of a command count. Every command counts
+ * [COMMAND_OVERHEAD] bytes, plus its own size if it is a [SizedCommand]. The oldest commands are dropped
+ * when the budget is exceeded, the newest command is always kept.
+ *
  * @author Marcus Brummer
  * @version 07-02-2016
  */
-class CommandHistory(private val limit: Int) {
+class CommandHistory(private val maxBytes: Long) {
 
     private var pointer: Int = 0
-    private val commands: Array<Command> = Array(limit)
+    private val commands: Array<Command> = Array()
+    private var sizeInBytes: Long = 0
 
     init {
         pointer = -1
     }
 
     fun add(command: Command): Int {
-        if (size() == 0) {
-            commands.add(command)
-            pointer++
-            return pointer
-        }
-
         if (pointer < size() - 1) {
             removeCommands(pointer + 1, commands.size - 1)
-            commands.add(command)
-            pointer++
-        } else {
-            if (size() == limit) {
-                removeCommand(0)
-                commands.add(command)
-            } else {
-                commands.add(command)
-                pointer++
-            }
+        }
+
+        commands.add(command)
+        sizeInBytes += sizeOf(command)
+        pointer++
+
+        while (sizeInBytes > maxBytes && commands.size > 1) {
+            removeCommand(0)
+            pointer--
         }
 
         return pointer
@@ -62,6 +60,7 @@ class CommandHistory(private val limit: Int) {
         if (cmd is DisposableCommand) {
             cmd.dispose()
         }
+        sizeInBytes -= sizeOf(cmd)
         commands.removeIndex(index)
     }
 
@@ -71,11 +70,16 @@ class CommandHistory(private val limit: Int) {
             if (cmd is DisposableCommand) {
                 cmd.dispose()
             }
+            sizeInBytes -= sizeOf(cmd)
         }
 
         commands.removeRange(from, to)
     }
 
+    private fun sizeOf(command: Command): Long {
+        return COMMAND_OVERHEAD + if (command is SizedCommand) command.getSizeInBytes() else 0L
+    }
+
     fun goBack(): Int {
         if (pointer >= 0) {
             commands.get(pointer).undo()
@@ -98,6 +102,7 @@ class CommandHistory(private val limit: Int) {
         commands.filterIsInstance<DisposableCommand>()
                 .forEach { it.dispose() }
         commands.clear()
+        sizeInBytes = 0
         pointer = -1
     }
 
@@ -105,9 +110,19 @@ class CommandHistory(private val limit: Int) {
         return commands.size
     }
 
+    /**
+     * @return approximate memory held by the commands, as counted against the budget
+     */
+    fun getSizeInBytes(): Long {
+        return sizeInBytes
+    }
+
     companion object {
 
-        val DEFAULT_LIMIT = 50
+        val DEFAULT_MAX_BYTES = 256L * 1024 * 1024
+
+        /** Bytes counted for every command, whether it is sized or not */
+        val COMMAND_OVERHEAD = 64L
     }
 
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.history
+
+/**
+ * A command holding a notable amount of memory, counted against the byte budget of the [CommandHistory].
+ */
+interface SizedCommand : Command {
+
+    /**
+     * @return approximate number of bytes held by this command
+     */
+    fun getSizeInBytes(): Long
+
+}
@@ -2,6 +2,7 @@ package com.mbrlabs.mundus.editor.history.commands
 
 import com.badlogic.gdx.utils.Array
 import com.mbrlabs.mundus.editor.history.Command
+import com.mbrlabs.mundus.editor.history.SizedCommand
 
 /**
  * A wrapper that Executes multiple commands at once.
@@ -11,7 +12,7 @@ import com.mbrlabs.mundus.editor.history.Command
  * @author JamesTKhan
  * @version August 27, 2023
  */
-class MultiCommand : Command {
+class MultiCommand : SizedCommand {
     private var commands = Array<Command>()
 
     override fun execute() {
@@ -27,6 +28,14 @@ class MultiCommand : Command {
         }
     }
 
+    override fun getSizeInBytes(): Long {
+        var size = 0L
+        for (command in commands) {
+            if (command is SizedCommand) size += command.getSizeInBytes()
+        }
+        return size
+    }
+
     fun addCommand(command: Command) {
         commands.add(command)
     }
@@ -17,35 +17,98 @@
 package com.mbrlabs.mundus.editor.history.commands
 
 import com.mbrlabs.mundus.commons.terrain.Terrain
-import com.mbrlabs.mundus.editor.history.Command
+import com.mbrlabs.mundus.editor.history.SizedCommand
 
 /**
+ * Undo/redo of height changes. Only the tiles of vertices that changed are kept, compressed, and undo/redo
+ * update the terrain mesh of the changed region only.
+ *
+ * Call [recordBefore] before modifying a region of the height data and [recordAfter] once done.
+ *
  * @author Marcus Brummer
  * @version 07-02-2016
  */
-class TerrainHeightCommand(private var terrain: Terrain?) : Command {
+class TerrainHeightCommand(private var terrain: Terrain?) : SizedCommand {
+
+    companion object {
+        private const val TILE_SIZE = 32
+    }
 
-    private var heightDataBefore: FloatArray? = null
-    private var heightDataAfter: FloatArray? = null
+    private val delta = TileDelta(terrain!!.vertexResolution, terrain!!.vertexResolution, 4, TILE_SIZE)
+    private val access = HeightAccess(terrain!!)
 
-    fun setHeightDataBefore(data: FloatArray) {
-        heightDataBefore = FloatArray(data.size)
-        System.arraycopy(data, 0, heightDataBefore!!, 0, data.size)
+    /**
+     * Records the current heights of the given region of vertices, inclusive.
+     */
+    fun recordBefore(minX: Int, minZ: Int, maxX: Int, maxZ: Int) {
+        delta.recordBefore(access, minX, minZ, maxX, maxZ)
     }
 
-    fun setHeightDataAfter(data: FloatArray) {
-        heightDataAfter = FloatArray(data.size)
-        System.arraycopy(data, 0, heightDataAfter!!, 0, data.size)
+    /**
+     * Records the current heights of the whole terrain.
+     */
+    fun recordBefore() {
+        recordBefore(0, 0, terrain!!.vertexResolution - 1, terrain!!.vertexResolution - 1)
+    }
+
+    /**
+     * Keeps the changes since the recorded heights.
+     *
+     * @return true if any height changed
+     */
+    fun recordAfter(): Boolean {
+        return delta.recordAfter(access)
     }
 
     override fun execute() {
-        terrain!!.heightData = heightDataAfter
-        terrain!!.update()
+        delta.applyAfter(access)
+        updateTerrain()
     }
 
     override fun undo() {
-        terrain!!.heightData = heightDataBefore
-        terrain!!.update()
+        delta.applyBefore(access)
+        updateTerrain()
+    }
+
+    override fun getSizeInBytes(): Long {
+        return delta.getSizeInBytes()
+    }
+
+    private fun updateTerrain() {
+        if (delta.hasChanges()) {
+            terrain!!.update(delta.minX, delta.minY, delta.maxX, delta.maxY)
+        }
+    }
+
+    /**
+     * Reads and writes heights as the bytes of their float bits.
+     */
+    private class HeightAccess(private val terrain: Terrain) : TileDelta.GridAccess {
+
+        override fun read(x: Int, y: Int, count: Int, out: ByteArray, offset: Int) {
+            val heightData = terrain.heightData
+            var index = y * terrain.vertexResolution + x
+            var o = offset
+            for (i in 0 until count) {
+                val bits = java.lang.Float.floatToRawIntBits(heightData[index++])
+                out[o++] = (bits ushr 24).toByte()
+                out[o++] = (bits ushr 16).toByte()
+                out[o++] = (bits ushr 8).toByte()
+                out[o++] = bits.toByte()
+            }
+        }
+
+        override fun write(x: Int, y: Int, count: Int, data: ByteArray, offset: Int) {
+            val heightData = terrain.heightData
+            var index = y * terrain.vertexResolution + x
+            var o = offset
+            for (i in 0 until count) {
+                val bits = (data[o].toInt() and 0xff shl 24) or (data[o + 1].toInt() and 0xff shl 16) or
+                        (data[o + 2].toInt() and 0xff shl 8) or (data[o + 3].toInt() and 0xff)
+                heightData[index++] = java.lang.Float.intBitsToFloat(bits)
+                o += 4
+            }
+        }
     }
 
 }
@@ -18,48 +18,81 @@ package com.mbrlabs.mundus.editor.history.commands
 
 import com.badlogic.gdx.graphics.Pixmap
 import com.mbrlabs.mundus.commons.terrain.Terrain
-import com.mbrlabs.mundus.editor.history.DisposableCommand
+import com.mbrlabs.mundus.editor.history.SizedCommand
 
 /**
+ * Undo/redo of splatmap painting. Only the tiles of pixels that changed are kept, compressed, and undo/redo
+ * upload the changed region of the splatmap texture only.
+ *
+ * Call [recordBefore] before painting a region of the splatmap and [recordAfter] once done.
+ *
  * @author Marcus Brummer
  * @version 07-02-2016
  */
-class TerrainPaintCommand(private var terrain: Terrain?) : DisposableCommand {
+class TerrainPaintCommand(private var terrain: Terrain?) : SizedCommand {
+
+    companion object {
+        private const val TILE_SIZE = 64
+    }
 
-    private var after: Pixmap? = null
-    private var before: Pixmap? = null
+    private val pixmap: Pixmap = terrain!!.terrainTexture.splatmap.pixmap
+    private val access = PixmapAccess(pixmap)
+    private val delta = TileDelta(pixmap.width, pixmap.height, access.bytesPerPixel, TILE_SIZE)
 
-    fun setAfter(data: Pixmap) {
-        after = Pixmap(data.width, data.height, data.format)
-        after!!.blending = Pixmap.Blending.None
-        after!!.drawPixmap(data, 0, 0)
+    /**
+     * Records the current pixels of the given region of the splatmap, inclusive.
+     */
+    fun recordBefore(minX: Int, minY: Int, maxX: Int, maxY: Int) {
+        delta.recordBefore(access, minX, minY, maxX, maxY)
     }
 
-    fun setBefore(data: Pixmap) {
-        before = Pixmap(data.width, data.height, data.format)
-        before!!.blending = Pixmap.Blending.None
-        before!!.drawPixmap(data, 0, 0)
+    /**
+     * Keeps the changes since the recorded pixels.
+     *
+     * @return true if any pixel changed
+     */
+    fun recordAfter(): Boolean {
+        return delta.recordAfter(access)
     }
 
     override fun execute() {
-        val sm = terrain!!.terrainTexture.splatmap
-        if (sm != null) {
-            sm.pixmap.drawPixmap(after!!, 0, 0)
-            sm.updateTexture()
-        }
+        delta.applyAfter(access)
+        updateTexture()
     }
 
     override fun undo() {
+        delta.applyBefore(access)
+        updateTexture()
+    }
+
+    override fun getSizeInBytes(): Long {
+        return delta.getSizeInBytes()
+    }
+
+    private fun updateTexture() {
         val sm = terrain!!.terrainTexture.splatmap
-        if (sm != null) {
-            sm.pixmap.drawPixmap(before!!, 0, 0)
-            sm.updateTexture()
+        if (sm != null && sm.pixmap === pixmap && delta.hasChanges()) {
+            sm.updateTexture(delta.minX, delta.minY, delta.maxX - delta.minX + 1, delta.maxY - delta.minY + 1)
         }
     }
 
-    override fun dispose() {
-        after!!.dispose()
-        before!!.dispose()
+    /**
+     * Reads and writes the pixel bytes of the pixmap directly, in its own format.
+     */
+    private class PixmapAccess(private val pixmap: Pixmap) : TileDelta.GridAccess {
+        val bytesPerPixel = pixmap.pixels.capacity() / (pixmap.width * pixmap.height)
+
+        override fun read(x: Int, y: Int, count: Int, out: ByteArray, offset: Int) {
+            val pixels = pixmap.pixels.duplicate()
+            pixels.position((y * pixmap.width + x) * bytesPerPixel)
+            pixels.get(out, offset, count * bytesPerPixel)
+        }
+
+        override fun write(x: Int, y: Int, count: Int, data: ByteArray, offset: Int) {
+            val pixels = pixmap.pixels.duplicate()
+            pixels.position((y * pixmap.width + x) * bytesPerPixel)
+            pixels.put(data, offset, count * bytesPerPixel)
+        }
     }
 
 }
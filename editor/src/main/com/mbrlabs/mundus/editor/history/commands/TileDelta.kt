@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.history.commands
+
+import com.badlogic.gdx.utils.IntArray
+import com.badlogic.gdx.utils.IntMap
+import java.io.ByteArrayOutputStream
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+
+/**
+ * Sparse before/after delta of a grid of fixed size cells, like terrain vertices or splatmap pixels.
+ *
+ * The grid is split into square tiles. Before an edit, [recordBefore] copies the tiles the edit can touch
+ * that were not copied yet. Once the edit is done, [recordAfter] keeps only the tiles that changed and
+ * compresses them: the before state as is, the after state as XOR with the before state, which is zero
+ * for every unchanged cell of a tile and compresses to almost nothing.
+ */
+class TileDelta(private val width: Int, private val height: Int, private val bytesPerCell: Int,
+                private val tileSize: Int) {
+
+    /**
+     * Reads and writes spans of cells of a row as bytes.
+     */
+    interface GridAccess {
+        fun read(x: Int, y: Int, count: Int, out: ByteArray, offset: Int)
+        fun write(x: Int, y: Int, count: Int, data: ByteArray, offset: Int)
+    }
+
+    private val tilesX = (width + tileSize - 1) / tileSize
+    private val tilesY = (height + tileSize - 1) / tileSize
+
+    // Before state of the tiles touched so far, until recordAfter
+    private val pending = IntMap<ByteArray>()
+
+    private var tiles = IntArray()
+    private var before: ByteArray? = null
+    private var xor: ByteArray? = null
+    private var rawLength = 0
+
+    /** Bounds of the changed cells, inclusive, valid if [hasChanges] */
+    var minX = 0
+        private set
+    var minY = 0
+        private set
+    var maxX = -1
+        private set
+    var maxY = -1
+        private set
+
+    /**
+     * Copies the tiles overlapping the given region of cells that have not been copied yet. Must be called
+     * before the cells are modified.
+     */
+    fun recordBefore(access: GridAccess, minX: Int, minY: Int, maxX: Int, maxY: Int) {
+        val fromX = Math.max(minX, 0) / tileSize
+        val fromY = Math.max(minY, 0) / tileSize
+        val toX = Math.min(maxX, width - 1) / tileSize
+        val toY = Math.min(maxY, height - 1) / tileSize
+
+        for (tileY in fromY..toY) {
+            for (tileX in fromX..toX) {
+                val tile = tileY * tilesX + tileX
+                if (pending.containsKey(tile)) continue
+
+                val data = ByteArray(tileBytes(tile))
+                readTile(access, tile, data)
+                pending.put(tile, data)
+            }
+        }
+    }
+
+    /**
+     * Compares the recorded tiles with their current state and compresses the changed ones.
+     *
+     * @return true if any cell changed
+     */
+    fun recordAfter(access: GridAccess): Boolean {
+        val keys = pending.keys().toArray()
+        keys.sort()
+
+        var length = 0
+        for (i in 0 until keys.size) {
+            length += tileBytes(keys[i])
+        }
+        val rawBefore = ByteArray(length)
+        val rawXor = ByteArray(length)
+
+        tiles = IntArray()
+        minX = Int.MAX_VALUE
+        minY = Int.MAX_VALUE
+        maxX = -1
+        maxY = -1
+
+        var offset = 0
+        for (i in 0 until keys.size) {
+            val tile = keys[i]
+            val beforeTile = pending.get(tile)
+            val afterTile = ByteArray(beforeTile.size)
+            readTile(access, tile, afterTile)
+            if (!extendBounds(tile, beforeTile, afterTile)) continue
+
+            System.arraycopy(beforeTile, 0, rawBefore, offset, beforeTile.size)
+            for (b in beforeTile.indices) {
+                rawXor[offset + b] = (beforeTile[b].toInt() xor afterTile[b].toInt()).toByte()
+            }
+            offset += beforeTile.size
+            tiles.add(tile)
+        }
+        pending.clear()
+
+        rawLength = offset
+        before = deflate(rawBefore, offset)
+        xor = deflate(rawXor, offset)
+        return hasChanges()
+    }
+
+    fun hasChanges(): Boolean {
+        return tiles.size > 0
+    }
+
+    /**
+     * Writes the before state of the changed tiles.
+     */
+    fun applyBefore(access: GridAccess) {
+        val raw = inflate(before!!, rawLength)
+        writeTiles(access, raw)
+    }
+
+    /**
+     * Writes the after state of the changed tiles.
+     */
+    fun applyAfter(access: GridAccess) {
+        val raw = inflate(before!!, rawLength)
+        val rawXor = inflate(xor!!, rawLength)
+        for (i in 0 until rawLength) {
+            raw[i] = (raw[i].toInt() xor rawXor[i].toInt()).toByte()
+        }
+        writeTiles(access, raw)
+    }
+
+    /**
+     * @return approximate bytes held, including tiles pending a [recordAfter]
+     */
+    fun getSizeInBytes(): Long {
+        var size = (before?.size ?: 0).toLong() + (xor?.size ?: 0) + tiles.size * 4L
+        for (data in pending.values()) {
+            size += data.size
+        }
+        return size
+    }
+
+    private fun writeTiles(access: GridAccess, raw: ByteArray) {
+        var offset = 0
+        for (i in 0 until tiles.size) {
+            val tile = tiles[i]
+            val x = tileX(tile)
+            val y0 = tileY(tile)
+            val w = tileWidth(tile)
+            for (y in y0 until y0 + tileHeight(tile)) {
+                access.write(x, y, w, raw, offset)
+                offset += w * bytesPerCell
+            }
+        }
+    }
+
+    private fun readTile(access: GridAccess, tile: Int, out: ByteArray) {
+        val x = tileX(tile)
+        val y0 = tileY(tile)
+        val w = tileWidth(tile)
+        var offset = 0
+        for (y in y0 until y0 + tileHeight(tile)) {
+            access.read(x, y, w, out, offset)
+            offset += w * bytesPerCell
+        }
+    }
+
+    /**
+     * Extends the bounds by the cells that differ between the two states of a tile.
+     *
+     * @return true if any cell differs
+     */
+    private fun extendBounds(tile: Int, beforeTile: ByteArray, afterTile: ByteArray): Boolean {
+        val w = tileWidth(tile)
+        var changed = false
+        var cell = 0
+        while (cell * bytesPerCell < beforeTile.size) {
+            var b = cell * bytesPerCell
+            val end = b + bytesPerCell
+            while (b < end && beforeTile[b] == afterTile[b]) b++
+            if (b < end) {
+                val x = tileX(tile) + cell % w
+                val y = tileY(tile) + cell / w
+                minX = Math.min(minX, x)
+                minY = Math.min(minY, y)
+                maxX = Math.max(maxX, x)
+                maxY = Math.max(maxY, y)
+                changed = true
+            }
+            cell++
+        }
+        return changed
+    }
+
+    private fun tileX(tile: Int) = (tile % tilesX) * tileSize
+    private fun tileY(tile: Int) = (tile / tilesX) * tileSize
+    private fun tileWidth(tile: Int) = Math.min(tileSize, width - tileX(tile))
+    private fun tileHeight(tile: Int) = Math.min(tileSize, height - tileY(tile))
+    private fun tileBytes(tile: Int) = tileWidth(tile) * tileHeight(tile) * bytesPerCell
+
+    private fun deflate(data: ByteArray, length: Int): ByteArray {
+        val deflater = Deflater(Deflater.BEST_SPEED)
+        deflater.setInput(data, 0, length)
+        deflater.finish()
+
+        val out = ByteArrayOutputStream(Math.max(64, length / 8))
+        val buffer = ByteArray(8192)
+        while (!deflater.finished()) {
+            val count = deflater.deflate(buffer)
+            out.write(buffer, 0, count)
+        }
+        deflater.end()
+        return out.toByteArray()
+    }
+
+    private fun inflate(data: ByteArray, length: Int): ByteArray {
+        val inflater = Inflater()
+        inflater.setInput(data)
+        val out = ByteArray(length)
+        var offset = 0
+        while (offset < length && !inflater.finished()) {
+            offset += inflater.inflate(out, offset, length - offset)
+        }
+        inflater.end()
+        return out
+    }
+
+}
@@ -204,9 +204,11 @@ class FreeCamController(private val projectManager: ProjectManager, private val
             val terrainComponent: TerrainComponent? = go?.findComponentByType(Component.Type.TERRAIN)
 
             if (terrainComponent != null) {
-                val result = terrainComponent.getRayIntersection(Pools.vector3Pool.obtain(), ray)
-                helperCell = currentProject.helperLines.findHelperLineCenterObject(terrainComponent, result!!)
-                Pools.vector3Pool.free(result)
+                val intersection = Pools.vector3Pool.obtain()
+                if (terrainComponent.getRayIntersection(intersection, ray) != null) {
+                    helperCell = currentProject.helperLines.findHelperLineCenterObject(terrainComponent, intersection)
+                }
+                Pools.vector3Pool.free(intersection)
             }
 
             if (helperCell != null && helperCell.full) {
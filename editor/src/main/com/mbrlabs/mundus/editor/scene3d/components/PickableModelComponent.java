@@ -56,7 +56,7 @@ public class PickableModelComponent extends ModelComponent implements PickableCo
         mc.materials.putAll(this.materials);
         mc.setUseModelCache(useModelCache);
         mc.encodeRaypickColorId();
-        gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild();
+        gameObject.sceneGraph.scene.modelCacheManager.requestModelCacheRebuild(go);
         return mc;
     }
 }
@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.terrain;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Hydraulic droplet erosion followed by thermal talus erosion of a square height grid.
+ * <p>
+ * The hydraulic pass splits the grid into tiles. Droplets spawn in their tile and may roam a margin
+ * around it. Tiles are processed in four checkerboard phases, so tiles running at the same time are
+ * at least one tile apart and never touch the same heights: no locks are needed, and every tile sees
+ * the same neighbours no matter how the threads are scheduled. Droplets are seeded per tile and round,
+ * the thermal pass is a row parallel gather into a second buffer. The result only depends on the
+ * input and the settings, not on the number of threads.
+ * <p>
+ * Erosion works on a copy of the heights, a canceled run leaves the input untouched.
+ */
+public class Erosion {
+
+    /**
+     * Receives the progress of a run, may be called from any thread.
+     */
+    public interface ProgressListener {
+        void progressChanged(float progress);
+    }
+
+    private static final int TILE_SIZE = 64;
+    // How far droplets may leave their tile, with the radius below TILE_SIZE / 2 - ROAM_MARGIN - 1
+    private static final int ROAM_MARGIN = TILE_SIZE / 4;
+    private static final int MAX_RADIUS = 8;
+    // Droplets are spread over rounds with shifted tiles, so tile borders are eroded like everything else
+    private static final int ROUNDS = 4;
+    private static final int CANCEL_CHECK_DROPLETS = 256;
+
+    private long seed = 0;
+    // droplets per vertex
+    private float density = 1f;
+    private int radius = 3;
+    private int maxSteps = 64;
+    private float inertia = 0.05f;
+    private float capacity = 4f;
+    private float minCapacity = 0.01f;
+    private float erodeSpeed = 0.3f;
+    private float depositSpeed = 0.3f;
+    private float evaporateSpeed = 0.01f;
+    private float gravity = 4f;
+
+    private int thermalIterations = 30;
+    private float talusAngle = 35f;
+    private float thermalRate = 0.5f;
+
+    private volatile boolean canceled;
+
+    public Erosion seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param density droplets per vertex of the grid
+     */
+    public Erosion density(float density) {
+        this.density = density;
+        return this;
+    }
+
+    /**
+     * @param radius radius in cells of the area a droplet erodes, between 1 and 8
+     */
+    public Erosion radius(int radius) {
+        this.radius = MathUtils.clamp(radius, 1, MAX_RADIUS);
+        return this;
+    }
+
+    public Erosion maxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+        return this;
+    }
+
+    public Erosion inertia(float inertia) {
+        this.inertia = inertia;
+        return this;
+    }
+
+    public Erosion capacity(float capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public Erosion erodeSpeed(float erodeSpeed) {
+        this.erodeSpeed = erodeSpeed;
+        return this;
+    }
+
+    public Erosion depositSpeed(float depositSpeed) {
+        this.depositSpeed = depositSpeed;
+        return this;
+    }
+
+    public Erosion evaporateSpeed(float evaporateSpeed) {
+        this.evaporateSpeed = evaporateSpeed;
+        return this;
+    }
+
+    public Erosion thermalIterations(int thermalIterations) {
+        this.thermalIterations = thermalIterations;
+        return this;
+    }
+
+    /**
+     * @param talusAngle steepest slope in degrees that thermal erosion leaves as is
+     */
+    public Erosion talusAngle(float talusAngle) {
+        this.talusAngle = talusAngle;
+        return this;
+    }
+
+    public Erosion thermalRate(float thermalRate) {
+        this.thermalRate = thermalRate;
+        return this;
+    }
+
+    /**
+     * Stops a running {@link #erode}, which then returns null.
+     */
+    public void cancel() {
+        canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Erodes a copy of the heights.
+     *
+     * @param heights the heights, row by row
+     * @param resolution vertices per side
+     * @param cellSize distance between two vertices in world units
+     * @param listener progress listener or null
+     * @return the eroded heights, or null if canceled
+     */
+    public float[] erode(float[] heights, int resolution, float cellSize, ProgressListener listener) {
+        canceled = false;
+
+        // Slopes are computed in cells, so heights are scaled to cell units while eroding
+        final float[] map = new float[heights.length];
+        for (int i = 0; i < map.length; i++) {
+            map[i] = heights[i] / cellSize;
+        }
+
+        int tilesPerRound = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            int tiles = tilesPerSide(resolution, round);
+            tilesPerRound += tiles * tiles;
+        }
+        final Progress progress = new Progress(tilesPerRound + thermalIterations, listener);
+
+        if (!erodeHydraulic(map, resolution, progress)) return null;
+        if (!erodeThermal(map, resolution, progress)) return null;
+
+        for (int i = 0; i < map.length; i++) {
+            map[i] *= cellSize;
+        }
+        return map;
+    }
+
+    private boolean erodeHydraulic(final float[] map, final int resolution, final Progress progress) {
+        final Brush brush = new Brush(radius);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            final int shift = round * TILE_SIZE / ROUNDS;
+            final int tiles = tilesPerSide(resolution, round);
+            final int r = round;
+
+            for (int phase = 0; phase < 4; phase++) {
+                final IntArray phaseTiles = new IntArray();
+                for (int tz = phase / 2; tz < tiles; tz += 2) {
+                    for (int tx = phase % 2; tx < tiles; tx += 2) {
+                        phaseTiles.add(tz * tiles + tx);
+                    }
+                }
+
+                IntStream.range(0, phaseTiles.size).parallel().forEach(i -> {
+                    if (canceled) return;
+                    int tile = phaseTiles.get(i);
+                    erodeTile(map, resolution, brush, tile % tiles, tile / tiles, shift, r);
+                    progress.step();
+                });
+                if (canceled) return false;
+            }
+        }
+        return true;
+    }
+
+    private void erodeTile(float[] map, int resolution, Brush brush, int tileX, int tileZ, int shift, int round) {
+        final int cells = resolution - 1;
+        final int spawnMinX = Math.max(0, tileX * TILE_SIZE - shift);
+        final int spawnMinZ = Math.max(0, tileZ * TILE_SIZE - shift);
+        final int spawnMaxX = Math.min(cells, (tileX + 1) * TILE_SIZE - shift);
+        final int spawnMaxZ = Math.min(cells, (tileZ + 1) * TILE_SIZE - shift);
+        if (spawnMaxX <= spawnMinX || spawnMaxZ <= spawnMinZ) return;
+
+        // Droplets stay in cells whose four corners are within the roam area
+        final int roamMinX = Math.max(0, spawnMinX - ROAM_MARGIN);
+        final int roamMinZ = Math.max(0, spawnMinZ - ROAM_MARGIN);
+        final int roamMaxX = Math.min(cells, spawnMaxX + ROAM_MARGIN);
+        final int roamMaxZ = Math.min(cells, spawnMaxZ + ROAM_MARGIN);
+
+        final int droplets = Math.round((spawnMaxX - spawnMinX) * (spawnMaxZ - spawnMinZ) * density / ROUNDS);
+        final RandomXS128 random = new RandomXS128(hash(seed, tileX, tileZ, round));
+
+        final float[] sample = new float[3];
+        for (int droplet = 0; droplet < droplets; droplet++) {
+            if (droplet % CANCEL_CHECK_DROPLETS == 0 && canceled) return;
+
+            float posX = spawnMinX + random.nextFloat() * (spawnMaxX - spawnMinX);
+            float posZ = spawnMinZ + random.nextFloat() * (spawnMaxZ - spawnMinZ);
+            float dirX = 0;
+            float dirZ = 0;
+            float speed = 1;
+            float water = 1;
+            float sediment = 0;
+
+            for (int step = 0; step < maxSteps; step++) {
+                final int nodeX = (int) posX;
+                final int nodeZ = (int) posZ;
+                final float offsetX = posX - nodeX;
+                final float offsetZ = posZ - nodeZ;
+
+                sample(map, resolution, posX, posZ, sample);
+                final float height = sample[0];
+
+                dirX = dirX * inertia - sample[1] * (1 - inertia);
+                dirZ = dirZ * inertia - sample[2] * (1 - inertia);
+                final float length = (float) Math.sqrt(dirX * dirX + dirZ * dirZ);
+                if (length == 0) break;
+                dirX /= length;
+                dirZ /= length;
+                posX += dirX;
+                posZ += dirZ;
+
+                if (posX < roamMinX || posZ < roamMinZ || posX >= roamMaxX || posZ >= roamMaxZ) break;
+
+                sample(map, resolution, posX, posZ, sample);
+                final float deltaHeight = sample[0] - height;
+                final float sedimentCapacity = Math.max(-deltaHeight * speed * water * capacity, minCapacity);
+
+                if (sediment > sedimentCapacity || deltaHeight > 0) {
+                    // Fill the pit when going uphill, else drop the surplus
+                    float deposit = deltaHeight > 0
+                            ? Math.min(deltaHeight, sediment)
+                            : (sediment - sedimentCapacity) * depositSpeed;
+                    sediment -= deposit;
+
+                    final int index = nodeZ * resolution + nodeX;
+                    map[index] += deposit * (1 - offsetX) * (1 - offsetZ);
+                    map[index + 1] += deposit * offsetX * (1 - offsetZ);
+                    map[index + resolution] += deposit * (1 - offsetX) * offsetZ;
+                    map[index + resolution + 1] += deposit * offsetX * offsetZ;
+                } else {
+                    // Nothing is dug below the height the water flows to, or droplets running along the
+                    // border of the map keep digging a trench into it
+                    final float floor = sample[0];
+                    final float erode = Math.min((sedimentCapacity - sediment) * erodeSpeed, -deltaHeight);
+                    for (int i = 0; i < brush.size; i++) {
+                        final int x = nodeX + brush.offsetX[i];
+                        final int z = nodeZ + brush.offsetZ[i];
+                        if (x < 0 || z < 0 || x >= resolution || z >= resolution) continue;
+                        final int index = z * resolution + x;
+                        final float removed = Math.min(erode * brush.weight[i], map[index] - floor);
+                        if (removed > 0) {
+                            map[index] -= removed;
+                            sediment += removed;
+                        }
+                    }
+                }
+
+                speed = (float) Math.sqrt(Math.max(0, speed * speed - deltaHeight * gravity));
+                water *= 1 - evaporateSpeed;
+            }
+        }
+    }
+
+    /**
+     * Bilinear height and gradient at a position within the grid.
+     */
+    private static void sample(float[] map, int resolution, float posX, float posZ, float[] out) {
+        final int nodeX = (int) posX;
+        final int nodeZ = (int) posZ;
+        final float x = posX - nodeX;
+        final float z = posZ - nodeZ;
+
+        final int index = nodeZ * resolution + nodeX;
+        final float h00 = map[index];
+        final float h10 = map[index + 1];
+        final float h01 = map[index + resolution];
+        final float h11 = map[index + resolution + 1];
+
+        out[0] = h00 * (1 - x) * (1 - z) + h10 * x * (1 - z) + h01 * (1 - x) * z + h11 * x * z;
+        out[1] = (h10 - h00) * (1 - z) + (h11 - h01) * z;
+        out[2] = (h01 - h00) * (1 - x) + (h11 - h10) * x;
+    }
+
+    private boolean erodeThermal(final float[] map, final int resolution, final Progress progress) {
+        // Height difference between neighbours, in cells, above which material slides down
+        final float talus = (float) Math.tan(Math.toRadians(talusAngle));
+        final float[] outflow = new float[map.length];
+        final float[] excess = new float[map.length];
+        final float[] result = new float[map.length];
+
+        float[] src = map;
+        float[] dst = result;
+        for (int iteration = 0; iteration < thermalIterations; iteration++) {
+            if (canceled) return false;
+
+            final float[] heights = src;
+            final float[] target = dst;
+
+            // How much leaves each cell, and the total excess it is split by
+            IntStream.range(0, resolution).parallel().forEach(z -> {
+                for (int x = 0; x < resolution; x++) {
+                    final int i = z * resolution + x;
+                    final float h = heights[i];
+                    float sum = 0;
+                    float max = 0;
+                    for (int n = 0; n < 4; n++) {
+                        final int j = neighbour(x, z, n, resolution);
+                        if (j < 0) continue;
+                        final float d = h - heights[j] - talus;
+                        if (d > 0) {
+                            sum += d;
+                            max = Math.max(max, d);
+                        }
+                    }
+                    excess[i] = sum;
+                    outflow[i] = thermalRate * max * 0.5f;
+                }
+            });
+
+            // Every cell gathers its share from its higher neighbours
+            IntStream.range(0, resolution).parallel().forEach(z -> {
+                for (int x = 0; x < resolution; x++) {
+                    final int i = z * resolution + x;
+                    final float h = heights[i];
+                    float value = h - outflow[i];
+                    for (int n = 0; n < 4; n++) {
+                        final int j = neighbour(x, z, n, resolution);
+                        if (j < 0) continue;
+                        final float d = heights[j] - h - talus;
+                        if (d > 0) {
+                            value += outflow[j] * d / excess[j];
+                        }
+                    }
+                    target[i] = value;
+                }
+            });
+
+            src = target;
+            dst = heights;
+            progress.step();
+        }
+
+        if (src != map) {
+            System.arraycopy(src, 0, map, 0, map.length);
+        }
+        return true;
+    }
+
+    private static int neighbour(int x, int z, int n, int resolution) {
+        switch (n) {
+            case 0: return x > 0 ? z * resolution + x - 1 : -1;
+            case 1: return x < resolution - 1 ? z * resolution + x + 1 : -1;
+            case 2: return z > 0 ? (z - 1) * resolution + x : -1;
+            default: return z < resolution - 1 ? (z + 1) * resolution + x : -1;
+        }
+    }
+
+    private static int tilesPerSide(int resolution, int round) {
+        int shift = round * TILE_SIZE / ROUNDS;
+        return (resolution - 1 + shift + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    private static long hash(long seed, int tileX, int tileZ, int round) {
+        long h = seed + tileX * 0x9E3779B97F4A7C15L + tileZ * 0xC2B2AE3D27D4EB4FL + round * 0x165667B19E3779F9L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Offsets and normalized weights of the cells within the erosion radius.
+     */
+    private static class Brush {
+        final int size;
+        final int[] offsetX;
+        final int[] offsetZ;
+        final float[] weight;
+
+        Brush(int radius) {
+            IntArray xs = new IntArray();
+            IntArray zs = new IntArray();
+            float[] weights = new float[(2 * radius + 1) * (2 * radius + 1)];
+            float sum = 0;
+            for (int z = -radius; z <= radius; z++) {
+                for (int x = -radius; x <= radius; x++) {
+                    float distance = (float) Math.sqrt(x * x + z * z);
+                    if (distance >= radius) continue;
+                    float w = 1 - distance / radius;
+                    weights[xs.size] = w;
+                    sum += w;
+                    xs.add(x);
+                    zs.add(z);
+                }
+            }
+            size = xs.size;
+            offsetX = xs.toArray();
+            offsetZ = zs.toArray();
+            weight = new float[size];
+            for (int i = 0; i < size; i++) {
+                weight[i] = weights[i] / sum;
+            }
+        }
+    }
+
+    private static class Progress {
+        private final int steps;
+        private final ProgressListener listener;
+        private final AtomicInteger done = new AtomicInteger();
+
+        Progress(int steps, ProgressListener listener) {
+            this.steps = Math.max(1, steps);
+            this.listener = listener;
+        }
+
+        void step() {
+            int count = done.incrementAndGet();
+            if (listener != null) {
+                listener.progressChanged(Math.min(1f, count / (float) steps));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mbrlabs.mundus.editor.terrain;
+
+import java.io.File;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.mbrlabs.mundus.commons.assets.meta.Meta;
+import com.mbrlabs.mundus.commons.assets.meta.MetaFileParseException;
+import com.mbrlabs.mundus.commons.assets.meta.MetaLoader;
+import com.mbrlabs.mundus.commons.terrain.TerraFile;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+
+/**
+ * Headless erosion of .terra files, for content pipelines. Needs no running application.
+ * <p>
+ * Usage: ErosionBatch [--seed n] [--density n] [--radius n] [--thermal n] [--talus degrees] [--size n]
+ * &lt;file.terra or directory&gt;...
+ * <p>
+ * Directories are searched recursively. Files are overwritten with the eroded heights. The world size of a
+ * terrain is read from its meta file, --size is used for files without one.
+ */
+public class ErosionBatch {
+
+    private static final String TERRA_EXTENSION = "terra";
+
+    public static void main(String[] args) {
+        Erosion erosion = new Erosion();
+        int defaultSize = Terrain.DEFAULT_SIZE;
+        Array<FileHandle> files = new Array<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--seed": erosion.seed(Long.parseLong(args[++i])); break;
+                    case "--density": erosion.density(Float.parseFloat(args[++i])); break;
+                    case "--radius": erosion.radius(Integer.parseInt(args[++i])); break;
+                    case "--thermal": erosion.thermalIterations(Integer.parseInt(args[++i])); break;
+                    case "--talus": erosion.talusAngle(Float.parseFloat(args[++i])); break;
+                    case "--size": defaultSize = Integer.parseInt(args[++i]); break;
+                    default: collect(new FileHandle(new File(arg)), files);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            usage();
+            return;
+        }
+
+        if (files.size == 0) {
+            usage();
+            return;
+        }
+
+        int failed = 0;
+        for (FileHandle file : files) {
+            try {
+                erode(erosion, file, defaultSize);
+            } catch (GdxRuntimeException e) {
+                System.err.println("Failed to erode " + file.path() + ": " + e.getMessage());
+                failed++;
+            }
+        }
+        System.out.println("Eroded " + (files.size - failed) + " of " + files.size + " terrains");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void erode(Erosion erosion, FileHandle file, int defaultSize) {
+        long start = System.currentTimeMillis();
+        float[] heights = TerraFile.read(file);
+        int resolution = (int) Math.sqrt(heights.length);
+        if (resolution * resolution != heights.length || resolution < 2) {
+            throw new GdxRuntimeException("Terrain is not square");
+        }
+
+        float cellSize = worldSize(file, defaultSize) / (float) (resolution - 1);
+        float[] eroded = erosion.erode(heights, resolution, cellSize, null);
+        TerraFile.write(file, eroded, TerraFile.LOSSLESS_FLAGS);
+
+        System.out.println(file.path() + ": " + resolution + "x" + resolution + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static int worldSize(FileHandle file, int defaultSize) {
+        FileHandle metaFile = new FileHandle(new File(file.path() + "." + Meta.META_EXTENSION));
+        if (!metaFile.exists()) return defaultSize;
+
+        try {
+            Meta meta = new MetaLoader().load(metaFile);
+            return meta.getTerrain() != null ? meta.getTerrain().getSize() : defaultSize;
+        } catch (MetaFileParseException e) {
+            return defaultSize;
+        }
+    }
+
+    private static void collect(FileHandle file, Array<FileHandle> out) {
+        if (file.isDirectory()) {
+            for (FileHandle child : file.list()) {
+                collect(child, out);
+            }
+        } else if (TERRA_EXTENSION.equals(file.extension())) {
+            out.add(file);
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: ErosionBatch [--seed n] [--density n] [--radius n] [--thermal n]"
+                + " [--talus degrees] [--size n] <file.terra or directory>...");
+    }
+
+}
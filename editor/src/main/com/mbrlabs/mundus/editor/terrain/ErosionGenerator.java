@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mbrlabs.mundus.editor.terrain;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.editor.Mundus;
+import com.mbrlabs.mundus.editor.events.TerrainVerticesChangedEvent;
+
+import java.util.Arrays;
+
+/**
+ * Erodes the heights of a terrain, see {@link Erosion}.
+ * <p>
+ * {@link #terraform()} runs on the calling thread. To keep the UI responsive, call {@link #snapshot()} on the
+ * render thread, {@link #erode()} on a background thread and {@link #apply(float[])} with the result on the
+ * render thread again.
+ */
+public class ErosionGenerator extends Generator<ErosionGenerator> {
+
+    private final TerrainComponent terrainComponent;
+    private final Erosion erosion = new Erosion();
+    private Erosion.ProgressListener listener;
+    private float[] snapshot;
+
+    ErosionGenerator(TerrainComponent terrainComponent) {
+        super(terrainComponent.getTerrainAsset().getTerrain());
+        this.terrainComponent = terrainComponent;
+    }
+
+    public ErosionGenerator seed(long seed) {
+        erosion.seed(seed);
+        return this;
+    }
+
+    public ErosionGenerator density(float density) {
+        erosion.density(density);
+        return this;
+    }
+
+    public ErosionGenerator radius(int radius) {
+        erosion.radius(radius);
+        return this;
+    }
+
+    public ErosionGenerator thermalIterations(int iterations) {
+        erosion.thermalIterations(iterations);
+        return this;
+    }
+
+    public ErosionGenerator talusAngle(float degrees) {
+        erosion.talusAngle(degrees);
+        return this;
+    }
+
+    public ErosionGenerator listener(Erosion.ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Stops a running {@link #erode()}.
+     */
+    public void cancel() {
+        erosion.cancel();
+    }
+
+    /**
+     * Copies the current terrain heights for {@link #erode()}. Call on the render thread, brushes change
+     * the heights there.
+     */
+    public ErosionGenerator snapshot() {
+        snapshot = terrain.heightData.clone();
+        return this;
+    }
+
+    /**
+     * Erodes the heights copied by {@link #snapshot()}, may be called from any thread.
+     *
+     * @return the eroded heights, or null if canceled
+     */
+    public float[] erode() {
+        if (snapshot == null) {
+            throw new GdxRuntimeException("Take a snapshot of the terrain heights before eroding");
+        }
+        float cellSize = terrain.terrainWidth / (float) (terrain.vertexResolution - 1);
+        return erosion.erode(snapshot, terrain.vertexResolution, cellSize, listener);
+    }
+
+    /**
+     * Sets the heights returned by {@link #erode()} and updates the terrain, unless the terrain was changed
+     * since the {@link #snapshot()}, e.g. by a brush while eroding.
+     *
+     * @return true if the heights were applied, false if the terrain changed and they were discarded
+     */
+    public boolean apply(float[] heights) {
+        if (!Arrays.equals(snapshot, terrain.heightData)) {
+            return false;
+        }
+        System.arraycopy(heights, 0, terrain.heightData, 0, heights.length);
+        terrain.update();
+        Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
+        return true;
+    }
+
+    @Override
+    public void terraform() {
+        float[] heights = snapshot().erode();
+        if (heights != null) {
+            apply(heights);
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.terrain;
+
+/**
+ * Fractal Brownian motion of 2D simplex noise with optional domain warping.
+ * <p>
+ * The gradients of the simplex lattice come from an integer hash of the lattice point and the seed,
+ * so a sample only depends on its position and the settings. Sampling is stateless and thread safe,
+ * and gives the same result on any thread.
+ */
+public class FractalNoise {
+
+    private static final float F2 = (float) (0.5 * (Math.sqrt(3.0) - 1.0));
+    private static final float G2 = (float) ((3.0 - Math.sqrt(3.0)) / 6.0);
+    private static final float[] GRAD_X = {1, -1, 1, -1, 1, -1, 0, 0};
+    private static final float[] GRAD_Y = {1, 1, -1, -1, 0, 0, 1, -1};
+
+    // Octave and warp seeds are derived from the seed with these
+    private static final int OCTAVE_SEED_STEP = 0x3C6EF372;
+    private static final int WARP_SEED_X = 0x1B873593;
+    private static final int WARP_SEED_Z = 0x68E31DA4;
+    // Warp offsets use fewer octaves than the height itself
+    private static final int WARP_OCTAVES = 3;
+
+    private final int seed;
+    private final int octaves;
+    private final float frequency;
+    private final float lacunarity;
+    private final float gain;
+    private final float warp;
+
+    /**
+     * @param seed the seed
+     * @param octaves number of noise layers, at least 1
+     * @param frequency frequency of the first octave, 1 / size of the largest features
+     * @param lacunarity frequency multiplier per octave, usually 2
+     * @param gain amplitude multiplier per octave, the roughness. Usually 0.5
+     * @param warp how far positions are displaced by the warp noise, in multiples of the largest feature
+     *             size. 0 disables domain warping
+     */
+    public FractalNoise(long seed, int octaves, float frequency, float lacunarity, float gain, float warp) {
+        this.seed = (int) (seed ^ (seed >>> 32));
+        this.octaves = Math.max(1, octaves);
+        this.frequency = frequency;
+        this.lacunarity = lacunarity;
+        this.gain = gain;
+        this.warp = warp;
+    }
+
+    /**
+     * @return the noise at the given position, between 0 and 1
+     */
+    public float sample(float x, float z) {
+        if (warp != 0) {
+            float scale = warp / frequency;
+            float warpX = fbm(x, z, seed + WARP_SEED_X, Math.min(octaves, WARP_OCTAVES));
+            float warpZ = fbm(x, z, seed + WARP_SEED_Z, Math.min(octaves, WARP_OCTAVES));
+            x += warpX * scale;
+            z += warpZ * scale;
+        }
+        return fbm(x, z, seed, octaves) * 0.5f + 0.5f;
+    }
+
+    /**
+     * @return sum of the octaves normalized by the sum of their amplitudes, between -1 and 1
+     */
+    private float fbm(float x, float z, int seed, int octaves) {
+        float sum = 0;
+        float amplitude = 1;
+        float amplitudes = 0;
+        float f = frequency;
+        for (int octave = 0; octave < octaves; octave++) {
+            sum += simplex(x * f, z * f, seed + octave * OCTAVE_SEED_STEP) * amplitude;
+            amplitudes += amplitude;
+            amplitude *= gain;
+            f *= lacunarity;
+        }
+        return amplitudes > 0 ? Math.max(-1f, Math.min(1f, sum / amplitudes)) : 0;
+    }
+
+    /**
+     * 2D simplex noise, between about -1 and 1.
+     */
+    static float simplex(float x, float y, int seed) {
+        // Skew to the simplex grid and find the cell
+        float s = (x + y) * F2;
+        int i = floor(x + s);
+        int j = floor(y + s);
+        float t = (i + j) * G2;
+        float x0 = x - (i - t);
+        float y0 = y - (j - t);
+
+        // Lower or upper triangle of the cell
+        int i1 = x0 > y0 ? 1 : 0;
+        int j1 = 1 - i1;
+
+        float x1 = x0 - i1 + G2;
+        float y1 = y0 - j1 + G2;
+        float x2 = x0 - 1f + 2f * G2;
+        float y2 = y0 - 1f + 2f * G2;
+
+        float n = corner(hash(i, j, seed), x0, y0)
+                + corner(hash(i + i1, j + j1, seed), x1, y1)
+                + corner(hash(i + 1, j + 1, seed), x2, y2);
+        return 70f * n;
+    }
+
+    private static float corner(int hash, float x, float y) {
+        float t = 0.5f - x * x - y * y;
+        if (t <= 0) return 0;
+        int g = hash & 7;
+        t *= t;
+        return t * t * (GRAD_X[g] * x + GRAD_Y[g] * y);
+    }
+
+    /**
+     * Integer hash of a lattice point, with the finalizer of MurmurHash3.
+     */
+    static int hash(int x, int y, int seed) {
+        int h = seed + x * 0x27D4EB2D + y * 0x165667B1;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int floor(float value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.terrain;
+
+import java.util.stream.IntStream;
+
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.editor.Mundus;
+import com.mbrlabs.mundus.editor.events.TerrainVerticesChangedEvent;
+
+/**
+ * Generates heights from fractal simplex noise, see {@link FractalNoise}.
+ * <p>
+ * Rows are filled in parallel. Every height only depends on its position and the settings, so the
+ * result is the same for any number of threads.
+ */
+public class NoiseGenerator extends Generator<NoiseGenerator> {
+
+    private final TerrainComponent terrainComponent;
+
+    private long seed = 0;
+    // number of noise layers
+    private int octaves = 6;
+    // decrease of amplitude per octave
+    private float roughness = 0.5f;
+    // increase of frequency per octave
+    private float lacunarity = 2f;
+    // size of the largest features in world units
+    private float scale = 400f;
+    // strength of the domain warping, 0 to disable
+    private float warp = 0f;
+
+    NoiseGenerator(TerrainComponent terrainComponent) {
+        this(terrainComponent.getTerrainAsset().getTerrain(), terrainComponent);
+    }
+
+    /**
+     * @param terrain the terrain to terraform, may be null if only {@link #fill} is used
+     */
+    NoiseGenerator(Terrain terrain, TerrainComponent terrainComponent) {
+        super(terrain);
+        this.terrainComponent = terrainComponent;
+    }
+
+    public NoiseGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public NoiseGenerator octaves(int octaves) {
+        this.octaves = octaves;
+        return this;
+    }
+
+    public NoiseGenerator roughness(float roughness) {
+        this.roughness = roughness;
+        return this;
+    }
+
+    public NoiseGenerator lacunarity(float lacunarity) {
+        this.lacunarity = lacunarity;
+        return this;
+    }
+
+    public NoiseGenerator scale(float scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    public NoiseGenerator warp(float warp) {
+        this.warp = warp;
+        return this;
+    }
+
+    @Override
+    public void terraform() {
+        fill(terrain.heightData, terrain.vertexResolution, terrain.terrainWidth, terrain.terrainDepth);
+        terrain.update();
+        Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
+    }
+
+    /**
+     * Fills a height grid of the given resolution and size in world units.
+     */
+    void fill(final float[] heights, final int resolution, float width, float depth) {
+        final FractalNoise noise = new FractalNoise(seed, octaves, 1f / Math.max(scale, 0.0001f), lacunarity,
+                roughness, warp);
+        final float cellWidth = width / (resolution - 1);
+        final float cellDepth = depth / (resolution - 1);
+        final float range = maxHeight - minHeight;
+
+        IntStream.range(0, resolution).parallel().forEach(z -> {
+            final int row = z * resolution;
+            final float posZ = z * cellDepth;
+            for (int x = 0; x < resolution; x++) {
+                heights[row + x] = minHeight + range * noise.sample(x * cellWidth, posZ);
+            }
+        });
+    }
+
+}
@@ -26,8 +26,12 @@ import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
  */
 public class Terraformer {
 
-    public static PerlinNoiseGenerator perlin(final TerrainComponent terrainComponent) {
-        return new PerlinNoiseGenerator(terrainComponent);
+    public static NoiseGenerator noise(final TerrainComponent terrainComponent) {
+        return new NoiseGenerator(terrainComponent);
+    }
+
+    public static ErosionGenerator erosion(final TerrainComponent terrainComponent) {
+        return new ErosionGenerator(terrainComponent);
     }
 
     public static HeightMapGenerator heightMap(final TerrainComponent terrainComponent) {
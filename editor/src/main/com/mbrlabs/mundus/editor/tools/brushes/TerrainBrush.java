@@ -19,11 +19,10 @@ package com.mbrlabs.mundus.editor.tools.brushes;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.Ray;
 import com.mbrlabs.mundus.commons.assets.TerrainAsset;
@@ -31,8 +30,6 @@ import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
 import com.mbrlabs.mundus.commons.terrain.SplatMap;
 import com.mbrlabs.mundus.commons.terrain.SplatTexture;
 import com.mbrlabs.mundus.commons.terrain.Terrain;
-import com.mbrlabs.mundus.commons.utils.MathUtils;
-import com.mbrlabs.mundus.commons.utils.Pools;
 import com.mbrlabs.mundus.editor.Mundus;
 import com.mbrlabs.mundus.editor.core.project.ProjectManager;
 import com.mbrlabs.mundus.editor.events.GlobalBrushSettingsChangedEvent;
@@ -44,6 +41,9 @@ import com.mbrlabs.mundus.editor.shader.EditorPBRTerrainShader;
 import com.mbrlabs.mundus.editor.tools.Tool;
 import com.mbrlabs.mundus.editor.ui.UI;
 
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
 /**
  * A Terrain Brush can modify the terrainAsset in various ways (BrushMode).
  * <p>
@@ -102,14 +102,15 @@ public abstract class TerrainBrush extends Tool {
 
     // used for calculations
     protected static final Vector3 rampEndPoint = new Vector3();
-    protected static final Vector2 c = new Vector2();
-    protected static final Vector2 p = new Vector2();
-    protected static final Vector2 v = new Vector2();
-    protected static final Color c0 = new Color();
     protected static final Vector3 tVec0 = new Vector3();
     protected static final Vector3 tVec1 = new Vector3();
     protected static final Vector3 tVec2 = new Vector3();
     private static final Matrix4 tmpMatrix = new Matrix4();
+    private static final Vector3 rayOrigin = new Vector3();
+    private static final Vector3 rayDirection = new Vector3();
+
+    // brushes covering fewer rows of vertices are applied on the calling thread
+    private static final int PARALLEL_MIN_ROWS = 16;
 
     // all brushes share the some common settings
     private static final GlobalBrushSettingsChangedEvent brushSettingsChangedEvent = new GlobalBrushSettingsChangedEvent();
@@ -126,9 +127,13 @@ public abstract class TerrainBrush extends Tool {
     private BrushAction action;
 
     private boolean mouseMoved = false;
+    // false if the last pick ray reached neither the terrain nor its base plane, brushPos is stale then
+    private boolean brushOnTerrain = false;
 
-    // the pixmap brush
-    private final Pixmap brushPixmap;
+    // r-channel of the brush pixmap, decoded once so kernels don't sample the pixmap per vertex
+    private final float[] brushFalloff;
+    private final int brushWidth;
+    private final int brushHeight;
     private final int pixmapCenter;
 
     // undo/redo system
@@ -141,14 +146,25 @@ public abstract class TerrainBrush extends Tool {
             FileHandle pixmapBrush) {
         super(projectManager, history);
 
-        brushPixmap = new Pixmap(pixmapBrush);
-        pixmapCenter = brushPixmap.getWidth() / 2;
+        Pixmap brushPixmap = new Pixmap(pixmapBrush);
+        brushWidth = brushPixmap.getWidth();
+        brushHeight = brushPixmap.getHeight();
+        pixmapCenter = brushWidth / 2;
+
+        brushFalloff = new float[brushWidth * brushHeight];
+        for (int y = 0; y < brushHeight; y++) {
+            for (int x = 0; x < brushWidth; x++) {
+                brushFalloff[y * brushWidth + x] = ((brushPixmap.getPixel(x, y) >>> 24) & 0xff) / 255f;
+            }
+        }
+        brushPixmap.dispose();
     }
 
     @Override
     public void act() {
         if (action == null) return;
         if (terrainAsset == null) return;
+        if (!brushOnTerrain) return;
 
         // sample height
         if (action == BrushAction.SECONDARY && (mode == BrushMode.FLATTEN)) {
@@ -197,20 +213,31 @@ public abstract class TerrainBrush extends Tool {
         final float splatX = (tVec1.x / (float) terrain.terrainWidth) * sm.getWidth();
         final float splatY = (tVec1.z / (float) terrain.terrainDepth) * sm.getHeight();
         final float splatRad = (radius / terrain.terrainWidth) * sm.getWidth();
-        final Pixmap pixmap = sm.getPixmap();
-
-        for (int smX = 0; smX < pixmap.getWidth(); smX++) {
-            for (int smY = 0; smY < pixmap.getHeight(); smY++) {
-                final float dst = Vector2.dst(splatX, splatY, smX, smY);
-                if (dst <= splatRad) {
-                    final float opacity = getValueOfBrushPixmap(splatX, splatY, smX, smY, splatRad) * 0.5f * strength;
-                    int newPixelColor = sm.additiveBlend(pixmap.getPixel(smX, smY), paintChannel, opacity);
-                    pixmap.drawPixel(smX, smY, newPixelColor);
+        final float splatRad2 = splatRad * splatRad;
+        final float opacityScale = 0.5f * strength;
+
+        // only the pixels within the bounding rectangle of the brush can change
+        final int minX = Math.max(0, (int) Math.floor(splatX - splatRad));
+        final int minY = Math.max(0, (int) Math.floor(splatY - splatRad));
+        final int maxX = Math.min(sm.getWidth() - 1, (int) Math.ceil(splatX + splatRad));
+        final int maxY = Math.min(sm.getHeight() - 1, (int) Math.ceil(splatY + splatRad));
+        if (minX > maxX || minY > maxY) return;
+        if (paintCommand != null) {
+            paintCommand.recordBefore(minX, minY, maxX, maxY);
+        }
+
+        for (int smY = minY; smY <= maxY; smY++) {
+            final float dy = smY - splatY;
+            for (int smX = minX; smX <= maxX; smX++) {
+                final float dx = smX - splatX;
+                if (dx * dx + dy * dy <= splatRad2) {
+                    final float opacity = getBrushFalloff(dx, dy, splatRad) * opacityScale;
+                    sm.additiveBlend(smX, smY, paintChannel, opacity);
                 }
             }
         }
 
-        sm.updateTexture();
+        sm.updateTexture(minX, minY, maxX - minX + 1, maxY - minY + 1);
         splatmapModified = true;
         getProjectManager().current().assetManager.addModifiedAsset(terrainAsset);
     }
@@ -220,209 +247,289 @@ public abstract class TerrainBrush extends Tool {
      * will a falloff effect based on distance from radius.
      */
     private void smooth() {
-        Terrain terrain = terrainAsset.getTerrain();
+        final Terrain terrain = terrainAsset.getTerrain();
+        final float[] heightData = terrain.heightData;
+        final int res = terrain.vertexResolution;
+        final float cellWidth = terrain.terrainWidth / (float) (res - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (res - 1);
 
         // should convert world position to terrain local position
         getBrushLocalPosition(tVec2);
+        final float centerX = tVec2.x;
+        final float centerZ = tVec2.z;
+        final float radius = this.radius;
+        final float radius2 = radius * radius;
+        final float strength = TerrainBrush.strength;
+
+        final int minX = firstVertex(centerX - radius, cellWidth, res);
+        final int maxX = lastVertex(centerX + radius, cellWidth, res);
+        final int minZ = firstVertex(centerZ - radius, cellDepth, res);
+        final int maxZ = lastVertex(centerZ + radius, cellDepth, res);
+        if (minX > maxX || minZ > maxZ) return;
+
+        // Get total height of all vertices within radius, summed per row so rows can run in parallel
+        final float[] rowHeights = new float[maxZ - minZ + 1];
+        final int[] rowWeights = new int[maxZ - minZ + 1];
+        forEachRow(minZ, maxZ, z -> {
+            final float dz = z * cellDepth - centerZ;
+            for (int x = minX; x <= maxX; x++) {
+                final float dx = x * cellWidth - centerX;
+                if (dx * dx + dz * dz <= radius2) {
+                    rowHeights[z - minZ] += heightData[z * res + x];
+                    rowWeights[z - minZ]++;
+                }
+            }
+        });
 
         int weights = 0;
         float totalHeights = 0;
-
-        // Get total height of all vertices within radius
-        for (int x = 0; x < terrain.vertexResolution; x++) {
-            for (int z = 0; z < terrain.vertexResolution; z++) {
-                final Vector3 vertexPos = terrain.getVertexPosition(tVec0, x, z);
-                float distance = vertexPos.dst(tVec2);
-
-                tVec2.y = vertexPos.y;
-                if (distance <= radius) {
-                    totalHeights += vertexPos.y;
-                    weights++;
-                }
-            }
+        for (int i = 0; i < rowHeights.length; i++) {
+            totalHeights += rowHeights[i];
+            weights += rowWeights[i];
         }
+        if (weights == 0) return;
 
-        float averageHeight = totalHeights / weights;
+        final float averageHeight = totalHeights / weights;
+        recordHeightsBefore(minX, minZ, maxX, maxZ);
 
         // Interpolate height with averageHeight
-        for (int x = 0; x < terrain.vertexResolution; x++) {
-            for (int z = 0; z < terrain.vertexResolution; z++) {
-                final Vector3 vertexPos = terrain.getVertexPosition(tVec0, x, z);
-                tVec2.y = vertexPos.y;
-                float distance = vertexPos.dst(tVec2);
-
-                if (distance <= radius) {
-                    final int index = z * terrain.vertexResolution + x;
-                    float heightAtIndex = terrain.heightData[index];
+        forEachRow(minZ, maxZ, z -> {
+            final float dz = z * cellDepth - centerZ;
+            for (int x = minX; x <= maxX; x++) {
+                final float dx = x * cellWidth - centerX;
+                if (dx * dx + dz * dz <= radius2) {
+                    final int index = z * res + x;
                     // Determine how much to interpolate based on distance from radius
-                    float elevation = getValueOfBrushPixmap(tVec2.x, tVec2.z, vertexPos.x, vertexPos.z, radius);
-                    float smoothedHeight = Interpolation.smooth2.apply(heightAtIndex, averageHeight, elevation * strength);
-                    terrain.heightData[index] = smoothedHeight;
+                    float elevation = getBrushFalloff(dx, dz, radius);
+                    heightData[index] = Interpolation.smooth2.apply(heightData[index], averageHeight, elevation * strength);
                 }
             }
-        }
+        });
 
-        terrain.update();
+        updateTerrain(terrain, centerX - radius, centerZ - radius, centerX + radius, centerZ + radius);
         terrainHeightModified = true;
         getProjectManager().current().assetManager.addModifiedAsset(terrainAsset);
         Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
     }
 
     private void createRamp() {
-        Terrain terrain = terrainAsset.getTerrain();
+        final Terrain terrain = terrainAsset.getTerrain();
+        final float[] heightData = terrain.heightData;
+        final int res = terrain.vertexResolution;
+        final float cellWidth = terrain.terrainWidth / (float) (res - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (res - 1);
 
         // tvec2 represents the start (brush) point of the ramp
         getBrushLocalPosition(tVec2);
         tVec2.y = brushPos.y - getTerrainPosition(tVec0).y;
-        Vector3 startPoint = tVec2;
+        final float startX = tVec2.x;
+        final float startY = tVec2.y;
+        final float startZ = tVec2.z;
+        final float endX = rampEndPoint.x;
+        final float endY = rampEndPoint.y;
+        final float endZ = rampEndPoint.z;
 
         // Calculate the direction and length of the ramp
-        Vector3 rampDirection = tVec1.set(startPoint).sub(rampEndPoint).nor();
-        float rampLength = startPoint.dst(rampEndPoint);
+        final Vector3 rampDirection = tVec1.set(tVec2).sub(rampEndPoint).nor();
+        final float dirX = rampDirection.x;
+        final float dirY = rampDirection.y;
+        final float dirZ = rampDirection.z;
+        final float rampLength = tVec2.dst(rampEndPoint);
+        final float slope = (startY - endY) / rampLength;
+
+        // Ramp line on the XZ plane, from the end point to the start point
+        final float lineX = startX - endX;
+        final float lineZ = startZ - endZ;
+        final float lineLength = (float) Math.sqrt(lineX * lineX + lineZ * lineZ);
 
         // Half width for distance checking
-        float rampWidth = radius * 2f;
-        float halfWidth = rampWidth * 0.5f;
-
-        Vector3 toVertex = Pools.vector3Pool.obtain();
-        Vector2 nearestPoint = Pools.vector2Pool.obtain();
-        Vector2 vertexPos2 = Pools.vector2Pool.obtain();
-        Vector2 startPoint2 = Pools.vector2Pool.obtain().set(startPoint.x, startPoint.z);
-        Vector2 rampEnd2 = Pools.vector2Pool.obtain().set(rampEndPoint.x, rampEndPoint.z);
-
-        for (int i = 0; i < 1; i++) {
-
-            for (int x = 0; x < terrain.vertexResolution; x++) {
-                for (int z = 0; z < terrain.vertexResolution; z++) {
-                    final Vector3 vertexPos = terrain.getVertexPosition(tVec0, x, z);
-                    toVertex.set(vertexPos).sub(TerrainBrush.rampEndPoint);
-
-                    vertexPos2.set(vertexPos.x, vertexPos.z);
-                    MathUtils.findNearestPointOnLine(rampEnd2, startPoint2, vertexPos2, nearestPoint);
-
-                    float distanceToRampLine = vertexPos2.sub(nearestPoint).len();
+        final float rampWidth = radius * 2f;
+        final float halfWidth = rampWidth * 0.5f;
+        final float strength = TerrainBrush.strength;
+
+        final float boundsMinX = Math.min(startX, endX) - halfWidth;
+        final float boundsMinZ = Math.min(startZ, endZ) - halfWidth;
+        final float boundsMaxX = Math.max(startX, endX) + halfWidth;
+        final float boundsMaxZ = Math.max(startZ, endZ) + halfWidth;
+
+        final int minX = firstVertex(boundsMinX, cellWidth, res);
+        final int maxX = lastVertex(boundsMaxX, cellWidth, res);
+        final int minZ = firstVertex(boundsMinZ, cellDepth, res);
+        final int maxZ = lastVertex(boundsMaxZ, cellDepth, res);
+        if (minX > maxX || minZ > maxZ) return;
+        recordHeightsBefore(minX, minZ, maxX, maxZ);
+
+        forEachRow(minZ, maxZ, z -> {
+            final float vertexZ = z * cellDepth;
+            for (int x = minX; x <= maxX; x++) {
+                final float vertexX = x * cellWidth;
+                final int index = z * res + x;
+
+                // Nearest point on the ramp line, clamped to its ends
+                float projected = 0;
+                if (lineLength > 0) {
+                    projected = ((vertexX - endX) * lineX + (vertexZ - endZ) * lineZ) / lineLength;
+                    projected = Math.max(0, Math.min(projected, lineLength)) / lineLength;
+                }
+                final float nearestX = endX + lineX * projected;
+                final float nearestZ = endZ + lineZ * projected;
+                final float distanceToRampLine = (float) Math.sqrt((vertexX - nearestX) * (vertexX - nearestX)
+                        + (vertexZ - nearestZ) * (vertexZ - nearestZ));
 
-                    if (distanceToRampLine <= halfWidth) {
-                        // Calculate the height from the ramp line
-                        float projectedLength = rampDirection.dot(toVertex);
-                        float slope = (startPoint.y - TerrainBrush.rampEndPoint.y) / rampLength;
-                        float rampHeight = TerrainBrush.rampEndPoint.y + projectedLength * slope;
+                if (distanceToRampLine <= halfWidth) {
+                    final float vertexY = heightData[index];
 
-                        // Interpolate the height based on the distance from the center of the ramp
-                        float interpolationFactor = 1.0f - (distanceToRampLine / halfWidth);
-                        float interpolatedHeight = Interpolation.smooth2.apply(vertexPos.y, rampHeight, interpolationFactor * strength);
+                    // Calculate the height from the ramp line
+                    float projectedLength = dirX * (vertexX - endX) + dirY * (vertexY - endY) + dirZ * (vertexZ - endZ);
+                    float rampHeight = endY + projectedLength * slope;
 
-                        // Set the height of the vertex
-                        final int index = z * terrain.vertexResolution + x;
-                        terrain.heightData[index] = interpolatedHeight;
-                    }
+                    // Interpolate the height based on the distance from the center of the ramp
+                    float interpolationFactor = 1.0f - (distanceToRampLine / halfWidth);
+                    heightData[index] = Interpolation.smooth2.apply(vertexY, rampHeight, interpolationFactor * strength);
                 }
             }
-        }
-
-        Pools.free(nearestPoint, vertexPos2, startPoint2, rampEnd2);
-        Pools.vector3Pool.free(toVertex);
+        });
 
-        terrain.update();
+        updateTerrain(terrain, boundsMinX, boundsMinZ, boundsMaxX, boundsMaxZ);
         terrainHeightModified = true;
         getProjectManager().current().assetManager.addModifiedAsset(terrainAsset);
         Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
     }
 
     private void flatten() {
-        Terrain terrain = terrainAsset.getTerrain();
+        final Terrain terrain = terrainAsset.getTerrain();
+        final float[] heightData = terrain.heightData;
+        final int res = terrain.vertexResolution;
+        final float cellWidth = terrain.terrainWidth / (float) (res - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (res - 1);
 
         // should convert world position to terrain local position
         getBrushLocalPosition(tVec2);
-
-        for (int x = 0; x < terrain.vertexResolution; x++) {
-            for (int z = 0; z < terrain.vertexResolution; z++) {
-                final Vector3 vertexPos = terrain.getVertexPosition(tVec0, x, z);
-                tVec2.y = vertexPos.y;
-                float distance = vertexPos.dst(tVec2);
-
-                if (distance <= radius) {
-                    final int index = z * terrain.vertexResolution + x;
-                    final float diff = Math.abs(terrain.heightData[index] - heightSample);
-                    if (diff <= 1f) {
-                        terrain.heightData[index] = heightSample;
-                    } else if (diff > 1f) {
-                        final float elevation = getValueOfBrushPixmap(tVec2.x, tVec2.z, vertexPos.x, vertexPos.z,
-                                radius);
-                        // current height is lower than sample
-                        if (heightSample > terrain.heightData[index]) {
-                            terrain.heightData[index] += elevation * strength;
-                        } else {
-                            float newHeight = terrain.heightData[index] - elevation * strength;
-                            if (diff > Math.abs(newHeight) || terrain.heightData[index] > heightSample) {
-                                terrain.heightData[index] = newHeight;
-                            }
-
+        final float centerX = tVec2.x;
+        final float centerZ = tVec2.z;
+        final float radius = this.radius;
+        final float radius2 = radius * radius;
+        final float strength = TerrainBrush.strength;
+        final float heightSample = TerrainBrush.heightSample;
+
+        final int minX = firstVertex(centerX - radius, cellWidth, res);
+        final int maxX = lastVertex(centerX + radius, cellWidth, res);
+        final int minZ = firstVertex(centerZ - radius, cellDepth, res);
+        final int maxZ = lastVertex(centerZ + radius, cellDepth, res);
+        if (minX > maxX || minZ > maxZ) return;
+        recordHeightsBefore(minX, minZ, maxX, maxZ);
+
+        forEachRow(minZ, maxZ, z -> {
+            final float dz = z * cellDepth - centerZ;
+            for (int x = minX; x <= maxX; x++) {
+                final float dx = x * cellWidth - centerX;
+                if (dx * dx + dz * dz > radius2) continue;
+
+                final int index = z * res + x;
+                final float diff = Math.abs(heightData[index] - heightSample);
+                if (diff <= 1f) {
+                    heightData[index] = heightSample;
+                } else {
+                    final float elevation = getBrushFalloff(dx, dz, radius);
+                    // current height is lower than sample
+                    if (heightSample > heightData[index]) {
+                        heightData[index] += elevation * strength;
+                    } else {
+                        float newHeight = heightData[index] - elevation * strength;
+                        if (diff > Math.abs(newHeight) || heightData[index] > heightSample) {
+                            heightData[index] = newHeight;
                         }
                     }
                 }
             }
-        }
+        });
 
-        terrain.update();
+        updateTerrain(terrain, centerX - radius, centerZ - radius, centerX + radius, centerZ + radius);
         terrainHeightModified = true;
         getProjectManager().current().assetManager.addModifiedAsset(terrainAsset);
         Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
     }
 
     private void raiseLower(BrushAction action) {
-        Terrain terrain = terrainAsset.getTerrain();
+        final Terrain terrain = terrainAsset.getTerrain();
+        final float[] heightData = terrain.heightData;
+        final int res = terrain.vertexResolution;
+        final float cellWidth = terrain.terrainWidth / (float) (res - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (res - 1);
 
         // should convert world position to terrain local position
         getBrushLocalPosition(tVec2);
-
-        float dir = (action == BrushAction.PRIMARY) ? 1 : -1;
-        for (int x = 0; x < terrain.vertexResolution; x++) {
-            for (int z = 0; z < terrain.vertexResolution; z++) {
-                final Vector3 vertexPos = terrain.getVertexPosition(tVec0, x, z);
-                tVec2.y = vertexPos.y;
-
-                float distance = vertexPos.dst(tVec2);
-
-                if (distance <= radius) {
-                    float elevation = getValueOfBrushPixmap(tVec2.x, tVec2.z, vertexPos.x, vertexPos.z, radius);
-                    terrain.heightData[z * terrain.vertexResolution + x] += dir * elevation * strength;
+        final float centerX = tVec2.x;
+        final float centerZ = tVec2.z;
+        final float radius = this.radius;
+        final float radius2 = radius * radius;
+        final float amount = ((action == BrushAction.PRIMARY) ? 1 : -1) * strength;
+
+        final int minX = firstVertex(centerX - radius, cellWidth, res);
+        final int maxX = lastVertex(centerX + radius, cellWidth, res);
+        final int minZ = firstVertex(centerZ - radius, cellDepth, res);
+        final int maxZ = lastVertex(centerZ + radius, cellDepth, res);
+        if (minX > maxX || minZ > maxZ) return;
+        recordHeightsBefore(minX, minZ, maxX, maxZ);
+
+        forEachRow(minZ, maxZ, z -> {
+            final float dz = z * cellDepth - centerZ;
+            for (int x = minX; x <= maxX; x++) {
+                final float dx = x * cellWidth - centerX;
+                if (dx * dx + dz * dz <= radius2) {
+                    heightData[z * res + x] += amount * getBrushFalloff(dx, dz, radius);
                 }
             }
-        }
+        });
 
-        terrain.update();
+        updateTerrain(terrain, centerX - radius, centerZ - radius, centerX + radius, centerZ + radius);
         terrainHeightModified = true;
         getProjectManager().current().assetManager.addModifiedAsset(terrainAsset);
         Mundus.INSTANCE.postEvent(new TerrainVerticesChangedEvent(terrainComponent));
     }
 
     /**
-     * Interpolates the brush texture in the range of centerX - radius to
-     * centerX + radius and centerZ - radius to centerZ + radius. PointZ &
-     * pointX lies between these ranges.
-     *
-     * Interpolation is necessary, since the brush pixmap is fixed sized,
-     * whereas the input values can scale. (Input points can be vertices or
-     * splatmap texture coordinates)
+     * Samples the decoded brush pixmap at the given offset from the brush center. The pixmap is scaled
+     * to cover the radius, since the offsets can be in vertices or in splatmap pixels. Safe to call from
+     * multiple threads.
      *
-     * @return the interpolated r-channel value of brush pixmap at pointX,
-     *         pointZ, which can be interpreted as terrainAsset height
-     *         (raise/lower) or opacity (paint)
+     * @return the r-channel value of the brush pixmap, which can be interpreted as height (raise/lower)
+     *         or opacity (paint), 0 outside of it
      */
-    private float getValueOfBrushPixmap(float centerX, float centerZ, float pointX, float pointZ, float radius) {
-        c.set(centerX, centerZ);
-        p.set(pointX, pointZ);
-        v.set(p.sub(c));
+    private float getBrushFalloff(float dx, float dz, float radius) {
+        final int mapX = pixmapCenter + (int) (dx / radius * pixmapCenter);
+        final int mapY = pixmapCenter + (int) (dz / radius * pixmapCenter);
+        if (mapX < 0 || mapY < 0 || mapX >= brushWidth || mapY >= brushHeight) return 0;
+        return brushFalloff[mapY * brushWidth + mapX];
+    }
 
-        final float progress = v.len() / radius;
-        v.nor().scl(pixmapCenter * progress);
+    /**
+     * @return first vertex index of the terrain grid at or after the given local coordinate, clamped to the grid
+     */
+    private static int firstVertex(float position, float cellSize, int vertexResolution) {
+        return Math.max(0, Math.min((int) Math.floor(position / cellSize), vertexResolution - 1));
+    }
 
-        final float mapX = pixmapCenter + (int) v.x;
-        final float mapY = pixmapCenter + (int) v.y;
-        c0.set(brushPixmap.getPixel((int) mapX, (int) mapY));
+    /**
+     * @return last vertex index of the terrain grid at or before the given local coordinate, clamped to the grid
+     */
+    private static int lastVertex(float position, float cellSize, int vertexResolution) {
+        return Math.max(0, Math.min((int) Math.ceil(position / cellSize), vertexResolution - 1));
+    }
 
-        return c0.r;
+    /**
+     * Runs the kernel for every row of vertices from minZ to maxZ, inclusive. Rows are processed in
+     * parallel on the common fork-join pool when there are enough of them, so a kernel must only
+     * write the vertices of its own row.
+     */
+    private static void forEachRow(int minZ, int maxZ, IntConsumer rowKernel) {
+        if (maxZ - minZ + 1 < PARALLEL_MIN_ROWS) {
+            for (int z = minZ; z <= maxZ; z++) {
+                rowKernel.accept(z);
+            }
+        } else {
+            IntStream.rangeClosed(minZ, maxZ).parallel().forEach(rowKernel);
+        }
     }
 
     public void scale(float amount) {
@@ -494,6 +601,52 @@ public abstract class TerrainBrush extends Tool {
         return vector3;
     }
 
+    /**
+     * Records the heights of the given region of vertices for undo, before the brush modifies them.
+     */
+    private void recordHeightsBefore(int minX, int minZ, int maxX, int maxZ) {
+        if (heightCommand != null) {
+            heightCommand.recordBefore(minX, minZ, maxX, maxZ);
+        }
+    }
+
+    /**
+     * Updates the terrain mesh for the vertices within the given rectangle, in terrain local coordinates.
+     */
+    private void updateTerrain(Terrain terrain, float minX, float minZ, float maxX, float maxZ) {
+        final float cellWidth = terrain.terrainWidth / (float) (terrain.vertexResolution - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (terrain.vertexResolution - 1);
+        terrain.update((int) Math.floor(minX / cellWidth), (int) Math.floor(minZ / cellDepth),
+                (int) Math.ceil(maxX / cellWidth), (int) Math.ceil(maxZ / cellDepth));
+    }
+
+    /**
+     * Places the brush for a pick ray that misses the terrain surface, e.g. past its edges. The ray is
+     * intersected with the base plane of the terrain and the result clamped to the terrain bounds, so
+     * brushes keep working along the edges.
+     *
+     * @return false if the ray does not reach the base plane
+     */
+    private boolean projectOntoTerrain(Ray ray, Vector3 out) {
+        final Matrix4 transform = terrainComponent.getModelInstance().transform;
+        tmpMatrix.set(transform).inv();
+        rayOrigin.set(ray.origin).mul(tmpMatrix);
+        rayDirection.set(ray.origin).add(ray.direction).mul(tmpMatrix).sub(rayOrigin);
+        if (MathUtils.isZero(rayDirection.y)) return false;
+
+        final float t = -rayOrigin.y / rayDirection.y;
+        if (t < 0) return false;
+
+        // Snap to the nearest vertex within the bounds, its height is exact
+        final Terrain terrain = terrainAsset.getTerrain();
+        final float cellWidth = terrain.terrainWidth / (float) (terrain.vertexResolution - 1);
+        final float cellDepth = terrain.terrainDepth / (float) (terrain.vertexResolution - 1);
+        final int x = MathUtils.clamp(Math.round((rayOrigin.x + rayDirection.x * t) / cellWidth), 0, terrain.vertexResolution - 1);
+        final int z = MathUtils.clamp(Math.round((rayOrigin.z + rayDirection.z * t) / cellDepth), 0, terrain.vertexResolution - 1);
+        terrain.getVertexPosition(out, x, z).mul(transform);
+        return true;
+    }
+
     private void getBrushLocalPosition(Vector3 value) {
         value.set(brushPos);
         value.mul(tmpMatrix.set(terrainComponent.getModelInstance().transform).inv());
@@ -506,18 +659,15 @@ public abstract class TerrainBrush extends Tool {
 
     @Override
     public void dispose() {
-        brushPixmap.dispose();
+        // the brush pixmap is disposed after decoding it in the constructor
     }
 
     @Override
     public boolean touchUp(int screenX, int screenY, int pointer, int button) {
-        if (terrainHeightModified && heightCommand != null) {
-            heightCommand.setHeightDataAfter(terrainAsset.getTerrain().heightData);
+        if (terrainHeightModified && heightCommand != null && heightCommand.recordAfter()) {
             getHistory().add(heightCommand);
         }
-        if (splatmapModified && paintCommand != null) {
-            final SplatMap sm = terrainAsset.getTerrain().getTerrainTexture().getSplatmap();
-            paintCommand.setAfter(sm.getPixmap());
+        if (splatmapModified && paintCommand != null && paintCommand.recordAfter()) {
             getHistory().add(paintCommand);
         }
         splatmapModified = false;
@@ -558,13 +708,12 @@ public abstract class TerrainBrush extends Tool {
         }
 
         if (mode == BrushMode.FLATTEN || mode == BrushMode.RAISE_LOWER || mode == BrushMode.SMOOTH || mode == BrushMode.RAMP) {
+            // heights and pixels are recorded as the brush reaches them
             heightCommand = new TerrainHeightCommand(terrainAsset.getTerrain());
-            heightCommand.setHeightDataBefore(terrainAsset.getTerrain().heightData);
         } else if (mode == BrushMode.PAINT) {
             final SplatMap sm = terrainAsset.getTerrain().getTerrainTexture().getSplatmap();
             if (sm != null) {
                 paintCommand = new TerrainPaintCommand(terrainAsset.getTerrain());
-                paintCommand.setBefore(sm.getPixmap());
             }
         }
 
@@ -573,9 +722,11 @@ public abstract class TerrainBrush extends Tool {
 
     @Override
     public boolean mouseMoved(int screenX, int screenY) {
+        brushOnTerrain = false;
         if (terrainComponent != null) {
             Ray ray = getProjectManager().current().currScene.viewport.getPickRay(screenX, screenY);
-            terrainComponent.getRayIntersection(brushPos, ray);
+            brushOnTerrain = terrainComponent.getRayIntersection(brushPos, ray) != null
+                    || projectOntoTerrain(ray, brushPos);
         }
 
         mouseMoved = true;
@@ -583,7 +734,7 @@ public abstract class TerrainBrush extends Tool {
         EditorPBRTerrainShader.setPickerPosition(brushPos.x, brushPos.y, brushPos.z);
 
         // Show mouse position if it is on terrain
-        if (terrainComponent.isOnTerrain(brushPos.x, brushPos.z)) {
+        if (brushOnTerrain) {
             UI.INSTANCE.getStatusBar().setMousePos(brushPos.x, brushPos.y, brushPos.z);
         } else {
             UI.INSTANCE.getStatusBar().clearMousePos();
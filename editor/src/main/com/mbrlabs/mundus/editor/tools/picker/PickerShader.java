@@ -24,6 +24,8 @@ import com.badlogic.gdx.graphics.g3d.shaders.BaseShader;
 import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Vector3;
+import com.mbrlabs.mundus.commons.terrain.Terrain;
+import com.mbrlabs.mundus.commons.terrain.attributes.TerrainMaterialAttribute;
 
 /**
  * Used to render game objects in only one color.
@@ -45,6 +47,14 @@ public class PickerShader extends BaseShader {
             + "vec4 worldPos = u_transMatrix * vec4(a_position, 1.0);" + "gl_Position = u_projViewMatrix * worldPos;"
             + "}";
 
+    // Terrains with compact vertices, see Terrain#setCompactVertices
+    private static final String COMPACT_TERRAIN_VERTEX_SHADER = "attribute float a_height;"
+            + "attribute vec2 a_gridNormal;" + "uniform vec2 u_terrainCellSize;" + "uniform mat4 u_transMatrix;"
+            + "uniform mat4 u_projViewMatrix;" + "void main(void) {" + "vec2 grid = floor(a_gridNormal * 0.25);"
+            + "vec3 position = vec3(grid.x * u_terrainCellSize.x, a_height, grid.y * u_terrainCellSize.y);"
+            + "vec4 worldPos = u_transMatrix * vec4(position, 1.0);" + "gl_Position = u_projViewMatrix * worldPos;"
+            + "}";
+
     private static final String FRAGMENT_SHADER = "#ifdef GL_ES\n" + "precision highp float;\n" + "#endif \n"
             + "uniform vec3 u_color;" + "void main(void) {"
             + "gl_FragColor = vec4(u_color.r/255.0, u_color.g/255.0, u_color.b/255.0, 1.0);" + "}";
@@ -57,6 +67,9 @@ public class PickerShader extends BaseShader {
     private static Vector3 vec3 = new Vector3();
 
     private ShaderProgram program;
+    // Compiled on first use
+    private ShaderProgram compactProgram;
+    private Camera camera;
 
     public PickerShader() {
         super();
@@ -81,6 +94,7 @@ public class PickerShader extends BaseShader {
     @Override
     public void begin(Camera camera, RenderContext context) {
         this.context = context;
+        this.camera = camera;
         this.context.setCullFace(GL20.GL_BACK);
         this.context.setDepthTest(GL20.GL_LEQUAL, 0f, 1f);
         this.context.setDepthMask(true);
@@ -92,6 +106,11 @@ public class PickerShader extends BaseShader {
 
     @Override
     public void render(Renderable renderable) {
+        if (Terrain.isCompact(renderable.meshPart.mesh)) {
+            renderCompactTerrain(renderable);
+            return;
+        }
+
         set(UNIFORM_TRANS_MATRIX, renderable.worldTransform);
 
         PickerIDAttribute goID = (PickerIDAttribute) renderable.material.get(PickerIDAttribute.Type);
@@ -102,6 +121,30 @@ public class PickerShader extends BaseShader {
         renderable.meshPart.render(program);
     }
 
+    /**
+     * Renders a terrain with compact vertices with its own program. The uniforms registered with
+     * the base shader belong to the main program, so they are set by name.
+     */
+    private void renderCompactTerrain(Renderable renderable) {
+        if (compactProgram == null) {
+            compactProgram = new ShaderProgram(COMPACT_TERRAIN_VERTEX_SHADER, FRAGMENT_SHADER);
+        }
+        Terrain terrain = renderable.material.get(TerrainMaterialAttribute.class,
+                TerrainMaterialAttribute.TerrainMaterial).terrainMaterial.getTerrain();
+
+        compactProgram.bind();
+        compactProgram.setUniformMatrix("u_projViewMatrix", camera.combined);
+        compactProgram.setUniformMatrix("u_transMatrix", renderable.worldTransform);
+        compactProgram.setUniformf("u_terrainCellSize", terrain.getCellWidth(), terrain.getCellDepth());
+        PickerIDAttribute goID = (PickerIDAttribute) renderable.material.get(PickerIDAttribute.Type);
+        if (goID != null) {
+            compactProgram.setUniformf("u_color", goID.r, goID.g, goID.b);
+        }
+        renderable.meshPart.render(compactProgram);
+
+        program.bind();
+    }
+
     @Override
     public void end() {
         program.end();
@@ -110,6 +153,9 @@ public class PickerShader extends BaseShader {
     @Override
     public void dispose() {
         program.dispose();
+        if (compactProgram != null) {
+            compactProgram.dispose();
+        }
     }
 
 }
@@ -36,12 +36,14 @@ import com.badlogic.gdx.utils.Disposable
 import com.badlogic.gdx.utils.GdxRuntimeException
 import com.badlogic.gdx.utils.UBJsonReader
 import com.kotcrab.vis.ui.util.dialog.Dialogs
+import com.kotcrab.vis.ui.widget.VisCheckBox
 import com.kotcrab.vis.ui.widget.VisLabel
 import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.VisTextButton
 import com.mbrlabs.mundus.commons.assets.ModelAsset
 import com.mbrlabs.mundus.commons.assets.meta.MetaModel
 import com.mbrlabs.mundus.commons.g3d.MG3dModelLoader
+import com.mbrlabs.mundus.commons.shaders.MundusPBRDepthShaderProvider
 import com.mbrlabs.mundus.commons.shaders.MundusPBRShaderProvider
 import com.mbrlabs.mundus.commons.utils.LightUtils
 import com.mbrlabs.mundus.commons.utils.ModelUtils
@@ -72,7 +74,6 @@ import net.mgsx.gltf.scene3d.attributes.PBRCubemapAttribute
 import net.mgsx.gltf.scene3d.attributes.PBRTextureAttribute
 import net.mgsx.gltf.scene3d.lights.DirectionalLightEx
 import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter
-import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider
 import net.mgsx.gltf.scene3d.shaders.PBRShaderConfig
 import net.mgsx.gltf.scene3d.shaders.PBRShaderProvider
 import net.mgsx.gltf.scene3d.utils.IBLBuilder
@@ -122,6 +123,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
         private var renderWidget: RenderWidget? = null
         private val importBtn = VisTextButton("IMPORT")
         private val modelInput = FileChooserField(300)
+        private val generateLodsCheckbox = VisCheckBox("Generate LOD levels", false)
 
         // preview model + instance
         private var previewModel: Model? = null
@@ -210,6 +212,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
 
             inputTable.add(VisLabel("Model File")).left().padBottom(5f).row()
             inputTable.add(modelInput).fillX().expandX().padBottom(10f).row()
+            inputTable.add(generateLodsCheckbox).left().padBottom(10f).row()
             inputTable.add(importBtn).fillX().expand().bottom()
 
             modelInput.setEditable(false)
@@ -239,7 +242,7 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
                                 projectManager.modelBatch = ModelBatch(MundusPBRShaderProvider(config), SceneRenderableSorter())
 
                                 val depthConfig = ShaderUtils.buildPBRShaderDepthConfig(modelBoneCount)
-                                projectManager.setDepthBatch((ModelBatch(PBRDepthShaderProvider(depthConfig))))
+                                projectManager.setDepthBatch((ModelBatch(MundusPBRDepthShaderProvider(depthConfig))))
 
                                 projectManager.current().assetManager.maxNumBones = modelBoneCount
                                 Mundus.postEvent(LogEvent(LogType.INFO, "Max Bone count increased to $modelBoneCount"))
@@ -285,6 +288,10 @@ class ImportModelDialog : BaseDialog("Import Mesh"), Disposable {
 
             modelAsset.meta.model.numBones = maxBones
 
+            if (generateLodsCheckbox.isChecked) {
+                modelImporter.generateLods(modelAsset, assetManager)
+            }
+
             // save meta file
             val saver = MetaSaver()
             saver.save(modelAsset.meta)
@@ -41,6 +41,8 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
     private val jsonType = VisSelectBox<JsonWriter.OutputType>()
     private val allAssets = VisCheckBox("Export unused assets [will be ignored for now]")
     private val compression = VisCheckBox("Compress scenes [will be ignored for now]")
+    private val bundleAssets = VisCheckBox("Pack assets into a single bundle file")
+    private val binaryScenes = VisCheckBox("Export scenes in binary format")
 
     private val projectManager: ProjectManager = Mundus.inject()
     private val ioManager: IOManager = Mundus.inject<IOManagerProvider>().ioManager
@@ -66,6 +68,8 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         add(VisLabel("Flags")).growX().row()
         add(allAssets).left().row()
         add(compression).left().row()
+        add(bundleAssets).left().row()
+        add(binaryScenes).left().row()
 
         fileChooserField.setFileMode(FileChooser.SelectionMode.DIRECTORIES)
     }
@@ -81,6 +85,8 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         }
         allAssets.isChecked = exportSettings?.allAssets!!
         compression.isChecked = exportSettings.compressScenes
+        bundleAssets.isChecked = exportSettings.bundleAssets
+        binaryScenes.isChecked = exportSettings.binaryScenes
         jsonType.selected = exportSettings.jsonType
     }
 
@@ -88,6 +94,8 @@ class ExportSettingsTable : BaseSettingsTable(), ProjectChangedEvent.ProjectChan
         val exportSettings = projectManager.current().settings?.export ?: return
         exportSettings.allAssets = allAssets.isChecked
         exportSettings.compressScenes = compression.isChecked
+        exportSettings.bundleAssets = bundleAssets.isChecked
+        exportSettings.binaryScenes = binaryScenes.isChecked
         exportSettings.jsonType = jsonType.selected
         exportSettings.outputFolder = FileHandle(fileChooserField.path)
 
@@ -22,6 +22,7 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
     private val projectManager: ProjectManager = Mundus.inject()
 
     private val frustumCullingChkBox = VisCheckBox(null)
+    private val instancingChkBox = VisCheckBox(null)
 
     init {
         Mundus.registerEventListener(this)
@@ -41,6 +42,12 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
 
         settingsTable.add(frustumLabel)
         settingsTable.add(frustumCullingChkBox).row()
+
+        val instancingLabel = ToolTipLabel("Use Instanced Rendering (Per Scene)", "Models using the same mesh and material are drawn " +
+            "together with a single instanced draw call.\nThis greatly reduces draw calls for scenes with many copies of the same model, " +
+            "like trees and rocks.\n\nNote: Requires OpenGL 3. Skinned, morphed and transparent models are always drawn individually.")
+        settingsTable.add(instancingLabel)
+        settingsTable.add(instancingChkBox).row()
         add(settingsTable)
 
         frustumCullingChkBox.addListener(object : ChangeListener() {
@@ -48,10 +55,17 @@ class PerformanceSettingsTable : BaseSettingsTable(), ProjectChangedEvent.Projec
                 projectManager.current().currScene.settings.useFrustumCulling = frustumCullingChkBox.isChecked
             }
         })
+
+        instancingChkBox.addListener(object : ChangeListener() {
+            override fun changed(event: ChangeEvent, actor: Actor) {
+                projectManager.current().currScene.settings.useInstancing = instancingChkBox.isChecked
+            }
+        })
     }
 
     private fun updateValues() {
         frustumCullingChkBox.isChecked = projectManager.current().currScene.settings.useFrustumCulling
+        instancingChkBox.isChecked = projectManager.current().currScene.settings.useInstancing
     }
 
     override fun onSave() {
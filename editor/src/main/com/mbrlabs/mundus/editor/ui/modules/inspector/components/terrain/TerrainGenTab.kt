@@ -21,8 +21,9 @@ import com.kotcrab.vis.ui.widget.VisTable
 import com.kotcrab.vis.ui.widget.tabbedpane.Tab
 import com.kotcrab.vis.ui.widget.tabbedpane.TabbedPane
 import com.kotcrab.vis.ui.widget.tabbedpane.TabbedPaneListener
+import com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation.ErosionTab
 import com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation.HeightmapTab
-import com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation.PerlinNoiseTab
+import com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation.NoiseTab
 
 /**
  * @author Marcus Brummer
@@ -35,13 +36,15 @@ class TerrainGenTab(parent: TerrainComponentWidget) : Tab(false, false), TabbedP
     private val tabContainer = VisTable()
 
     private val heightmapTab = HeightmapTab(parent.component)
-    private val perlinNoiseTab = PerlinNoiseTab(parent.component)
+    private val noiseTab = NoiseTab(parent.component)
+    private val erosionTab = ErosionTab(parent.component)
 
     init {
         tabbedPane.addListener(this)
 
         tabbedPane.add(heightmapTab)
-        tabbedPane.add(perlinNoiseTab)
+        tabbedPane.add(noiseTab)
+        tabbedPane.add(erosionTab)
 
         root.add(tabbedPane.table).growX().row()
         root.add(tabContainer).expand().fill().row()
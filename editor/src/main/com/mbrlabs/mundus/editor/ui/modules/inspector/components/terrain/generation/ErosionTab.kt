@@ -0,0 +1,167 @@
+package com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation
+
+import com.badlogic.gdx.scenes.scene2d.InputEvent
+import com.badlogic.gdx.scenes.scene2d.ui.Table
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener
+import com.badlogic.gdx.utils.Align
+import com.kotcrab.vis.ui.util.async.AsyncTask
+import com.kotcrab.vis.ui.util.async.AsyncTaskListener
+import com.kotcrab.vis.ui.widget.VisLabel
+import com.kotcrab.vis.ui.widget.VisProgressBar
+import com.kotcrab.vis.ui.widget.VisTable
+import com.kotcrab.vis.ui.widget.VisTextButton
+import com.kotcrab.vis.ui.widget.tabbedpane.Tab
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.core.project.ProjectManager
+import com.mbrlabs.mundus.editor.history.CommandHistory
+import com.mbrlabs.mundus.editor.history.commands.TerrainHeightCommand
+import com.mbrlabs.mundus.editor.terrain.ErosionGenerator
+import com.mbrlabs.mundus.editor.terrain.Terraformer
+import com.mbrlabs.mundus.editor.ui.UI
+import com.mbrlabs.mundus.editor.ui.widgets.FloatFieldWithLabel
+import com.mbrlabs.mundus.editor.ui.widgets.IntegerFieldWithLabel
+import com.mbrlabs.mundus.editor.utils.Log
+
+class ErosionTab(private val terrainComponent: TerrainComponent) : Tab(false, false) {
+
+    companion object {
+        private val TAG = ErosionTab::class.java.simpleName
+    }
+
+    private val root = VisTable()
+
+    private val erodeBtn = VisTextButton("Erode")
+    private val cancelBtn = VisTextButton("Cancel")
+    private val progressBar = VisProgressBar(0f, 100f, 1f, false)
+    private val erosionSeed = IntegerFieldWithLabel("Seed", -1, false)
+    private val erosionDensity = FloatFieldWithLabel("Droplets per vertex", -1, false)
+    private val erosionRadius = IntegerFieldWithLabel("Radius", -1, false)
+    private val thermalIterations = IntegerFieldWithLabel("Thermal iterations", -1, false)
+    private val talusAngle = FloatFieldWithLabel("Talus angle", -1, false)
+
+    private val history: CommandHistory = Mundus.inject()
+    private val projectManager: ProjectManager = Mundus.inject()
+
+    private var generator: ErosionGenerator? = null
+
+    private val description = """
+            Erode the terrain with water droplets, then let
+            slopes steeper than the talus angle crumble.
+
+        """.trimIndent()
+
+    init {
+        erosionDensity.text = "1"
+        erosionRadius.text = "3"
+        thermalIterations.text = "30"
+        talusAngle.text = "35"
+        cancelBtn.isDisabled = true
+
+        root.align(Align.left)
+        root.add(VisLabel(description)).pad(5f).left().fillX().row()
+        root.add(erosionSeed).pad(5f).left().fillX().expandX().row()
+        root.add(erosionDensity).pad(5f).left().fillX().expandX().row()
+        root.add(erosionRadius).pad(5f).left().fillX().expandX().row()
+        root.add(thermalIterations).pad(5f).left().fillX().expandX().row()
+        root.add(talusAngle).pad(5f).left().fillX().expandX().row()
+        root.add(progressBar).pad(5f).left().fillX().expandX().row()
+
+        val buttons = VisTable()
+        buttons.add(cancelBtn).padRight(5f)
+        buttons.add(erodeBtn)
+        root.add(buttons).pad(5f).right().row()
+
+        setupListeners()
+    }
+
+    override fun getTabTitle(): String = "Erosion"
+
+    override fun getContentTable(): Table = root
+
+    private fun setupListeners() {
+        erodeBtn.addListener(object : ClickListener() {
+            override fun clicked(event: InputEvent?, x: Float, y: Float) {
+                if (generator == null) erode()
+            }
+        })
+
+        cancelBtn.addListener(object : ClickListener() {
+            override fun clicked(event: InputEvent?, x: Float, y: Float) {
+                generator?.cancel()
+            }
+        })
+    }
+
+    private fun erode() {
+        val gen = Terraformer.erosion(terrainComponent)
+                .seed(erosionSeed.int.toLong())
+                .density(erosionDensity.float)
+                .radius(erosionRadius.int)
+                .thermalIterations(thermalIterations.int)
+                .talusAngle(talusAngle.float)
+                .snapshot()
+        generator = gen
+
+        var result: FloatArray? = null
+        val task = object : AsyncTask("erosion") {
+            override fun doInBackground() {
+                gen.listener { progress -> setProgressPercent((progress * 100).toInt()) }
+                result = gen.erode()
+            }
+        }
+
+        task.addListener(object : AsyncTaskListener {
+            override fun progressChanged(newProgressPercent: Int) {
+                progressBar.value = newProgressPercent.toFloat()
+            }
+
+            override fun messageChanged(message: String?) {
+                // noop
+            }
+
+            override fun finished() {
+                val heights = result
+                if (heights != null) {
+                    apply(gen, heights)
+                } else {
+                    UI.toaster.info("Erosion canceled")
+                }
+                reset()
+            }
+
+            override fun failed(message: String?, exception: Exception?) {
+                Log.exception(TAG, exception)
+                UI.toaster.error("Erosion failed: " + exception.toString())
+                reset()
+            }
+        })
+
+        erodeBtn.isDisabled = true
+        cancelBtn.isDisabled = false
+        task.execute()
+    }
+
+    private fun apply(gen: ErosionGenerator, heights: FloatArray) {
+        val terrain = terrainComponent.terrainAsset.terrain
+        val command = TerrainHeightCommand(terrain)
+        command.recordBefore()
+
+        if (!gen.apply(heights)) {
+            UI.toaster.error("The terrain was changed while eroding, erosion discarded")
+            return
+        }
+
+        if (command.recordAfter()) {
+            history.add(command)
+        }
+        projectManager.current().assetManager.addModifiedAsset(terrainComponent.terrainAsset)
+    }
+
+    private fun reset() {
+        generator = null
+        progressBar.value = 0f
+        erodeBtn.isDisabled = false
+        cancelBtn.isDisabled = true
+    }
+}
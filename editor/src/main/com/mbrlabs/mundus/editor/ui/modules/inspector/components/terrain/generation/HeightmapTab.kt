@@ -83,7 +83,7 @@ class HeightmapTab(private val terrainComponent: TerrainComponent) : Tab(false,
     private fun loadHeightMap(heightMap: FileHandle) {
         val terrain = terrainComponent.terrainAsset.terrain
         val command = TerrainHeightCommand(terrain)
-        command.setHeightDataBefore(terrain.heightData)
+        command.recordBefore()
 
         val minMax = loadHeightMapMaxHeight.float
         val originalMap = Pixmap(heightMap)
@@ -102,7 +102,8 @@ class HeightmapTab(private val terrainComponent: TerrainComponent) : Tab(false,
             originalMap.dispose()
         }
 
-        command.setHeightDataAfter(terrain.heightData)
-        history.add(command)
+        if (command.recordAfter()) {
+            history.add(command)
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.mbrlabs.mundus.editor.ui.modules.inspector.components.terrain.generation
+
+import com.badlogic.gdx.scenes.scene2d.InputEvent
+import com.badlogic.gdx.scenes.scene2d.ui.Table
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener
+import com.badlogic.gdx.utils.Align
+import com.kotcrab.vis.ui.widget.VisTable
+import com.kotcrab.vis.ui.widget.VisTextButton
+import com.kotcrab.vis.ui.widget.tabbedpane.Tab
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent
+import com.mbrlabs.mundus.editor.Mundus
+import com.mbrlabs.mundus.editor.core.project.ProjectManager
+import com.mbrlabs.mundus.editor.history.CommandHistory
+import com.mbrlabs.mundus.editor.history.commands.TerrainHeightCommand
+import com.mbrlabs.mundus.editor.terrain.Terraformer
+import com.mbrlabs.mundus.editor.ui.widgets.FloatFieldWithLabel
+import com.mbrlabs.mundus.editor.ui.widgets.IntegerFieldWithLabel
+
+class NoiseTab(private val terrainComponent: TerrainComponent) : Tab(false, false) {
+
+    private val root = VisTable()
+
+    private val noiseBtn = VisTextButton("Generate noise")
+    private val noiseSeed = IntegerFieldWithLabel("Seed", -1, false)
+    private val noiseMinHeight = FloatFieldWithLabel("Min height", -1, true)
+    private val noiseMaxHeight = FloatFieldWithLabel("Max height", -1, true)
+    private val noiseOctaves = IntegerFieldWithLabel("Octaves", -1, false)
+    private val noiseRoughness = FloatFieldWithLabel("Roughness", -1, false)
+    private val noiseLacunarity = FloatFieldWithLabel("Lacunarity", -1, false)
+    private val noiseScale = FloatFieldWithLabel("Feature size", -1, false)
+    private val noiseWarp = FloatFieldWithLabel("Warp", -1, false)
+
+    private val history: CommandHistory = Mundus.inject()
+    private val projectManager: ProjectManager = Mundus.inject()
+
+    init {
+        root.align(Align.left)
+
+        noiseOctaves.setText("6")
+        noiseRoughness.setText("0.5")
+        noiseLacunarity.setText("2")
+        noiseScale.setText("400")
+        noiseWarp.setText("0")
+
+        root.add(noiseSeed).pad(5f).left().fillX().expandX().row()
+        root.add(noiseMinHeight).pad(5f).left().fillX().expandX().row()
+        root.add(noiseMaxHeight).pad(5f).left().fillX().expandX().row()
+        root.add(noiseOctaves).pad(5f).left().fillX().expandX().row()
+        root.add(noiseRoughness).pad(5f).left().fillX().expandX().row()
+        root.add(noiseLacunarity).pad(5f).left().fillX().expandX().row()
+        root.add(noiseScale).pad(5f).left().fillX().expandX().row()
+        root.add(noiseWarp).pad(5f).left().fillX().expandX().row()
+        root.add(noiseBtn).pad(5f).right().row()
+
+        setupListeners()
+    }
+
+    override fun getTabTitle(): String = "Noise"
+
+    override fun getContentTable(): Table = root
+
+    private fun setupListeners() {
+        noiseBtn.addListener(object : ClickListener() {
+            override fun clicked(event: InputEvent?, x: Float, y: Float) {
+                generateNoise()
+                projectManager.current().assetManager.addModifiedAsset(terrainComponent.terrainAsset)
+            }
+        })
+    }
+
+    private fun generateNoise() {
+        val terrain = terrainComponent.terrainAsset.terrain
+        val command = TerrainHeightCommand(terrain)
+        command.recordBefore()
+
+        Terraformer.noise(terrainComponent)
+                .minHeight(noiseMinHeight.float)
+                .maxHeight(noiseMaxHeight.float)
+                .seed(noiseSeed.int.toLong())
+                .octaves(noiseOctaves.int)
+                .roughness(noiseRoughness.float)
+                .lacunarity(noiseLacunarity.float)
+                .scale(noiseScale.float)
+                .warp(noiseWarp.float)
+                .terraform()
+
+        if (command.recordAfter()) {
+            history.add(command)
+        }
+    }
+}
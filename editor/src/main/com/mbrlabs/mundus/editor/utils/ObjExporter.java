@@ -2,7 +2,6 @@ package com.mbrlabs.mundus.editor.utils;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.math.Vector3;
@@ -26,14 +25,8 @@ public class ObjExporter {
         final int w = vertexResolution - 1;
         final int h = vertexResolution - 1;
 
-        float[] exportVertices = new float[terrain.getVertices().length];
-        short[] indices = new short[w * h * 6];
-
-        Mesh mesh = model.meshes.get(0);
-        mesh.getVertices(exportVertices);
-        mesh.getIndices(indices);
-
-        int posPos = mesh.getVertexAttributes().getOffset(VertexAttributes.Usage.Position);
+        // Vertices and indices are written from the terrain grid, the chunk meshes share the same attributes
+        int posPos = model.meshes.get(0).getVertexAttributes().getOffset(VertexAttributes.Usage.Position);
 
         FileHandle fileHandle = Gdx.files.local(fileName + ".obj");
 
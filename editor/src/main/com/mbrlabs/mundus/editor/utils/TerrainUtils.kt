@@ -54,22 +54,13 @@ fun getRayIntersection(terrains: Array<TerrainComponent>, ray: Ray, out: Vector3
 }
 
 fun getRayIntersection(terrain: TerrainComponent, ray: Ray, out: Vector3): Vector3? {
-    val terr = terrain.terrainAsset.terrain
-
-    terr.getRayIntersection(out, ray, terrain.modelInstance.transform)
-    if (terr.isOnTerrain(out.x, out.z, terrain.modelInstance.transform)) {
-        return out
-    }
-
-    return null
+    return terrain.terrainAsset.terrain.getRayIntersection(out, ray, terrain.modelInstance.transform)
 }
 
 fun getRayIntersectionAndUp(terrains: Array<TerrainComponent>, ray: Ray): VertexInfo? {
     for (terrain in terrains) {
         val terr = terrain.terrainAsset.terrain
-        terr.getRayIntersection(tempVI.position, ray, terrain.modelInstance.transform)
-        if (terr.isOnTerrain(tempVI.position.x, tempVI.position.z, terrain.modelInstance.transform)) {
-            terr.getNormalAtWordCoordinate(tempVI.normal, tempVI.position.x, tempVI.position.z, terrain.modelInstance.transform)
+        if (terr.intersectRay(ray, terrain.modelInstance.transform, tempVI.position, tempVI.normal) >= 0) {
             return tempVI
         }
     }
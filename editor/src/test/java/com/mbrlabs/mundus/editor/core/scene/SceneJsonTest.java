@@ -0,0 +1,166 @@
+package com.mbrlabs.mundus.editor.core.scene;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.OrderedMap;
+import com.mbrlabs.mundus.commons.dto.CustomPropertiesComponentDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.FogDTO;
+import com.mbrlabs.mundus.commons.dto.GameObjectDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+import com.mbrlabs.mundus.commons.env.lights.LightType;
+import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.water.WaterResolution;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SceneJsonTest {
+
+    @Test
+    public void writesSameJsonAsLibgdx() {
+        SceneDTO scene = buildScene();
+        StringWriter writer = new StringWriter();
+        SceneJsonWriter.write(scene, writer);
+
+        assertEquals(new Json().toJson(scene), writer.toString());
+    }
+
+    @Test
+    public void readsLibgdxJson() {
+        SceneDTO scene = SceneJsonReader.read(new StringReader(new Json().toJson(buildScene())));
+        assertScene(scene);
+    }
+
+    @Test
+    public void readsWrittenJson() {
+        StringWriter writer = new StringWriter();
+        SceneJsonWriter.write(buildScene(), writer);
+
+        assertScene(SceneJsonReader.read(new StringReader(writer.toString())));
+        assertScene(new Json().fromJson(SceneDTO.class, writer.toString()));
+    }
+
+    @Test
+    public void skipsUnknownFieldsAndComments() {
+        String json = "{ /* comment */ id: 7, unknown: { a: [1, {b: c}], d: \"e\" }, // comment\n"
+                + "name: \"Scene: 1\", gameObjects: [ { name: Tree, active: true } ] }";
+        SceneDTO scene = SceneJsonReader.read(new StringReader(json));
+
+        assertEquals(7, scene.getId());
+        assertEquals("Scene: 1", scene.getName());
+        assertEquals(1, scene.getGameObjects().size);
+        assertEquals("Tree", scene.getGameObjects().first().getName());
+        assertNull(scene.getFog());
+    }
+
+    private static SceneDTO buildScene() {
+        SceneDTO scene = new SceneDTO();
+        scene.setId(1698900000000123L);
+        scene.setName("Main Scene");
+        scene.setCamNearPlane(0.2f);
+        scene.setCamFieldOfView(67);
+        scene.setUseInstancing(false);
+        scene.setWaterResolution(WaterResolution._1024);
+
+        FogDTO fog = new FogDTO();
+        fog.setNearPlane(500);
+        fog.setGradient(1.5f);
+        fog.setColor(Color.rgba8888(Color.GRAY));
+        scene.setFog(fog);
+
+        DirectionalLightDTO light = new DirectionalLightDTO();
+        light.setIntensity(2);
+        light.setColor(-1);
+        light.setDirection(new Vector3(0.1f, -1, 0));
+        light.setCastsShadows(true);
+        ShadowSettingsDTO shadow = new ShadowSettingsDTO();
+        shadow.setShadowResolution(ShadowResolution._2048);
+        shadow.setViewportSize(128);
+        shadow.setCamFarPlane(100);
+        light.setShadowSettingsDTO(shadow);
+        scene.setDirectionalLight(light);
+
+        GameObjectDTO tree = new GameObjectDTO();
+        tree.setId(3);
+        tree.setName("Tree, big");
+        tree.setActive(true);
+        tree.getTransform()[0] = 1.25f;
+        tree.getTransform()[9] = 1;
+        tree.getTags().add("foliage");
+
+        ModelComponentDTO model = new ModelComponentDTO();
+        model.setModelID("d7c2e2ac");
+        model.getMaterials().put("leaves", "a1b2");
+        tree.setModelComponent(model);
+
+        GameObjectDTO lamp = new GameObjectDTO();
+        lamp.setId(4);
+        lamp.setName("Lamp");
+        LightComponentDTO lightComponent = new LightComponentDTO();
+        lightComponent.setLightType(LightType.SPOT_LIGHT);
+        lightComponent.setColor(new Color(1, 0.5f, 0, 1));
+        lightComponent.setPosition(new Vector3(1, 2, 3));
+        lightComponent.setDirection(new Vector3(0, -1, 0));
+        lightComponent.setCutoff(30);
+        lightComponent.setIntensity(10);
+        lamp.setLightComponent(lightComponent);
+
+        CustomPropertiesComponentDTO properties = new CustomPropertiesComponentDTO();
+        OrderedMap<String, String> map = new OrderedMap<>();
+        map.put("health", "100");
+        map.put("note", "a \"quoted\" value");
+        properties.setCustomProperties(map);
+        lamp.setCustomPropertiesComponent(properties);
+
+        tree.getChilds().add(lamp);
+        scene.getGameObjects().add(tree);
+        return scene;
+    }
+
+    private static void assertScene(SceneDTO scene) {
+        assertEquals(1698900000000123L, scene.getId());
+        assertEquals("Main Scene", scene.getName());
+        assertEquals(0.2f, scene.getCamNearPlane(), 0);
+        assertEquals(67, scene.getCamFieldOfView(), 0);
+        assertFalse(scene.isUseInstancing());
+        assertEquals(WaterResolution._1024, scene.getWaterResolution());
+
+        assertEquals(500, scene.getFog().getNearPlane(), 0);
+        assertEquals(1.5f, scene.getFog().getGradient(), 0);
+        assertEquals(Color.rgba8888(Color.GRAY), scene.getFog().getColor());
+
+        DirectionalLightDTO light = scene.getDirectionalLight();
+        assertEquals(2, light.getIntensity(), 0);
+        assertEquals(-1, light.getColor());
+        assertEquals(new Vector3(0.1f, -1, 0), light.getDirection());
+        assertEquals(ShadowResolution._2048, light.getShadowSettingsDTO().getShadowResolution());
+        assertEquals(128, light.getShadowSettingsDTO().getViewportSize());
+
+        GameObjectDTO tree = scene.getGameObjects().first();
+        assertEquals(3, tree.getId());
+        assertEquals("Tree, big", tree.getName());
+        assertArrayEquals(new float[] {1.25f, 0, 0, 0, 0, 0, 0, 0, 0, 1}, tree.getTransform(), 0);
+        assertEquals("foliage", tree.getTags().first());
+        assertEquals("d7c2e2ac", tree.getModelComponent().getModelID());
+        assertEquals("a1b2", tree.getModelComponent().getMaterials().get("leaves"));
+
+        GameObjectDTO lamp = tree.getChilds().first();
+        assertEquals("Lamp", lamp.getName());
+        assertEquals(LightType.SPOT_LIGHT, lamp.getLightComponent().getLightType());
+        assertEquals(new Color(1, 0.5f, 0, 1), lamp.getLightComponent().getColor());
+        assertEquals(new Vector3(1, 2, 3), lamp.getLightComponent().getPosition());
+        assertEquals(30, lamp.getLightComponent().getCutoff(), 0);
+        assertEquals("a \"quoted\" value", lamp.getCustomPropertiesComponent().getCustomProperties().get("note"));
+    }
+}
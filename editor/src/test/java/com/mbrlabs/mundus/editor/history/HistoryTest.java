@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import com.mbrlabs.mundus.editor.history.Command;
 import com.mbrlabs.mundus.editor.history.CommandHistory;
+import com.mbrlabs.mundus.editor.history.SizedCommand;
 
 /**
  * @author Marcus Brummer
@@ -31,7 +32,7 @@ public class HistoryTest {
 
     @Test
     public void addThenGoBackAndAdd() {
-        CommandHistory history = new CommandHistory(CommandHistory.Companion.getDEFAULT_LIMIT());
+        CommandHistory history = new CommandHistory(CommandHistory.Companion.getDEFAULT_MAX_BYTES());
         int ptr;
 
         ptr = history.add(new MockCommand());
@@ -57,7 +58,7 @@ public class HistoryTest {
 
     @Test
     public void addThenGoBackThenGoForwardOneThenAdd() {
-        CommandHistory history = new CommandHistory(CommandHistory.Companion.getDEFAULT_LIMIT());
+        CommandHistory history = new CommandHistory(CommandHistory.Companion.getDEFAULT_MAX_BYTES());
         int ptr;
 
         ptr = history.add(new MockCommand());
@@ -84,6 +85,44 @@ public class HistoryTest {
         assertEquals(2, history.size());
     }
 
+    @Test
+    public void dropsOldestCommandsOverBudget() {
+        long overhead = CommandHistory.Companion.getCOMMAND_OVERHEAD();
+        CommandHistory history = new CommandHistory(3 * (overhead + 1000));
+
+        history.add(new MockSizedCommand(1000));
+        history.add(new MockSizedCommand(1000));
+        int ptr = history.add(new MockSizedCommand(1000));
+        assertEquals(2, ptr);
+        assertEquals(3, history.size());
+
+        ptr = history.add(new MockSizedCommand(1500));
+        assertEquals(1, ptr);
+        assertEquals(2, history.size());
+        assertEquals(2 * overhead + 2500, history.getSizeInBytes());
+
+        // The newest command stays even if it exceeds the budget on its own
+        ptr = history.add(new MockSizedCommand(10000));
+        assertEquals(0, ptr);
+        assertEquals(1, history.size());
+
+        history.clear();
+        assertEquals(0, history.getSizeInBytes());
+    }
+
+    private class MockSizedCommand extends MockCommand implements SizedCommand {
+        private final long size;
+
+        MockSizedCommand(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return size;
+        }
+    }
+
     private class MockCommand implements Command {
         @Override
         public void execute() {
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.history;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.mbrlabs.mundus.editor.history.commands.TileDelta;
+
+public class TileDeltaTest {
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    @Test
+    public void undoAndRedoChangedCells() {
+        GridBytes grid = new GridBytes();
+        for (int i = 0; i < grid.bytes.length; i++) {
+            grid.bytes[i] = (byte) (i * 31);
+        }
+        byte[] original = grid.bytes.clone();
+
+        TileDelta delta = new TileDelta(WIDTH, HEIGHT, 2, 16);
+        delta.recordBefore(grid, 10, 20, 40, 50);
+        for (int y = 25; y <= 45; y++) {
+            for (int x = 12; x <= 33; x++) {
+                grid.bytes[(y * WIDTH + x) * 2 + 1] += 7;
+            }
+        }
+        byte[] modified = grid.bytes.clone();
+
+        assertTrue(delta.recordAfter(grid));
+        assertEquals(12, delta.getMinX());
+        assertEquals(25, delta.getMinY());
+        assertEquals(33, delta.getMaxX());
+        assertEquals(45, delta.getMaxY());
+        // Less than the raw before and after state of the 9 touched tiles
+        assertTrue(delta.getSizeInBytes() < 2 * 9 * 16 * 16 * 2);
+
+        delta.applyBefore(grid);
+        assertArrayEquals(original, grid.bytes);
+        delta.applyAfter(grid);
+        assertArrayEquals(modified, grid.bytes);
+    }
+
+    @Test
+    public void noChanges() {
+        GridBytes grid = new GridBytes();
+        TileDelta delta = new TileDelta(WIDTH, HEIGHT, 2, 16);
+        delta.recordBefore(grid, 0, 0, WIDTH - 1, HEIGHT - 1);
+        assertFalse(delta.recordAfter(grid));
+    }
+
+    private static class GridBytes implements TileDelta.GridAccess {
+        final byte[] bytes = new byte[WIDTH * HEIGHT * 2];
+
+        @Override
+        public void read(int x, int y, int count, byte[] out, int offset) {
+            System.arraycopy(bytes, (y * WIDTH + x) * 2, out, offset, count * 2);
+        }
+
+        @Override
+        public void write(int x, int y, int count, byte[] data, int offset) {
+            System.arraycopy(data, offset, bytes, (y * WIDTH + x) * 2, count * 2);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mbrlabs.mundus.editor.terrain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ErosionTest {
+    private static final int RESOLUTION = 129;
+
+    @Test
+    public void sameResultForSameSeed() {
+        float[] heights = heights();
+
+        float[] first = new Erosion().seed(7).erode(heights, RESOLUTION, 2f, null);
+        float[] second = new Erosion().seed(7).erode(heights, RESOLUTION, 2f, null);
+        assertArrayEquals(first, second, 0f);
+        assertFalse(Arrays.equals(heights, first));
+
+        float[] other = new Erosion().seed(8).erode(heights, RESOLUTION, 2f, null);
+        assertFalse(Arrays.equals(first, other));
+    }
+
+    @Test
+    public void thermalErosionKeepsMaterial() {
+        float[] heights = heights();
+        float[] eroded = new Erosion().density(0).thermalIterations(20).erode(heights, RESOLUTION, 2f, null);
+
+        assertEquals(sum(heights), sum(eroded), sum(heights) * 1e-4);
+        assertFalse(Arrays.equals(heights, eroded));
+    }
+
+    private static float[] heights() {
+        FractalNoise noise = new FractalNoise(3, 5, 1f / 100f, 2f, 0.5f, 0f);
+        float[] heights = new float[RESOLUTION * RESOLUTION];
+        for (int z = 0; z < RESOLUTION; z++) {
+            for (int x = 0; x < RESOLUTION; x++) {
+                heights[z * RESOLUTION + x] = noise.sample(x * 2f, z * 2f) * 100f;
+            }
+        }
+        return heights;
+    }
+
+    private static double sum(float[] values) {
+        double sum = 0;
+        for (float value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
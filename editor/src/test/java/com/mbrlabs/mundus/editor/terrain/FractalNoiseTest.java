@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.editor.terrain;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class FractalNoiseTest {
+    private static final int RESOLUTION = 129;
+    private static final float SIZE = 400f;
+
+    @Test
+    public void sameSeedSameHeights() {
+        float[] first = fill(generator(42));
+        // Rows are filled in parallel, repeat to catch results depending on the thread order
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(first, fill(generator(42)), 0f);
+        }
+    }
+
+    @Test
+    public void heightsWithinRange() {
+        float[] heights = fill(generator(42).minHeight(-10).maxHeight(40));
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (float height : heights) {
+            assertTrue(height >= -10f && height <= 40f);
+            min = Math.min(min, height);
+            max = Math.max(max, height);
+        }
+        assertTrue(max - min > 10f);
+    }
+
+    @Test
+    public void settingsChangeHeights() {
+        float[] base = fill(generator(1));
+
+        assertFalse(Arrays.equals(base, fill(generator(2))));
+        assertFalse(Arrays.equals(base, fill(generator(1).octaves(2))));
+        assertFalse(Arrays.equals(base, fill(generator(1).warp(0.5f))));
+    }
+
+    private static NoiseGenerator generator(long seed) {
+        return new NoiseGenerator(null, null).seed(seed).scale(100f);
+    }
+
+    private static float[] fill(NoiseGenerator generator) {
+        float[] heights = new float[RESOLUTION * RESOLUTION];
+        generator.fill(heights, RESOLUTION, SIZE, SIZE);
+        return heights;
+    }
+}
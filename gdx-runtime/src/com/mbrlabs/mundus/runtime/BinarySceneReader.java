@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2023. See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mbrlabs.mundus.runtime;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.g3d.environment.BaseLight;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.mbrlabs.mundus.commons.Scene;
+import com.mbrlabs.mundus.commons.assets.AssetManager;
+import com.mbrlabs.mundus.commons.assets.MaterialAsset;
+import com.mbrlabs.mundus.commons.assets.ModelAsset;
+import com.mbrlabs.mundus.commons.assets.TerrainAsset;
+import com.mbrlabs.mundus.commons.assets.WaterAsset;
+import com.mbrlabs.mundus.commons.dto.CustomPropertiesComponentDTO;
+import com.mbrlabs.mundus.commons.dto.DirectionalLightDTO;
+import com.mbrlabs.mundus.commons.dto.LightComponentDTO;
+import com.mbrlabs.mundus.commons.dto.ModelComponentDTO;
+import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.dto.ShadowSettingsDTO;
+import com.mbrlabs.mundus.commons.env.CameraSettings;
+import com.mbrlabs.mundus.commons.importer.BinaryScene;
+import com.mbrlabs.mundus.commons.mapper.BaseLightConverter;
+import com.mbrlabs.mundus.commons.mapper.DirectionalLightConverter;
+import com.mbrlabs.mundus.commons.mapper.FogConverter;
+import com.mbrlabs.mundus.commons.scene3d.GameObject;
+import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
+import com.mbrlabs.mundus.commons.scene3d.components.CustomPropertiesComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.LightComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.TerrainComponent;
+import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
+import com.mbrlabs.mundus.commons.shadows.ShadowResolution;
+import com.mbrlabs.mundus.commons.water.WaterResolution;
+import net.mgsx.gltf.scene3d.lights.PointLightEx;
+import net.mgsx.gltf.scene3d.lights.SpotLightEx;
+
+import java.util.Map;
+
+/**
+ * Builds a {@link Scene} from a {@link BinaryScene} in a single pass, creating game objects and components
+ * directly while reading instead of going through DTOs.
+ */
+public class BinarySceneReader extends BinaryScene.Reader<Scene, GameObject> {
+    private static final String TAG = BinarySceneReader.class.getSimpleName();
+
+    private final AssetManager assetManager;
+
+    public BinarySceneReader(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Sets up the scene like JSON scenes, through the same converters.
+     */
+    @Override
+    protected Scene createScene(SceneDTO dto) {
+        Scene scene = new Scene();
+        scene.setId(dto.getId());
+        scene.setName(dto.getName());
+        scene.skyboxAssetId = dto.getSkyboxAssetId();
+
+        scene.cam.near = dto.getCamNearPlane() > 0 ? dto.getCamNearPlane() : CameraSettings.DEFAULT_NEAR_PLANE;
+        scene.cam.far = dto.getCamFarPlane() > 0 ? dto.getCamFarPlane() : CameraSettings.DEFAULT_FAR_PLANE;
+        if (scene.cam instanceof PerspectiveCamera) {
+            ((PerspectiveCamera) scene.cam).fieldOfView = dto.getCamFieldOfView() > 0
+                    ? dto.getCamFieldOfView() : CameraSettings.DEFAULT_FOV;
+        }
+        scene.cam.update();
+
+        scene.settings.useFrustumCulling = dto.isUseFrustumCulling();
+        scene.settings.useInstancing = dto.isUseInstancing();
+        scene.settings.enableWaterReflections = dto.isEnableWaterReflections();
+        scene.settings.enableWaterRefractions = dto.isEnableWaterRefractions();
+        scene.settings.waterHeight = dto.getWaterHeight();
+        scene.settings.waterResolution = dto.getWaterResolution() == null
+                ? WaterResolution.DEFAULT_WATER_RESOLUTION : dto.getWaterResolution();
+
+        if (dto.getFog() != null) {
+            FogConverter.convert(dto.getFog(), scene.environment);
+        }
+        if (dto.getAmbientLight() != null) {
+            scene.environment.setAmbientLight(BaseLightConverter.convert(dto.getAmbientLight()));
+        }
+        DirectionalLightDTO light = dto.getDirectionalLight();
+        if (light != null && light.getShadowSettingsDTO() != null) {
+            ShadowSettingsDTO shadow = light.getShadowSettingsDTO();
+            if (shadow.getShadowResolution() == null) {
+                shadow.setShadowResolution(ShadowResolution.DEFAULT_SHADOW_RESOLUTION);
+            }
+            scene.setDirectionalLight(DirectionalLightConverter.convert(scene, light));
+        }
+
+        scene.sceneGraph = new SceneGraph(scene);
+        return scene;
+    }
+
+    @Override
+    protected GameObject createGameObject(Scene scene, int id, String name, boolean active, float[] transforms,
+                                          int t) {
+        GameObject go = new GameObject(scene.sceneGraph, name, id);
+        go.active = active;
+        go.translate(transforms[t], transforms[t + 1], transforms[t + 2]);
+        go.rotate(transforms[t + 3], transforms[t + 4], transforms[t + 5], transforms[t + 6]);
+        go.scale(transforms[t + 7], transforms[t + 8], transforms[t + 9]);
+        return go;
+    }
+
+    @Override
+    protected void addTag(GameObject go, String tag) {
+        go.addTag(tag);
+    }
+
+    @Override
+    protected void addModelComponent(GameObject go, ModelComponentDTO dto) {
+        ModelComponent component = new ModelComponent(go);
+        component.setUseModelCache(dto.isUseModelCache());
+        for (Map.Entry<String, String> entry : dto.getMaterials().entrySet()) {
+            component.getMaterials().put(entry.getKey(), assetManager.findAssetByID(entry.getValue(), MaterialAsset.class));
+        }
+
+        ModelAsset model = assetManager.findAssetByID(dto.getModelID(), ModelAsset.class);
+        if (model == null) {
+            Gdx.app.error(TAG, "Could not find model for instance: " + dto.getModelID());
+            return;
+        }
+        // Applies the materials put above
+        component.setModel(model, false);
+        go.getComponents().add(component);
+    }
+
+    @Override
+    protected void addTerrainComponent(GameObject go, String terrainId) {
+        TerrainComponent component = new TerrainComponent(go);
+        component.setTerrainAsset(assetManager.findAssetByID(terrainId, TerrainAsset.class));
+        go.getComponents().add(component);
+    }
+
+    @Override
+    protected void addWaterComponent(GameObject go, String waterId) {
+        WaterAsset waterAsset = assetManager.findAssetByID(waterId, WaterAsset.class);
+        WaterComponent component = new WaterComponent(go, null);
+        component.setWaterAsset(waterAsset);
+        if (waterAsset != null) {
+            waterAsset.water.setTransform(go.getTransform());
+        }
+        go.hasWaterComponent = true;
+        go.sceneGraph.setContainsWater(true);
+        go.getComponents().add(component);
+    }
+
+    @Override
+    protected void addLightComponent(GameObject go, LightComponentDTO dto) {
+        LightComponent component = new LightComponent(go, dto.getLightType());
+        BaseLight light = component.getLight();
+        if (light instanceof PointLightEx) {
+            ((PointLightEx) light).set(dto.getColor(), dto.getPosition(), dto.getIntensity());
+        } else if (light instanceof SpotLightEx) {
+            ((SpotLightEx) light).set(dto.getColor(), dto.getPosition(), dto.getDirection(), dto.getIntensity(),
+                    dto.getCutoff(), dto.getExponential());
+        }
+        go.getComponents().add(component);
+    }
+
+    @Override
+    protected void addCustomPropertiesComponent(GameObject go, CustomPropertiesComponentDTO dto) {
+        CustomPropertiesComponent component = new CustomPropertiesComponent(go);
+        for (ObjectMap.Entry<String, String> entry : dto.getCustomProperties()) {
+            component.put(entry.key, entry.value);
+        }
+        go.getComponents().add(component);
+    }
+
+    @Override
+    protected void addChild(GameObject parent, GameObject child) {
+        parent.addChild(child);
+    }
+
+    @Override
+    protected void addGameObject(Scene scene, GameObject go) {
+        scene.sceneGraph.addGameObject(go);
+    }
+}
@@ -26,11 +26,12 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.assets.AssetManager;
 import com.mbrlabs.mundus.commons.assets.AssetNotFoundException;
+import com.mbrlabs.mundus.commons.assets.bundle.AssetBundle;
 import com.mbrlabs.mundus.commons.assets.meta.MetaFileParseException;
+import com.mbrlabs.mundus.commons.shaders.MundusPBRDepthShaderProvider;
 import com.mbrlabs.mundus.commons.shaders.MundusPBRShaderProvider;
 import com.mbrlabs.mundus.commons.utils.ShaderUtils;
 import net.mgsx.gltf.scene3d.scene.SceneRenderableSorter;
-import net.mgsx.gltf.scene3d.shaders.PBRDepthShaderProvider;
 import net.mgsx.gltf.scene3d.shaders.PBRShaderConfig;
 
 /**
@@ -90,7 +91,14 @@ public class Mundus implements Disposable {
      */
     public Mundus(final FileHandle mundusRoot, Config config) {
         this.root = mundusRoot;
-        this.assetManager = new AssetManager(root.child(PROJECT_ASSETS_DIR));
+        FileHandle assetsFolder = root.child(PROJECT_ASSETS_DIR);
+        this.assetManager = new AssetManager(assetsFolder);
+        this.assetManager.compactTerrainVertices = config.compactTerrainVertices;
+
+        FileHandle bundleFile = assetsFolder.child(AssetBundle.FILE_NAME);
+        if (config.useAssetBundle && bundleFile.exists()) {
+            this.assetManager.setBundle(new AssetBundle(bundleFile));
+        }
         this.sceneLoader = new SceneLoader(this, root.child(PROJECT_SCENES_DIR));
 
         if (config.autoLoad) {
@@ -146,7 +154,7 @@ public class Mundus implements Disposable {
         final Scene scene = sceneLoader.load(name);
         scene.batch = new ModelBatch(new MundusPBRShaderProvider(config), renderableSorter);
 
-        scene.depthBatch = new ModelBatch(new PBRDepthShaderProvider(depthConfig));
+        scene.depthBatch = new ModelBatch(new MundusPBRDepthShaderProvider(depthConfig));
 
         return scene;
     }
@@ -199,6 +207,10 @@ public class Mundus implements Disposable {
         public boolean autoLoad = true;
         /** Load the project asynchronously (true) or synchronously (false)*/
         public boolean asyncLoad = false;
+        /** Load terrains with the compact vertex layout, see Terrain#setCompactVertices */
+        public boolean compactTerrainVertices = false;
+        /** Read the assets from the asset bundle if the project was exported with one, see AssetBundle */
+        public boolean useAssetBundle = true;
 
     }
 
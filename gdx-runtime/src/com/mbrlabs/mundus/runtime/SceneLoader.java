@@ -19,12 +19,14 @@ package com.mbrlabs.mundus.runtime;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.mbrlabs.mundus.commons.Scene;
 import com.mbrlabs.mundus.commons.assets.AssetManager;
 import com.mbrlabs.mundus.commons.assets.ModelAsset;
 import com.mbrlabs.mundus.commons.assets.SkyboxAsset;
 import com.mbrlabs.mundus.commons.dto.SceneDTO;
+import com.mbrlabs.mundus.commons.importer.BinaryScene;
 import com.mbrlabs.mundus.commons.scene3d.GameObject;
 import com.mbrlabs.mundus.commons.scene3d.SceneGraph;
 import com.mbrlabs.mundus.commons.scene3d.components.Component;
@@ -32,6 +34,8 @@ import com.mbrlabs.mundus.commons.scene3d.components.ModelComponent;
 import com.mbrlabs.mundus.commons.scene3d.components.WaterComponent;
 import com.mbrlabs.mundus.runtime.converter.SceneConverter;
 
+import java.io.UnsupportedEncodingException;
+
 /**
  * @author Marcus Brummer
  * @version 27-10-2016
@@ -43,20 +47,25 @@ public class SceneLoader {
     private final AssetManager assetManager;
 
     private final FileHandle root;
+    private final BinarySceneReader binarySceneReader;
 
     public SceneLoader(Mundus mundus, FileHandle scenesRoot) {
         this.mundus = mundus;
         this.assetManager = mundus.getAssetManager();
         this.root = scenesRoot;
+        this.binarySceneReader = new BinarySceneReader(assetManager);
     }
 
     public Scene load(String name) {
-        Json json = new Json();
-
-        // Pass string using readString() instead of FileHandle to support GWT
-        SceneDTO sceneDTO = json.fromJson(SceneDTO.class, root.child(name).readString());
-
-        Scene scene =  SceneConverter.convert(sceneDTO, mundus.getShaders(), assetManager);
+        byte[] data = root.child(name).readBytes();
+
+        Scene scene;
+        if (BinaryScene.isBinaryScene(data)) {
+            // Game objects are complete, no need to init them
+            scene = binarySceneReader.read(data);
+        } else {
+            scene = loadJson(data);
+        }
 
         // Setup skybox
         if (scene.skyboxAssetId != null) {
@@ -66,6 +75,23 @@ public class SceneLoader {
 
         scene.setDepthShader(mundus.getShaders().getDepthShader());
 
+        return scene;
+    }
+
+    private Scene loadJson(byte[] data) {
+        Json json = new Json();
+
+        // Pass string instead of FileHandle to support GWT
+        String string;
+        try {
+            string = new String(data, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+        SceneDTO sceneDTO = json.fromJson(SceneDTO.class, string);
+
+        Scene scene = SceneConverter.convert(sceneDTO, mundus.getShaders(), assetManager);
+
         SceneGraph sceneGraph = scene.sceneGraph;
         for (GameObject go : sceneGraph.getGameObjects()) {
             initGameObject(go);
@@ -84,7 +110,6 @@ public class SceneLoader {
     }
 
     private void initComponents(GameObject go) {
-        Array<ModelAsset> models = assetManager.getModelAssets();
         Array.ArrayIterator<Component> iterator = go.getComponents().iterator();
         while(iterator.hasNext()) {
             Component c = iterator.next();
@@ -96,7 +121,7 @@ public class SceneLoader {
             // Model component
             if (c.getType() == Component.Type.MODEL) {
                 ModelComponent modelComponent = (ModelComponent) c;
-                ModelAsset model = findModelById(models, modelComponent.getModelAsset().getID());
+                ModelAsset model = assetManager.findAssetByID(modelComponent.getModelAsset().getID(), ModelAsset.class);
                 if (model != null) {
                     modelComponent.setModel(model, false);
                 } else {
@@ -109,14 +134,4 @@ public class SceneLoader {
         }
     }
 
-    private ModelAsset findModelById(Array<ModelAsset> models, String id) {
-        for (ModelAsset m : models) {
-            if (m.getID().equals(id)) {
-                return m;
-            }
-        }
-
-        return null;
-    }
-
 }
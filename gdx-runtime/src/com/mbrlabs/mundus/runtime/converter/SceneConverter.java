@@ -69,6 +69,7 @@ public class SceneConverter {
 
         scene.settings.waterHeight = dto.getWaterHeight();
         scene.settings.useFrustumCulling = dto.isUseFrustumCulling();
+        scene.settings.useInstancing = dto.isUseInstancing();
         scene.settings.enableWaterReflections = dto.isEnableWaterReflections();
         scene.settings.enableWaterRefractions = dto.isEnableWaterRefractions();
 